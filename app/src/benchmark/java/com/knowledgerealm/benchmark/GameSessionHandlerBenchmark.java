@@ -0,0 +1,115 @@
+package com.knowledgerealm.benchmark;
+
+import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
+import com.knowledgerealm.enums.TriviaApiDifficultyEnum;
+import com.knowledgerealm.handlers.GameSessionHandler;
+import com.knowledgerealm.helpers.ClockHelper;
+import com.knowledgerealm.models.TriviaQuestion;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays whole game sessions of ready questions on a virtual clock, answering every question as soon as it is shown,
+ * so only the game loop, the timers and the scoring are measured.
+ * Run with "-prof gc" for the bytes allocated per session.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GameSessionHandlerBenchmark {
+    private static final int MAX_QUESTIONS = 10;
+    private static final long REVEAL_DURATION = GameSessionHandler.DEFAULT_REVEAL_DURATION;
+
+    private final List<CompletableFuture<TriviaQuestion>> questions = createQuestions();
+
+    private static List<CompletableFuture<TriviaQuestion>> createQuestions() {
+        List<CompletableFuture<TriviaQuestion>> questions = new ArrayList<>(MAX_QUESTIONS);
+        for (int i = 0; i < MAX_QUESTIONS; i++) {
+            questions.add(CompletableFuture.completedFuture(new TriviaQuestion("Which answer of question " + i + " is correct?", "Correct",
+                    Arrays.asList("Wrong 1", "Wrong 2", "Wrong 3"), TriviaApiCategoriesEnum.getEnum(9), TriviaApiDifficultyEnum.EASY)));
+        }
+        return questions;
+    }
+
+    /**
+     * Runs the tasks of the session in the order of their virtual time, on the calling thread
+     */
+    private static class VirtualTimer implements ClockHelper.Clock, ClockHelper.Timer {
+        private final PriorityQueue<long[]> taskTimes = new PriorityQueue<>((first, second) -> first[0] != second[0]
+                ? Long.compare(first[0], second[0]) : Long.compare(first[1], second[1]));
+        private final List<Runnable> tasks = new ArrayList<>();
+        private long now;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+
+        @Override
+        public void schedule(Runnable task, long delayMillis) {
+            taskTimes.add(new long[]{now + delayMillis, tasks.size()});
+            tasks.add(task);
+        }
+
+        /**
+         * Runs all the tasks, the clock stops at the last one
+         */
+        void runAll() {
+            while (!taskTimes.isEmpty()) {
+                long[] taskTime = taskTimes.poll();
+                now = taskTime[0];
+                tasks.get((int) taskTime[1]).run();
+            }
+        }
+    }
+
+    /**
+     * Answers every question correctly as soon as it is shown
+     */
+    private static class AnsweringListener implements GameSessionHandler.Listener {
+        GameSessionHandler gameSession;
+        GameSessionHandler.Result result;
+
+        @Override
+        public void onQuestionStarted(int questionNumber, TriviaQuestion question, long timeBudget) {
+            gameSession.answer(question.getCorrectAnswerIndex());
+        }
+
+        @Override
+        public void onAnswerRevealed(int questionNumber, int answerIndex, int correctAnswerIndex, int points) {
+        }
+
+        @Override
+        public void onGameFinished(GameSessionHandler.Result result) {
+            this.result = result;
+        }
+    }
+
+    @Benchmark
+    public int playSession() {
+        VirtualTimer timer = new VirtualTimer();
+        AnsweringListener listener = new AnsweringListener();
+        listener.gameSession = new GameSessionHandler(questions::get, timer, timer, listener, MAX_QUESTIONS, REVEAL_DURATION);
+        listener.gameSession.start();
+        timer.runAll();
+        return listener.result.getPoints();
+    }
+}
@@ -0,0 +1,39 @@
+package com.knowledgerealm.benchmark;
+
+import com.knowledgerealm.helpers.TextReadTimeEstimatorHelper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the word count of the TextReadTimeEstimatorHelper with the regular expression split it replaced,
+ * on the text of a question and its answers. Run with "-prof gc" for the bytes allocated per text.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TextReadTimeEstimatorHelperBenchmark {
+    private final String text = "Which of these planets is the largest in the Solar System? Jupiter Saturn Neptune Earth";
+
+    @Benchmark
+    public int countWords() {
+        return TextReadTimeEstimatorHelper.countWords(text);
+    }
+
+    @Benchmark
+    public int regexSplit() {
+        return text.trim().split("\\s+").length;
+    }
+}
@@ -0,0 +1,62 @@
+package com.knowledgerealm.benchmark;
+
+import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
+import com.knowledgerealm.enums.TriviaApiDifficultyEnum;
+import com.knowledgerealm.models.TriviaQuestion;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders the answers of a question and scores a tap on one of them, the way a question screen does,
+ * with the answer order of the TriviaQuestion computed once and with the answers copied and shuffled on every render.
+ * Run with "-prof gc" for the bytes allocated per render.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TriviaQuestionBenchmark {
+    private final TriviaQuestion question = new TriviaQuestion("Which planet is known as the Red Planet?", "Mars",
+            Arrays.asList("Venus", "Jupiter", "Saturn"), TriviaApiCategoriesEnum.getEnum(17), TriviaApiDifficultyEnum.MEDIUM);
+    private int tappedAnswer;
+
+    @Benchmark
+    public int precomputedOrder() {
+        int tapped = tappedAnswer++ % question.getAnswerCount();
+        int length = 0;
+        for (int i = 0; i < question.getAnswerCount(); i++) {
+            length += question.getAnswer(i).length();
+        }
+        return question.isCorrectAnswer(tapped) ? length + question.getPoints() : length;
+    }
+
+    @Benchmark
+    public int shuffledOnEveryRender() {
+        List<String> answers = new ArrayList<>(question.getIncorrectAnswers());
+        answers.add(question.getCorrectAnswer());
+        Collections.shuffle(answers);
+
+        int tapped = tappedAnswer++ % answers.size();
+        int length = 0;
+        for (String answer : answers) {
+            length += answer.length();
+        }
+        return answers.get(tapped).equals(question.getCorrectAnswer()) ? length + question.getPoints() : length;
+    }
+}
@@ -0,0 +1,140 @@
+package com.knowledgerealm.benchmark;
+
+import static com.knowledgerealm.helpers.HtmlHelper.decodeHtml;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
+import com.knowledgerealm.enums.TriviaApiDifficultyEnum;
+import com.knowledgerealm.enums.TriviaApiEncodingEnum;
+import com.knowledgerealm.helpers.TriviaResponseDecoderHelper;
+import com.knowledgerealm.models.TriviaQuestion;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming decoding of an api.php response with the tree decoding it replaced,
+ * which read the whole body into a String and built a JsonNode tree with a new ObjectMapper per call.
+ * It also compares the encodings the Trivia API can be asked for, on the same questions in each encoding.
+ * The time of an operation is the time until the questions of a game are ready, run with "-prof gc"
+ * for the bytes allocated per response.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TriviaResponseDecoderBenchmark {
+
+    /**
+     * A response of questionCount questions with the text in HTML entities
+     */
+    @State(Scope.Benchmark)
+    public static class GeneratedResponse {
+        @Param({"10", "50"})
+        public int questionCount;
+
+        byte[] body;
+
+        @Setup
+        public void createBody() {
+            StringBuilder json = new StringBuilder("{\"response_code\":0,\"results\":[");
+            for (int i = 0; i < questionCount; i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append("{\"type\":\"multiple\",\"difficulty\":\"medium\",\"category\":\"Science &amp; Nature\",")
+                        .append("\"question\":\"Which of these is the &quot;heaviest&quot; of the noble gases, question ").append(i).append("?\",")
+                        .append("\"correct_answer\":\"Radon\",")
+                        .append("\"incorrect_answers\":[\"Xenon\",\"Krypton\",\"Argon&#039;s neighbour\"]}");
+            }
+            body = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * The fixture response of the unit tests in the encoding, the same 24 questions with quotes, ampersands and non-ASCII text
+     */
+    @State(Scope.Benchmark)
+    public static class EncodedResponse {
+        @Param({"DEFAULT", "BASE64", "URL3986"})
+        public TriviaApiEncodingEnum encoding;
+
+        byte[] body;
+
+        @Setup
+        public void loadBody() throws IOException {
+            String name = "/fixtures/questions_" + encoding.name().toLowerCase() + ".json";
+            try (InputStream fixture = TriviaResponseDecoderBenchmark.class.getResourceAsStream(name)) {
+                if (fixture == null) {
+                    throw new IOException("Missing fixture " + name);
+                }
+                body = readString(fixture).getBytes(StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<TriviaQuestion> streamingDecoder(GeneratedResponse response) throws IOException {
+        return TriviaResponseDecoderHelper.decodeQuestions(new ByteArrayInputStream(response.body)).getTriviaQuestions();
+    }
+
+    @Benchmark
+    public List<TriviaQuestion> streamingDecoderByEncoding(EncodedResponse response) throws IOException {
+        return TriviaResponseDecoderHelper.decodeQuestions(new ByteArrayInputStream(response.body), response.encoding).getTriviaQuestions();
+    }
+
+    @Benchmark
+    public List<TriviaQuestion> treeDecoder(GeneratedResponse response) throws IOException {
+        String content = readString(new ByteArrayInputStream(response.body));
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonNode rootNode = objectMapper.readTree(content);
+
+        List<TriviaQuestion> triviaQuestions = new ArrayList<>();
+        for (JsonNode resultNode : rootNode.get("results")) {
+            List<String> incorrectAnswers = new ArrayList<>();
+            for (JsonNode incorrectAnswerNode : resultNode.get("incorrect_answers")) {
+                incorrectAnswers.add(decodeHtml(incorrectAnswerNode.asText()));
+            }
+            triviaQuestions.add(new TriviaQuestion(
+                    decodeHtml(resultNode.get("question").asText()),
+                    decodeHtml(resultNode.get("correct_answer").asText()),
+                    incorrectAnswers,
+                    TriviaApiCategoriesEnum.getEnumByName(decodeHtml(resultNode.get("category").asText())),
+                    TriviaApiDifficultyEnum.valueOf(decodeHtml(resultNode.get("difficulty").asText()).toUpperCase())));
+        }
+        return triviaQuestions;
+    }
+
+    /**
+     * Reads the body the way the removed string path did, before parsing it, also used to read the fixtures
+     */
+    private static String readString(InputStream body) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = body.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, read);
+        }
+        return outputStream.toString("UTF-8");
+    }
+}
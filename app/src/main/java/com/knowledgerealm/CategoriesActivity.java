@@ -3,7 +3,6 @@ package com.knowledgerealm;
 import androidx.appcompat.app.AppCompatActivity;
 
 import android.annotation.SuppressLint;
-import android.app.Dialog;
 import android.content.Intent;
 import android.os.Bundle;
 import android.view.LayoutInflater;
@@ -13,25 +12,20 @@ import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
-import com.knowledgerealm.handlers.TriviaApiHandler;
-import com.knowledgerealm.helpers.CategoriesResponseHelper;
-import com.knowledgerealm.helpers.InternetConnectivityHelper;
+import com.knowledgerealm.handlers.CategoriesRepositoryHandler;
 import com.knowledgerealm.helpers.SettingsSaveStatesHelper;
-import com.knowledgerealm.helpers.UiHelpers;
+
+import java.util.List;
 
 
 public class CategoriesActivity extends AppCompatActivity {
     ImageView back;
     LinearLayout allCategoriesLayout;
     TextView stateMessage;
-    Dialog progressDialog;
     TextView title;
 
-    // Internet connectivity helper
-    InternetConnectivityHelper internetConnectivityHelper;
-
-    // Trivia api data
-    CategoriesResponseHelper categoriesResponseHelper;
+    // Category catalogue
+    CategoriesRepositoryHandler categoriesRepositoryHandler;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -45,40 +39,31 @@ public class CategoriesActivity extends AppCompatActivity {
         stateMessage = findViewById(R.id.stateMessage);
 
         // Initialize other
-        internetConnectivityHelper = new InternetConnectivityHelper(this);
+        categoriesRepositoryHandler = CategoriesRepositoryHandler.getInstance(this);
 
         // Set all listeners
         setAllListeners();
 
-        // load the question and play the game
-        hideAllUIElements();
-        progressDialog = UiHelpers.showProgressIndicator(this, "Loading categories...");
-        new Thread(this::loadTheCategoriesAndContinue).start();
-    }
-
-    /**
-     * Load the categories and continue
-     */
-    private void loadTheCategoriesAndContinue() {
-        categoriesResponseHelper = TriviaApiHandler.getAllCategories();
-        runOnUiThread(() -> {
-            showAllUIElements();
-            checkInternetConnectivity();
-            progressDialog.dismiss();
-        });
+        // show the last known categories right away, they are revalidated in the background
+        showAllUIElements();
+        showCategories(categoriesRepositoryHandler.getCategories(
+                categories -> runOnUiThread(() -> showCategories(categories))
+        ));
     }
 
     /**
-     * Check if the device is connected to the internet and get all categories
+     * Show the categories and select the saved one, if any
+     *
+     * @param categories the category names to show
      */
-    private void checkInternetConnectivity() {
-        if (internetConnectivityHelper.isInternetConnected()) {
-            getCategories();
-            selectSavedCategoryIfAny();
-        } else {
-            hideAllUIElements();
-            internetConnectivityHelper.showNoInternetConnectionDialog(SettingsActivity.class);
+    private void showCategories(List<String> categories) {
+        if (isFinishing() || isDestroyed()) {
+            return;
         }
+
+        allCategoriesLayout.removeAllViews();
+        getCategories(categories);
+        selectSavedCategoryIfAny();
     }
 
     /**
@@ -110,14 +95,16 @@ public class CategoriesActivity extends AppCompatActivity {
     }
 
     /**
-     * Get all categories from the API and add them to the layout
+     * Add the categories to the layout
+     *
+     * @param categories the category names to add
      */
     @SuppressLint("UseCompatLoadingForDrawables")
-    private void getCategories() {
-        if (categoriesResponseHelper.success) {
+    private void getCategories(List<String> categories) {
+        if (!categories.isEmpty()) {
             LayoutInflater inflater = LayoutInflater.from(this);
 
-            for (String category : categoriesResponseHelper.categories) {
+            for (String category : categories) {
                 View categoryView = inflater.inflate(R.layout.settings_item, allCategoriesLayout, false);
                 TextView categoryText = categoryView.findViewById(R.id.itemText);
 
@@ -166,13 +153,4 @@ public class CategoriesActivity extends AppCompatActivity {
         title.setVisibility(View.VISIBLE);
     }
 
-    /**
-     * Set to gone all UI elements
-     */
-    private void hideAllUIElements() {
-        allCategoriesLayout.setVisibility(View.GONE);
-        back.setVisibility(View.GONE);
-        title.setVisibility(View.GONE);
-    }
-
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.knowledgerealm;
+
+import android.app.Application;
+
+import com.knowledgerealm.handlers.QuestionCountIndexHandler;
+import com.knowledgerealm.handlers.ReadingSpeedHandler;
+import com.knowledgerealm.handlers.SeenQuestionFilterHandler;
+import com.knowledgerealm.handlers.SettingsStoreHandler;
+import com.knowledgerealm.handlers.TokenPoolHandler;
+import com.knowledgerealm.helpers.HttpRequestAsyncHelper;
+
+/**
+ * Application class of Knowledge Realm, sets up the process-wide helpers once when the app starts.
+ */
+public class KnowledgeRealmApplication extends Application {
+
+    /**
+     * Called when the application is starting
+     */
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        HttpRequestAsyncHelper.initialize(this);
+        SettingsStoreHandler.getInstance(this).loadAsync();
+        TokenPoolHandler.getInstance(this).loadAsync();
+        SeenQuestionFilterHandler.getInstance(this).loadAsync();
+        QuestionCountIndexHandler.getInstance(this).loadAsync();
+        ReadingSpeedHandler.getInstance(this).loadAsync();
+    }
+}
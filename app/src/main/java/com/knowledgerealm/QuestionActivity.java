@@ -5,9 +5,9 @@ import static com.knowledgerealm.helpers.UiHelpers.showExitGamePlayDialog;
 import android.annotation.SuppressLint;
 import android.app.Dialog;
 import android.content.Intent;
+import android.graphics.drawable.Drawable;
 import android.os.Bundle;
-import android.os.CountDownTimer;
-import android.util.Log;
+import android.os.SystemClock;
 import android.view.ContextThemeWrapper;
 import android.view.View;
 import android.widget.Button;
@@ -20,17 +20,19 @@ import android.widget.TextView;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 
+import com.knowledgerealm.handlers.GameSessionHandler;
 import com.knowledgerealm.handlers.OnQuestionActivityHandler;
+import com.knowledgerealm.handlers.ReadingSpeedHandler;
 import com.knowledgerealm.helpers.InternetConnectivityHelper;
+import com.knowledgerealm.helpers.QuestionTimerHelper;
+import com.knowledgerealm.helpers.TransitionSchedulerHelper;
 import com.knowledgerealm.helpers.UiHelpers;
 import com.knowledgerealm.models.TriviaQuestion;
 
-import java.util.ArrayList;
-
 /**
- * Activity for the questions
+ * Activity for the questions, it only renders the events of the game session
  */
-public class QuestionActivity extends BaseMusicActivity {
+public class QuestionActivity extends BaseMusicActivity implements GameSessionHandler.Listener, QuestionTimerHelper.Listener {
 
     // UI elements
     private TextView questionText;
@@ -49,18 +51,18 @@ public class QuestionActivity extends BaseMusicActivity {
 
     // Other variables
     private OnQuestionActivityHandler onQuestionActivityHandler;
+    private GameSessionHandler gameSession;
     private InternetConnectivityHelper internetConnectivityHelper;
-    private ArrayList<Button> answerButtons;
-    private int currentQuestionNumber;
-    private int allPoints;
-    private int correctAnswers;
-    private CountDownTimer countDownTimer;
-    private boolean timeIsUpPlayed = false;
+    // The pool of answer buttons, created once per game and rebound to every question
+    private AnswerButton[] answerButtons;
+    private int answerCount;
+    private TransitionSchedulerHelper transitionScheduler;
+    private QuestionTimerHelper questionTimer;
 
     // Constants
     private final int TIME_DELAY = 1500;
     private final int MAX_QUESTIONS = 10;
-    private final int MAX_TIME_EACH_QUESTION = 10000;
+    private static final int MAX_ANSWERS = 4;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -89,15 +91,14 @@ public class QuestionActivity extends BaseMusicActivity {
         pointsText.setText("0");
 
         internetConnectivityHelper = new InternetConnectivityHelper(this);
-        answerButtons = new ArrayList<>();
-        currentQuestionNumber = 0;
-        allPoints = 0;
-        correctAnswers = 0;
+        createAnswerButtons();
+        transitionScheduler = new TransitionSchedulerHelper();
+        questionTimer = new QuestionTimerHelper(transitionScheduler, this);
 
         // load the question and play the game
         hideAllUIElements();
         progressDialog = UiHelpers.showProgressIndicator(this, "Loading the game...");
-        new Thread(this::loadTheQuestionFromTheApi).start();
+        loadTheQuestionFromTheApi();
     }
 
     /**
@@ -107,7 +108,8 @@ public class QuestionActivity extends BaseMusicActivity {
     public void onBackPressed() {
         showExitGamePlayDialog(this, exit -> {
             if (exit) {
-                countDownTimer.cancel();
+                stopGame();
+                onQuestionActivityHandler.cancel();
                 cancelAll();
                 finish();
             }
@@ -116,26 +118,81 @@ public class QuestionActivity extends BaseMusicActivity {
     }
 
 
+    /**
+     * Pauses the game and its timer while the activity is not in the foreground
+     */
+    @Override
+    protected void onPause() {
+        super.onPause();
+        questionTimer.pause();
+        if (gameSession != null) {
+            gameSession.pause();
+        }
+    }
+
+    /**
+     * Resumes the game and its timer with the time left when they were paused
+     */
+    @Override
+    protected void onResume() {
+        super.onResume();
+        if (gameSession != null) {
+            gameSession.resume();
+        }
+        questionTimer.resume();
+    }
+
+    /**
+     * Drops the pending transitions of the game when the activity is destroyed
+     */
+    @Override
+    protected void onDestroy() {
+        stopGame();
+        super.onDestroy();
+    }
+
+    /**
+     * Stops the game session, its timer and its pending transitions, nothing of the game runs after it
+     */
+    private void stopGame() {
+        if (gameSession != null && !gameSession.isFinished()) {
+            // keep what was learned of the reading speed of the player
+            ReadingSpeedHandler.getInstance(this).saveAsync();
+        }
+        transitionScheduler.cancel();
+        questionTimer.cancel();
+        if (gameSession != null) {
+            gameSession.cancel();
+        }
+    }
+
     /**
      * Loads the question and plays the game
      */
     private void loadTheQuestionFromTheApi() {
         onQuestionActivityHandler = new OnQuestionActivityHandler(this, MAX_QUESTIONS);
-        runOnUiThread(() -> {
+        onQuestionActivityHandler.loadQuestionsAsync().thenAccept(isLoaded -> runOnUiThread(() -> {
             showAllUIElements();
             setButtonListeners();
-            checkInternetConnectionAndBegin();
+            checkInternetConnectionAndBegin(isLoaded);
             progressDialog.dismiss();
-        });
+        }));
     }
 
     /**
-     * Checks if the is internet connection and if there is, it loads the questions
+     * Begins the game if the first question was loaded, from the network or the offline question bank,
      * otherwise it shows a dialog for no internet connection
+     *
+     * @param isLoaded true if the first question was loaded, false otherwise
      */
-    private void checkInternetConnectionAndBegin() {
-        if (internetConnectivityHelper.isInternetConnected()) {
-            nextQuestion();
+    private void checkInternetConnectionAndBegin(boolean isLoaded) {
+        if (isLoaded) {
+            // a category with fewer questions than asked for plays a shorter game
+            int maxQuestions = onQuestionActivityHandler.getMaxQuestions();
+            questionsProgressBar.setMax(maxQuestions - 1);
+            gameSession = new GameSessionHandler(onQuestionActivityHandler, SystemClock::uptimeMillis, transitionScheduler,
+                    this, maxQuestions, TIME_DELAY, ReadingSpeedHandler.getInstance(this).getReadingSpeedModel());
+            gameSession.start();
         } else {
             hideAllUIElements();
             internetConnectivityHelper.showNoInternetConnectionDialog(MainActivity.class);
@@ -143,181 +200,179 @@ public class QuestionActivity extends BaseMusicActivity {
     }
 
     /**
-     * Starts the countdown timer for the question with a mutable time
+     * Shows the question that the game session started
+     *
+     * @param questionNumber the index of the question in the game
+     * @param question       the question
+     * @param timeBudget     the time to answer the question, in milliseconds
      */
-    public void startCountdownTimeForQuestion() {
-        // get the estimated time to read the question and its answer choices
-        int waitTimeForEachQuestion = onQuestionActivityHandler.estimateReadTime(currentQuestionNumber, MAX_TIME_EACH_QUESTION);
+    @Override
+    public void onQuestionStarted(int questionNumber, TriviaQuestion question, long timeBudget) {
+        if (isFinishing()) {
+            return;
+        }
 
-        // set the progress bar for the time
-        timeProgressBarForEachQuestion.setMax(waitTimeForEachQuestion);
-        timeProgressBarForEachQuestion.setProgress(waitTimeForEachQuestion);
-
-        // start the countdown timer
-        countDownTimer = new CountDownTimer(waitTimeForEachQuestion, 1) {
-            @Override
-            public void onTick(long millisUntilFinished) {
-                timeProgressBarForEachQuestion.setProgress((int) millisUntilFinished);
-
-                if (millisUntilFinished < 3000 && !timeIsUpPlayed) {
-                    timeIsUpPlayed = true;
-                    playTimeUpSound();
-                }
-            }
+        questionsProgressBar.setProgress(questionNumber);
+        renewGameInfo(questionNumber);
+        beginMusic();
+        setQuestion(question);
+        startCountdownTimeForQuestion(timeBudget);
+    }
 
-            @Override
-            public void onFinish() {
-                checkAnswerAndDelayNextQuestion(currentQuestionNumber, false);
+    /**
+     * Shows the correct answer, and the answer given if it was wrong
+     *
+     * @param questionNumber     the index of the question in the game
+     * @param answerIndex        the position of the answer given, or NO_ANSWER if the time is up
+     * @param correctAnswerIndex the position of the correct answer
+     * @param points             the points of the game so far
+     */
+    @Override
+    public void onAnswerRevealed(int questionNumber, int answerIndex, int correctAnswerIndex, int points) {
+        questionTimer.cancel();
+
+        if (answerIndex != GameSessionHandler.NO_ANSWER) {
+            if (answerIndex == correctAnswerIndex) {
+                pointsText.setText(String.valueOf(points));
+                playCorrectSound();
+            } else {
+                playIncorrectSound();
             }
+        }
 
-        }.start();
+        setAllButtonsToNoClickable();
+        highlightAnswerButtons(answerIndex, correctAnswerIndex);
     }
 
     /**
-     * Calls the next question
+     * Shows the result of the game
+     *
+     * @param result the result of the game
      */
-    private void nextQuestion() {
-        if (currentQuestionNumber == MAX_QUESTIONS) {
-            Intent resultIntent = new Intent(this, ResultActivity.class);
-            resultIntent.putExtra("points", allPoints);
-            resultIntent.putExtra("correctAnswers", correctAnswers);
-            resultIntent.putExtra("maxQuestions", MAX_QUESTIONS);
-            startActivity(resultIntent);
-            finish();
+    @Override
+    public void onGameFinished(GameSessionHandler.Result result) {
+        transitionScheduler.cancel();
+        ReadingSpeedHandler.getInstance(this).saveAsync();
+        onQuestionActivityHandler.cancel();
+        if (isFinishing()) {
             return;
         }
 
-        renewGameInfo();
-        beginMusic();
-        setQuestion(currentQuestionNumber);
-        startCountdownTimeForQuestion();
-        checkAnswerAndDelayNextQuestion(currentQuestionNumber, true);
+        Intent resultIntent = new Intent(this, ResultActivity.class);
+        resultIntent.putExtra("points", result.getPoints());
+        resultIntent.putExtra("correctAnswers", result.getCorrectAnswers());
+        resultIntent.putExtra("maxQuestions", result.getPlayedQuestions());
+        startActivity(resultIntent);
+        finish();
     }
 
     /**
-     * Set the question text and answer buttons
+     * Starts the timer of the question, it only renders the time left, the game session decides when the time is up
      *
-     * @param questionNumber the index of the question in the list
+     * @param timeBudget the time to answer the question, in milliseconds
      */
-    private void setQuestion(Integer questionNumber) {
-        TriviaQuestion question = onQuestionActivityHandler.getQuestion(questionNumber);
-        if (question != null) {
-            questionText.setText(question.getQuestion());
-
-            answersLayout.removeAllViews();
-            answerButtons.clear();
-
-            for (String answer : question.getAllAnswersRandomized()) {
-                Button answerButton = new Button(new ContextThemeWrapper(this, R.style.AnswerButton), null, 0);
-                answerButton.setLayoutParams(answerBtn.getLayoutParams());
-                answerButton.setText(answer);
+    public void startCountdownTimeForQuestion(long timeBudget) {
+        // set the progress bar for the time
+        timeProgressBarForEachQuestion.setMax((int) timeBudget);
+        timeProgressBarForEachQuestion.setProgress((int) timeBudget);
 
-                answerButtons.add(answerButton);
-                answersLayout.addView(answerButton);
-            }
-        } else {
-            Log.e("QuestionActivity", "Error displaying answer choices");
-        }
+        questionTimer.start(timeBudget);
     }
 
     /**
-     * Renew the game info (difficulty and category)
+     * Renders the time left of the question, at most once per frame
+     *
+     * @param remainingTime the time left, in milliseconds
      */
-    private void renewGameInfo() {
-        timeIsUpPlayed = false;
-        difficultyText.setText(onQuestionActivityHandler.getDifficulty(currentQuestionNumber));
-        categoryText.setText(onQuestionActivityHandler.getCategory(currentQuestionNumber));
+    @Override
+    public void onTimeUpdate(long remainingTime) {
+        timeProgressBarForEachQuestion.setProgress((int) remainingTime);
     }
 
     /**
-     * Checks the answer (if it was answered) and delays the next question
-     *
-     * @param questionNumber the index of the question in the list
-     * @param wasAnswered    true if the question was answered, false otherwise
+     * Plays the time up sound when the question is about to expire
      */
-    private void checkAnswerAndDelayNextQuestion(Integer questionNumber, boolean wasAnswered) {
-        if (!wasAnswered) {
-            setAllButtonsToNoClickable();
-            highlightAnswerButtons(null);
-
-            delayNextQuestion();
-            return;
-        }
-
-        // Check if the answer is correct
-        for (Button answerButton : answerButtons) {
-            answerButton.setOnClickListener(v -> {
-                countDownTimer.cancel();
-
-                if (onQuestionActivityHandler.checkAnswer(questionNumber, answerButton.getText().toString())) {
-                    setPointsOnCorrectAnswer();
-                    playCorrectSound();
-                    correctAnswers++;
-                } else {
-                    playIncorrectSound();
-                }
-
-                setAllButtonsToNoClickable();
-                highlightAnswerButtons(answerButton);
+    @Override
+    public void onWarning() {
+        playTimeUpSound();
+    }
 
-                delayNextQuestion();
-            });
-        }
+    /**
+     * Empties the progress bar when the time is up
+     */
+    @Override
+    public void onExpired() {
+        timeProgressBarForEachQuestion.setProgress(0);
     }
 
     /**
-     * Delays the next question and updates the screen
+     * Creates the pool of answer buttons and loads their backgrounds, once per game,
+     * so moving to the next question does not construct views or inflate the theme
      */
-    private void delayNextQuestion() {
-        new Thread(() -> {
-            try {
-                Thread.sleep(TIME_DELAY);
-            } catch (InterruptedException e) {
-                Log.e("QuestionActivity", "Error delaying next question");
-            }
-            updateScreen();
-            runOnUiThread(this::nextQuestion);
-        }).start();
+    @SuppressLint("UseCompatLoadingForDrawables")
+    private void createAnswerButtons() {
+        ContextThemeWrapper answerButtonTheme = new ContextThemeWrapper(this, R.style.AnswerButton);
+        answerButtons = new AnswerButton[MAX_ANSWERS];
+
+        for (int answerIndex = 0; answerIndex < MAX_ANSWERS; answerIndex++) {
+            Button button = new Button(answerButtonTheme, null, 0);
+            button.setLayoutParams(answerBtn.getLayoutParams());
+            button.setVisibility(View.GONE);
+            // the position of the answer in the question, so a tap is checked without comparing texts
+            button.setTag(answerIndex);
+
+            int tappedAnswerIndex = answerIndex;
+            button.setOnClickListener(v -> gameSession.answer(tappedAnswerIndex));
+
+            answerButtons[answerIndex] = new AnswerButton(button, getDrawable(R.drawable.correct_answer_button_bg),
+                    getDrawable(R.drawable.incorrect_answer_button_bg), getDrawable(R.drawable.disabled_answer_button_bg));
+            answersLayout.addView(button);
+        }
     }
 
     /**
-     * Sets the points on the screen based on the current question
+     * Set the question text and rebind the answer buttons, the buttons without an answer are hidden
+     *
+     * @param question the question to show
      */
-    private void setPointsOnCorrectAnswer() {
-        allPoints += onQuestionActivityHandler.getPoints(currentQuestionNumber);
-        pointsText.setText(String.valueOf(allPoints));
+    private void setQuestion(TriviaQuestion question) {
+        questionText.setText(question.getQuestion());
+
+        answerCount = Math.min(question.getAnswerCount(), MAX_ANSWERS);
+        for (int answerIndex = 0; answerIndex < MAX_ANSWERS; answerIndex++) {
+            AnswerButton answerButton = answerButtons[answerIndex];
+            if (answerIndex < answerCount) {
+                answerButton.bind(question.getAnswer(answerIndex));
+            } else {
+                answerButton.button.setVisibility(View.GONE);
+            }
+        }
     }
 
     /**
-     * Updates the progress bar and the current question number
+     * Renew the game info (difficulty and category)
+     *
+     * @param questionNumber the index of the question in the game
      */
-    private void updateScreen() {
-        currentQuestionNumber++;
-        questionsProgressBar.setProgress(currentQuestionNumber);
+    private void renewGameInfo(int questionNumber) {
+        difficultyText.setText(onQuestionActivityHandler.getDifficulty(questionNumber));
+        categoryText.setText(onQuestionActivityHandler.getCategory(questionNumber));
     }
 
     /**
      * Highlights the correct answer and the incorrect answer
      *
-     * @param answerButton the button that was clicked
+     * @param answerIndex        the position of the answer that was clicked, or NO_ANSWER if the time is up
+     * @param correctAnswerIndex the position of the correct answer
      */
-    @SuppressLint("UseCompatLoadingForDrawables")
-    private void highlightAnswerButtons(Button answerButton) {
-        if (answerButton == null) {
-            for (Button button : answerButtons) {
-                if (button.getText().toString().equals(onQuestionActivityHandler.getCorrectAnswer(currentQuestionNumber)))
-                    button.setBackground(getDrawable(R.drawable.correct_answer_button_bg));
-                else button.setBackground(getDrawable(R.drawable.disabled_answer_button_bg));
-            }
-            return;
-        }
-
-        for (Button button : answerButtons) {
-            if (button.getText().toString().equals(onQuestionActivityHandler.getCorrectAnswer(currentQuestionNumber)))
-                button.setBackground(getDrawable(R.drawable.correct_answer_button_bg));
-            else if (button.getText().toString().equals(answerButton.getText().toString()))
-                button.setBackground(getDrawable(R.drawable.incorrect_answer_button_bg));
-            else button.setBackground(getDrawable(R.drawable.disabled_answer_button_bg));
+    private void highlightAnswerButtons(int answerIndex, int correctAnswerIndex) {
+        for (int buttonIndex = 0; buttonIndex < answerCount; buttonIndex++) {
+            AnswerButton answerButton = answerButtons[buttonIndex];
+            if (buttonIndex == correctAnswerIndex)
+                answerButton.showBackground(answerButton.correctBackground);
+            else if (buttonIndex == answerIndex)
+                answerButton.showBackground(answerButton.incorrectBackground);
+            else answerButton.showBackground(answerButton.disabledBackground);
         }
     }
 
@@ -325,8 +380,8 @@ public class QuestionActivity extends BaseMusicActivity {
      * Sets all the answer buttons to not clickable
      */
     private void setAllButtonsToNoClickable() {
-        for (Button button : answerButtons)
-            button.setClickable(false);
+        for (int buttonIndex = 0; buttonIndex < answerCount; buttonIndex++)
+            answerButtons[buttonIndex].button.setClickable(false);
     }
 
     /**
@@ -370,4 +425,54 @@ public class QuestionActivity extends BaseMusicActivity {
         coinsImage.setVisibility(View.VISIBLE);
         toolbar.setVisibility(View.VISIBLE);
     }
-}
\ No newline at end of file
+
+    /**
+     * An answer button of the pool, with the backgrounds of its states loaded once
+     */
+    private static class AnswerButton {
+        final Button button;
+        final Drawable defaultBackground;
+        final Drawable correctBackground;
+        final Drawable incorrectBackground;
+        final Drawable disabledBackground;
+
+        /**
+         * Constructor for the AnswerButton class, the background of the button is its default background
+         *
+         * @param button              the button
+         * @param correctBackground   the background of the correct answer
+         * @param incorrectBackground the background of a wrong answer that was given
+         * @param disabledBackground  the background of the other answers
+         */
+        AnswerButton(Button button, Drawable correctBackground, Drawable incorrectBackground, Drawable disabledBackground) {
+            this.button = button;
+            this.defaultBackground = button.getBackground();
+            this.correctBackground = correctBackground;
+            this.incorrectBackground = incorrectBackground;
+            this.disabledBackground = disabledBackground;
+        }
+
+        /**
+         * Shows the answer on the button, clickable and with its default background
+         *
+         * @param answer the answer
+         */
+        void bind(String answer) {
+            button.setText(answer);
+            button.setClickable(true);
+            showBackground(defaultBackground);
+            button.setVisibility(View.VISIBLE);
+        }
+
+        /**
+         * Sets the background of the button, if it is not already set
+         *
+         * @param background the background
+         */
+        void showBackground(Drawable background) {
+            if (button.getBackground() != background) {
+                button.setBackground(background);
+            }
+        }
+    }
+}
@@ -10,9 +10,10 @@ import android.widget.RelativeLayout;
 
 import com.google.android.material.slider.RangeSlider;
 import com.google.firebase.auth.FirebaseAuth;
+import com.knowledgerealm.handlers.SettingsStoreHandler;
 import com.knowledgerealm.helpers.SettingsSaveStatesHelper;
 
-public class SettingsActivity extends AppCompatActivity {
+public class SettingsActivity extends AppCompatActivity implements SettingsStoreHandler.Listener {
     ImageView back;
     RelativeLayout setDifficulty;
     RelativeLayout chooseCategory;
@@ -39,19 +40,49 @@ public class SettingsActivity extends AppCompatActivity {
         // Initialize the firebase authentication
         mAuth = FirebaseAuth.getInstance();
 
-        // Set the saved settings
-        setSavedSettings();
-
         // Set the onClickListeners
         setOnClickListeners();
     }
 
     /**
-     * Set the saved settings
+     * Subscribe to the settings while the activity is visible, the sliders show the saved volumes
+     */
+    @Override
+    protected void onStart() {
+        super.onStart();
+        SettingsStoreHandler.getInstance(this).subscribe(this);
+    }
+
+    /**
+     * Unsubscribe from the settings when the activity is no longer visible
+     */
+    @Override
+    protected void onStop() {
+        super.onStop();
+        SettingsStoreHandler.getInstance(this).unsubscribe(this);
+    }
+
+    /**
+     * Set the saved settings, when they are loaded or changed
+     *
+     * @param settings the latest settings
      */
-    private void setSavedSettings() {
-        setMusicVolume.setValues(SettingsSaveStatesHelper.getMusicVolume(SettingsActivity.this));
-        setSoundVolume.setValues(SettingsSaveStatesHelper.getSoundVolume(SettingsActivity.this));
+    @Override
+    public void onSettingsChanged(SettingsStoreHandler.Snapshot settings) {
+        setSliderValue(setMusicVolume, settings.getMusicVolume());
+        setSliderValue(setSoundVolume, settings.getSoundVolume());
+    }
+
+    /**
+     * Set the value of a slider, unless it already shows it, so a drag of the user is not interrupted
+     *
+     * @param slider the slider
+     * @param value  the value
+     */
+    private void setSliderValue(RangeSlider slider, float value) {
+        if (slider.getValues().isEmpty() || slider.getValues().get(0) != value) {
+            slider.setValues(value);
+        }
     }
 
     /**
@@ -106,9 +137,17 @@ public class SettingsActivity extends AppCompatActivity {
         });
 
         // Set sound volume change listener
-        setSoundVolume.addOnChangeListener((slider, value, fromUser) -> SettingsSaveStatesHelper.saveSoundVolume(value, SettingsActivity.this));
+        setSoundVolume.addOnChangeListener((slider, value, fromUser) -> {
+            if (fromUser) {
+                SettingsSaveStatesHelper.saveSoundVolume(value, SettingsActivity.this);
+            }
+        });
 
         // Set music volume change listener
-        setMusicVolume.addOnChangeListener((slider, value, fromUser) -> SettingsSaveStatesHelper.saveMusicVolume(value, SettingsActivity.this));
+        setMusicVolume.addOnChangeListener((slider, value, fromUser) -> {
+            if (fromUser) {
+                SettingsSaveStatesHelper.saveMusicVolume(value, SettingsActivity.this);
+            }
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.knowledgerealm.enums;
+
+/**
+ * CircuitBreakerStateEnum is an enum that represents the state of the circuit breaker of a host.
+ */
+public enum CircuitBreakerStateEnum {
+    // Requests are sent normally
+    CLOSED,
+    // The host failed too many times in a row, requests fail fast until the open duration has passed
+    OPEN,
+    // The open duration has passed, a single trial request decides whether the circuit closes again
+    HALF_OPEN
+}
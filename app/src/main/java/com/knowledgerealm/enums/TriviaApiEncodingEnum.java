@@ -0,0 +1,31 @@
+package com.knowledgerealm.enums;
+
+/**
+ * TriviaApiEncodingEnum is an enum that contains the encodings the Trivia API can use for the text of the questions.
+ */
+public enum TriviaApiEncodingEnum {
+    // HTML entities, decoded by HtmlHelper
+    DEFAULT(null),
+    // Base64 of the UTF-8 bytes, an exact byte transform
+    BASE64("base64"),
+    // RFC 3986 percent-encoding of the UTF-8 bytes, an exact byte transform
+    URL3986("url3986");
+
+    private final String parameter;
+
+    /**
+     * Constructor for the TriviaApiEncodingEnum.
+     * @param parameter the value of the encode parameter, or null if the parameter is not sent.
+     */
+    TriviaApiEncodingEnum(String parameter) {
+        this.parameter = parameter;
+    }
+
+    /**
+     * Getter for the value of the encode parameter.
+     * @return the value of the encode parameter, or null if the parameter is not sent.
+     */
+    public String getParameter() {
+        return parameter;
+    }
+}
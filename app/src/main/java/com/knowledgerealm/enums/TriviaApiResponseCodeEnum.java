@@ -8,7 +8,8 @@ public enum TriviaApiResponseCodeEnum {
     NO_RESULTS(1),
     INVALID_PARAMETER(2),
     TOKEN_NOT_FOUND(3),
-    TOKEN_EMPTY(4);
+    TOKEN_EMPTY(4),
+    RATE_LIMIT(5);
 
     private final int responseCode;
 
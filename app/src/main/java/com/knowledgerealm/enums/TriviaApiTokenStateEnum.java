@@ -0,0 +1,15 @@
+package com.knowledgerealm.enums;
+
+/**
+ * TriviaApiTokenStateEnum is an enum that represents the known state of a Trivia API session token.
+ */
+public enum TriviaApiTokenStateEnum {
+    // The token has not been used yet, so it is optimistically treated as valid
+    UNKNOWN,
+    // The last question request with the token was accepted
+    VALID,
+    // The token has returned all possible questions and must be reset
+    EXHAUSTED,
+    // There is no token, or the API did not find it, so a new one must be retrieved
+    MISSING
+}
@@ -4,12 +4,12 @@ import android.content.Context;
 import android.media.MediaPlayer;
 
 import com.knowledgerealm.*;
-import com.knowledgerealm.helpers.SettingsSaveStatesHelper;
 
 /**
  * BackgroundMusicHandler class is a singleton class that handles the background music and sound effects of the app.
+ * It subscribes to the settings once, so the volumes are pushed to it and applied live, instead of being read on every lifecycle transition.
  */
-public class BackgroundMusicHandler {
+public class BackgroundMusicHandler implements SettingsStoreHandler.Listener {
     private static BackgroundMusicHandler instance;
 
     // Media Players
@@ -26,6 +26,7 @@ public class BackgroundMusicHandler {
     // Flags
     private boolean musicStarted = false;
     private boolean canceled = false;
+    private boolean subscribed = false;
 
     /**
      * Private constructor to prevent instantiation
@@ -53,7 +54,39 @@ public class BackgroundMusicHandler {
      */
     public void initialize(Context context) {
         getMusicBasedOnActivity(context.getClass());
-        musicVolume = SettingsSaveStatesHelper.getMusicVolume(context) / 10;
+        if (!subscribed) {
+            subscribed = true;
+            SettingsStoreHandler.getInstance(context).subscribe(this);
+        }
+    }
+
+    /**
+     * Applies the volumes of the settings, to the music and the sound effects that are playing too
+     *
+     * @param settings the latest settings
+     */
+    @Override
+    public void onSettingsChanged(SettingsStoreHandler.Snapshot settings) {
+        musicVolume = settings.getMusicVolume() / 10;
+        soundVolume = settings.getSoundVolume() / 10;
+
+        if (mediaPlayer != null) {
+            mediaPlayer.setVolume(musicVolume, musicVolume);
+        }
+        applySoundVolume(correctSoundPlayer);
+        applySoundVolume(incorrectSoundPlayer);
+        applySoundVolume(timeUpSoundPlayer);
+    }
+
+    /**
+     * Sets the sound volume of a sound effect, if it is playing
+     *
+     * @param soundPlayer the media player of the sound effect, or null
+     */
+    private void applySoundVolume(MediaPlayer soundPlayer) {
+        if (soundPlayer != null) {
+            soundPlayer.setVolume(soundVolume, soundVolume);
+        }
     }
 
     /**
@@ -62,7 +95,6 @@ public class BackgroundMusicHandler {
      * @param context Context of the activity
      */
     public void start(Context context) {
-        musicVolume = SettingsSaveStatesHelper.getMusicVolume(context) / 10;
         if (mediaPlayer != null && !mediaPlayer.isPlaying() && musicStarted && !canceled) {
             mediaPlayer.start();
         }
@@ -74,7 +106,6 @@ public class BackgroundMusicHandler {
      * @param context Context of the activity
      */
     public void pause(Context context) {
-        musicVolume = SettingsSaveStatesHelper.getMusicVolume(context) / 10;
         if (mediaPlayer != null && mediaPlayer.isPlaying() && musicStarted && !canceled) {
             mediaPlayer.pause();
         }
@@ -86,7 +117,6 @@ public class BackgroundMusicHandler {
      * @param context Context of the activity
      */
     public void resume(Context context) {
-        musicVolume = SettingsSaveStatesHelper.getMusicVolume(context) / 10;
         if (mediaPlayer != null && !mediaPlayer.isPlaying() && musicStarted && !canceled) {
             mediaPlayer.start();
         }
@@ -109,7 +139,6 @@ public class BackgroundMusicHandler {
      */
     public void beginMusic(Context context) {
         if (!musicStarted && !canceled) {
-            musicVolume = SettingsSaveStatesHelper.getMusicVolume(context) / 10;
             mediaPlayer = MediaPlayer.create(context, musicId);
             mediaPlayer.setLooping(true);
             mediaPlayer.setVolume(musicVolume, musicVolume);
@@ -128,7 +157,6 @@ public class BackgroundMusicHandler {
             timeUpSoundPlayer.pause();
         }
 
-        soundVolume = SettingsSaveStatesHelper.getSoundVolume(context) / 10;
         int correctSoundId = R.raw.correct_sound;
         correctSoundPlayer = MediaPlayer.create(context, correctSoundId);
         if (correctSoundPlayer != null) {
@@ -151,7 +179,6 @@ public class BackgroundMusicHandler {
             timeUpSoundPlayer.pause();
         }
 
-        soundVolume = SettingsSaveStatesHelper.getSoundVolume(context) / 10;
         int incorrectSoundId = R.raw.incorrect_sound;
         incorrectSoundPlayer = MediaPlayer.create(context, incorrectSoundId);
         if (incorrectSoundPlayer != null) {
@@ -170,7 +197,6 @@ public class BackgroundMusicHandler {
      * @param context Context of the activity
      */
     public void playTimeUpSound(Context context) {
-        soundVolume = SettingsSaveStatesHelper.getSoundVolume(context) / 10;
         int timeUpSoundId = R.raw.times_up_sound;
         timeUpSoundPlayer = MediaPlayer.create(context, timeUpSoundId);
         if (timeUpSoundPlayer != null) {
@@ -0,0 +1,121 @@
+package com.knowledgerealm.handlers;
+
+import static com.knowledgerealm.enums.TriviaApiResponseCodeEnum.NO_RESULTS;
+import static com.knowledgerealm.enums.TriviaApiResponseCodeEnum.SUCCESS;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
+import com.knowledgerealm.enums.TriviaApiDifficultyEnum;
+import com.knowledgerealm.enums.TriviaApiTokenStateEnum;
+import com.knowledgerealm.helpers.CategoriesResponseHelper;
+import com.knowledgerealm.helpers.TriviaResponseHelper;
+import com.knowledgerealm.models.Category;
+import com.knowledgerealm.models.interfaces.QuestionSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Class for serving the questions of a game from the offline question bank in Room.
+ * Served questions are marked as served in the bank, so they play the role of the session token.
+ */
+public class CachedQuestionSourceHandler implements QuestionSource {
+    private static final ExecutorService databaseExecutor = Executors.newSingleThreadExecutor();
+
+    private final Context context;
+    private final QuestionBankHandler questionBankHandler;
+
+    /**
+     * Constructor for the CachedQuestionSourceHandler class
+     * @param context the context of the application
+     */
+    public CachedQuestionSourceHandler(Context context) {
+        this.context = context.getApplicationContext();
+        this.questionBankHandler = new QuestionBankHandler(context);
+    }
+
+    /**
+     * Get the name of the source
+     * @return the name of the source
+     */
+    @Override
+    public String getName() {
+        return "question bank";
+    }
+
+    /**
+     * Takes questions from the bank that have not been served yet
+     * @param category the category of questions to fetch, or null for any category
+     * @param difficulty the difficulty of questions to fetch, or null for any difficulty
+     * @param type the type of questions to fetch, "multiple" or "boolean", or null for any type
+     * @param amount the number of questions to fetch
+     * @return a CompletableFuture that will contain up to amount questions, or a NO_RESULTS response if the bank has none
+     */
+    @Override
+    public CompletableFuture<TriviaResponseHelper> getTriviaQuestionsAsync(TriviaApiCategoriesEnum category, TriviaApiDifficultyEnum difficulty, String type, int amount) {
+        return questionBankHandler.takeQuestionsAsync(category, difficulty, type, amount, 1)
+                .thenApply(questions -> questions.isEmpty()
+                        ? new TriviaResponseHelper(new ArrayList<>(), false, NO_RESULTS.getResponseCode())
+                        : new TriviaResponseHelper(questions, true, SUCCESS.getResponseCode()));
+    }
+
+    /**
+     * Gets the cached categories of the Trivia API, without a request
+     * @return a CompletableFuture that will contain a CategoriesResponseHelper with the cached category names, in their position order
+     */
+    @Override
+    public CompletableFuture<CategoriesResponseHelper> getCategoriesAsync() {
+        return CompletableFuture.supplyAsync(() -> {
+            List<Category> storedCategories = CategoryDatabaseHandler.getInstance(context).categoryDao().getAll();
+            List<String> categories = new ArrayList<>(storedCategories.size());
+            for (Category storedCategory : storedCategories) {
+                categories.add(storedCategory.getName());
+            }
+            return new CategoriesResponseHelper(categories, !categories.isEmpty());
+        }, databaseExecutor).exceptionally(e -> {
+            Log.e("CachedQuestionSource", "Error reading the cached categories. More info: " + e.getMessage());
+            return new CategoriesResponseHelper(new ArrayList<>(), false);
+        });
+    }
+
+    /**
+     * The bank has no session token
+     * @return null
+     */
+    @Override
+    public String getSessionToken() {
+        return null;
+    }
+
+    /**
+     * The bank marks the served questions instead of using a session token
+     * @return VALID
+     */
+    @Override
+    public TriviaApiTokenStateEnum getTokenState() {
+        return TriviaApiTokenStateEnum.VALID;
+    }
+
+    /**
+     * The bank has no session token to refresh, it is refilled in the background instead
+     * @return a CompletableFuture that will contain true
+     */
+    @Override
+    public CompletableFuture<Boolean> refreshSessionTokenAsync() {
+        return CompletableFuture.completedFuture(true);
+    }
+
+    /**
+     * The bank is on the device, so it is always available
+     * @return true
+     */
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+}
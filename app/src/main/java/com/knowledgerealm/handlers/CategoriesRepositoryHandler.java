@@ -0,0 +1,250 @@
+package com.knowledgerealm.handlers;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
+import com.knowledgerealm.helpers.CategoriesResponseHelper;
+import com.knowledgerealm.helpers.ClockHelper;
+import com.knowledgerealm.models.Category;
+import com.knowledgerealm.models.interfaces.CategoryDao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * CategoriesRepositoryHandler is a singleton class that serves the category catalogue.
+ * The last known catalogue is returned instantly from memory, or from the enum until the stored one is read,
+ * and it is revalidated against the Trivia API in the background once it is older than the time to live.
+ * Listeners are only notified when the catalogue actually changed.
+ */
+public class CategoriesRepositoryHandler {
+    public static final long DEFAULT_TIME_TO_LIVE = 24 * 3600000; // 24 hours
+
+    private static CategoriesRepositoryHandler instance;
+    private static final ExecutorService databaseExecutor = Executors.newSingleThreadExecutor();
+
+    private final CategoryDao categoryDao;
+    private final Supplier<CompletableFuture<CategoriesResponseHelper>> categoriesFetcher;
+    private final ClockHelper.Clock clock;
+    private final Executor executor;
+    private volatile List<String> categories;
+    private volatile long timestamp;
+    private volatile long timeToLive = DEFAULT_TIME_TO_LIVE;
+    private final AtomicBoolean isRevalidating = new AtomicBoolean(false);
+    private final AtomicInteger cacheHits = new AtomicInteger();
+    private final AtomicInteger cacheMisses = new AtomicInteger();
+
+    /**
+     * Listener for changes of the category catalogue
+     */
+    public interface OnCategoriesChangedListener {
+        void onCategoriesChanged(List<String> categories);
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     *
+     * @param context the context of the application
+     */
+    private CategoriesRepositoryHandler(Context context) {
+        this(CategoryDatabaseHandler.getInstance(context.getApplicationContext()).categoryDao(), TriviaApiHandler::getAllCategoriesAsync,
+                System::currentTimeMillis, databaseExecutor);
+    }
+
+    /**
+     * Constructor for the CategoriesRepositoryHandler class
+     *
+     * @param categoryDao       the stored catalogue
+     * @param categoriesFetcher fetches the catalogue from the Trivia API
+     * @param clock             the source of the current time
+     * @param executor          runs the database work
+     */
+    CategoriesRepositoryHandler(CategoryDao categoryDao, Supplier<CompletableFuture<CategoriesResponseHelper>> categoriesFetcher,
+                                ClockHelper.Clock clock, Executor executor) {
+        this.categoryDao = categoryDao;
+        this.categoriesFetcher = categoriesFetcher;
+        this.clock = clock;
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the instance of the CategoriesRepositoryHandler class
+     *
+     * @param context the context of the application
+     * @return instance
+     */
+    public static synchronized CategoriesRepositoryHandler getInstance(Context context) {
+        if (instance == null) {
+            instance = new CategoriesRepositoryHandler(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Gets the last known category catalogue without waiting for the disk or the network,
+     * and refreshes it in the background if needed.
+     *
+     * @param listener the listener to notify, on a background thread, if the catalogue changes
+     * @return the last known category names
+     */
+    public List<String> getCategories(OnCategoriesChangedListener listener) {
+        List<String> knownCategories = categories;
+        if (knownCategories != null) {
+            cacheHits.incrementAndGet();
+            revalidateIfStale(listener);
+            return knownCategories;
+        }
+
+        int misses = cacheMisses.incrementAndGet();
+        Log.i("CategoriesRepository", "Categories not in memory, serving the enum catalogue (" + cacheHits.get() + " hits, " + misses + " misses)");
+        List<String> enumCategories = getEnumCategories();
+        loadStoredCategoriesAsync().thenRun(() -> {
+            List<String> storedCategories = categories;
+            if (storedCategories != null && !storedCategories.equals(enumCategories)) {
+                listener.onCategoriesChanged(storedCategories);
+            }
+            revalidateIfStale(listener);
+        });
+        return enumCategories;
+    }
+
+    /**
+     * Sets how long the catalogue is served before it is revalidated
+     *
+     * @param timeToLive the time to live, in milliseconds
+     */
+    public void setTimeToLive(long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Gets the number of requests served from the catalogue in memory
+     *
+     * @return the number of cache hits
+     */
+    public int getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * Gets the number of requests that had to fall back to the enum catalogue
+     *
+     * @return the number of cache misses
+     */
+    public int getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    /**
+     * Reads the stored catalogue into memory, if there is one
+     *
+     * @return a CompletableFuture that completes when the stored catalogue is read
+     */
+    private CompletableFuture<Void> loadStoredCategoriesAsync() {
+        return CompletableFuture.runAsync(() -> {
+            if (categories != null) {
+                return;
+            }
+
+            List<Category> storedCategories = categoryDao.getAll();
+            if (storedCategories.isEmpty()) {
+                Log.i("CategoriesRepository", "No stored categories");
+                return;
+            }
+
+            List<String> categoryNames = new ArrayList<>(storedCategories.size());
+            for (Category category : storedCategories) {
+                categoryNames.add(category.getName());
+            }
+            timestamp = storedCategories.get(0).getTimestamp();
+            categories = Collections.unmodifiableList(categoryNames);
+        }, executor).exceptionally(e -> {
+            Log.e("CategoriesRepository", "Error reading the stored categories. More info: " + e.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Fetches the catalogue from the Trivia API if the known one is older than the time to live,
+     * stores it and notifies the listener if it changed
+     *
+     * @param listener the listener to notify if the catalogue changes
+     */
+    private void revalidateIfStale(OnCategoriesChangedListener listener) {
+        if (categories != null && clock.currentTimeMillis() - timestamp < timeToLive) {
+            return;
+        }
+
+        if (!isRevalidating.compareAndSet(false, true)) {
+            return;
+        }
+
+        categoriesFetcher.get()
+                .thenAcceptAsync(categoriesResponseHelper -> {
+                    if (!categoriesResponseHelper.success || categoriesResponseHelper.categories.isEmpty()) {
+                        return;
+                    }
+
+                    List<String> fetchedCategories = Collections.unmodifiableList(new ArrayList<>(categoriesResponseHelper.categories));
+                    List<String> previousCategories = categories != null ? categories : getEnumCategories();
+                    storeCategories(fetchedCategories);
+
+                    if (!fetchedCategories.equals(previousCategories)) {
+                        Log.i("CategoriesRepository", "Categories changed, " + fetchedCategories.size() + " categories");
+                        listener.onCategoriesChanged(fetchedCategories);
+                    }
+                }, executor)
+                .whenComplete((result, e) -> {
+                    if (e != null) {
+                        Log.e("CategoriesRepository", "Error revalidating the categories. More info: " + e.getMessage());
+                    }
+                    isRevalidating.set(false);
+                });
+    }
+
+    /**
+     * Stores the catalogue in memory and on disk, must be called on the database executor
+     *
+     * @param fetchedCategories the category names fetched from the Trivia API
+     */
+    private void storeCategories(List<String> fetchedCategories) {
+        long now = clock.currentTimeMillis();
+        List<Category> storedCategories = new ArrayList<>(fetchedCategories.size());
+        for (int i = 0; i < fetchedCategories.size(); i++) {
+            Category category = new Category();
+            category.setName(fetchedCategories.get(i));
+            category.setPosition(i);
+            category.setTimestamp(now);
+            storedCategories.add(category);
+        }
+
+        categoryDao.replaceAll(storedCategories);
+
+        timestamp = now;
+        categories = fetchedCategories;
+    }
+
+    /**
+     * Gets the catalogue that is hard-coded in TriviaApiCategoriesEnum
+     *
+     * @return the category names of the enum, without "No Category"
+     */
+    private static List<String> getEnumCategories() {
+        List<String> enumCategories = new ArrayList<>();
+        for (TriviaApiCategoriesEnum category : TriviaApiCategoriesEnum.values()) {
+            if (category != TriviaApiCategoriesEnum.NO_CATEGORY) {
+                enumCategories.add(category.getName());
+            }
+        }
+        return Collections.unmodifiableList(enumCategories);
+    }
+}
@@ -0,0 +1,39 @@
+package com.knowledgerealm.handlers;
+
+import android.content.Context;
+
+import androidx.room.Database;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+
+import com.knowledgerealm.models.Category;
+import com.knowledgerealm.models.QuestionCount;
+import com.knowledgerealm.models.interfaces.CategoryDao;
+import com.knowledgerealm.models.interfaces.QuestionCountDao;
+
+/**
+ * Class for handling the category catalogue database, with the question counts of the categories
+ */
+@Database(entities = {Category.class, QuestionCount.class}, version = 2)
+public abstract class CategoryDatabaseHandler extends RoomDatabase {
+    private static final String DATABASE_NAME = "category_database";
+    private static CategoryDatabaseHandler INSTANCE;
+    public abstract CategoryDao categoryDao();
+    public abstract QuestionCountDao questionCountDao();
+
+    /**
+     * Get the instance of the database
+     * @param context the context of the application
+     * @return the instance of the database
+     */
+    public static synchronized CategoryDatabaseHandler getInstance(Context context) {
+        if (INSTANCE == null) {
+            INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
+                            CategoryDatabaseHandler.class, DATABASE_NAME)
+                    .fallbackToDestructiveMigration()
+                    .build();
+        }
+        return INSTANCE;
+    }
+
+}
@@ -0,0 +1,337 @@
+package com.knowledgerealm.handlers;
+
+import static com.knowledgerealm.enums.TriviaApiResponseCodeEnum.NO_RESULTS;
+import static com.knowledgerealm.enums.TriviaApiResponseCodeEnum.SUCCESS;
+
+import android.util.Log;
+
+import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
+import com.knowledgerealm.enums.TriviaApiDifficultyEnum;
+import com.knowledgerealm.enums.TriviaApiTokenStateEnum;
+import com.knowledgerealm.helpers.CategoriesResponseHelper;
+import com.knowledgerealm.helpers.TriviaResponseHelper;
+import com.knowledgerealm.models.TriviaQuestion;
+import com.knowledgerealm.models.interfaces.QuestionSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Class for serving the questions of a game from several sources, such as the Trivia API,
+ * the offline question bank and a local question pack.
+ * Every request goes to the fastest healthy source first, by the moving average of its latency,
+ * with the priority order breaking ties. The sources that were not measured yet keep their place in the priority order.
+ * A source that fails is skipped for a while, and the request falls through to the next source,
+ * as do the questions that are still missing when a source serves fewer than were requested.
+ */
+public class CompositeQuestionSourceHandler implements QuestionSource {
+    // How long a failed source is skipped, in milliseconds
+    public static final long UNHEALTHY_DURATION = 30000;
+    // Weight of the last request in the moving average of the latency
+    private static final double LATENCY_SMOOTHING = 0.3;
+
+    private final List<QuestionSource> sources;
+    private final List<SourceStats> sourceStats;
+
+    /**
+     * Constructor for the CompositeQuestionSourceHandler class
+     * @param sources the sources, in priority order
+     */
+    public CompositeQuestionSourceHandler(List<QuestionSource> sources) {
+        this.sources = new CopyOnWriteArrayList<>(sources);
+        this.sourceStats = new ArrayList<>(sources.size());
+        for (int i = 0; i < sources.size(); i++) {
+            sourceStats.add(new SourceStats());
+        }
+    }
+
+    /**
+     * Get the name of the source
+     * @return the names of the sources, in priority order
+     */
+    @Override
+    public String getName() {
+        StringBuilder name = new StringBuilder();
+        for (QuestionSource source : sources) {
+            name.append(name.length() == 0 ? "" : ", ").append(source.getName());
+        }
+        return name.toString();
+    }
+
+    /**
+     * Fetches the questions from the fastest healthy source, and from the next sources while they fail or serve fewer questions
+     * @param category the category of questions to fetch, or null for any category
+     * @param difficulty the difficulty of questions to fetch, or null for any difficulty
+     * @param type the type of questions to fetch, or null for any type
+     * @param amount the number of questions to fetch
+     * @return a CompletableFuture that will contain the questions of the sources, or the last response if none has any
+     */
+    @Override
+    public CompletableFuture<TriviaResponseHelper> getTriviaQuestionsAsync(TriviaApiCategoriesEnum category, TriviaApiDifficultyEnum difficulty, String type, int amount) {
+        return fetchFrom(getOrderedSources(), 0, category, difficulty, type, amount, new ArrayList<>(),
+                new TriviaResponseHelper(new ArrayList<>(), false));
+    }
+
+    /**
+     * Fetches the categories from the sources in priority order, until one succeeds
+     * @return a CompletableFuture that will contain the categories of the first source that succeeds
+     */
+    @Override
+    public CompletableFuture<CategoriesResponseHelper> getCategoriesAsync() {
+        CompletableFuture<CategoriesResponseHelper> categories = CompletableFuture.completedFuture(new CategoriesResponseHelper(new ArrayList<>(), false));
+        for (QuestionSource source : sources) {
+            categories = categories.thenCompose(categoriesResponse -> categoriesResponse.success
+                    ? CompletableFuture.completedFuture(categoriesResponse)
+                    : source.getCategoriesAsync());
+        }
+        return categories;
+    }
+
+    /**
+     * Get the session token of the first source that has one
+     * @return the session token, or null if no source has one
+     */
+    @Override
+    public String getSessionToken() {
+        for (QuestionSource source : sources) {
+            if (source.getSessionToken() != null) {
+                return source.getSessionToken();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the state of the session token of the first source that uses one
+     * @return the state of the session token, or VALID if no source uses one
+     */
+    @Override
+    public TriviaApiTokenStateEnum getTokenState() {
+        for (QuestionSource source : sources) {
+            if (source.getTokenState() != TriviaApiTokenStateEnum.VALID) {
+                return source.getTokenState();
+            }
+        }
+        return TriviaApiTokenStateEnum.VALID;
+    }
+
+    /**
+     * Refreshes the session tokens of all the sources
+     * @return a CompletableFuture that will contain true if any source can serve questions, false otherwise
+     */
+    @Override
+    public CompletableFuture<Boolean> refreshSessionTokenAsync() {
+        List<CompletableFuture<Boolean>> refreshes = new ArrayList<>(sources.size());
+        for (QuestionSource source : sources) {
+            refreshes.add(source.refreshSessionTokenAsync());
+        }
+
+        return CompletableFuture.allOf(refreshes.toArray(new CompletableFuture<?>[0]))
+                .handle((allDone, e) -> {
+                    for (CompletableFuture<Boolean> refresh : refreshes) {
+                        if (!refresh.isCompletedExceptionally() && refresh.join()) {
+                            return true;
+                        }
+                    }
+                    return false;
+                });
+    }
+
+    /**
+     * Check if any of the sources is available
+     * @return true if a source is available, false otherwise
+     */
+    @Override
+    public boolean isAvailable() {
+        for (QuestionSource source : sources) {
+            if (source.isAvailable()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replaces the source at a place of the priority order, keeping the latency and health measured there,
+     * for example the Trivia API handler of the session token of the next game
+     * @param index the place of the source in the priority order
+     * @param source the new source
+     */
+    public void setSource(int index, QuestionSource source) {
+        sources.set(index, source);
+    }
+
+    /**
+     * Get the moving average of the latency of the source
+     * @param source the source
+     * @return the latency in milliseconds, or -1 if the source was not measured yet or is not part of the composite
+     */
+    public synchronized long getLatency(QuestionSource source) {
+        int index = sources.indexOf(source);
+        return index >= 0 ? (long) sourceStats.get(index).latency : -1;
+    }
+
+    /**
+     * Sends the request to the source at the given position, and to the next ones while they fail or serve fewer questions,
+     * asking each source only for the questions that are still missing
+     * @param orderedSources the indexes of the sources, in the order to try them
+     * @param position the position of the source to try
+     * @param category the category of questions to fetch
+     * @param difficulty the difficulty of questions to fetch
+     * @param type the type of questions to fetch
+     * @param amount the number of questions to fetch
+     * @param questions the questions served by the previous sources
+     * @param lastResponse the response of the previous source
+     * @return a CompletableFuture that will contain the questions of the sources, or the last response if none has any
+     */
+    private CompletableFuture<TriviaResponseHelper> fetchFrom(List<Integer> orderedSources, int position, TriviaApiCategoriesEnum category,
+                                                             TriviaApiDifficultyEnum difficulty, String type, int amount,
+                                                             List<TriviaQuestion> questions, TriviaResponseHelper lastResponse) {
+        if (position >= orderedSources.size()) {
+            return CompletableFuture.completedFuture(questions.isEmpty()
+                    ? lastResponse
+                    : new TriviaResponseHelper(questions, true, SUCCESS.getResponseCode()));
+        }
+
+        int index = orderedSources.get(position);
+        QuestionSource source = sources.get(index);
+        long startTime = System.currentTimeMillis();
+
+        CompletableFuture<TriviaResponseHelper> response = new CompletableFuture<>();
+        try {
+            source.getTriviaQuestionsAsync(category, difficulty, type, amount - questions.size())
+                    .whenComplete((triviaResponseHelper, e) -> {
+                        if (e != null) {
+                            response.completeExceptionally(e);
+                        } else {
+                            response.complete(triviaResponseHelper);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            response.completeExceptionally(e);
+        }
+
+        return response
+                .handle((triviaResponseHelper, e) -> {
+                    if (e == null && triviaResponseHelper.isSuccess() && !triviaResponseHelper.getTriviaQuestions().isEmpty()) {
+                        recordSuccess(index, System.currentTimeMillis() - startTime);
+                        return addQuestions(questions, triviaResponseHelper.getTriviaQuestions());
+                    }
+
+                    if (e == null && triviaResponseHelper.getResponseCode() == NO_RESULTS.getResponseCode()) {
+                        // the source works, it just has no questions for the query
+                        Log.i("CompositeQuestionSource", source.getName() + " has no questions for the query");
+                    } else {
+                        Log.e("CompositeQuestionSource", source.getName() + " failed, trying the next source");
+                        recordFailure(index);
+                    }
+                    return questions;
+                })
+                .thenCompose(servedQuestions -> {
+                    if (servedQuestions.size() >= amount) {
+                        return CompletableFuture.completedFuture(new TriviaResponseHelper(servedQuestions, true, SUCCESS.getResponseCode()));
+                    }
+                    if (servedQuestions.size() > questions.size()) {
+                        Log.i("CompositeQuestionSource", source.getName() + " served " + servedQuestions.size() + " of " + amount
+                                + " questions, trying the next source");
+                    }
+                    return fetchFrom(orderedSources, position + 1, category, difficulty, type, amount, servedQuestions, getLastResponse(response));
+                });
+    }
+
+    /**
+     * Adds the questions of a source to the questions of the previous sources, without the ones that were already served
+     * @param questions the questions of the previous sources
+     * @param sourceQuestions the questions of the source
+     * @return a new list with the questions of all the sources
+     */
+    private static List<TriviaQuestion> addQuestions(List<TriviaQuestion> questions, List<TriviaQuestion> sourceQuestions) {
+        List<TriviaQuestion> servedQuestions = new ArrayList<>(questions.size() + sourceQuestions.size());
+        Set<String> questionTexts = new HashSet<>();
+        for (TriviaQuestion question : questions) {
+            servedQuestions.add(question);
+            questionTexts.add(question.getQuestion());
+        }
+        for (TriviaQuestion question : sourceQuestions) {
+            if (questionTexts.add(question.getQuestion())) {
+                servedQuestions.add(question);
+            }
+        }
+        return servedQuestions;
+    }
+
+    /**
+     * Get the response of a source that did not serve the request
+     * @param response the response of the source
+     * @return the response, or an unsuccessful one if the source failed with an error
+     */
+    private static TriviaResponseHelper getLastResponse(CompletableFuture<TriviaResponseHelper> response) {
+        return response.isCompletedExceptionally() ? new TriviaResponseHelper(new ArrayList<>(), false) : response.join();
+    }
+
+    /**
+     * Orders the sources for the next request: the healthy ones and then the unhealthy ones, in priority order,
+     * with the healthy sources that were measured sorted by latency among the places they take in the priority order
+     * @return the indexes of the sources, in the order to try them
+     */
+    private synchronized List<Integer> getOrderedSources() {
+        long now = System.currentTimeMillis();
+        List<Integer> healthySources = new ArrayList<>(sources.size());
+        List<Integer> measuredSources = new ArrayList<>(sources.size());
+        List<Integer> unhealthySources = new ArrayList<>();
+        for (int i = 0; i < sources.size(); i++) {
+            if (sources.get(i).isAvailable() && now >= sourceStats.get(i).unhealthyUntil) {
+                healthySources.add(i);
+                if (sourceStats.get(i).latency >= 0) {
+                    measuredSources.add(i);
+                }
+            } else {
+                unhealthySources.add(i);
+            }
+        }
+
+        // the sort is stable, so the priority order breaks the ties
+        Collections.sort(measuredSources, (first, second) -> Double.compare(sourceStats.get(first).latency, sourceStats.get(second).latency));
+        int measuredPosition = 0;
+        for (int i = 0; i < healthySources.size(); i++) {
+            if (sourceStats.get(healthySources.get(i)).latency >= 0) {
+                healthySources.set(i, measuredSources.get(measuredPosition++));
+            }
+        }
+        healthySources.addAll(unhealthySources);
+        return healthySources;
+    }
+
+    /**
+     * Updates the latency of a source that served a request and marks it as healthy
+     * @param index the index of the source
+     * @param latency the latency of the request, in milliseconds
+     */
+    private synchronized void recordSuccess(int index, long latency) {
+        SourceStats stats = sourceStats.get(index);
+        stats.latency = stats.latency < 0 ? latency : stats.latency + LATENCY_SMOOTHING * (latency - stats.latency);
+        stats.unhealthyUntil = 0;
+    }
+
+    /**
+     * Skips a source that failed a request for a while
+     * @param index the index of the source
+     */
+    private synchronized void recordFailure(int index) {
+        sourceStats.get(index).unhealthyUntil = System.currentTimeMillis() + UNHEALTHY_DURATION;
+    }
+
+    /**
+     * The health and latency of a source
+     */
+    private static class SourceStats {
+        // -1 until the source has served a request
+        double latency = -1;
+        long unhealthyUntil;
+    }
+}
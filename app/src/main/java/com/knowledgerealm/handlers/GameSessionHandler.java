@@ -0,0 +1,408 @@
+package com.knowledgerealm.handlers;
+
+import com.knowledgerealm.helpers.ClockHelper;
+import com.knowledgerealm.helpers.ReadingSpeedModelHelper;
+import com.knowledgerealm.models.TriviaQuestion;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * GameSessionHandler is the engine of a game, without any Android dependency.
+ * It owns the progression through the questions, the time budget of every question, the scoring and the result,
+ * and tells its listener what to render.
+ * <p>
+ * The state of a session is confined to the game thread, the thread the timer runs its tasks on:
+ * every method must be called on it, and questions that arrive from the network are handed over to it
+ * through the timer. On Android the timer posts to the main looper, in a simulation it can run on a virtual clock,
+ * so thousands of sessions can be played per second.
+ * <p>
+ * A session can be paused, for example while the activity is in the background: the time of the question
+ * and of the reveal stop running, and a question that arrives meanwhile waits for the session to be resumed.
+ * <p>
+ * The time budget of every question comes from the reading speed model of the player, which learns from every answer.
+ */
+public class GameSessionHandler {
+    public static final int NO_ANSWER = -1;
+    public static final long DEFAULT_REVEAL_DURATION = 1500; // milliseconds
+
+    /**
+     * Provides the questions of a game by their index, as soon as they are ready
+     */
+    public interface QuestionProvider {
+        /**
+         * Get the question as soon as it is ready
+         * @param questionNumber the index of the question in the game
+         * @return a CompletableFuture that will contain the trivia question or null if it could not be loaded
+         */
+        CompletableFuture<TriviaQuestion> getQuestionAsync(int questionNumber);
+    }
+
+    /**
+     * Receives the events of a session, on the game thread
+     */
+    public interface Listener {
+        /**
+         * A question is shown and its time starts running
+         * @param questionNumber the index of the question in the game
+         * @param question the question
+         * @param timeBudget the time to answer the question, in milliseconds
+         */
+        void onQuestionStarted(int questionNumber, TriviaQuestion question, long timeBudget);
+
+        /**
+         * The question was answered or its time is up, and the correct answer is revealed
+         * @param questionNumber the index of the question in the game
+         * @param answerIndex the position of the answer given, or NO_ANSWER if the time is up
+         * @param correctAnswerIndex the position of the correct answer
+         * @param points the points of the game so far
+         */
+        void onAnswerRevealed(int questionNumber, int answerIndex, int correctAnswerIndex, int points);
+
+        /**
+         * The game is over, after the last question or because the next question could not be loaded
+         * @param result the result of the game
+         */
+        void onGameFinished(Result result);
+    }
+
+    /**
+     * The result of a game
+     */
+    public static class Result {
+        private final int points;
+        private final int correctAnswers;
+        private final int playedQuestions;
+
+        /**
+         * Constructor for the Result class
+         * @param points the points of the game
+         * @param correctAnswers the number of questions answered correctly
+         * @param playedQuestions the number of questions shown
+         */
+        Result(int points, int correctAnswers, int playedQuestions) {
+            this.points = points;
+            this.correctAnswers = correctAnswers;
+            this.playedQuestions = playedQuestions;
+        }
+
+        /**
+         * Get the points of the game
+         * @return the points
+         */
+        public int getPoints() {
+            return points;
+        }
+
+        /**
+         * Get the number of questions answered correctly
+         * @return the number of correct answers
+         */
+        public int getCorrectAnswers() {
+            return correctAnswers;
+        }
+
+        /**
+         * Get the number of questions shown
+         * @return the number of played questions
+         */
+        public int getPlayedQuestions() {
+            return playedQuestions;
+        }
+    }
+
+    private enum State {
+        CREATED,
+        LOADING,
+        ANSWERING,
+        REVEALING,
+        FINISHED
+    }
+
+    private final QuestionProvider questionProvider;
+    private final ClockHelper.Clock clock;
+    private final ClockHelper.Timer timer;
+    private final Listener listener;
+    private final int maxQuestions;
+    private final long revealDuration;
+    private final ReadingSpeedModelHelper readingSpeedModel;
+
+    private State state = State.CREATED;
+    // Increased on every change of state, so the tasks scheduled for an older state are ignored
+    private int step;
+    private int currentQuestionNumber;
+    private TriviaQuestion currentQuestion;
+    private long deadline;
+    private long timeBudget;
+    private boolean isPaused;
+    // The time left of the question or of the reveal when the session was paused
+    private long pausedRemainingTime;
+    private boolean hasPendingQuestion;
+    private TriviaQuestion pendingQuestion;
+    private int points;
+    private int correctAnswers;
+
+    /**
+     * Constructor for the GameSessionHandler class
+     * @param questionProvider provides the questions of the game
+     * @param clock the source of the current time
+     * @param timer runs the tasks of the session on the game thread
+     * @param listener receives the events of the session
+     * @param maxQuestions the number of questions of the game
+     * @param revealDuration how long the correct answer is shown before the next question, in milliseconds
+     */
+    public GameSessionHandler(QuestionProvider questionProvider, ClockHelper.Clock clock, ClockHelper.Timer timer,
+                              Listener listener, int maxQuestions, long revealDuration) {
+        this(questionProvider, clock, timer, listener, maxQuestions, revealDuration, new ReadingSpeedModelHelper());
+    }
+
+    /**
+     * Constructor for the GameSessionHandler class
+     * @param questionProvider provides the questions of the game
+     * @param clock the source of the current time
+     * @param timer runs the tasks of the session on the game thread
+     * @param listener receives the events of the session
+     * @param maxQuestions the number of questions of the game
+     * @param revealDuration how long the correct answer is shown before the next question, in milliseconds
+     * @param readingSpeedModel computes the time budgets of the questions and learns from the answers
+     */
+    public GameSessionHandler(QuestionProvider questionProvider, ClockHelper.Clock clock, ClockHelper.Timer timer,
+                              Listener listener, int maxQuestions, long revealDuration, ReadingSpeedModelHelper readingSpeedModel) {
+        this.questionProvider = questionProvider;
+        this.clock = clock;
+        this.timer = timer;
+        this.listener = listener;
+        this.maxQuestions = maxQuestions;
+        this.revealDuration = revealDuration;
+        this.readingSpeedModel = readingSpeedModel;
+    }
+
+    /**
+     * Starts the game with its first question
+     */
+    public void start() {
+        if (state != State.CREATED) {
+            return;
+        }
+        loadQuestion(0);
+    }
+
+    /**
+     * Answers the current question, ignored if the question is not waiting for an answer
+     * @param answerIndex the position of the answer in the randomized answers of the question
+     */
+    public void answer(int answerIndex) {
+        if (state != State.ANSWERING || isPaused) {
+            return;
+        }
+
+        readingSpeedModel.recordAnswer(currentQuestion.getWordCount(), timeBudget - getRemainingTime());
+        if (currentQuestion.isCorrectAnswer(answerIndex)) {
+            points += currentQuestion.getPoints();
+            correctAnswers++;
+        }
+        reveal(answerIndex);
+    }
+
+    /**
+     * Stops the game without a result, the tasks still scheduled are ignored
+     */
+    public void cancel() {
+        state = State.FINISHED;
+        step++;
+    }
+
+    /**
+     * Pauses the session, the time of the question or of the reveal stops running until the session is resumed
+     */
+    public void pause() {
+        if (isPaused || state == State.CREATED || state == State.FINISHED) {
+            return;
+        }
+        isPaused = true;
+
+        if (state == State.ANSWERING || state == State.REVEALING) {
+            // the question that is loading keeps its task, it waits for the resume when it arrives
+            pausedRemainingTime = Math.max(0, deadline - clock.currentTimeMillis());
+            step++;
+        }
+    }
+
+    /**
+     * Resumes a paused session with the time left when it was paused
+     */
+    public void resume() {
+        if (!isPaused) {
+            return;
+        }
+        isPaused = false;
+
+        switch (state) {
+            case ANSWERING:
+                deadline = clock.currentTimeMillis() + pausedRemainingTime;
+                scheduleTimeUp(pausedRemainingTime);
+                break;
+            case REVEALING:
+                deadline = clock.currentTimeMillis() + pausedRemainingTime;
+                scheduleNextQuestion(pausedRemainingTime);
+                break;
+            case LOADING:
+                if (hasPendingQuestion) {
+                    TriviaQuestion question = pendingQuestion;
+                    hasPendingQuestion = false;
+                    pendingQuestion = null;
+                    startQuestion(question);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Check if the session is paused
+     * @return true if the session is paused, false otherwise
+     */
+    public boolean isPaused() {
+        return isPaused;
+    }
+
+    /**
+     * Get the time left to answer the current question
+     * @return the time left in milliseconds, or 0 if no question is waiting for an answer
+     */
+    public long getRemainingTime() {
+        if (state != State.ANSWERING) {
+            return 0;
+        }
+        return isPaused ? pausedRemainingTime : Math.max(0, deadline - clock.currentTimeMillis());
+    }
+
+    /**
+     * Get the index of the current question
+     * @return the index of the question in the game
+     */
+    public int getCurrentQuestionNumber() {
+        return currentQuestionNumber;
+    }
+
+    /**
+     * Get the points of the game so far
+     * @return the points
+     */
+    public int getPoints() {
+        return points;
+    }
+
+    /**
+     * Get the number of questions answered correctly so far
+     * @return the number of correct answers
+     */
+    public int getCorrectAnswers() {
+        return correctAnswers;
+    }
+
+    /**
+     * Check if the game is over
+     * @return true if the game finished or was cancelled, false otherwise
+     */
+    public boolean isFinished() {
+        return state == State.FINISHED;
+    }
+
+    /**
+     * Waits for the question, or ends the game after the last question
+     * @param questionNumber the index of the question in the game
+     */
+    private void loadQuestion(int questionNumber) {
+        currentQuestionNumber = questionNumber;
+        if (questionNumber >= maxQuestions) {
+            finish();
+            return;
+        }
+
+        state = State.LOADING;
+        int loadingStep = ++step;
+        questionProvider.getQuestionAsync(questionNumber)
+                .whenComplete((question, e) -> timer.schedule(() -> {
+                    if (step != loadingStep) {
+                        return;
+                    }
+                    if (isPaused) {
+                        hasPendingQuestion = true;
+                        pendingQuestion = e == null ? question : null;
+                    } else {
+                        startQuestion(e == null ? question : null);
+                    }
+                }, 0));
+    }
+
+    /**
+     * Shows the question and starts its time, or ends the game if it could not be loaded
+     * @param question the question, or null if it could not be loaded
+     */
+    private void startQuestion(TriviaQuestion question) {
+        if (question == null) {
+            finish();
+            return;
+        }
+
+        currentQuestion = question;
+        timeBudget = readingSpeedModel.getTimeBudget(question.getWordCount());
+        deadline = clock.currentTimeMillis() + timeBudget;
+        state = State.ANSWERING;
+        step++;
+
+        listener.onQuestionStarted(currentQuestionNumber, question, timeBudget);
+        scheduleTimeUp(timeBudget);
+    }
+
+    /**
+     * Reveals the correct answer without an answer once the time of the question is up
+     * @param delay the time left to answer the question, in milliseconds
+     */
+    private void scheduleTimeUp(long delay) {
+        int answeringStep = step;
+        timer.schedule(() -> {
+            if (step == answeringStep) {
+                // the player needed at least the whole time budget
+                readingSpeedModel.recordAnswer(currentQuestion.getWordCount(), timeBudget);
+                reveal(NO_ANSWER);
+            }
+        }, delay);
+    }
+
+    /**
+     * Reveals the correct answer, and moves to the next question once the reveal is over
+     * @param answerIndex the position of the answer given, or NO_ANSWER if the time is up
+     */
+    private void reveal(int answerIndex) {
+        state = State.REVEALING;
+        deadline = clock.currentTimeMillis() + revealDuration;
+        step++;
+
+        listener.onAnswerRevealed(currentQuestionNumber, answerIndex, currentQuestion.getCorrectAnswerIndex(), points);
+        scheduleNextQuestion(revealDuration);
+    }
+
+    /**
+     * Moves to the next question once the reveal is over
+     * @param delay the time left of the reveal, in milliseconds
+     */
+    private void scheduleNextQuestion(long delay) {
+        int revealingStep = step;
+        timer.schedule(() -> {
+            if (step == revealingStep) {
+                loadQuestion(currentQuestionNumber + 1);
+            }
+        }, delay);
+    }
+
+    /**
+     * Ends the game and reports its result
+     */
+    private void finish() {
+        state = State.FINISHED;
+        step++;
+        listener.onGameFinished(new Result(points, correctAnswers, Math.max(currentQuestionNumber, 1)));
+    }
+}
@@ -0,0 +1,281 @@
+package com.knowledgerealm.handlers;
+
+import static com.knowledgerealm.enums.TriviaApiResponseCodeEnum.NO_RESULTS;
+import static com.knowledgerealm.enums.TriviaApiResponseCodeEnum.SUCCESS;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
+import com.knowledgerealm.enums.TriviaApiDifficultyEnum;
+import com.knowledgerealm.enums.TriviaApiEncodingEnum;
+import com.knowledgerealm.enums.TriviaApiTokenStateEnum;
+import com.knowledgerealm.helpers.CategoriesResponseHelper;
+import com.knowledgerealm.helpers.TriviaResponseDecoderHelper;
+import com.knowledgerealm.helpers.TriviaResponseHelper;
+import com.knowledgerealm.models.StoredQuestion;
+import com.knowledgerealm.models.TriviaQuestion;
+import com.knowledgerealm.models.interfaces.QuestionSource;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Class for serving the questions of a game from a local question pack, in the assets of the app or in its storage.
+ * A pack is either a JSON response of api.php, or newline-delimited JSON with one question object per line
+ * when its name ends in ".ndjson". The pack is decoded once, the first time it is used.
+ * Questions are served in the order of the pack, every category and difficulty continuing where its last request
+ * stopped and starting over once the pack is exhausted, so the same requests always return the same questions.
+ * This makes it suitable for offline play and for load tests that must not depend on the network.
+ */
+public class LocalFileQuestionSourceHandler implements QuestionSource {
+    public static final String NDJSON_EXTENSION = ".ndjson";
+
+    private static final ExecutorService fileExecutor = Executors.newSingleThreadExecutor();
+
+    /**
+     * Opens the stream of the pack
+     */
+    private interface PackOpener {
+        InputStream open() throws IOException;
+    }
+
+    private final String name;
+    private final PackOpener packOpener;
+    private final boolean isNdjson;
+    private final TriviaApiEncodingEnum encoding;
+    // The position of the next question to serve, per query
+    private final Map<String, Integer> cursors = new HashMap<>();
+    private List<TriviaQuestion> questions;
+    private CompletableFuture<Boolean> loadFuture;
+
+    /**
+     * Constructor for the LocalFileQuestionSourceHandler class
+     * @param name the name of the pack
+     * @param packOpener opens the stream of the pack
+     * @param encoding the encoding of the text of the questions
+     */
+    private LocalFileQuestionSourceHandler(String name, PackOpener packOpener, TriviaApiEncodingEnum encoding) {
+        this.name = name;
+        this.packOpener = packOpener;
+        this.isNdjson = name.endsWith(NDJSON_EXTENSION);
+        this.encoding = encoding;
+    }
+
+    /**
+     * Creates a source for a question pack in the assets of the app, with the text of the questions in HTML entities
+     * @param context the context of the application
+     * @param fileName the path of the pack in the assets
+     * @return the source of the pack
+     */
+    public static LocalFileQuestionSourceHandler fromAsset(Context context, String fileName) {
+        Context applicationContext = context.getApplicationContext();
+        return new LocalFileQuestionSourceHandler(fileName, () -> applicationContext.getAssets().open(fileName), TriviaApiEncodingEnum.DEFAULT);
+    }
+
+    /**
+     * Creates a source for a question pack in the storage of the app, with the text of the questions in HTML entities
+     * @param file the pack
+     * @return the source of the pack
+     */
+    public static LocalFileQuestionSourceHandler fromFile(File file) {
+        return fromFile(file, TriviaApiEncodingEnum.DEFAULT);
+    }
+
+    /**
+     * Creates a source for a question pack in the storage of the app
+     * @param file the pack
+     * @param encoding the encoding of the text of the questions
+     * @return the source of the pack
+     */
+    public static LocalFileQuestionSourceHandler fromFile(File file, TriviaApiEncodingEnum encoding) {
+        return new LocalFileQuestionSourceHandler(file.getName(), () -> new FileInputStream(file), encoding);
+    }
+
+    /**
+     * Decodes the pack into memory, only the first call reads it
+     * @return a CompletableFuture that will contain true if the pack has questions, false otherwise
+     */
+    public synchronized CompletableFuture<Boolean> loadAsync() {
+        if (loadFuture == null) {
+            loadFuture = CompletableFuture.supplyAsync(() -> {
+                List<TriviaQuestion> packQuestions = readPack();
+                synchronized (this) {
+                    questions = packQuestions;
+                }
+                Log.i("LocalQuestionSource", packQuestions.size() + " questions loaded from " + name);
+                return !packQuestions.isEmpty();
+            }, fileExecutor).exceptionally(e -> {
+                Log.e("LocalQuestionSource", "Error loading " + name + ". More info: " + e.getMessage());
+                synchronized (this) {
+                    questions = Collections.emptyList();
+                }
+                return false;
+            });
+        }
+        return loadFuture;
+    }
+
+    /**
+     * Get the name of the pack
+     * @return the name of the pack
+     */
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Serves the next questions of the pack that match the query, without a request
+     * @param category the category of questions to fetch, or null for any category
+     * @param difficulty the difficulty of questions to fetch, or null for any difficulty
+     * @param type the type of questions to fetch, "multiple" or "boolean", or null for any type
+     * @param amount the number of questions to fetch
+     * @return a CompletableFuture that will contain up to amount questions, or a NO_RESULTS response if none match
+     */
+    @Override
+    public CompletableFuture<TriviaResponseHelper> getTriviaQuestionsAsync(TriviaApiCategoriesEnum category, TriviaApiDifficultyEnum difficulty, String type, int amount) {
+        return loadAsync().thenApply(loaded -> takeQuestions(category, difficulty, type, amount));
+    }
+
+    /**
+     * Gets the names of the categories of the pack, in the order they first appear
+     * @return a CompletableFuture that will contain a CategoriesResponseHelper with the category names
+     */
+    @Override
+    public CompletableFuture<CategoriesResponseHelper> getCategoriesAsync() {
+        return loadAsync().thenApply(loaded -> {
+            Set<String> categories = new LinkedHashSet<>();
+            synchronized (this) {
+                for (TriviaQuestion question : questions) {
+                    if (question.getCategory() != null) {
+                        categories.add(question.getCategory().getName());
+                    }
+                }
+            }
+            return new CategoriesResponseHelper(new ArrayList<>(categories), loaded);
+        });
+    }
+
+    /**
+     * A pack has no session token
+     * @return null
+     */
+    @Override
+    public String getSessionToken() {
+        return null;
+    }
+
+    /**
+     * A pack starts over once it is exhausted, so it is always valid
+     * @return VALID
+     */
+    @Override
+    public TriviaApiTokenStateEnum getTokenState() {
+        return TriviaApiTokenStateEnum.VALID;
+    }
+
+    /**
+     * A pack has no session token to refresh
+     * @return a CompletableFuture that will contain true if the pack has questions, false otherwise
+     */
+    @Override
+    public CompletableFuture<Boolean> refreshSessionTokenAsync() {
+        return loadAsync();
+    }
+
+    /**
+     * Check if the pack can serve questions, it is considered available until it turns out to be empty
+     * @return false if the pack was loaded without questions, true otherwise
+     */
+    @Override
+    public synchronized boolean isAvailable() {
+        return questions == null || !questions.isEmpty();
+    }
+
+    /**
+     * Takes the next questions that match the query, continuing from the cursor of the query
+     * @param category the category of the questions, or null for any category
+     * @param difficulty the difficulty of the questions, or null for any difficulty
+     * @param type the type of the questions, or null for any type
+     * @param amount the number of questions to take
+     * @return a TriviaResponseHelper with up to amount questions
+     */
+    private synchronized TriviaResponseHelper takeQuestions(TriviaApiCategoriesEnum category, TriviaApiDifficultyEnum difficulty, String type, int amount) {
+        String query = category + "|" + difficulty + "|" + type;
+        int start = cursors.containsKey(query) ? cursors.get(query) : 0;
+        List<TriviaQuestion> matchingQuestions = new ArrayList<>(amount);
+
+        // a single pass over the pack from the cursor, wrapping around at the end,
+        // so the questions before the cursor are served again once the pack is exhausted
+        int size = questions.size();
+        int position = start;
+        for (int i = 0; i < size && matchingQuestions.size() < amount; i++) {
+            position = (start + i) % size;
+            if (matches(questions.get(position), category, difficulty, type)) {
+                matchingQuestions.add(questions.get(position));
+            }
+        }
+
+        if (matchingQuestions.isEmpty()) {
+            return new TriviaResponseHelper(matchingQuestions, false, NO_RESULTS.getResponseCode());
+        }
+
+        cursors.put(query, (position + 1) % size);
+        return new TriviaResponseHelper(matchingQuestions, true, SUCCESS.getResponseCode());
+    }
+
+    /**
+     * Check if the question matches the query
+     * @param question the question
+     * @param category the category, or null for any category
+     * @param difficulty the difficulty, or null for any difficulty
+     * @param type the type, or null for any type
+     * @return true if the question matches, false otherwise
+     */
+    private static boolean matches(TriviaQuestion question, TriviaApiCategoriesEnum category, TriviaApiDifficultyEnum difficulty, String type) {
+        if (category != null && category != TriviaApiCategoriesEnum.NO_CATEGORY && question.getCategory() != category) {
+            return false;
+        }
+
+        if (difficulty != null && difficulty != TriviaApiDifficultyEnum.NO_DIFFICULTY && question.getDifficulty() != difficulty) {
+            return false;
+        }
+
+        if (type != null) {
+            return StoredQuestion.getType(question).equals(type);
+        }
+        return true;
+    }
+
+    /**
+     * Reads and decodes the whole pack, must be called on the file executor
+     * @return the questions of the pack, in the order of the pack
+     */
+    private List<TriviaQuestion> readPack() {
+        try (InputStream input = new BufferedInputStream(packOpener.open())) {
+            if (isNdjson) {
+                return TriviaResponseDecoderHelper.decodeQuestionLines(input, encoding);
+            }
+
+            TriviaResponseHelper triviaResponseHelper = TriviaResponseDecoderHelper.decodeQuestions(input, encoding);
+            return triviaResponseHelper.getTriviaQuestions();
+        } catch (IOException e) {
+            Log.e("LocalQuestionSource", "Error reading " + name + ". More info: " + e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+}
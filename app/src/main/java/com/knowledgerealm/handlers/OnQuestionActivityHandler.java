@@ -6,77 +6,175 @@ import android.util.Log;
 import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
 import com.knowledgerealm.enums.TriviaApiDifficultyEnum;
 import com.knowledgerealm.helpers.SettingsSaveStatesHelper;
-import com.knowledgerealm.helpers.TextReadTimeEstimatorHelper;
-import com.knowledgerealm.helpers.TriviaResponseHelper;
-import com.knowledgerealm.models.Token;
 import com.knowledgerealm.models.TriviaQuestion;
-import com.knowledgerealm.models.interfaces.TokenDao;
+import com.knowledgerealm.models.interfaces.QuestionSource;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CompletableFuture;
 
 /**
- * Class for handling the questions on the QuestionActivity
+ * Class for handling the questions on the QuestionActivity, it provides the questions of its game session
  */
-public class OnQuestionActivityHandler {
+public class OnQuestionActivityHandler implements GameSessionHandler.QuestionProvider {
+    // Question packs in the storage of the app are used for offline play
+    public static final String[] QUESTION_PACK_FILE_NAMES = {"question_pack" + LocalFileQuestionSourceHandler.NDJSON_EXTENSION, "question_pack.json"};
+    // The place of the Trivia API in the priority order of the question sources
+    private static final int TRIVIA_API_SOURCE_INDEX = 0;
+
+    // The question sources, shared between the games so the latency and health measured in a game carry over to the next ones
+    private static CompositeQuestionSourceHandler sharedQuestionSource;
 
     private TriviaApiHandler triviaApiHandler;
-    private List<TriviaQuestion> triviaQuestions;
-    private Boolean isTriviaQuestionsLoaded;
+    private QuestionSource questionSource;
+    private final QuestionSource fixedQuestionSource;
+    private QuestionPrefetchHandler questionPrefetchHandler;
+    private QuestionBankHandler questionBankHandler;
+    private TokenPoolHandler tokenPoolHandler;
+    private QuestionCountIndexHandler questionCountIndexHandler;
     private int maxQuestions;
+    private QuestionCountIndexHandler.GamePlan gamePlan;
     private Context context;
 
     // Settings variables
     private String difficulty;
     private String category;
+    private TriviaApiCategoriesEnum categoryEnum;
+    private TriviaApiDifficultyEnum difficultyEnum;
 
     /**
      * Constructor for the OnQuestionActivity class
      */
     public OnQuestionActivityHandler(Context context, int maxQuestions) {
-        triviaApiHandler = new TriviaApiHandler(null);
-        triviaQuestions = new ArrayList<>();
-        isTriviaQuestionsLoaded = false;
+        this(context, maxQuestions, null);
+    }
+
+    /**
+     * Constructor for the OnQuestionActivity class with a fixed source for the questions, for example a local question pack for load tests
+     * @param context the context of the application
+     * @param maxQuestions the number of questions of the game
+     * @param questionSource the source of the questions, or null to combine the Trivia API, the question bank and the question packs
+     */
+    public OnQuestionActivityHandler(Context context, int maxQuestions, QuestionSource questionSource) {
         this.maxQuestions = maxQuestions;
         this.context = context;
+        this.fixedQuestionSource = questionSource;
+        questionBankHandler = new QuestionBankHandler(context);
+        tokenPoolHandler = TokenPoolHandler.getInstance(context);
+        questionCountIndexHandler = QuestionCountIndexHandler.getInstance(context);
+    }
 
-        retrieveSavedSettings();
-        handleTokenForUser();
+    /**
+     * Loads the saved settings and the pooled token of the category and difficulty, and starts the game from the offline question bank
+     * or, if the bank does not have enough questions, by prefetching them from the fastest healthy question source.
+     * While the Trivia API is known to be down, the game is served from whatever the bank has.
+     * The question counts already known decide up front whether the game needs other difficulties or fewer questions.
+     * They are never waited for: a category that was never counted is counted in the background after the first question,
+     * or right away if a request finds no results.
+     * No thread is blocked while the network calls are in flight. The returned future completes
+     * as soon as the first question is ready, the rest of the game keeps loading in the background.
+     * @return a CompletableFuture that will contain true if the first question was loaded, false otherwise
+     */
+    public CompletableFuture<Boolean> loadQuestionsAsync() {
+        return SettingsStoreHandler.getInstance(context).loadAsync()
+                .thenRun(this::retrieveSavedSettings)
+                .thenCompose(settingsLoaded -> questionCountIndexHandler.loadAsync())
+                .thenCompose(indexLoaded -> {
+                    categoryEnum = TriviaApiCategoriesEnum.getEnumByName(category);
+                    difficultyEnum = TriviaApiDifficultyEnum.getEnumByName(difficulty);
+                    // avoid a request for more questions than the category and difficulty have
+                    gamePlan = questionCountIndexHandler.planGame(categoryEnum, difficultyEnum, maxQuestions);
+                    maxQuestions = gamePlan.getAmount();
+                    return tokenPoolHandler.acquireAsync(categoryEnum, difficultyEnum);
+                })
+                .thenCompose(acquiredHandler -> {
+                    triviaApiHandler = acquiredHandler;
+                    questionSource = fixedQuestionSource != null ? fixedQuestionSource : getSharedQuestionSource(context, triviaApiHandler);
+                    int requestedQuestions = maxQuestions;
+                    questionPrefetchHandler = new QuestionPrefetchHandler(questionSource, SeenQuestionFilterHandler.getInstance(context), categoryEnum, gamePlan,
+                            () -> questionCountIndexHandler.loadCountAsync(triviaApiHandler, categoryEnum)
+                                    .thenApply(countLoaded -> questionCountIndexHandler.planGame(categoryEnum, difficultyEnum, requestedQuestions)));
+
+                    // While the Trivia API is down, a shorter game from the bank is better than no game
+                    int minimumBankQuestions = triviaApiHandler.isAvailable() ? maxQuestions : 1;
+                    return questionBankHandler.takeQuestionsAsync(categoryEnum, difficultyEnum, maxQuestions, minimumBankQuestions)
+                            .thenCompose(questionPrefetchHandler::start)
+                            .whenComplete((isFirstQuestionLoaded, e) -> {
+                                questionBankHandler.refillAsync(triviaApiHandler, categoryEnum, difficultyEnum);
+                                questionCountIndexHandler.refreshIfStaleAsync(triviaApiHandler, categoryEnum);
+                            });
+                })
+                .thenApply(isFirstQuestionLoaded -> {
+                    // the token may have been retrieved or reset by the request
+                    tokenPoolHandler.releaseAsync(categoryEnum, difficultyEnum, triviaApiHandler);
+
+                    if (!isFirstQuestionLoaded) {
+                        Log.e("OnQuestionActivity", "Error getting trivia questions");
+                    }
+                    return isFirstQuestionLoaded;
+                })
+                .exceptionally(e -> {
+                    Log.e("OnQuestionActivity", "Error loading trivia questions. More info: " + e.getMessage());
+                    return false;
+                });
     }
 
     /**
-     * Get the question from the triviaQuestions list
-     * @param questionNumber the index of the question in the list
-     * @return the trivia question or null if there is an error
+     * Get the number of questions of the game, once it is loaded it may be fewer than asked for
+     * if the category does not have enough questions
+     * @return the number of questions of the game
      */
-    public TriviaQuestion getQuestion(int questionNumber) {
-        if (!isTriviaQuestionsLoaded) {
-            TriviaResponseHelper triviaResponseHelper = triviaApiHandler.getTriviaQuestions(
-                     TriviaApiCategoriesEnum.getEnumByName(category),
-                    TriviaApiDifficultyEnum.getEnumByName(difficulty),
-                    null,
-                    maxQuestions
-            );
+    public int getMaxQuestions() {
+        return maxQuestions;
+    }
 
-            if (triviaResponseHelper.isSuccess()) {
-                triviaQuestions = triviaResponseHelper.getTriviaQuestions();
-                isTriviaQuestionsLoaded = true;
-            } else {
-                Log.e("OnQuestionActivity", "Error getting trivia questions");
-                return null;
-            }
+    /**
+     * Stops loading the remaining questions of the game
+     */
+    public void cancel() {
+        if (questionPrefetchHandler != null) {
+            questionPrefetchHandler.cancel();
+        }
+        if (triviaApiHandler != null) {
+            // the token may have been exhausted while the rest of the game was loading
+            tokenPoolHandler.releaseAsync(categoryEnum, difficultyEnum, triviaApiHandler);
         }
+    }
 
-        try {
-            return triviaQuestions.get(questionNumber);
-        } catch (IndexOutOfBoundsException e) {
-            Log.e("OnQuestionActivity", "Question number out of bounds");
-            return null;
-        } catch (Exception e) {
-            Log.e("OnQuestionActivity", "Error getting question");
-            return null;
+    /**
+     * Check if the question is ready, so getting it does not have to wait for the network
+     * @param questionNumber the index of the question in the game
+     * @return true if the question is loaded or failed to load, false if it is still being fetched
+     */
+    public boolean isQuestionReady(int questionNumber) {
+        return questionPrefetchHandler != null && questionPrefetchHandler.isQuestionReady(questionNumber);
+    }
+
+    /**
+     * Get the question as soon as it is ready
+     * @param questionNumber the index of the question in the game
+     * @return a CompletableFuture that will contain the trivia question or null if it could not be loaded
+     */
+    @Override
+    public CompletableFuture<TriviaQuestion> getQuestionAsync(int questionNumber) {
+        if (questionPrefetchHandler == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return questionPrefetchHandler.getQuestionAsync(questionNumber);
+    }
+
+    /**
+     * Get the question of the game, without waiting for the network
+     * @param questionNumber the index of the question in the game
+     * @return the trivia question or null if there is an error or the question is not loaded yet
+     */
+    public TriviaQuestion getQuestion(int questionNumber) {
+        TriviaQuestion question = questionPrefetchHandler != null ? questionPrefetchHandler.getQuestion(questionNumber) : null;
+        if (question == null) {
+            Log.e("OnQuestionActivity", "Question " + questionNumber + " is not loaded");
         }
+        return question;
     }
 
     /**
@@ -87,7 +185,9 @@ public class OnQuestionActivityHandler {
     public String getCategory(int questionNumber) {
         TriviaQuestion question = getQuestion(questionNumber);
         if (question != null) {
-            return shortenString(question.getCategory().getName(), 27);
+            // questions of a pack may have a category the Trivia API does not know
+            TriviaApiCategoriesEnum questionCategory = question.getCategory() != null ? question.getCategory() : TriviaApiCategoriesEnum.NO_CATEGORY;
+            return shortenString(questionCategory.getName(), 27);
         } else {
             Log.e("OnQuestionActivity", "Error getting category");
             return TriviaApiCategoriesEnum.NO_CATEGORY.getName();
@@ -102,7 +202,9 @@ public class OnQuestionActivityHandler {
     public String getDifficulty(int questionNumber) {
         TriviaQuestion question = getQuestion(questionNumber);
         if (question != null) {
-            return question.getDifficulty().getName();
+            // questions of a pack may have no difficulty
+            TriviaApiDifficultyEnum questionDifficulty = question.getDifficulty() != null ? question.getDifficulty() : TriviaApiDifficultyEnum.NO_DIFFICULTY;
+            return questionDifficulty.getName();
         } else {
             Log.e("OnQuestionActivity", "Error getting difficulty");
             return TriviaApiDifficultyEnum.NO_DIFFICULTY.getName();
@@ -112,13 +214,13 @@ public class OnQuestionActivityHandler {
     /**
      * Check if the answer is correct
      * @param questionNumber the index of the question in the list
-     * @param answer the answer to check
+     * @param answerIndex the position of the answer in the randomized answers of the question
      * @return true if the answer is correct, false otherwise
      */
-    public Boolean checkAnswer(int questionNumber, String answer) {
+    public boolean checkAnswer(int questionNumber, int answerIndex) {
         TriviaQuestion question = getQuestion(questionNumber);
         if (question != null) {
-            return question.getCorrectAnswer().equals(answer);
+            return question.isCorrectAnswer(answerIndex);
         } else {
             Log.e("OnQuestionActivity", "Error checking answer");
             return false;
@@ -126,43 +228,33 @@ public class OnQuestionActivityHandler {
     }
 
     /**
-     * Get the correct answer for the question
+     * Get the position of the correct answer in the randomized answers of the question
      * @param questionNumber the index of the question in the list
-     * @return the correct answer for the question
+     * @return the index of the correct answer, or -1 if there is an error
      */
-    public String getCorrectAnswer(int questionNumber) {
+    public int getCorrectAnswerIndex(int questionNumber) {
         TriviaQuestion question = getQuestion(questionNumber);
         if (question != null) {
-            return question.getCorrectAnswer();
+            return question.getCorrectAnswerIndex();
         } else {
-            Log.e("OnQuestionActivity", "Error getting correct answer");
-            return null;
+            Log.e("OnQuestionActivity", "Error getting correct answer index");
+            return -1;
         }
     }
 
     /**
-     * Get the estimated read time for the question and answer choices, in milliseconds
+     * Get the correct answer for the question
      * @param questionNumber the index of the question in the list
-     * @param defaultTimeValue the default time value to use if there is an error, in milliseconds
-     * @return the estimated read time for the question and answer choices, in milliseconds, or the default time value if there is an error
+     * @return the correct answer for the question
      */
-    public int estimateReadTime(int questionNumber, int defaultTimeValue) {
-        if (getQuestion(questionNumber) == null) {
-            Log.e("OnQuestionActivity", "Error estimating read time, using default value of " + defaultTimeValue + " milliseconds");
-            return defaultTimeValue;
+    public String getCorrectAnswer(int questionNumber) {
+        TriviaQuestion question = getQuestion(questionNumber);
+        if (question != null) {
+            return question.getCorrectAnswer();
+        } else {
+            Log.e("OnQuestionActivity", "Error getting correct answer");
+            return null;
         }
-
-        StringBuilder answerChoices = new StringBuilder();
-        String question = getQuestion(questionNumber).getQuestion();
-
-        getQuestion(questionNumber).getAllAnswersRandomized().forEach(
-                answerChoice -> answerChoices.append(answerChoice).append(" ")
-        );
-
-        int estimatedReadTime = TextReadTimeEstimatorHelper.estimateReadTime(question + answerChoices);
-        Log.i("OnQuestionActivity", "Estimated read time for question " + questionNumber + " is " + estimatedReadTime + " milliseconds");
-        return estimatedReadTime;
-
     }
 
     /**
@@ -179,61 +271,37 @@ public class OnQuestionActivityHandler {
      * @return the session token or null if there is an error
      */
     public String getSessionToken() {
-        return triviaApiHandler.getSessionToken();
+        return triviaApiHandler != null ? triviaApiHandler.getSessionToken() : null;
     }
 
+    // ##### Other Methods #####
+
     /**
-     * Handles the user token logic for the trivia questions API
+     * Combines the Trivia API, the question bank and the question packs in the storage of the app, in this priority order.
+     * The combination is created by the first game, the next games only swap in the Trivia API handler of their session token.
+     * @param context the context of the application
+     * @param triviaApiHandler the Trivia API handler of the game
+     * @return the source of the questions of the game
      */
-    private void handleTokenForUser() {
-        long TOKEN_EXPIRATION_TIME = 6 * 3600000; // 6 hours
-
-        final CountDownLatch latch = new CountDownLatch(1);
-        new Thread(() -> {
-            Token token = new Token();
-            token.setId(0);
-
-            // set a temporary token and the current timestamp
-            token.setToken(getSessionToken());
-            token.setTimestamp(System.currentTimeMillis());
+    private static synchronized QuestionSource getSharedQuestionSource(Context context, TriviaApiHandler triviaApiHandler) {
+        if (sharedQuestionSource != null) {
+            sharedQuestionSource.setSource(TRIVIA_API_SOURCE_INDEX, triviaApiHandler);
+            return sharedQuestionSource;
+        }
 
-            // check if there is a token in the database
-            TokenDao tokenDao = TokenDatabaseHandler.getInstance(context).tokenDao();
-            Token storedToken = tokenDao.getById(0);
-            if (storedToken == null || storedToken.getToken() == null) {
-                // if there is not, create a new one
-                token.setToken(getSessionToken());
-                token.setTimestamp(System.currentTimeMillis());
-                tokenDao.insert(token);
-                Log.i("OnQuestionActivity", "Token " + token + " inserted and being used");
-            } else {
-                // if there is, check if it is expired
-                if (storedToken.getTimestamp() + TOKEN_EXPIRATION_TIME < System.currentTimeMillis()) {
-                    // if it is expired, update it
-                    token.setToken(getSessionToken());
-                    token.setTimestamp(System.currentTimeMillis());
-                    tokenDao.update(token);
-                    Log.i("OnQuestionActivity", "Token " + token + " updated and being used");
-                } else {
-                    // if it is not expired, use it
-                    Log.i("OnQuestionActivity", "Token " + storedToken.getToken() + " being used");
-                    triviaApiHandler.setSessionToken(storedToken.getToken());
-                }
+        List<QuestionSource> questionSources = new ArrayList<>();
+        questionSources.add(triviaApiHandler);
+        questionSources.add(new CachedQuestionSourceHandler(context));
+        for (String fileName : QUESTION_PACK_FILE_NAMES) {
+            File questionPack = new File(context.getFilesDir(), fileName);
+            if (questionPack.isFile()) {
+                questionSources.add(LocalFileQuestionSourceHandler.fromFile(questionPack));
             }
-
-            latch.countDown();
-        }).start();
-
-        // wait for the thread to finish
-        try {
-            latch.await();
-        } catch (InterruptedException e) {
-            Log.e("OnQuestionActivity", "Waiting for token thread interrupted. More info: " + e.getMessage());
         }
+        sharedQuestionSource = new CompositeQuestionSourceHandler(questionSources);
+        return sharedQuestionSource;
     }
 
-    // ##### Other Methods #####
-
     /**
      * Shortens the string to the specified length
      * @param input the string to shorten
@@ -249,7 +317,7 @@ public class OnQuestionActivityHandler {
     }
 
     /**
-     * Retrieve the saved settings from the database
+     * Retrieve the saved settings from the settings store
      */
     private void retrieveSavedSettings()
     {
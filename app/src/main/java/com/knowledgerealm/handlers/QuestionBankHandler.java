@@ -0,0 +1,197 @@
+package com.knowledgerealm.handlers;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
+import com.knowledgerealm.enums.TriviaApiDifficultyEnum;
+import com.knowledgerealm.models.StoredQuestion;
+import com.knowledgerealm.models.TriviaQuestion;
+import com.knowledgerealm.models.interfaces.QuestionDao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Class for handling the offline question bank.
+ * Decoded questions are kept in a Room database, a game is served by sampling random questions
+ * that have not been served yet, and the bank is refilled from the Trivia API in the background.
+ */
+public class QuestionBankHandler {
+    public static final int MAX_STORED_QUESTIONS = 2000;
+    // Refill when fewer questions than this are left for the category and difficulty
+    public static final int REFILL_THRESHOLD = 30;
+    // The maximum amount of questions of a single Trivia API request
+    public static final int REFILL_AMOUNT = 50;
+
+    private static final ExecutorService databaseExecutor = Executors.newSingleThreadExecutor();
+    private static final AtomicBoolean isRefilling = new AtomicBoolean(false);
+
+    private final Context context;
+
+    /**
+     * Constructor for the QuestionBankHandler class
+     * @param context the context of the application
+     */
+    public QuestionBankHandler(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * Takes random questions from the bank that have not been served yet and marks them as served.
+     * Nothing is taken if the bank does not have enough questions for the game.
+     * @param category the category of the questions, or null for any category
+     * @param difficulty the difficulty of the questions, or null for any difficulty
+     * @param amount the number of questions of the game
+     * @return a CompletableFuture that will contain the questions, or an empty list if there are not enough
+     */
+    public CompletableFuture<List<TriviaQuestion>> takeQuestionsAsync(TriviaApiCategoriesEnum category, TriviaApiDifficultyEnum difficulty, int amount) {
+        return takeQuestionsAsync(category, difficulty, amount, amount);
+    }
+
+    /**
+     * Takes random questions from the bank that have not been served yet and marks them as served.
+     * Nothing is taken if the bank has fewer questions than the minimum amount.
+     * @param category the category of the questions, or null for any category
+     * @param difficulty the difficulty of the questions, or null for any difficulty
+     * @param amount the number of questions of the game
+     * @param minimumAmount the fewest questions worth serving, for example when the Trivia API is down
+     * @return a CompletableFuture that will contain up to amount questions, or an empty list if there are not enough
+     */
+    public CompletableFuture<List<TriviaQuestion>> takeQuestionsAsync(TriviaApiCategoriesEnum category, TriviaApiDifficultyEnum difficulty, int amount, int minimumAmount) {
+        return takeQuestionsAsync(category, difficulty, null, amount, minimumAmount);
+    }
+
+    /**
+     * Takes random questions of a type from the bank that have not been served yet and marks them as served.
+     * Nothing is taken if the bank has fewer questions than the minimum amount.
+     * @param category the category of the questions, or null for any category
+     * @param difficulty the difficulty of the questions, or null for any difficulty
+     * @param type the type of the questions, "multiple" or "boolean", or null for any type
+     * @param amount the number of questions of the game
+     * @param minimumAmount the fewest questions worth serving, for example when the Trivia API is down
+     * @return a CompletableFuture that will contain up to amount questions, or an empty list if there are not enough
+     */
+    public CompletableFuture<List<TriviaQuestion>> takeQuestionsAsync(TriviaApiCategoriesEnum category, TriviaApiDifficultyEnum difficulty, String type, int amount, int minimumAmount) {
+        return CompletableFuture.supplyAsync(() -> {
+            QuestionDao questionDao = QuestionDatabaseHandler.getInstance(context).questionDao();
+            List<StoredQuestion> storedQuestions = questionDao.getRandomUnseen(getCategoryId(category), getDifficultyName(difficulty),
+                    type != null ? type : "", amount);
+            if (storedQuestions.isEmpty() || storedQuestions.size() < minimumAmount) {
+                Log.i("QuestionBank", "Only " + storedQuestions.size() + " of " + amount + " questions in the bank");
+                return Collections.<TriviaQuestion>emptyList();
+            }
+
+            List<Long> ids = new ArrayList<>(storedQuestions.size());
+            List<TriviaQuestion> questions = new ArrayList<>(storedQuestions.size());
+            for (StoredQuestion storedQuestion : storedQuestions) {
+                ids.add(storedQuestion.getId());
+                questions.add(storedQuestion.toTriviaQuestion());
+            }
+            questionDao.markSeen(ids, System.currentTimeMillis());
+
+            Log.i("QuestionBank", "Serving " + questions.size() + " questions from the bank");
+            return questions;
+        }, databaseExecutor).exceptionally(e -> {
+            Log.e("QuestionBank", "Error taking questions from the bank. More info: " + e.getMessage());
+            return Collections.emptyList();
+        });
+    }
+
+    /**
+     * Stores questions in the bank, as not served yet, and evicts the oldest questions over the size cap
+     * @param questions the decoded questions to store
+     * @return a CompletableFuture that completes when the questions are stored
+     */
+    public CompletableFuture<Void> storeQuestionsAsync(List<TriviaQuestion> questions) {
+        return CompletableFuture.runAsync(() -> {
+            List<StoredQuestion> storedQuestions = new ArrayList<>(questions.size());
+            for (TriviaQuestion question : questions) {
+                storedQuestions.add(StoredQuestion.fromTriviaQuestion(question));
+            }
+
+            QuestionDao questionDao = QuestionDatabaseHandler.getInstance(context).questionDao();
+            questionDao.insertAll(storedQuestions);
+            evictQuestions(questionDao);
+        }, databaseExecutor).exceptionally(e -> {
+            Log.e("QuestionBank", "Error storing questions in the bank. More info: " + e.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Refills the bank from the Trivia API in the background, if it is running low for the category and difficulty
+     * @param triviaApiHandler the handler used for the question request
+     * @param category the category of the questions, or null for any category
+     * @param difficulty the difficulty of the questions, or null for any difficulty
+     */
+    public void refillAsync(TriviaApiHandler triviaApiHandler, TriviaApiCategoriesEnum category, TriviaApiDifficultyEnum difficulty) {
+        if (!isRefilling.compareAndSet(false, true)) {
+            return;
+        }
+
+        CompletableFuture.supplyAsync(() -> QuestionDatabaseHandler.getInstance(context).questionDao()
+                        .countUnseen(getCategoryId(category), getDifficultyName(difficulty)), databaseExecutor)
+                .thenCompose(unseenQuestions -> {
+                    if (unseenQuestions >= REFILL_THRESHOLD) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+
+                    Log.i("QuestionBank", "Refilling the bank, " + unseenQuestions + " questions left");
+                    return triviaApiHandler.getTriviaQuestionsAsync(category, difficulty, null, REFILL_AMOUNT)
+                            .thenCompose(triviaResponseHelper -> triviaResponseHelper.isSuccess()
+                                    ? storeQuestionsAsync(SeenQuestionFilterHandler.getInstance(context).filterUnseen(triviaResponseHelper.getTriviaQuestions()))
+                                    : CompletableFuture.completedFuture(null));
+                })
+                .whenComplete((result, e) -> {
+                    if (e != null) {
+                        Log.e("QuestionBank", "Error refilling the bank. More info: " + e.getMessage());
+                    }
+                    isRefilling.set(false);
+                });
+    }
+
+    /**
+     * Deletes the questions that were served the longest time ago while the bank is over its size cap,
+     * and then the questions that were stored the longest time ago if there are not enough served ones
+     * @param questionDao the dao of the bank
+     */
+    static void evictQuestions(QuestionDao questionDao) {
+        int overflow = questionDao.count() - MAX_STORED_QUESTIONS;
+        if (overflow <= 0) {
+            return;
+        }
+
+        questionDao.deleteOldestSeen(overflow);
+        Log.i("QuestionBank", "Evicted up to " + overflow + " served questions");
+
+        overflow = questionDao.count() - MAX_STORED_QUESTIONS;
+        if (overflow > 0) {
+            questionDao.deleteOldestUnseen(overflow);
+            Log.i("QuestionBank", "Evicted " + overflow + " questions that were never served");
+        }
+    }
+
+    /**
+     * Get the category id used by the bank
+     * @param category the category, or null for any category
+     * @return the id of the category, or 0 for any category
+     */
+    private static int getCategoryId(TriviaApiCategoriesEnum category) {
+        return category != null ? category.getId() : TriviaApiCategoriesEnum.NO_CATEGORY.getId();
+    }
+
+    /**
+     * Get the difficulty name used by the bank
+     * @param difficulty the difficulty, or null for any difficulty
+     * @return the name of the difficulty constant, or an empty string for any difficulty
+     */
+    private static String getDifficultyName(TriviaApiDifficultyEnum difficulty) {
+        return difficulty != null && difficulty != TriviaApiDifficultyEnum.NO_DIFFICULTY ? difficulty.name() : "";
+    }
+}
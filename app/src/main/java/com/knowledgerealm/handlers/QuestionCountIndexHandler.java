@@ -0,0 +1,361 @@
+package com.knowledgerealm.handlers;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
+import com.knowledgerealm.enums.TriviaApiDifficultyEnum;
+import com.knowledgerealm.helpers.ClockHelper;
+import com.knowledgerealm.models.QuestionCount;
+import com.knowledgerealm.models.interfaces.QuestionCountDao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * QuestionCountIndexHandler is a singleton class that knows how many questions the Trivia API has
+ * for every category and difficulty, so a game can be planned before its first request.
+ * Games are planned only with the counts that are already known, the counts are never fetched on the way to
+ * the first question: they are refreshed in the background, once they are older than the time to live,
+ * and fetched when a request of a category that was never counted comes back with no results.
+ */
+public class QuestionCountIndexHandler {
+    public static final long TIME_TO_LIVE = 7 * 24 * 3600000L; // 7 days
+    public static final int UNKNOWN_COUNT = Integer.MAX_VALUE;
+
+    private static QuestionCountIndexHandler instance;
+    private static final ExecutorService databaseExecutor = Executors.newSingleThreadExecutor();
+
+    private final QuestionCountDao questionCountDao;
+    private final ClockHelper.Clock clock;
+    private final Map<Integer, QuestionCount> questionCounts = new ConcurrentHashMap<>();
+    private final Map<Integer, CompletableFuture<Void>> refreshingCategories = new ConcurrentHashMap<>();
+    private CompletableFuture<Void> loadFuture;
+
+    /**
+     * The difficulties and amounts a game should be fetched with, the chosen difficulty first
+     * and then the difficulties that top it up, closest first
+     */
+    public static class GamePlan {
+        private final List<Part> parts;
+        private final int amount;
+        private final boolean isCountKnown;
+
+        /**
+         * Constructor for the GamePlan class
+         *
+         * @param parts        the difficulties to fetch, in order, the first one being the chosen difficulty
+         * @param isCountKnown whether the plan was made with the question counts of the category
+         */
+        GamePlan(List<Part> parts, boolean isCountKnown) {
+            int amount = 0;
+            for (Part part : parts) {
+                amount += part.getAmount();
+            }
+            this.parts = Collections.unmodifiableList(new ArrayList<>(parts));
+            this.amount = amount;
+            this.isCountKnown = isCountKnown;
+        }
+
+        /**
+         * Creates the plan of a game with a single difficulty
+         *
+         * @param difficulty         the difficulty to fetch, or null for any difficulty
+         * @param amount             the number of questions of the game
+         * @param availableQuestions the number of questions the Trivia API has for the category and difficulty,
+         *                           or UNKNOWN_COUNT if the count is not known
+         * @return the plan
+         */
+        static GamePlan of(TriviaApiDifficultyEnum difficulty, int amount, int availableQuestions) {
+            return new GamePlan(Collections.singletonList(new Part(difficulty, amount, availableQuestions)), availableQuestions != UNKNOWN_COUNT);
+        }
+
+        /**
+         * Get the chosen difficulty of the game
+         *
+         * @return the difficulty, or null for any difficulty
+         */
+        public TriviaApiDifficultyEnum getDifficulty() {
+            return parts.get(0).getDifficulty();
+        }
+
+        /**
+         * Get the number of questions of the game
+         *
+         * @return the number of questions
+         */
+        public int getAmount() {
+            return amount;
+        }
+
+        /**
+         * Get the difficulties to fetch the game with
+         *
+         * @return the parts of the game, in the order to fetch them
+         */
+        public List<Part> getParts() {
+            return parts;
+        }
+
+        /**
+         * Check if the plan was made with the question counts of the category
+         *
+         * @return true if the counts were known, false if the game is fetched as it was asked for
+         */
+        public boolean isCountKnown() {
+            return isCountKnown;
+        }
+    }
+
+    /**
+     * The questions of a game that are fetched with one difficulty
+     */
+    public static class Part {
+        private final TriviaApiDifficultyEnum difficulty;
+        private final int amount;
+        private final int availableQuestions;
+
+        /**
+         * Constructor for the Part class
+         *
+         * @param difficulty         the difficulty to fetch, or null for any difficulty
+         * @param amount             the number of questions to fetch with the difficulty
+         * @param availableQuestions the number of questions the Trivia API has for the category and difficulty,
+         *                           or UNKNOWN_COUNT if the count is not known
+         */
+        Part(TriviaApiDifficultyEnum difficulty, int amount, int availableQuestions) {
+            this.difficulty = difficulty;
+            this.amount = amount;
+            this.availableQuestions = availableQuestions;
+        }
+
+        /**
+         * Get the difficulty to fetch
+         *
+         * @return the difficulty, or null for any difficulty
+         */
+        public TriviaApiDifficultyEnum getDifficulty() {
+            return difficulty;
+        }
+
+        /**
+         * Get the number of questions to fetch with the difficulty
+         *
+         * @return the number of questions
+         */
+        public int getAmount() {
+            return amount;
+        }
+
+        /**
+         * Get the number of questions the Trivia API has for the category and difficulty,
+         * a single request for more of them fails
+         *
+         * @return the number of available questions, or UNKNOWN_COUNT if the count is not known
+         */
+        public int getAvailableQuestions() {
+            return availableQuestions;
+        }
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     *
+     * @param context the context of the application
+     */
+    private QuestionCountIndexHandler(Context context) {
+        this(CategoryDatabaseHandler.getInstance(context.getApplicationContext()).questionCountDao(), System::currentTimeMillis);
+    }
+
+    /**
+     * Constructor for the QuestionCountIndexHandler class
+     *
+     * @param questionCountDao the dao of the stored question counts
+     * @param clock            the source of the current time, for the age of the counts
+     */
+    QuestionCountIndexHandler(QuestionCountDao questionCountDao, ClockHelper.Clock clock) {
+        this.questionCountDao = questionCountDao;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the instance of the QuestionCountIndexHandler class
+     *
+     * @param context the context of the application
+     * @return instance
+     */
+    public static synchronized QuestionCountIndexHandler getInstance(Context context) {
+        if (instance == null) {
+            instance = new QuestionCountIndexHandler(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Reads the stored question counts into memory, only the first call reads the database
+     *
+     * @return a CompletableFuture that completes when the index is loaded
+     */
+    public synchronized CompletableFuture<Void> loadAsync() {
+        if (loadFuture == null) {
+            loadFuture = CompletableFuture.runAsync(() -> {
+                List<QuestionCount> storedCounts = questionCountDao.getAll();
+                for (QuestionCount storedCount : storedCounts) {
+                    questionCounts.putIfAbsent(storedCount.getCategoryId(), storedCount);
+                }
+            }, databaseExecutor).exceptionally(e -> {
+                Log.e("QuestionCountIndex", "Error loading the question counts. More info: " + e.getMessage());
+                return null;
+            });
+        }
+        return loadFuture;
+    }
+
+    /**
+     * Plans a game with the known question counts, without any request.
+     * If the chosen difficulty has fewer questions than the game, it gives all it has and the rest of the game
+     * is topped up with the closest difficulties, and if the whole category has fewer questions, the game is shortened.
+     * Unknown counts leave the game as requested.
+     * Every part of the plan also tells how many questions its difficulty has, so its requests are never larger.
+     *
+     * @param category   the category of the game, or null for any category
+     * @param difficulty the difficulty of the game, or null for any difficulty
+     * @param amount     the number of questions of the game
+     * @return the difficulties and amounts to fetch the game with
+     */
+    public GamePlan planGame(TriviaApiCategoriesEnum category, TriviaApiDifficultyEnum difficulty, int amount) {
+        QuestionCount questionCount = category != null ? questionCounts.get(category.getId()) : null;
+        if (questionCount == null) {
+            return GamePlan.of(difficulty, amount, UNKNOWN_COUNT);
+        }
+
+        if (difficulty == null || difficulty == TriviaApiDifficultyEnum.NO_DIFFICULTY) {
+            int totalCount = questionCount.getTotalCount();
+            if (totalCount < amount) {
+                Log.i("QuestionCountIndex", category.getName() + " has only " + totalCount + " questions, shortening the game");
+            }
+            return GamePlan.of(difficulty, Math.max(1, Math.min(amount, totalCount)), totalCount);
+        }
+
+        int difficultyCount = questionCount.getCount(difficulty);
+        if (difficultyCount >= amount) {
+            return GamePlan.of(difficulty, amount, difficultyCount);
+        }
+
+        List<Part> parts = new ArrayList<>();
+        int missingQuestions = amount;
+        for (TriviaApiDifficultyEnum partDifficulty : getClosestDifficulties(difficulty)) {
+            int partCount = questionCount.getCount(partDifficulty);
+            int partAmount = Math.min(partCount, missingQuestions);
+            // the chosen difficulty stays first, even without questions, it names the game
+            if (partAmount > 0 || partDifficulty == difficulty) {
+                parts.add(new Part(partDifficulty, partAmount, partCount));
+                missingQuestions -= partAmount;
+            }
+            if (missingQuestions == 0) {
+                break;
+            }
+        }
+
+        if (missingQuestions == 0) {
+            Log.i("QuestionCountIndex", category.getName() + " has " + difficultyCount + " questions for the difficulty, topping up with the closest difficulties");
+        } else if (missingQuestions == amount) {
+            Log.i("QuestionCountIndex", category.getName() + " has no questions, keeping a single question");
+            return GamePlan.of(difficulty, 1, 0);
+        } else {
+            Log.i("QuestionCountIndex", category.getName() + " has only " + (amount - missingQuestions) + " questions, shortening the game");
+        }
+        return new GamePlan(parts, true);
+    }
+
+    /**
+     * Fetches the question counts of the category if they are not known yet.
+     * Known counts, even stale ones, are used right away.
+     *
+     * @param triviaApiHandler the handler used for the count request
+     * @param category         the category, or null for any category
+     * @return a CompletableFuture that completes when the counts are known or could not be fetched
+     */
+    public CompletableFuture<Void> loadCountAsync(TriviaApiHandler triviaApiHandler, TriviaApiCategoriesEnum category) {
+        if (category != null && questionCounts.containsKey(category.getId())) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return refreshIfStaleAsync(triviaApiHandler, category);
+    }
+
+    /**
+     * Fetches the question counts of the category in the background, if they are unknown or older than the time to live.
+     * The callers that ask while the counts are being fetched share the same request.
+     *
+     * @param triviaApiHandler the handler used for the count request
+     * @param category         the category, or null for any category
+     * @return a CompletableFuture that completes when the counts are refreshed or could not be fetched
+     */
+    public CompletableFuture<Void> refreshIfStaleAsync(TriviaApiHandler triviaApiHandler, TriviaApiCategoriesEnum category) {
+        if (category == null || category == TriviaApiCategoriesEnum.NO_CATEGORY) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        int categoryId = category.getId();
+        QuestionCount questionCount = questionCounts.get(categoryId);
+        if (questionCount != null && clock.currentTimeMillis() - questionCount.getTimestamp() < TIME_TO_LIVE) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<Void> refresh = new CompletableFuture<>();
+        CompletableFuture<Void> inFlightRefresh = refreshingCategories.putIfAbsent(categoryId, refresh);
+        if (inFlightRefresh != null) {
+            return inFlightRefresh;
+        }
+
+        triviaApiHandler.getQuestionCountAsync(category)
+                .thenAcceptAsync(questionCountResponseHelper -> {
+                    if (!questionCountResponseHelper.isSuccess()) {
+                        return;
+                    }
+
+                    QuestionCount fetchedCount = new QuestionCount();
+                    fetchedCount.setCategoryId(categoryId);
+                    fetchedCount.setTotalCount(questionCountResponseHelper.getTotalCount());
+                    fetchedCount.setEasyCount(questionCountResponseHelper.getEasyCount());
+                    fetchedCount.setMediumCount(questionCountResponseHelper.getMediumCount());
+                    fetchedCount.setHardCount(questionCountResponseHelper.getHardCount());
+                    fetchedCount.setTimestamp(clock.currentTimeMillis());
+
+                    questionCountDao.insertOrReplace(fetchedCount);
+                    questionCounts.put(categoryId, fetchedCount);
+                }, databaseExecutor)
+                .whenComplete((result, e) -> {
+                    if (e != null) {
+                        Log.e("QuestionCountIndex", "Error refreshing the question counts. More info: " + e.getMessage());
+                    }
+                    refreshingCategories.remove(categoryId, refresh);
+                    refresh.complete(null);
+                });
+        return refresh;
+    }
+
+    /**
+     * Orders the difficulties by how close they are to the chosen one, the easier one first on a tie
+     *
+     * @param difficulty the chosen difficulty
+     * @return the chosen difficulty and then the others
+     */
+    private static List<TriviaApiDifficultyEnum> getClosestDifficulties(TriviaApiDifficultyEnum difficulty) {
+        switch (difficulty) {
+            case EASY:
+                return Arrays.asList(TriviaApiDifficultyEnum.EASY, TriviaApiDifficultyEnum.MEDIUM, TriviaApiDifficultyEnum.HARD);
+            case MEDIUM:
+                return Arrays.asList(TriviaApiDifficultyEnum.MEDIUM, TriviaApiDifficultyEnum.EASY, TriviaApiDifficultyEnum.HARD);
+            default:
+                return Arrays.asList(TriviaApiDifficultyEnum.HARD, TriviaApiDifficultyEnum.MEDIUM, TriviaApiDifficultyEnum.EASY);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.knowledgerealm.handlers;
+
+import android.content.Context;
+
+import androidx.room.Database;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+
+import com.knowledgerealm.models.StoredQuestion;
+import com.knowledgerealm.models.interfaces.QuestionDao;
+
+/**
+ * Class for handling the offline question bank database
+ */
+@Database(entities = {StoredQuestion.class}, version = 2)
+public abstract class QuestionDatabaseHandler extends RoomDatabase {
+    private static final String DATABASE_NAME = "question_database";
+    private static QuestionDatabaseHandler INSTANCE;
+    public abstract QuestionDao questionDao();
+
+    /**
+     * Get the instance of the database
+     * @param context the context of the application
+     * @return the instance of the database
+     */
+    public static synchronized QuestionDatabaseHandler getInstance(Context context) {
+        if (INSTANCE == null) {
+            INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
+                            QuestionDatabaseHandler.class, DATABASE_NAME)
+                    .fallbackToDestructiveMigration()
+                    .build();
+        }
+        return INSTANCE;
+    }
+
+}
@@ -0,0 +1,444 @@
+package com.knowledgerealm.handlers;
+
+import static com.knowledgerealm.enums.TriviaApiResponseCodeEnum.NO_RESULTS;
+
+import android.util.Log;
+
+import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
+import com.knowledgerealm.enums.TriviaApiDifficultyEnum;
+import com.knowledgerealm.helpers.ClockHelper;
+import com.knowledgerealm.models.TriviaQuestion;
+import com.knowledgerealm.models.interfaces.QuestionSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Class for prefetching the questions of a game in the background.
+ * A small first batch is fetched so the first question can be shown right away, the rest of the game
+ * is streamed in afterwards and the batch of the next game is kept warm while the current one is played.
+ * Every question index has its own readiness, so the game never has to wait for the whole batch.
+ * The questions are fetched with the difficulties of the plan of the game, a batch that fails is sent again
+ * after a backoff, and a category that was never counted is planned again once a request finds no results.
+ */
+public class QuestionPrefetchHandler implements GameSessionHandler.QuestionProvider {
+    public static final int FIRST_BATCH_SIZE = 3;
+    // The maximum amount of questions of a single Trivia API request
+    public static final int MAX_REQUEST_AMOUNT = 50;
+    // How many times a failed batch is sent again before the rest of the game is given up
+    public static final int MAX_BATCH_RETRIES = 2;
+    // The backoff before the first retry of a batch, doubled for every next retry, in milliseconds
+    public static final long RETRY_DELAY = 2000;
+
+    // The batch of the next game, shared between the games of the app
+    private static final Object warmBatchLock = new Object();
+    private static WarmBatch warmBatch;
+    private static final ClockHelper.Timer retryTimer = ClockHelper.createSystemTimer("QuestionPrefetch");
+
+    /**
+     * Plans the game again once the question counts of its category are known
+     */
+    public interface PlanRefresher {
+        /**
+         * Fetches the question counts of the category if needed and plans the game with them
+         * @return a CompletableFuture that will contain the new plan of the game
+         */
+        CompletableFuture<QuestionCountIndexHandler.GamePlan> refreshPlan();
+    }
+
+    private final QuestionSource questionSource;
+    private final SeenQuestionFilterHandler seenQuestionFilter;
+    private final TriviaApiCategoriesEnum category;
+    private final TriviaApiDifficultyEnum difficulty;
+    private final int maxQuestions;
+    private final PlanRefresher planRefresher;
+    private final ClockHelper.Timer timer;
+    private final List<CompletableFuture<TriviaQuestion>> questionFutures;
+    private List<QuestionCountIndexHandler.Part> parts;
+    private boolean isCountKnown;
+    private int fetchedQuestions;
+    private int failedBatches;
+    private volatile boolean canceled;
+
+    /**
+     * Constructor for the QuestionPrefetchHandler class
+     * @param questionSource the source of the questions
+     * @param category the category of the questions, or null for any category
+     * @param difficulty the difficulty of the questions, or null for any difficulty
+     * @param maxQuestions the number of questions of the game
+     */
+    public QuestionPrefetchHandler(QuestionSource questionSource, TriviaApiCategoriesEnum category, TriviaApiDifficultyEnum difficulty, int maxQuestions) {
+        this(questionSource, null, category, difficulty, maxQuestions);
+    }
+
+    /**
+     * Constructor for the QuestionPrefetchHandler class.
+     * Fetched questions the player has already seen are skipped, and each request asks for
+     * just enough extra questions to make up for them at the current repeat rate.
+     * @param questionSource the source of the questions
+     * @param seenQuestionFilter the filter of the questions already served, or null to serve every fetched question
+     * @param category the category of the questions, or null for any category
+     * @param difficulty the difficulty of the questions, or null for any difficulty
+     * @param maxQuestions the number of questions of the game
+     */
+    public QuestionPrefetchHandler(QuestionSource questionSource, SeenQuestionFilterHandler seenQuestionFilter, TriviaApiCategoriesEnum category, TriviaApiDifficultyEnum difficulty, int maxQuestions) {
+        this(questionSource, seenQuestionFilter, category,
+                QuestionCountIndexHandler.GamePlan.of(difficulty, maxQuestions, QuestionCountIndexHandler.UNKNOWN_COUNT), null);
+    }
+
+    /**
+     * Constructor for the QuestionPrefetchHandler class for a planned game.
+     * Every difficulty of the plan is fetched in turn, and no request asks for more questions than the category
+     * and difficulty have, since such a request fails, so the over-fetching for the seen questions is capped at that number.
+     * @param questionSource the source of the questions
+     * @param seenQuestionFilter the filter of the questions already served, or null to serve every fetched question
+     * @param category the category of the questions, or null for any category
+     * @param gamePlan the difficulties and amounts of the game
+     * @param planRefresher plans the game again when a request finds no results and the plan was made without the counts, or null
+     */
+    public QuestionPrefetchHandler(QuestionSource questionSource, SeenQuestionFilterHandler seenQuestionFilter, TriviaApiCategoriesEnum category,
+                                   QuestionCountIndexHandler.GamePlan gamePlan, PlanRefresher planRefresher) {
+        this(questionSource, seenQuestionFilter, category, gamePlan, planRefresher, retryTimer);
+    }
+
+    /**
+     * Constructor for the QuestionPrefetchHandler class for a planned game
+     * @param questionSource the source of the questions
+     * @param seenQuestionFilter the filter of the questions already served, or null to serve every fetched question
+     * @param category the category of the questions, or null for any category
+     * @param gamePlan the difficulties and amounts of the game
+     * @param planRefresher plans the game again when a request finds no results and the plan was made without the counts, or null
+     * @param timer the timer used to wait before a failed batch is sent again
+     */
+    public QuestionPrefetchHandler(QuestionSource questionSource, SeenQuestionFilterHandler seenQuestionFilter, TriviaApiCategoriesEnum category,
+                                   QuestionCountIndexHandler.GamePlan gamePlan, PlanRefresher planRefresher, ClockHelper.Timer timer) {
+        this.questionSource = questionSource;
+        this.seenQuestionFilter = seenQuestionFilter;
+        this.category = category;
+        this.difficulty = gamePlan.getDifficulty();
+        this.maxQuestions = gamePlan.getAmount();
+        this.parts = gamePlan.getParts();
+        this.isCountKnown = gamePlan.isCountKnown();
+        this.planRefresher = planRefresher;
+        this.timer = timer;
+        this.questionFutures = new ArrayList<>(maxQuestions);
+        for (int i = 0; i < maxQuestions; i++) {
+            questionFutures.add(new CompletableFuture<>());
+        }
+    }
+
+    /**
+     * Starts prefetching the questions of the game.
+     * If a warm batch for the same category and difficulty exists, the whole game is ready immediately.
+     * @return a CompletableFuture that will contain true once the first question is ready, false if it could not be loaded
+     */
+    public CompletableFuture<Boolean> start() {
+        return start(null);
+    }
+
+    /**
+     * Starts the game with questions that are already available locally, and prefetches only the missing ones.
+     * If the local questions fill the whole game, no request is made.
+     * @param localQuestions the questions already available, or null if there are none
+     * @return a CompletableFuture that will contain true once the first question is ready, false if it could not be loaded
+     */
+    public CompletableFuture<Boolean> start(List<TriviaQuestion> localQuestions) {
+        if (localQuestions != null) {
+            addQuestions(localQuestions);
+        }
+
+        boolean isMissingQuestions;
+        synchronized (this) {
+            isMissingQuestions = fetchedQuestions < maxQuestions;
+        }
+
+        if (isMissingQuestions) {
+            List<TriviaQuestion> warmQuestions = takeWarmBatch();
+            if (warmQuestions != null) {
+                Log.i("QuestionPrefetch", "Using the warm batch of " + warmQuestions.size() + " questions");
+                addQuestions(warmQuestions);
+            }
+
+            fetchRemaining(Math.min(FIRST_BATCH_SIZE, maxQuestions));
+        }
+        return getQuestionAsync(0).thenApply(question -> question != null);
+    }
+
+    /**
+     * Stops fetching the remaining questions of the game.
+     * Questions that are not ready yet are completed with null.
+     */
+    public void cancel() {
+        canceled = true;
+        for (CompletableFuture<TriviaQuestion> questionFuture : questionFutures) {
+            questionFuture.complete(null);
+        }
+    }
+
+    /**
+     * Checks if the question is ready, either loaded or failed to load
+     * @param questionNumber the index of the question in the game
+     * @return true if getQuestion will not have to wait for the network, false otherwise
+     */
+    public boolean isQuestionReady(int questionNumber) {
+        return questionNumber >= 0 && questionNumber < maxQuestions && questionFutures.get(questionNumber).isDone();
+    }
+
+    /**
+     * Get the question if it is ready
+     * @param questionNumber the index of the question in the game
+     * @return the trivia question or null if it is not ready or could not be loaded
+     */
+    public TriviaQuestion getQuestion(int questionNumber) {
+        if (questionNumber < 0 || questionNumber >= maxQuestions) {
+            return null;
+        }
+        return questionFutures.get(questionNumber).getNow(null);
+    }
+
+    /**
+     * Get the question as soon as it is ready
+     * @param questionNumber the index of the question in the game
+     * @return a CompletableFuture that will contain the trivia question or null if it could not be loaded
+     */
+    @Override
+    public CompletableFuture<TriviaQuestion> getQuestionAsync(int questionNumber) {
+        if (questionNumber < 0 || questionNumber >= maxQuestions) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return questionFutures.get(questionNumber);
+    }
+
+    /**
+     * Fetches the questions that are still missing, starting with a batch of the given size,
+     * with the difficulty of the part of the plan they belong to, and then warms up the batch of the next game.
+     * @param batchSize the size of the next batch
+     */
+    private void fetchRemaining(int batchSize) {
+        int missingQuestions;
+        QuestionCountIndexHandler.Part part = null;
+        int missingPartQuestions = 0;
+        synchronized (this) {
+            missingQuestions = maxQuestions - fetchedQuestions;
+            int partEnd = 0;
+            for (QuestionCountIndexHandler.Part plannedPart : parts) {
+                partEnd += plannedPart.getAmount();
+                if (partEnd > fetchedQuestions) {
+                    part = plannedPart;
+                    missingPartQuestions = partEnd - fetchedQuestions;
+                    break;
+                }
+            }
+        }
+
+        if (canceled) {
+            return;
+        }
+
+        if (missingQuestions <= 0) {
+            warmNextGame();
+            return;
+        }
+
+        if (part == null) {
+            Log.i("QuestionPrefetch", "The category has no more questions, the game ends after " + (maxQuestions - missingQuestions) + " questions");
+            cancel();
+            return;
+        }
+
+        int amount = getRequestAmount(Math.min(batchSize, missingPartQuestions), part.getAvailableQuestions());
+        questionSource.getTriviaQuestionsAsync(category, part.getDifficulty(), null, amount)
+                .thenAccept(triviaResponseHelper -> {
+                    if (triviaResponseHelper.isSuccess() && !triviaResponseHelper.getTriviaQuestions().isEmpty()) {
+                        synchronized (this) {
+                            failedBatches = 0;
+                        }
+                        List<TriviaQuestion> unseenQuestions = filterUnseen(triviaResponseHelper.getTriviaQuestions());
+                        // repeats are better than a game that cannot go on
+                        addQuestions(unseenQuestions.isEmpty() ? triviaResponseHelper.getTriviaQuestions() : unseenQuestions);
+                        fetchRemaining(maxQuestions);
+                    } else if (triviaResponseHelper.getResponseCode() == NO_RESULTS.getResponseCode()) {
+                        refreshPlan(batchSize);
+                    } else {
+                        retryBatch(batchSize, "Error prefetching " + amount + " questions");
+                    }
+                })
+                .exceptionally(e -> {
+                    retryBatch(batchSize, "Error prefetching questions. More info: " + e.getMessage());
+                    return null;
+                });
+    }
+
+    /**
+     * Sends a failed batch again after a backoff, or gives up the rest of the game once the retries are used up
+     * @param batchSize the size of the failed batch
+     * @param error the error of the failed batch
+     */
+    private void retryBatch(int batchSize, String error) {
+        int retry;
+        synchronized (this) {
+            retry = ++failedBatches;
+        }
+
+        if (canceled) {
+            return;
+        }
+
+        if (retry > MAX_BATCH_RETRIES) {
+            Log.e("QuestionPrefetch", error + ", giving up the rest of the game");
+            cancel();
+            return;
+        }
+
+        long delay = RETRY_DELAY << (retry - 1);
+        Log.e("QuestionPrefetch", error + ", retrying in " + delay + " milliseconds");
+        timer.schedule(() -> fetchRemaining(batchSize), delay);
+    }
+
+    /**
+     * Plans the game again with the question counts of the category after a request found no results,
+     * if it was planned without them, or gives up the rest of the game
+     * @param batchSize the size of the batch that found no results
+     */
+    private void refreshPlan(int batchSize) {
+        boolean canRefresh;
+        synchronized (this) {
+            canRefresh = planRefresher != null && !isCountKnown;
+        }
+
+        if (!canRefresh) {
+            Log.e("QuestionPrefetch", "The category has no more questions for the game");
+            cancel();
+            return;
+        }
+
+        planRefresher.refreshPlan()
+                .thenAccept(gamePlan -> {
+                    if (!gamePlan.isCountKnown()) {
+                        Log.e("QuestionPrefetch", "The question counts of the category could not be fetched");
+                        cancel();
+                        return;
+                    }
+
+                    synchronized (this) {
+                        parts = gamePlan.getParts();
+                        isCountKnown = true;
+                    }
+                    Log.i("QuestionPrefetch", "Planned the game again with the question counts of the category");
+                    fetchRemaining(batchSize);
+                })
+                .exceptionally(e -> {
+                    Log.e("QuestionPrefetch", "Error planning the game again. More info: " + e.getMessage());
+                    cancel();
+                    return null;
+                });
+    }
+
+    /**
+     * Fetches the batch of the next game, so it can start without waiting for the network.
+     * A partial batch is kept as well, the next game fetches whatever it is missing.
+     */
+    private void warmNextGame() {
+        if (canceled) {
+            return;
+        }
+
+        int availableQuestions;
+        synchronized (this) {
+            availableQuestions = parts.get(0).getAvailableQuestions();
+        }
+        questionSource.getTriviaQuestionsAsync(category, difficulty, null, getRequestAmount(maxQuestions, availableQuestions))
+                .thenAccept(triviaResponseHelper -> {
+                    if (!triviaResponseHelper.isSuccess()) {
+                        return;
+                    }
+
+                    List<TriviaQuestion> unseenQuestions = filterUnseen(triviaResponseHelper.getTriviaQuestions());
+                    if (!unseenQuestions.isEmpty()) {
+                        synchronized (warmBatchLock) {
+                            warmBatch = new WarmBatch(category, difficulty, unseenQuestions);
+                        }
+                        Log.i("QuestionPrefetch", "Next game batch is warm");
+                    }
+                });
+    }
+
+    /**
+     * Takes the warm batch if it was fetched for the same category and difficulty
+     * @return the questions of the warm batch or null if there is no matching warm batch
+     */
+    private List<TriviaQuestion> takeWarmBatch() {
+        synchronized (warmBatchLock) {
+            if (warmBatch == null || warmBatch.category != category || warmBatch.difficulty != difficulty) {
+                return null;
+            }
+
+            List<TriviaQuestion> questions = warmBatch.questions;
+            warmBatch = null;
+            return questions;
+        }
+    }
+
+    /**
+     * Makes the given questions ready, in order, after the ones that are already ready,
+     * and remembers them as seen
+     * @param questions the fetched questions
+     */
+    private void addQuestions(List<TriviaQuestion> questions) {
+        List<TriviaQuestion> addedQuestions = new ArrayList<>(questions.size());
+        for (TriviaQuestion question : questions) {
+            int questionNumber;
+            synchronized (this) {
+                if (fetchedQuestions >= maxQuestions) {
+                    break;
+                }
+                questionNumber = fetchedQuestions++;
+            }
+            addedQuestions.add(question);
+            questionFutures.get(questionNumber).complete(question);
+        }
+
+        if (seenQuestionFilter != null && !addedQuestions.isEmpty()) {
+            seenQuestionFilter.markSeen(addedQuestions);
+        }
+    }
+
+    /**
+     * Gets how many questions to request for the needed amount, with room for the ones that will be filtered as seen,
+     * but never more than the category and difficulty have
+     * @param neededQuestions the number of new questions needed
+     * @param availableQuestions the number of questions of the category and difficulty, or QuestionCountIndexHandler.UNKNOWN_COUNT
+     * @return the number of questions to request
+     */
+    private int getRequestAmount(int neededQuestions, int availableQuestions) {
+        int maxRequestAmount = Math.max(1, Math.min(MAX_REQUEST_AMOUNT, availableQuestions));
+        return seenQuestionFilter != null
+                ? seenQuestionFilter.getOverFetchAmount(neededQuestions, maxRequestAmount)
+                : Math.min(neededQuestions, maxRequestAmount);
+    }
+
+    /**
+     * Keeps the fetched questions the player has not seen yet
+     * @param questions the fetched questions
+     * @return the questions that were not seen, or all of them if there is no filter
+     */
+    private List<TriviaQuestion> filterUnseen(List<TriviaQuestion> questions) {
+        return seenQuestionFilter != null ? seenQuestionFilter.filterUnseen(questions) : questions;
+    }
+
+    /**
+     * The questions fetched ahead of time for the next game
+     */
+    private static class WarmBatch {
+        final TriviaApiCategoriesEnum category;
+        final TriviaApiDifficultyEnum difficulty;
+        final List<TriviaQuestion> questions;
+
+        WarmBatch(TriviaApiCategoriesEnum category, TriviaApiDifficultyEnum difficulty, List<TriviaQuestion> questions) {
+            this.category = category;
+            this.difficulty = difficulty;
+            this.questions = questions;
+        }
+    }
+}
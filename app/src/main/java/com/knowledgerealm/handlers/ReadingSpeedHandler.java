@@ -0,0 +1,89 @@
+package com.knowledgerealm.handlers;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.knowledgerealm.helpers.ReadingSpeedModelHelper;
+import com.knowledgerealm.models.ReadingSpeed;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * ReadingSpeedHandler is a singleton class that keeps the reading speed model of the player,
+ * stored in the settings database. The model is read once into memory and saved once per game,
+ * so the games compute their time budgets without touching the database.
+ */
+public class ReadingSpeedHandler {
+    private static ReadingSpeedHandler instance;
+    private static final ExecutorService databaseExecutor = Executors.newSingleThreadExecutor();
+
+    private final Context context;
+    private final ReadingSpeedModelHelper readingSpeedModel = new ReadingSpeedModelHelper();
+    private CompletableFuture<Void> loadFuture;
+
+    /**
+     * Private constructor to prevent instantiation
+     *
+     * @param context the context of the application
+     */
+    private ReadingSpeedHandler(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * Returns the instance of the ReadingSpeedHandler class
+     *
+     * @param context the context of the application
+     * @return instance
+     */
+    public static synchronized ReadingSpeedHandler getInstance(Context context) {
+        if (instance == null) {
+            instance = new ReadingSpeedHandler(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Reads the stored reading speed into the model, only the first call reads the database
+     *
+     * @return a CompletableFuture that completes when the reading speed is loaded
+     */
+    public synchronized CompletableFuture<Void> loadAsync() {
+        if (loadFuture == null) {
+            loadFuture = CompletableFuture.runAsync(() -> {
+                ReadingSpeed readingSpeed = SettingsDatabaseHandler.getDatabase(context).readingSpeedDao().getReadingSpeed();
+                // a game that learned before the load keeps what it learned
+                if (readingSpeed != null && readingSpeedModel.getSampleCount() == 0) {
+                    readingSpeedModel.restore(readingSpeed.getMillisPerWord(), readingSpeed.getSampleCount());
+                }
+            }, databaseExecutor).exceptionally(e -> {
+                Log.e("ReadingSpeed", "Error loading the reading speed. More info: " + e.getMessage());
+                return null;
+            });
+        }
+        return loadFuture;
+    }
+
+    /**
+     * Get the reading speed model of the player
+     *
+     * @return the model, shared by all the games
+     */
+    public ReadingSpeedModelHelper getReadingSpeedModel() {
+        return readingSpeedModel;
+    }
+
+    /**
+     * Stores the reading speed learned so far, in the background
+     */
+    public void saveAsync() {
+        ReadingSpeed readingSpeed = new ReadingSpeed(readingSpeedModel.getMillisPerWord(), readingSpeedModel.getSampleCount());
+        loadAsync().thenRunAsync(() -> SettingsDatabaseHandler.getDatabase(context).readingSpeedDao().insertOrReplace(readingSpeed), databaseExecutor)
+                .exceptionally(e -> {
+                    Log.e("ReadingSpeed", "Error saving the reading speed. More info: " + e.getMessage());
+                    return null;
+                });
+    }
+}
@@ -0,0 +1,375 @@
+package com.knowledgerealm.handlers;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.knowledgerealm.models.TriviaQuestion;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * SeenQuestionFilterHandler is a singleton class that remembers which questions were served to the player,
+ * independently of the session tokens, so a token reset does not bring back questions the player has seen.
+ * Each question is kept as the 64-bit FNV-1a hash of its decoded text: in memory in a sorted array,
+ * looked up with a binary search that does not allocate, and on disk in an append-only file of
+ * 8 bytes per question. The oldest quarter is evicted once the filter is full.
+ */
+public class SeenQuestionFilterHandler {
+    // 65536 hashes of 8 bytes are 512 KB on disk
+    public static final int MAX_ENTRIES = 65536;
+    private static final String FILE_NAME = "seen_questions.bin";
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    // Weight of the last request in the moving average of the repeat rate
+    private static final double REPEAT_RATE_SMOOTHING = 0.3;
+    // Never expect fewer than this fraction of a request to be new, so over-fetching stays bounded
+    private static final double MIN_UNSEEN_RATE = 0.25;
+
+    private static SeenQuestionFilterHandler instance;
+    private static final ExecutorService fileExecutor = Executors.newSingleThreadExecutor();
+
+    private final File file;
+    private long[] hashes = new long[1024];
+    private int size;
+    private double repeatRate;
+    private CompletableFuture<Void> loadFuture;
+
+    /**
+     * Private constructor to prevent instantiation
+     *
+     * @param context the context of the application
+     */
+    private SeenQuestionFilterHandler(Context context) {
+        this(new File(context.getApplicationContext().getFilesDir(), FILE_NAME));
+    }
+
+    /**
+     * Constructor for a filter stored in the given file
+     *
+     * @param file the append-only file of the hashes
+     */
+    SeenQuestionFilterHandler(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the instance of the SeenQuestionFilterHandler class
+     *
+     * @param context the context of the application
+     * @return instance
+     */
+    public static synchronized SeenQuestionFilterHandler getInstance(Context context) {
+        if (instance == null) {
+            instance = new SeenQuestionFilterHandler(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Reads the stored hashes into memory, only the first call reads the file.
+     * Until the filter is loaded no question is considered seen.
+     *
+     * @return a CompletableFuture that completes when the filter is loaded
+     */
+    public synchronized CompletableFuture<Void> loadAsync() {
+        if (loadFuture == null) {
+            loadFuture = CompletableFuture.runAsync(() -> {
+                long[] storedHashes = readHashes();
+                mergeHashes(storedHashes);
+                Log.i("SeenQuestionFilter", storedHashes.length + " seen questions loaded");
+            }, fileExecutor).exceptionally(e -> {
+                Log.e("SeenQuestionFilter", "Error loading the seen questions. More info: " + e.getMessage());
+                return null;
+            });
+        }
+        return loadFuture;
+    }
+
+    /**
+     * Checks if the question was served before
+     *
+     * @param questionText the decoded text of the question
+     * @return true if the question was served before, false otherwise
+     */
+    public synchronized boolean isSeen(String questionText) {
+        return Arrays.binarySearch(hashes, 0, size, hash(questionText)) >= 0;
+    }
+
+    /**
+     * Keeps the questions that were not served before, and updates the repeat rate used for over-fetching
+     *
+     * @param questions the fetched questions
+     * @return the questions that were not served before, in the same order
+     */
+    public synchronized List<TriviaQuestion> filterUnseen(List<TriviaQuestion> questions) {
+        if (questions.isEmpty()) {
+            return questions;
+        }
+
+        List<TriviaQuestion> unseenQuestions = new ArrayList<>(questions.size());
+        for (TriviaQuestion question : questions) {
+            if (Arrays.binarySearch(hashes, 0, size, hash(question.getQuestion())) < 0) {
+                unseenQuestions.add(question);
+            }
+        }
+
+        double lastRepeatRate = 1 - unseenQuestions.size() / (double) questions.size();
+        repeatRate = repeatRate + REPEAT_RATE_SMOOTHING * (lastRepeatRate - repeatRate);
+        if (unseenQuestions.size() < questions.size()) {
+            Log.i("SeenQuestionFilter", "Filtered " + (questions.size() - unseenQuestions.size()) + " seen questions");
+        }
+        return unseenQuestions;
+    }
+
+    /**
+     * Gets how many questions to request so that, at the current repeat rate, enough of them are new
+     *
+     * @param missingQuestions the number of new questions needed
+     * @param maxAmount        the most questions a single request can return
+     * @return the number of questions to request
+     */
+    public synchronized int getOverFetchAmount(int missingQuestions, int maxAmount) {
+        double unseenRate = Math.max(MIN_UNSEEN_RATE, 1 - repeatRate);
+        return Math.min(maxAmount, Math.max(missingQuestions, (int) Math.ceil(missingQuestions / unseenRate)));
+    }
+
+    /**
+     * Remembers the questions as served, in memory right away and on disk in the background.
+     * Before the filter is loaded, a question already stored is appended again, the eviction keeps its latest copy.
+     *
+     * @param questions the questions served to the player
+     * @return a CompletableFuture that completes when the questions are stored
+     */
+    public CompletableFuture<Void> markSeen(List<TriviaQuestion> questions) {
+        long[] newHashes = new long[questions.size()];
+        int newHashCount = 0;
+        boolean isFull;
+
+        synchronized (this) {
+            for (TriviaQuestion question : questions) {
+                long questionHash = hash(question.getQuestion());
+                int index = Arrays.binarySearch(hashes, 0, size, questionHash);
+                if (index >= 0) {
+                    continue;
+                }
+
+                insertAt(-index - 1, questionHash);
+                newHashes[newHashCount++] = questionHash;
+            }
+            isFull = size > MAX_ENTRIES;
+        }
+
+        if (newHashCount == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        int hashCount = newHashCount;
+        return CompletableFuture.runAsync(() -> {
+            appendHashes(newHashes, hashCount);
+            if (isFull) {
+                evictOldest();
+            }
+        }, fileExecutor).exceptionally(e -> {
+            Log.e("SeenQuestionFilter", "Error storing the seen questions. More info: " + e.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Gets the number of questions in the filter
+     *
+     * @return the number of seen questions
+     */
+    public synchronized int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the moving average of the fraction of fetched questions that were already seen
+     *
+     * @return the repeat rate, between 0 and 1
+     */
+    public synchronized double getRepeatRate() {
+        return repeatRate;
+    }
+
+    /**
+     * Hashes the text with 64-bit FNV-1a over its characters, without allocating
+     *
+     * @param text the text to hash
+     * @return the hash of the text
+     */
+    public static long hash(String text) {
+        long hash = FNV_OFFSET_BASIS;
+        if (text == null) {
+            return hash;
+        }
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            hash = (hash ^ (c & 0xFF)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Inserts a hash into the sorted array, must be called while holding the lock
+     *
+     * @param index the index that keeps the array sorted
+     * @param hash  the hash to insert
+     */
+    private void insertAt(int index, long hash) {
+        if (size == hashes.length) {
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        System.arraycopy(hashes, index, hashes, index + 1, size - index);
+        hashes[index] = hash;
+        size++;
+    }
+
+    /**
+     * Adds the stored hashes to the ones already in memory, keeping the array sorted and without duplicates
+     *
+     * @param storedHashes the stored hashes, in any order
+     */
+    private synchronized void mergeHashes(long[] storedHashes) {
+        long[] mergedHashes = Arrays.copyOf(storedHashes, Math.max(storedHashes.length + size, 1024));
+        System.arraycopy(hashes, 0, mergedHashes, storedHashes.length, size);
+        int count = storedHashes.length + size;
+        Arrays.sort(mergedHashes, 0, count);
+
+        int uniqueCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (uniqueCount == 0 || mergedHashes[uniqueCount - 1] != mergedHashes[i]) {
+                mergedHashes[uniqueCount++] = mergedHashes[i];
+            }
+        }
+        hashes = mergedHashes;
+        size = uniqueCount;
+    }
+
+    /**
+     * Removes the evicted hashes from memory, keeping the array sorted
+     *
+     * @param evictedHashes the evicted hashes, sorted
+     */
+    private synchronized void removeHashes(long[] evictedHashes) {
+        int keptCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (Arrays.binarySearch(evictedHashes, hashes[i]) < 0) {
+                hashes[keptCount++] = hashes[i];
+            }
+        }
+        size = keptCount;
+    }
+
+    /**
+     * Drops the oldest quarter of the filter, in memory and on disk.
+     * The file is in insertion order, so it tells which hashes are the oldest.
+     * A hash stored twice counts from its latest copy, so it is not evicted while it is still recent.
+     * Must be called on the file executor.
+     */
+    private void evictOldest() {
+        long[] storedHashes = keepLatest(readHashes());
+        int keptCount = Math.min(storedHashes.length, MAX_ENTRIES * 3 / 4);
+        int evictedCount = storedHashes.length - keptCount;
+        long[] keptHashes = Arrays.copyOfRange(storedHashes, evictedCount, storedHashes.length);
+        long[] evictedHashes = Arrays.copyOf(storedHashes, evictedCount);
+        Arrays.sort(evictedHashes);
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, false)))) {
+            for (long keptHash : keptHashes) {
+                output.writeLong(keptHash);
+            }
+        } catch (IOException e) {
+            Log.e("SeenQuestionFilter", "Error evicting the seen questions. More info: " + e.getMessage());
+            return;
+        }
+
+        removeHashes(evictedHashes);
+        Log.i("SeenQuestionFilter", "Evicted " + evictedCount + " seen questions");
+    }
+
+    /**
+     * Removes the earlier copies of the hashes stored more than once, keeping the insertion order
+     *
+     * @param storedHashes the stored hashes, in insertion order
+     * @return the hashes without duplicates, each at the position of its latest copy
+     */
+    private static long[] keepLatest(long[] storedHashes) {
+        long[] sortedHashes = storedHashes.clone();
+        Arrays.sort(sortedHashes);
+        boolean[] isKept = new boolean[sortedHashes.length];
+
+        // walk from the newest hash, so the latest copy of each hash is the one kept
+        long[] latestHashes = new long[storedHashes.length];
+        int keptCount = 0;
+        for (int i = storedHashes.length - 1; i >= 0; i--) {
+            int index = Arrays.binarySearch(sortedHashes, storedHashes[i]);
+            while (index > 0 && sortedHashes[index - 1] == storedHashes[i]) {
+                index--;
+            }
+            if (!isKept[index]) {
+                isKept[index] = true;
+                latestHashes[latestHashes.length - ++keptCount] = storedHashes[i];
+            }
+        }
+        return Arrays.copyOfRange(latestHashes, latestHashes.length - keptCount, latestHashes.length);
+    }
+
+    /**
+     * Appends hashes to the file, must be called on the file executor
+     *
+     * @param newHashes the hashes to append
+     * @param count     the number of hashes to append
+     */
+    private void appendHashes(long[] newHashes, int count) {
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)))) {
+            for (int i = 0; i < count; i++) {
+                output.writeLong(newHashes[i]);
+            }
+        } catch (IOException e) {
+            Log.e("SeenQuestionFilter", "Error appending the seen questions. More info: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the hashes of the file in insertion order, must be called on the file executor
+     *
+     * @return the stored hashes, or an empty array if there is no file
+     */
+    private long[] readHashes() {
+        if (!file.exists()) {
+            return new long[0];
+        }
+
+        long[] storedHashes = new long[(int) (file.length() / 8)];
+        int count = 0;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (count < storedHashes.length) {
+                storedHashes[count] = input.readLong();
+                count++;
+            }
+        } catch (EOFException e) {
+            // a partially written hash at the end of the file is ignored
+        } catch (IOException e) {
+            Log.e("SeenQuestionFilter", "Error reading the seen questions. More info: " + e.getMessage());
+        }
+        return count == storedHashes.length ? storedHashes : Arrays.copyOf(storedHashes, count);
+    }
+}
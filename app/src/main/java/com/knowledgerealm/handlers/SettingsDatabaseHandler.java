@@ -2,22 +2,40 @@ package com.knowledgerealm.handlers;
 
 import android.content.Context;
 
+import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
+import com.knowledgerealm.models.ReadingSpeed;
 import com.knowledgerealm.models.Settings;
+import com.knowledgerealm.models.interfaces.ReadingSpeedDao;
 import com.knowledgerealm.models.interfaces.SettingsDao;
 
 /**
  * This class is used to handle the database operations
  */
-@Database(entities = {Settings.class}, version = 1)
+@Database(entities = {Settings.class, ReadingSpeed.class}, version = 2)
 public abstract class SettingsDatabaseHandler extends RoomDatabase {
     public abstract SettingsDao settingsDao();
 
+    public abstract ReadingSpeedDao readingSpeedDao();
+
     private static volatile SettingsDatabaseHandler INSTANCE;
 
+    /**
+     * Adds the table of the reading speed, keeping the settings of the player
+     */
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `reading_speed` (`id` INTEGER NOT NULL, "
+                    + "`millisPerWord` REAL NOT NULL, `sampleCount` INTEGER NOT NULL, PRIMARY KEY(`id`))");
+        }
+    };
+
     /**
      * This method is used to get the database instance
      * @param context the context of the activity
@@ -29,6 +47,7 @@ public abstract class SettingsDatabaseHandler extends RoomDatabase {
                 if (INSTANCE == null) {
                     INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
                                     SettingsDatabaseHandler.class, "settings")
+                            .addMigrations(MIGRATION_1_2)
                             .build();
                 }
             }
@@ -36,4 +55,3 @@ public abstract class SettingsDatabaseHandler extends RoomDatabase {
         return INSTANCE;
     }
 }
-
@@ -0,0 +1,351 @@
+package com.knowledgerealm.handlers;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.knowledgerealm.helpers.SettingsSaveStatesHelper;
+import com.knowledgerealm.models.Settings;
+import com.knowledgerealm.models.interfaces.SettingsDao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * SettingsStoreHandler is a singleton class that keeps the settings of the game in memory.
+ * The settings are read from the database once, in the background, and every getter is served from an
+ * immutable snapshot that is swapped atomically on every change, so reading the settings never touches the database.
+ * Changes are written behind, in the background: the changes made while a write is waiting are coalesced into one upsert.
+ * <p>
+ * The settings are also a stream: the subscribers get the current settings when they subscribe, and the latest settings
+ * on the main thread after every change and once the stored settings are loaded, so nothing has to read them again.
+ */
+public class SettingsStoreHandler {
+    private static SettingsStoreHandler instance;
+
+    private final Supplier<SettingsDao> settingsDao;
+    private final Executor databaseExecutor;
+    private final Executor listenerExecutor;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean isNotificationScheduled = new AtomicBoolean();
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.DEFAULT);
+    private final AtomicBoolean isWriteScheduled = new AtomicBoolean();
+    // The changes made before the stored settings were loaded, applied again on top of them
+    private final List<UnaryOperator<Snapshot>> changesBeforeLoad = new ArrayList<>();
+    private boolean isLoaded;
+    private volatile CompletableFuture<Void> loadFuture;
+
+    /**
+     * Receives the settings every time they change
+     */
+    public interface Listener {
+        /**
+         * The settings changed, or the listener just subscribed
+         *
+         * @param settings the latest settings
+         */
+        void onSettingsChanged(Snapshot settings);
+    }
+
+    /**
+     * The settings of the game at a point in time, never changed once created
+     */
+    public static final class Snapshot {
+        public static final Snapshot DEFAULT = new Snapshot(SettingsSaveStatesHelper.defaultDifficulty, SettingsSaveStatesHelper.defaultCategory,
+                SettingsSaveStatesHelper.defaultSoundVolume, SettingsSaveStatesHelper.defaultMusicVolume);
+
+        private final String difficulty;
+        private final String category;
+        private final float soundVolume;
+        private final float musicVolume;
+
+        /**
+         * Constructor for the Snapshot class
+         *
+         * @param difficulty  the difficulty of the questions
+         * @param category    the category of the questions
+         * @param soundVolume the sound volume, between 0.0f and 10.0f
+         * @param musicVolume the music volume, between 0.0f and 10.0f
+         */
+        public Snapshot(String difficulty, String category, float soundVolume, float musicVolume) {
+            this.difficulty = difficulty;
+            this.category = category;
+            this.soundVolume = soundVolume;
+            this.musicVolume = musicVolume;
+        }
+
+        /**
+         * Get the difficulty of the questions
+         *
+         * @return the difficulty, or an empty string for any difficulty
+         */
+        public String getDifficulty() {
+            return difficulty;
+        }
+
+        /**
+         * Get the category of the questions
+         *
+         * @return the category, or an empty string for any category
+         */
+        public String getCategory() {
+            return category;
+        }
+
+        /**
+         * Get the sound volume
+         *
+         * @return the sound volume, between 0.0f and 10.0f
+         */
+        public float getSoundVolume() {
+            return soundVolume;
+        }
+
+        /**
+         * Get the music volume
+         *
+         * @return the music volume, between 0.0f and 10.0f
+         */
+        public float getMusicVolume() {
+            return musicVolume;
+        }
+
+        /**
+         * Get a copy of the settings with another difficulty
+         *
+         * @param difficulty the difficulty
+         * @return the settings with the difficulty
+         */
+        public Snapshot withDifficulty(String difficulty) {
+            return new Snapshot(difficulty, category, soundVolume, musicVolume);
+        }
+
+        /**
+         * Get a copy of the settings with another category
+         *
+         * @param category the category
+         * @return the settings with the category
+         */
+        public Snapshot withCategory(String category) {
+            return new Snapshot(difficulty, category, soundVolume, musicVolume);
+        }
+
+        /**
+         * Get a copy of the settings with another sound volume
+         *
+         * @param soundVolume the sound volume
+         * @return the settings with the sound volume
+         */
+        public Snapshot withSoundVolume(float soundVolume) {
+            return new Snapshot(difficulty, category, soundVolume, musicVolume);
+        }
+
+        /**
+         * Get a copy of the settings with another music volume
+         *
+         * @param musicVolume the music volume
+         * @return the settings with the music volume
+         */
+        public Snapshot withMusicVolume(float musicVolume) {
+            return new Snapshot(difficulty, category, soundVolume, musicVolume);
+        }
+
+        /**
+         * Get the settings stored in the database, the missing values are replaced by the defaults
+         *
+         * @param settings the stored settings
+         * @return the snapshot of the settings
+         */
+        static Snapshot fromSettings(Settings settings) {
+            return new Snapshot(
+                    settings.getDifficulty() != null ? settings.getDifficulty() : DEFAULT.difficulty,
+                    settings.getCategory() != null ? settings.getCategory() : DEFAULT.category,
+                    settings.getSoundVolume() != -1.0f ? settings.getSoundVolume() : DEFAULT.soundVolume,
+                    settings.getMusicVolume() != -1.0f ? settings.getMusicVolume() : DEFAULT.musicVolume);
+        }
+
+        /**
+         * Get the settings to store in the database
+         *
+         * @return the settings
+         */
+        Settings toSettings() {
+            return new Settings(difficulty, category, soundVolume, musicVolume);
+        }
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     *
+     * @param context the context of the application
+     */
+    private SettingsStoreHandler(Context context) {
+        this(getSettingsDao(context.getApplicationContext()), Executors.newSingleThreadExecutor(),
+                new Handler(Looper.getMainLooper())::post);
+    }
+
+    /**
+     * Constructor for the SettingsStoreHandler class
+     *
+     * @param settingsDao      provides the dao of the settings, on the database executor
+     * @param databaseExecutor runs the reads and writes of the database, in order
+     * @param listenerExecutor runs the notifications of the listeners, in order
+     */
+    SettingsStoreHandler(Supplier<SettingsDao> settingsDao, Executor databaseExecutor, Executor listenerExecutor) {
+        this.settingsDao = settingsDao;
+        this.databaseExecutor = databaseExecutor;
+        this.listenerExecutor = listenerExecutor;
+    }
+
+    /**
+     * Returns the instance of the SettingsStoreHandler class
+     *
+     * @param context the context of the application
+     * @return instance
+     */
+    public static synchronized SettingsStoreHandler getInstance(Context context) {
+        if (instance == null) {
+            instance = new SettingsStoreHandler(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Reads the stored settings into memory, only the first call reads the database
+     *
+     * @return a CompletableFuture that completes when the settings are loaded
+     */
+    public synchronized CompletableFuture<Void> loadAsync() {
+        if (loadFuture == null) {
+            loadFuture = CompletableFuture.runAsync(() -> {
+                Settings storedSettings = settingsDao.get().getSettings();
+                synchronized (this) {
+                    Snapshot loadedSnapshot = storedSettings != null ? Snapshot.fromSettings(storedSettings) : Snapshot.DEFAULT;
+                    for (UnaryOperator<Snapshot> change : changesBeforeLoad) {
+                        loadedSnapshot = change.apply(loadedSnapshot);
+                    }
+                    changesBeforeLoad.clear();
+                    snapshot.set(loadedSnapshot);
+                    isLoaded = true;
+                }
+                scheduleNotification();
+            }, databaseExecutor).exceptionally(e -> {
+                Log.e("SettingsStore", "Error loading the settings. More info: " + e.getMessage());
+                synchronized (this) {
+                    isLoaded = true;
+                    changesBeforeLoad.clear();
+                }
+                return null;
+            });
+        }
+        return loadFuture;
+    }
+
+    /**
+     * Get the current settings, without touching the database.
+     * Until the stored settings are loaded, the defaults with the changes made so far are returned.
+     *
+     * @return the snapshot of the settings
+     */
+    public Snapshot getSnapshot() {
+        if (loadFuture == null) {
+            loadAsync();
+        }
+        return snapshot.get();
+    }
+
+    /**
+     * Changes the settings in memory right away, and stores them in the background
+     *
+     * @param change computes the new settings from the current ones
+     */
+    public void update(UnaryOperator<Snapshot> change) {
+        synchronized (this) {
+            if (!isLoaded) {
+                changesBeforeLoad.add(change);
+            }
+            snapshot.updateAndGet(change);
+        }
+        scheduleWrite();
+        scheduleNotification();
+    }
+
+    /**
+     * Subscribes to the settings, the listener gets the current settings right away, on the calling thread,
+     * and then the latest settings after every change, on the main thread
+     *
+     * @param listener the listener, kept until it unsubscribes
+     */
+    public void subscribe(Listener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+        listener.onSettingsChanged(getSnapshot());
+    }
+
+    /**
+     * Unsubscribes from the settings
+     *
+     * @param listener the listener
+     */
+    public void unsubscribe(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Get the dao of the settings database, opened on first use
+     *
+     * @param applicationContext the context of the application, kept by the store
+     * @return the provider of the dao
+     */
+    private static Supplier<SettingsDao> getSettingsDao(Context applicationContext) {
+        return () -> SettingsDatabaseHandler.getDatabase(applicationContext).settingsDao();
+    }
+
+    /**
+     * Schedules a notification of the listeners, unless one is already waiting: it will deliver the latest settings
+     */
+    private void scheduleNotification() {
+        if (listeners.isEmpty() || !isNotificationScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        listenerExecutor.execute(() -> {
+            isNotificationScheduled.set(false);
+            Snapshot latestSnapshot = snapshot.get();
+            for (Listener listener : listeners) {
+                listener.onSettingsChanged(latestSnapshot);
+            }
+        });
+    }
+
+    /**
+     * Schedules a write of the settings, unless one is already waiting: it will store the latest settings
+     */
+    private void scheduleWrite() {
+        // the load is queued before the write, so the write never stores settings that were not loaded
+        loadAsync();
+        if (!isWriteScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        databaseExecutor.execute(() -> {
+            // cleared before reading the snapshot, so a change made during the write schedules another one
+            isWriteScheduled.set(false);
+            try {
+                settingsDao.get().insertSettings(snapshot.get().toSettings());
+            } catch (RuntimeException e) {
+                Log.e("SettingsStore", "Error saving the settings. More info: " + e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,176 @@
+package com.knowledgerealm.handlers;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
+import com.knowledgerealm.enums.TriviaApiDifficultyEnum;
+import com.knowledgerealm.enums.TriviaApiTokenStateEnum;
+import com.knowledgerealm.models.Token;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * TokenPoolHandler is a singleton class that keeps a session token for every category and difficulty combination.
+ * The pool is read from Room once, after that a ready token is handed out with a single map lookup.
+ * Tokens that were exhausted or lost during a game are reset or retrieved again in the background,
+ * so the next game with the same combination does not pay for it on its critical path.
+ */
+public class TokenPoolHandler {
+    // The Trivia API deletes a session token after 6 hours of inactivity
+    public static final long TOKEN_EXPIRATION_TIME = 6 * 3600000;
+    // The number of pool slots per category: any difficulty, easy, medium and hard
+    private static final int DIFFICULTY_SLOTS = 4;
+
+    private static TokenPoolHandler instance;
+    private static final ExecutorService databaseExecutor = Executors.newSingleThreadExecutor();
+
+    private final Context context;
+    private final Map<Integer, Token> tokens = new ConcurrentHashMap<>();
+    private final Map<Integer, TriviaApiHandler> refreshingHandlers = new ConcurrentHashMap<>();
+    private volatile CompletableFuture<Void> loadFuture;
+
+    /**
+     * Private constructor to prevent instantiation
+     *
+     * @param context the context of the application
+     */
+    private TokenPoolHandler(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * Returns the instance of the TokenPoolHandler class
+     *
+     * @param context the context of the application
+     * @return instance
+     */
+    public static synchronized TokenPoolHandler getInstance(Context context) {
+        if (instance == null) {
+            instance = new TokenPoolHandler(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Reads the stored tokens into the pool, only the first call reads the database
+     *
+     * @return a CompletableFuture that completes when the pool is loaded
+     */
+    public synchronized CompletableFuture<Void> loadAsync() {
+        if (loadFuture == null) {
+            loadFuture = CompletableFuture.runAsync(() -> {
+                List<Token> storedTokens = TokenDatabaseHandler.getInstance(context).tokenDao().getAll();
+                for (Token storedToken : storedTokens) {
+                    tokens.putIfAbsent(storedToken.getId(), storedToken);
+                }
+                Log.i("TokenPool", storedTokens.size() + " tokens loaded");
+            }, databaseExecutor).exceptionally(e -> {
+                Log.e("TokenPool", "Error loading the tokens. More info: " + e.getMessage());
+                return null;
+            });
+        }
+        return loadFuture;
+    }
+
+    /**
+     * Hands out a TriviaApiHandler with the pooled token of the category and difficulty.
+     * If the token is missing or expired, the handler retrieves a new one on its first request.
+     *
+     * @param category   the category of the game, or null for any category
+     * @param difficulty the difficulty of the game, or null for any difficulty
+     * @return a CompletableFuture that will contain the handler, immediately once the pool is loaded
+     */
+    public CompletableFuture<TriviaApiHandler> acquireAsync(TriviaApiCategoriesEnum category, TriviaApiDifficultyEnum difficulty) {
+        return loadAsync().thenApply(loaded -> new TriviaApiHandler(getReadyToken(getId(category, difficulty))));
+    }
+
+    /**
+     * Stores the token used by the handler back into the pool, and refreshes it in the background
+     * if the game found it exhausted or not found.
+     *
+     * @param category         the category of the game, or null for any category
+     * @param difficulty       the difficulty of the game, or null for any difficulty
+     * @param triviaApiHandler the handler used for the game
+     */
+    public void releaseAsync(TriviaApiCategoriesEnum category, TriviaApiDifficultyEnum difficulty, TriviaApiHandler triviaApiHandler) {
+        int id = getId(category, difficulty);
+        storeAsync(id, triviaApiHandler.getSessionToken());
+
+        TriviaApiTokenStateEnum tokenState = triviaApiHandler.getTokenState();
+        if (tokenState != TriviaApiTokenStateEnum.EXHAUSTED && tokenState != TriviaApiTokenStateEnum.MISSING) {
+            return;
+        }
+
+        if (refreshingHandlers.putIfAbsent(id, triviaApiHandler) != null) {
+            return;
+        }
+
+        Log.i("TokenPool", "Refreshing the " + tokenState + " token of slot " + id);
+        triviaApiHandler.refreshSessionTokenAsync()
+                .whenComplete((hasToken, e) -> {
+                    refreshingHandlers.remove(id);
+                    if (e == null && hasToken) {
+                        storeAsync(id, triviaApiHandler.getSessionToken());
+                    }
+                });
+    }
+
+    /**
+     * Gets the pooled token of the slot if it has not expired
+     *
+     * @param id the id of the slot
+     * @return the token or null if there is none or it is expired
+     */
+    private String getReadyToken(int id) {
+        Token token = tokens.get(id);
+        if (token == null || token.getToken() == null) {
+            return null;
+        }
+
+        if (token.getTimestamp() + TOKEN_EXPIRATION_TIME < System.currentTimeMillis()) {
+            Log.i("TokenPool", "Token of slot " + id + " is expired");
+            return null;
+        }
+        return token.getToken();
+    }
+
+    /**
+     * Stores the token of the slot in the pool and in the database, with the current time as its last use
+     *
+     * @param id           the id of the slot
+     * @param sessionToken the token, or null if the slot has no token
+     */
+    private void storeAsync(int id, String sessionToken) {
+        Token token = new Token();
+        token.setId(id);
+        token.setToken(sessionToken);
+        token.setTimestamp(System.currentTimeMillis());
+        tokens.put(id, token);
+
+        CompletableFuture.runAsync(() -> TokenDatabaseHandler.getInstance(context).tokenDao().insertOrReplace(token), databaseExecutor)
+                .exceptionally(e -> {
+                    Log.e("TokenPool", "Error storing the token. More info: " + e.getMessage());
+                    return null;
+                });
+    }
+
+    /**
+     * Get the id of the pool slot of the category and difficulty.
+     * Any category with any difficulty is slot 0, the id used when there was a single token.
+     *
+     * @param category   the category, or null for any category
+     * @param difficulty the difficulty, or null for any difficulty
+     * @return the id of the slot
+     */
+    private static int getId(TriviaApiCategoriesEnum category, TriviaApiDifficultyEnum difficulty) {
+        int categoryId = category != null ? category.getId() : TriviaApiCategoriesEnum.NO_CATEGORY.getId();
+        int difficultySlot = difficulty != null && difficulty != TriviaApiDifficultyEnum.NO_DIFFICULTY ? difficulty.ordinal() + 1 : 0;
+        return categoryId * DIFFICULTY_SLOTS + difficultySlot;
+    }
+}
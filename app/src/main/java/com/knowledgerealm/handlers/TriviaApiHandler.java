@@ -3,46 +3,85 @@ package com.knowledgerealm.handlers;
 import static com.knowledgerealm.enums.TriviaApiResponseCodeEnum.SUCCESS;
 import static com.knowledgerealm.enums.TriviaApiResponseCodeEnum.TOKEN_EMPTY;
 import static com.knowledgerealm.enums.TriviaApiResponseCodeEnum.TOKEN_NOT_FOUND;
-import static com.knowledgerealm.helpers.HtmlHelper.decodeHtml;
 
 import android.util.Log;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
 import com.knowledgerealm.enums.TriviaApiDifficultyEnum;
+import com.knowledgerealm.enums.TriviaApiEncodingEnum;
+import com.knowledgerealm.enums.TriviaApiTokenStateEnum;
 import com.knowledgerealm.helpers.CategoriesResponseHelper;
 import com.knowledgerealm.helpers.HttpRequestAsyncHelper;
+import com.knowledgerealm.helpers.MultiCategoryResponseHelper;
+import com.knowledgerealm.helpers.QuestionCountResponseHelper;
+import com.knowledgerealm.helpers.TriviaResponseDecoderHelper;
 import com.knowledgerealm.helpers.TriviaResponseHelper;
 import com.knowledgerealm.models.TriviaQuestion;
+import com.knowledgerealm.models.interfaces.QuestionSource;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 /**
  * TriviaApiHandler is a class that handles all the API calls to the Trivia API.
+ * Every call has a non-blocking counterpart ending in "Async" that returns a CompletableFuture,
+ * the blocking methods are kept for callers that already run on a background thread.
+ * <p>
+ * Questions are requested with the text in HTML entities by default, the encoding that measured cheapest to decode
+ * in TriviaResponseDecoderBenchmark and the smallest on the wire. Base64 and RFC 3986 can be chosen with setEncoding.
+ * <p>
+ * The session token is validated lazily: it is treated as valid until a question request
+ * answers with TOKEN_EMPTY or TOKEN_NOT_FOUND, and only then it is reset or retrieved again.
+ * <p>
+ * It is the remote QuestionSource of the game.
  */
-public class TriviaApiHandler {
-    private final String baseURL = "https://opentdb.com/api.php";
-    private final String tokenURL = "https://opentdb.com/api_token.php";
-    private String sessionToken;
+public class TriviaApiHandler implements QuestionSource {
+    // How many times a question request is sent again after the token has been corrected
+    private static final int MAX_TOKEN_CORRECTIONS = 1;
+    private static final String API_URL = "https://opentdb.com";
+
+    private final String baseURL;
+    private final String tokenURL;
+    private final String countURL;
+    private volatile String sessionToken;
+    private volatile TriviaApiTokenStateEnum tokenState;
+    // Incremented every time the session token is replaced, to ignore the responses to an older token
+    private volatile int tokenGeneration;
+    private volatile TriviaApiEncodingEnum encoding = TriviaApiEncodingEnum.DEFAULT;
+    // The reset or retrieval of the token in flight, shared by the requests that need it
+    private CompletableFuture<Boolean> tokenCorrection;
 
     /**
      * Constructor for the TriviaApiHandler.
-     * Retrieves a new session token from the Trivia API.
+     * A new session token is retrieved from the Trivia API on the first question request.
      */
     public TriviaApiHandler() {
-        checkAndCorrectSessionToken();
+        this(null);
     }
 
     /**
      * Constructor for the TriviaApiHandler.
-     * @param sessionToken the session token to use for the API calls.
+     * @param sessionToken the session token to use for the API calls, or null to retrieve a new one when needed.
      */
     public TriviaApiHandler(String sessionToken) {
+        this(sessionToken, API_URL);
+    }
+
+    /**
+     * Constructor for the TriviaApiHandler, sending the question, token and count requests to the given server.
+     * @param sessionToken the session token to use for the API calls, or null to retrieve a new one when needed.
+     * @param apiURL       the URL of a server with the API of the Open Trivia DB, without a trailing slash.
+     */
+    public TriviaApiHandler(String sessionToken, String apiURL) {
+        this.baseURL = apiURL + "/api.php";
+        this.tokenURL = apiURL + "/api_token.php";
+        this.countURL = apiURL + "/api_count.php";
         this.sessionToken = sessionToken;
-        checkAndCorrectSessionToken();
+        this.tokenState = sessionToken == null ? TriviaApiTokenStateEnum.MISSING : TriviaApiTokenStateEnum.UNKNOWN;
     }
 
     /**
@@ -50,160 +89,223 @@ public class TriviaApiHandler {
      * @return a CategoriesResponseHelper object containing a list of category names and a success flag.
      */
     public static CategoriesResponseHelper getAllCategories() {
+        return getAllCategoriesAsync().join();
+    }
+
+    /**
+     * Makes a non-blocking request to the Open Trivia API to retrieve a list of trivia categories.
+     * @return a CompletableFuture that will contain a CategoriesResponseHelper object with a list of category names and a success flag.
+     */
+    public static CompletableFuture<CategoriesResponseHelper> getAllCategoriesAsync() {
         String urlRequest = "https://opentdb.com/api_category.php";
-        List<String> categories = new ArrayList<>();
-        boolean success = false;
-
-        try {
-            // Use the getStringAsync method to make the HTTP request asynchronously.
-            CompletableFuture<String> responseFuture = HttpRequestAsyncHelper.getResponseAsync(urlRequest);
-            String content = responseFuture.get();
-
-            // Parse the JSON response into a list of category names.
-            ObjectMapper objectMapper = new ObjectMapper();
-            JsonNode rootNode = objectMapper.readTree(content);
-            JsonNode categoriesNode = rootNode.get("trivia_categories");
-            for (JsonNode categoryNode : categoriesNode) {
-                String categoryName = categoryNode.get("name").asText();
-                categories.add(categoryName);
-            }
-            success = true;
-        } catch (Exception e) {
-            Log.e("TriviaApiHandler", "Error retrieving categories: " + e.getMessage());
-        }
 
-        return new CategoriesResponseHelper(categories, success);
+        return HttpRequestAsyncHelper.getResponseAsync(urlRequest, TriviaResponseDecoderHelper.CATEGORIES_DECODER)
+                .exceptionally(e -> {
+                    Log.e("TriviaApiHandler", "Error retrieving categories: " + e.getMessage());
+                    return new CategoriesResponseHelper(new ArrayList<>(), false);
+                });
+    }
+
+    /**
+     * Makes a non-blocking request to the Open Trivia API to retrieve how many questions a category has, per difficulty.
+     * @param category the category to count the questions of.
+     * @return a CompletableFuture that will contain a QuestionCountResponseHelper object with the question counts and a success flag.
+     */
+    public CompletableFuture<QuestionCountResponseHelper> getQuestionCountAsync(TriviaApiCategoriesEnum category) {
+        String urlRequest = countURL + "?category=" + category.getId();
+
+        return HttpRequestAsyncHelper.getResponseAsync(urlRequest, TriviaResponseDecoderHelper.QUESTION_COUNT_DECODER)
+                .exceptionally(e -> {
+                    Log.e("TriviaApiHandler", "Error retrieving question count: " + e.getMessage());
+                    return new QuestionCountResponseHelper(0, 0, 0, 0, false);
+                });
+    }
+
+    /**
+     * Gets the name of the source, the host of the Trivia API.
+     * @return the host of the Trivia API.
+     */
+    @Override
+    public String getName() {
+        return HttpRequestAsyncHelper.TRIVIA_API_HOST;
+    }
+
+    /**
+     * Makes a non-blocking request to the Open Trivia API to retrieve all the categories.
+     * @return a CompletableFuture that will contain a CategoriesResponseHelper object with a list of categories and a success flag.
+     */
+    @Override
+    public CompletableFuture<CategoriesResponseHelper> getCategoriesAsync() {
+        return getAllCategoriesAsync();
+    }
+
+    /**
+     * Checks if requests to the Trivia API are sent, or fail fast because it is down.
+     * @return false if the circuit breaker of the Trivia API is open, true otherwise.
+     */
+    @Override
+    public boolean isAvailable() {
+        return HttpRequestAsyncHelper.isHostAvailable(HttpRequestAsyncHelper.TRIVIA_API_HOST);
     }
 
     /**
      * Sets the given session token to the TriviaApiHandler object.
+     * The token is not validated until it is used for a question request.
      * @param sessionToken the string session token to use for the API calls.
-     * @return true if the token is set successfully, false otherwise.
+     * @return true if the token is set, false if it was null.
      */
     public boolean setSessionToken(String sessionToken) {
+        replaceSessionToken(sessionToken);
+        return sessionToken != null;
+    }
+
+    /**
+     * Replaces the session token, a reset token counts as a new one even if the API gives back the same string.
+     * @param sessionToken the new session token, or null if there is none.
+     */
+    private synchronized void replaceSessionToken(String sessionToken) {
         this.sessionToken = sessionToken;
-        return checkAndCorrectSessionToken();
+        this.tokenState = sessionToken == null ? TriviaApiTokenStateEnum.MISSING : TriviaApiTokenStateEnum.UNKNOWN;
+        tokenGeneration++;
     }
 
     /**
      * Retrieves a new session token from the Trivia API or sets the session token to null in the case of an error.
-     * @return true if the token is retrieved successfully, false otherwise.
+     * @return a CompletableFuture that will contain true if the token is retrieved successfully, false otherwise.
      */
-    private Boolean retrieveSessionToken() {
+    private CompletableFuture<Boolean> retrieveSessionTokenAsync() {
         String urlRequest = tokenURL + "?command=request";
-        boolean isTokenRetrieved = false;
-
-        try {
-            // Use the getStringAsync method to make the HTTP request asynchronously.
-            CompletableFuture<String> responseFuture = HttpRequestAsyncHelper.getResponseAsync(urlRequest);
-            String content = responseFuture.get();
-
-            // Parse the JSON response.
-            ObjectMapper objectMapper = new ObjectMapper();
-            JsonNode jsonNode = objectMapper.readTree(content);
-
-            // Get the session token from the JSON response.
-            if (jsonNode.get("response_code").asInt() == SUCCESS.getResponseCode()) {
-                sessionToken = jsonNode.get("token").asText();
-                isTokenRetrieved = true;
-            } else {
-                sessionToken = null;
-            }
-        } catch (Exception e) {
-            Log.e("TriviaApiHandler", "Error retrieving session token: " + e.getMessage());
-        }
 
-        return isTokenRetrieved;
+        // every request creates a new token
+        return HttpRequestAsyncHelper.getResponseAsync(urlRequest, TriviaResponseDecoderHelper.TOKEN_DECODER, false)
+                .thenApply(tokenResponse -> {
+                    // Get the session token from the JSON response.
+                    if (tokenResponse.getResponseCode() == SUCCESS.getResponseCode()) {
+                        replaceSessionToken(tokenResponse.getToken());
+                        return true;
+                    }
+
+                    replaceSessionToken(null);
+                    return false;
+                })
+                .exceptionally(e -> {
+                    Log.e("TriviaApiHandler", "Error retrieving session token: " + e.getMessage());
+                    return false;
+                });
     }
 
     /**
      * Resets the session token or sets it to null if the token is invalid.
-     * @return true if the token is reset successfully, false otherwise.
+     * @return a CompletableFuture that will contain true if the token is reset successfully, false otherwise.
      */
-    private Boolean resetSessionToken() {
+    private CompletableFuture<Boolean> resetSessionTokenAsync() {
         String urlRequest = tokenURL + "?command=reset&token=" + sessionToken;
-        boolean isTokenReset = false;
-
-        try {
-            // Use the getStringAsync method to make the HTTP request asynchronously.
-            CompletableFuture<String> responseFuture = HttpRequestAsyncHelper.getResponseAsync(urlRequest);
-            String content = responseFuture.get();
-
-            // Parse the JSON response.
-            ObjectMapper objectMapper = new ObjectMapper();
-            JsonNode jsonNode = objectMapper.readTree(content);
-
-            // Get the session token from the JSON response.
-            if (jsonNode.get("response_code").asInt() == SUCCESS.getResponseCode()) {
-                sessionToken = jsonNode.get("token").asText();
-                isTokenReset = true;
-            } else {
-                sessionToken = null;
-            }
-        } catch (Exception e) {
-            Log.e("TriviaApiHandler", "Error resetting session token: " + e.getMessage());
-        }
 
-        return isTokenReset;
+        return HttpRequestAsyncHelper.getResponseAsync(urlRequest, TriviaResponseDecoderHelper.TOKEN_DECODER)
+                .thenApply(tokenResponse -> {
+                    // Get the session token from the JSON response.
+                    if (tokenResponse.getResponseCode() == SUCCESS.getResponseCode()) {
+                        replaceSessionToken(tokenResponse.getToken());
+                        return true;
+                    }
+
+                    replaceSessionToken(null);
+                    return false;
+                })
+                .exceptionally(e -> {
+                    Log.e("TriviaApiHandler", "Error resetting session token: " + e.getMessage());
+                    return false;
+                });
     }
 
     /**
-     * Checks if the session token is valid, or resets if
-     * token is empty, or retrieves a new token if token is invalid.
-     * @return true if the token is valid, false otherwise.
+     * Makes sure there is a usable session token, based only on its known state.
+     * No request is made when the token is valid or not used yet, and a reset or retrieval
+     * that is already in flight is shared instead of being sent again.
+     * @return a CompletableFuture that will contain true if there is a token to use, false otherwise.
      */
-    private boolean checkAndCorrectSessionToken() {
-        if (sessionToken == null) {
-            Log.i("TriviaApiHandler", "Session token is null. Retrieving a new token.");
-            return retrieveSessionToken();
+    private synchronized CompletableFuture<Boolean> ensureSessionTokenAsync() {
+        if (tokenCorrection != null && !tokenCorrection.isDone()) {
+            return tokenCorrection;
         }
 
-        String urlRequest = baseURL + "?amount=1&token=" + sessionToken;
+        switch (tokenState) {
+            case MISSING:
+                Log.i("TriviaApiHandler", "Session token is missing. Retrieving a new token.");
+                tokenCorrection = retrieveSessionTokenAsync();
+                return tokenCorrection;
+            case EXHAUSTED:
+                Log.i("TriviaApiHandler", "Session token has returned all possible questions for the specified query. Resetting the token.");
+                tokenCorrection = resetSessionTokenAsync();
+                return tokenCorrection;
+            default:
+                return CompletableFuture.completedFuture(true);
+        }
+    }
 
-        try {
-            // Use the getStringAsync method to make the HTTP request asynchronously.
-            CompletableFuture<String> responseFuture = HttpRequestAsyncHelper.getResponseAsync(urlRequest);
-            String content = responseFuture.get();
+    /**
+     * Updates the state of the session token from the response to a request that used it.
+     * Nothing changes if the token has been replaced since, for example by a concurrent request
+     * that corrected it, so a late response never clears or resets the new token.
+     * @param usedGeneration the generation of the session token the request was sent with.
+     * @param state          the state of that token, a MISSING token is also cleared.
+     */
+    private synchronized void updateTokenState(int usedGeneration, TriviaApiTokenStateEnum state) {
+        if (usedGeneration != tokenGeneration) {
+            return;
+        }
 
-            // Parse the JSON response.
-            ObjectMapper objectMapper = new ObjectMapper();
-            JsonNode jsonNode = objectMapper.readTree(content);
+        if (state == TriviaApiTokenStateEnum.MISSING) {
+            replaceSessionToken(null);
+        } else {
+            tokenState = state;
+        }
+    }
 
-            // Get the session token from the JSON response.
-            if (jsonNode.get("response_code").asInt() == SUCCESS.getResponseCode()) {
-                Log.d("TriviaApiHandler", "Session token is valid. Continuing with the API call.");
-                return true;
-            } else if (jsonNode.get("response_code").asInt() == TOKEN_EMPTY.getResponseCode()) {
-                Log.i("TriviaApiHandler", "Session token has returned all possible questions for the specified query. Resetting the token.");
+    /**
+     * Resets the session token if it is exhausted, or retrieves a new one if it is missing,
+     * so it is ready before the next question request.
+     * @return a CompletableFuture that will contain true if there is a token to use, false otherwise.
+     */
+    @Override
+    public CompletableFuture<Boolean> refreshSessionTokenAsync() {
+        return ensureSessionTokenAsync();
+    }
 
-                if (resetSessionToken()) {
-                    return checkAndCorrectSessionToken();
-                }
-
-                return false;
-            } else if (jsonNode.get("response_code").asInt() == TOKEN_NOT_FOUND.getResponseCode()) {
-                Log.i("TriviaApiHandler", "Session token not found. Retrieving a new token.");
-
-                if (retrieveSessionToken()) {
-                    return checkAndCorrectSessionToken();
-                }
-                return false;
-            }
-        } catch (Exception e) {
-            Log.e("TriviaApiHandler", "Error checking session token: " + e.getMessage());
-        }
+    /**
+     * Sets the encoding the Trivia API uses for the text of the questions.
+     * @param encoding the encoding, DEFAULT by default.
+     */
+    public void setEncoding(TriviaApiEncodingEnum encoding) {
+        this.encoding = encoding;
+    }
 
-        return false;
+    /**
+     * Gets the encoding the Trivia API uses for the text of the questions.
+     * @return the encoding.
+     */
+    public TriviaApiEncodingEnum getEncoding() {
+        return encoding;
     }
 
     /**
      * Gets the session token.
      * @return the session token.
      */
+    @Override
     public String getSessionToken() {
         return sessionToken;
     }
 
+    /**
+     * Gets the known state of the session token.
+     * @return the state of the session token.
+     */
+    @Override
+    public TriviaApiTokenStateEnum getTokenState() {
+        return tokenState;
+    }
+
     /**
      * Makes a request to the Open Trivia API to retrieve a list of trivia questions.
      * @param category   the category of questions to retrieve.
@@ -213,68 +315,129 @@ public class TriviaApiHandler {
      * @return a TriviaResponseHelper object containing a list of trivia questions and a success flag.
      */
     public TriviaResponseHelper getTriviaQuestions(TriviaApiCategoriesEnum category, TriviaApiDifficultyEnum difficulty, String type, int amount) {
-        String urlRequest = baseURL + "?amount=" + amount;
+        return getTriviaQuestionsAsync(category, difficulty, type, amount).join();
+    }
+
+    /**
+     * Makes a non-blocking request to the Open Trivia API to retrieve a list of trivia questions.
+     * With a cached token that is still good this is a single request, the token is only
+     * reset or retrieved again when the question response reports it as empty or not found.
+     * @param category   the category of questions to retrieve.
+     * @param difficulty the difficulty of questions to retrieve.
+     * @param type       the type of questions to retrieve.
+     * @param amount     the number of questions to retrieve.
+     * @return a CompletableFuture that will contain a TriviaResponseHelper object with a list of trivia questions and a success flag.
+     */
+    @Override
+    public CompletableFuture<TriviaResponseHelper> getTriviaQuestionsAsync(TriviaApiCategoriesEnum category, TriviaApiDifficultyEnum difficulty, String type, int amount) {
+        StringBuilder urlBuilder = new StringBuilder(baseURL).append("?amount=").append(amount);
 
         if (category != null) {
-            urlRequest += "&category=" + category.getId();
+            urlBuilder.append("&category=").append(category.getId());
         }
 
         if (difficulty != null) {
-            urlRequest += "&difficulty=" + difficulty.getName().toLowerCase();
+            urlBuilder.append("&difficulty=").append(difficulty.getName().toLowerCase());
         }
 
         if (type != null) {
-            urlRequest += "&type=" + type;
+            urlBuilder.append("&type=").append(type);
         }
 
-        if (!checkAndCorrectSessionToken()) {
-            return new TriviaResponseHelper(null, false);
+        TriviaApiEncodingEnum requestEncoding = encoding;
+        if (requestEncoding.getParameter() != null) {
+            urlBuilder.append("&encode=").append(requestEncoding.getParameter());
         }
 
-        List<TriviaQuestion> triviaQuestions = new ArrayList<>();
-        boolean success = false;
-
-        try {
-            // Use the getStringAsync method to make the HTTP request asynchronously.
-            CompletableFuture<String> responseFuture = HttpRequestAsyncHelper.getResponseAsync(urlRequest);
-            String content = responseFuture.get();
-
-            // Parse the JSON response into a list of trivia questions.
-            ObjectMapper objectMapper = new ObjectMapper();
-            JsonNode rootNode = objectMapper.readTree(content);
-            if (rootNode.get("response_code").asInt() == SUCCESS.getResponseCode()) {
-                JsonNode resultsNode = rootNode.get("results");
-                for (JsonNode resultNode : resultsNode) {
-                    String question = decodeHtml(resultNode.get("question").asText());
-                    String correctAnswer = decodeHtml(resultNode.get("correct_answer").asText());
-                    String categoryString = decodeHtml(resultNode.get("category").asText());
-                    String difficultyString = decodeHtml(resultNode.get("difficulty").asText());
-                    List<String> incorrectAnswers = new ArrayList<>();
-                    JsonNode incorrectAnswersNode = resultNode.get("incorrect_answers");
-                    for (JsonNode incorrectAnswerNode : incorrectAnswersNode) {
-                        incorrectAnswers.add(decodeHtml(incorrectAnswerNode.asText()));
-                    }
-                    triviaQuestions.add(new TriviaQuestion(
-                            question,
-                            correctAnswer,
-                            incorrectAnswers,
-                            TriviaApiCategoriesEnum.getEnumByName(categoryString),
-                            TriviaApiDifficultyEnum.valueOf(difficultyString.toUpperCase()))
-                    );
-                }
-                success = true;
-            } else if (rootNode.get("response_code").asInt() == TOKEN_EMPTY.getResponseCode() ||
-                    rootNode.get("response_code").asInt() == TOKEN_NOT_FOUND.getResponseCode()) {
-                // If the session token is invalid, retrieve a new one.
-                if (!checkAndCorrectSessionToken()) {
-                    return getTriviaQuestions(category, difficulty, type, amount);
-                }
-            }
-        } catch (Exception e) {
-            Log.e("TriviaApiHandler", "Error retrieving trivia questions: " + e.getMessage());
+        String urlRequest = urlBuilder.toString();
+        HttpRequestAsyncHelper.ResponseDecoder<TriviaResponseHelper> decoder = TriviaResponseDecoderHelper.getQuestionsDecoder(requestEncoding);
+
+        return ensureSessionTokenAsync()
+                .thenCompose(hasToken -> fetchTriviaQuestionsAsync(urlRequest, decoder, MAX_TOKEN_CORRECTIONS));
+    }
+
+    /**
+     * Makes non-blocking requests to the Open Trivia API for a game mixing several categories.
+     * The amount is split as evenly as possible across the categories, and the requests are sent concurrently,
+     * so they are only spaced by the rate limit of the API instead of waiting for each other.
+     * @param categories the categories of questions to retrieve.
+     * @param difficulty the difficulty of questions to retrieve.
+     * @param type       the type of questions to retrieve.
+     * @param amount     the total number of questions to retrieve.
+     * @return a CompletableFuture that will contain the merged and shuffled questions of the categories that succeeded,
+     * with the response of every category.
+     */
+    public CompletableFuture<MultiCategoryResponseHelper> getTriviaQuestionsAsync(List<TriviaApiCategoriesEnum> categories, TriviaApiDifficultyEnum difficulty, String type, int amount) {
+        Map<TriviaApiCategoriesEnum, CompletableFuture<TriviaResponseHelper>> categoryRequests = new LinkedHashMap<>();
+        int categoryCount = Math.min(categories.size(), amount);
+        for (int i = 0; i < categoryCount; i++) {
+            // the remainder goes to the first categories
+            int categoryAmount = amount / categoryCount + (i < amount % categoryCount ? 1 : 0);
+            categoryRequests.put(categories.get(i), getTriviaQuestionsAsync(categories.get(i), difficulty, type, categoryAmount));
         }
 
-        return new TriviaResponseHelper(triviaQuestions, success);
+        return CompletableFuture.allOf(categoryRequests.values().toArray(new CompletableFuture<?>[0]))
+                .thenApply(allDone -> {
+                    List<TriviaQuestion> triviaQuestions = new ArrayList<>(amount);
+                    Map<TriviaApiCategoriesEnum, TriviaResponseHelper> categoryResponses = new LinkedHashMap<>();
+                    for (Map.Entry<TriviaApiCategoriesEnum, CompletableFuture<TriviaResponseHelper>> categoryRequest : categoryRequests.entrySet()) {
+                        TriviaResponseHelper categoryResponse = categoryRequest.getValue().join();
+                        categoryResponses.put(categoryRequest.getKey(), categoryResponse);
+                        if (categoryResponse.isSuccess()) {
+                            triviaQuestions.addAll(categoryResponse.getTriviaQuestions());
+                        } else {
+                            Log.e("TriviaApiHandler", "Error retrieving trivia questions of " + categoryRequest.getKey().getName());
+                        }
+                    }
+
+                    Collections.shuffle(triviaQuestions);
+                    return new MultiCategoryResponseHelper(triviaQuestions, categoryResponses);
+                });
+    }
+
+    /**
+     * Sends the question request with the current session token and updates the token state from the response code.
+     * If the token turns out to be empty or not found, it is corrected and the request is sent again.
+     * @param urlRequest         the question request without the token.
+     * @param decoder            the decoder for the encoding of the request.
+     * @param correctionsAllowed how many more times the token may be corrected for this request.
+     * @return a CompletableFuture that will contain a TriviaResponseHelper object with a list of trivia questions and a success flag.
+     */
+    private CompletableFuture<TriviaResponseHelper> fetchTriviaQuestionsAsync(String urlRequest, HttpRequestAsyncHelper.ResponseDecoder<TriviaResponseHelper> decoder, int correctionsAllowed) {
+        // read before the token, so a token replaced in between is never mistaken for the one that was sent
+        int generation = tokenGeneration;
+        String token = sessionToken;
+        String tokenRequest = token != null ? urlRequest + "&token=" + token : urlRequest;
+
+        // every request returns new questions for the token
+        return HttpRequestAsyncHelper.getResponseAsync(tokenRequest, decoder, false)
+                .thenCompose(triviaResponse -> {
+                    if (token == null) {
+                        return CompletableFuture.completedFuture(triviaResponse);
+                    }
+
+                    if (triviaResponse.getResponseCode() == TOKEN_EMPTY.getResponseCode()) {
+                        updateTokenState(generation, TriviaApiTokenStateEnum.EXHAUSTED);
+                    } else if (triviaResponse.getResponseCode() == TOKEN_NOT_FOUND.getResponseCode()) {
+                        updateTokenState(generation, TriviaApiTokenStateEnum.MISSING);
+                    } else {
+                        // Any other response code means the API has accepted the token
+                        updateTokenState(generation, TriviaApiTokenStateEnum.VALID);
+                        return CompletableFuture.completedFuture(triviaResponse);
+                    }
+
+                    if (correctionsAllowed <= 0) {
+                        Log.e("TriviaApiHandler", "Session token could not be corrected. Giving up on the request.");
+                        return CompletableFuture.completedFuture(triviaResponse);
+                    }
+
+                    return ensureSessionTokenAsync()
+                            .thenCompose(hasToken -> fetchTriviaQuestionsAsync(urlRequest, decoder, correctionsAllowed - 1));
+                })
+                .exceptionally(e -> {
+                    Log.e("TriviaApiHandler", "Error retrieving trivia questions: " + e.getMessage());
+                    return new TriviaResponseHelper(new ArrayList<>(), false);
+                });
     }
 
 }
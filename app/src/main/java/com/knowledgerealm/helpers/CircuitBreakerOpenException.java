@@ -0,0 +1,19 @@
+package com.knowledgerealm.helpers;
+
+import java.io.IOException;
+
+/**
+ * CircuitBreakerOpenException is thrown when a request fails fast because the circuit breaker of its host is open.
+ */
+public class CircuitBreakerOpenException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor for the CircuitBreakerOpenException class.
+     *
+     * @param host the host whose circuit breaker is open.
+     */
+    public CircuitBreakerOpenException(String host) {
+        super("Circuit breaker open for " + host);
+    }
+}
@@ -0,0 +1,44 @@
+package com.knowledgerealm.helpers;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ClockHelper holds the clock and the timer that the schedulers, the game session and the question timer
+ * are driven by, so tests can replace them with a virtual clock.
+ */
+public class ClockHelper {
+
+    /**
+     * Source of the current time, in milliseconds.
+     */
+    public interface Clock {
+        long currentTimeMillis();
+    }
+
+    /**
+     * Runs a task after a delay, in milliseconds.
+     */
+    public interface Timer {
+        void schedule(Runnable task, long delayMillis);
+    }
+
+    private ClockHelper() {
+    }
+
+    /**
+     * Creates a timer backed by a single daemon scheduler thread.
+     *
+     * @param threadName the name of the scheduler thread.
+     * @return the timer.
+     */
+    public static Timer createSystemTimer(String threadName) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        return (task, delayMillis) -> scheduler.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+    }
+}
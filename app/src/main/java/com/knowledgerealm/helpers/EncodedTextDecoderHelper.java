@@ -0,0 +1,113 @@
+package com.knowledgerealm.helpers;
+
+import java.nio.charset.Charset;
+
+/**
+ * EncodedTextDecoderHelper is a helper class that decodes the Base64 and RFC 3986 encodings of the Trivia API.
+ * The text is decoded straight from a range of characters, such as the text buffer of a JsonParser,
+ * into the UTF-8 bytes of the result, without any intermediate String.
+ * java.util.Base64 is not used because it needs API level 26.
+ */
+public class EncodedTextDecoderHelper {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    // The value of every Base64 character, or -1 for characters that are not part of the alphabet
+    private static final byte[] BASE64_VALUES = new byte[128];
+
+    static {
+        java.util.Arrays.fill(BASE64_VALUES, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64_VALUES[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private EncodedTextDecoderHelper() {
+        // private constructor to prevent
+        // instantiation of this helper class
+    }
+
+    /**
+     * Decodes Base64 text into the UTF-8 string it encodes.
+     *
+     * @param chars  the characters holding the text.
+     * @param offset the index of the first character of the text.
+     * @param length the number of characters of the text.
+     * @return the decoded string.
+     * @throws IllegalArgumentException if the text is not valid Base64.
+     */
+    public static String decodeBase64(char[] chars, int offset, int length) {
+        int end = offset + length;
+        while (end > offset && chars[end - 1] == '=') {
+            end--;
+        }
+
+        int dataLength = end - offset;
+        if (dataLength % 4 == 1) {
+            throw new IllegalArgumentException("Invalid Base64 length");
+        }
+
+        byte[] bytes = new byte[dataLength * 3 / 4];
+        int byteCount = 0;
+        int buffer = 0;
+        int bufferedBits = 0;
+        for (int i = offset; i < end; i++) {
+            char c = chars[i];
+            int value = c < 128 ? BASE64_VALUES[c] : -1;
+            if (value < 0) {
+                throw new IllegalArgumentException("Invalid Base64 character: " + c);
+            }
+
+            buffer = (buffer << 6) | value;
+            bufferedBits += 6;
+            if (bufferedBits >= 8) {
+                bufferedBits -= 8;
+                bytes[byteCount++] = (byte) (buffer >> bufferedBits);
+            }
+        }
+        return new String(bytes, 0, byteCount, UTF_8);
+    }
+
+    /**
+     * Decodes RFC 3986 percent-encoded text into the UTF-8 string it encodes.
+     * Characters that are not percent-encoded are kept as they are.
+     *
+     * @param chars  the characters holding the text.
+     * @param offset the index of the first character of the text.
+     * @param length the number of characters of the text.
+     * @return the decoded string.
+     * @throws IllegalArgumentException if a percent sign is not followed by two hexadecimal digits.
+     */
+    public static String decodeUrl3986(char[] chars, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        while (i < end && chars[i] != '%') {
+            i++;
+        }
+        if (i == end) {
+            return new String(chars, offset, length);
+        }
+
+        byte[] bytes = new byte[length];
+        int byteCount = 0;
+        for (i = offset; i < end; i++) {
+            char c = chars[i];
+            if (c == '%') {
+                if (i + 2 >= end) {
+                    throw new IllegalArgumentException("Incomplete percent-encoding");
+                }
+                int high = Character.digit(chars[i + 1], 16);
+                int low = Character.digit(chars[i + 2], 16);
+                if (high < 0 || low < 0) {
+                    throw new IllegalArgumentException("Invalid percent-encoding");
+                }
+                bytes[byteCount++] = (byte) ((high << 4) | low);
+                i += 2;
+            } else {
+                // Unreserved characters are ASCII
+                bytes[byteCount++] = (byte) c;
+            }
+        }
+        return new String(bytes, 0, byteCount, UTF_8);
+    }
+}
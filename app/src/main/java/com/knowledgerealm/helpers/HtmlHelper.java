@@ -7,6 +7,83 @@ import android.util.Log;
  * HtmlHelper is a general helper class that contains methods related to HTML.
  */
 public class HtmlHelper {
+    // The longest entity name of HTML 4 is 8 characters, numeric entities need at most 8 as well ("#x10FFFF")
+    private static final int MAX_ENTITY_LENGTH = 8;
+
+    // The named entities of HTML 4, sorted by code point
+    private static final String[] ENTITY_NAMES = {
+            "quot", "amp", "lt", "gt", "nbsp", "iexcl", "cent", "pound", "curren", "yen",
+            "brvbar", "sect", "uml", "copy", "ordf", "laquo", "not", "shy", "reg", "macr",
+            "deg", "plusmn", "sup2", "sup3", "acute", "micro", "para", "middot", "cedil", "sup1",
+            "ordm", "raquo", "frac14", "frac12", "frac34", "iquest", "Agrave", "Aacute", "Acirc", "Atilde",
+            "Auml", "Aring", "AElig", "Ccedil", "Egrave", "Eacute", "Ecirc", "Euml", "Igrave", "Iacute",
+            "Icirc", "Iuml", "ETH", "Ntilde", "Ograve", "Oacute", "Ocirc", "Otilde", "Ouml", "times",
+            "Oslash", "Ugrave", "Uacute", "Ucirc", "Uuml", "Yacute", "THORN", "szlig", "agrave", "aacute",
+            "acirc", "atilde", "auml", "aring", "aelig", "ccedil", "egrave", "eacute", "ecirc", "euml",
+            "igrave", "iacute", "icirc", "iuml", "eth", "ntilde", "ograve", "oacute", "ocirc", "otilde",
+            "ouml", "divide", "oslash", "ugrave", "uacute", "ucirc", "uuml", "yacute", "thorn", "yuml",
+            "OElig", "oelig", "Scaron", "scaron", "Yuml", "fnof", "circ", "tilde", "Alpha", "Beta",
+            "Gamma", "Delta", "Epsilon", "Zeta", "Eta", "Theta", "Iota", "Kappa", "Lambda", "Mu",
+            "Nu", "Xi", "Omicron", "Pi", "Rho", "Sigma", "Tau", "Upsilon", "Phi", "Chi",
+            "Psi", "Omega", "alpha", "beta", "gamma", "delta", "epsilon", "zeta", "eta", "theta",
+            "iota", "kappa", "lambda", "mu", "nu", "xi", "omicron", "pi", "rho", "sigmaf",
+            "sigma", "tau", "upsilon", "phi", "chi", "psi", "omega", "thetasym", "upsih", "piv",
+            "ensp", "emsp", "thinsp", "zwnj", "zwj", "lrm", "rlm", "ndash", "mdash", "lsquo",
+            "rsquo", "sbquo", "ldquo", "rdquo", "bdquo", "dagger", "Dagger", "bull", "hellip", "permil",
+            "prime", "Prime", "lsaquo", "rsaquo", "oline", "frasl", "euro", "image", "weierp", "real",
+            "trade", "alefsym", "larr", "uarr", "rarr", "darr", "harr", "crarr", "lArr", "uArr",
+            "rArr", "dArr", "hArr", "forall", "part", "exist", "empty", "nabla", "isin", "notin",
+            "ni", "prod", "sum", "minus", "lowast", "radic", "prop", "infin", "ang", "and",
+            "or", "cap", "cup", "int", "there4", "sim", "cong", "asymp", "ne", "equiv",
+            "le", "ge", "sub", "sup", "nsub", "sube", "supe", "oplus", "otimes", "perp",
+            "sdot", "lceil", "rceil", "lfloor", "rfloor", "lang", "rang", "loz", "spades", "clubs",
+            "hearts", "diams"
+    };
+
+    private static final char[] ENTITY_VALUES = {
+            0x0022, 0x0026, 0x003C, 0x003E, 0x00A0, 0x00A1, 0x00A2, 0x00A3, 0x00A4, 0x00A5,
+            0x00A6, 0x00A7, 0x00A8, 0x00A9, 0x00AA, 0x00AB, 0x00AC, 0x00AD, 0x00AE, 0x00AF,
+            0x00B0, 0x00B1, 0x00B2, 0x00B3, 0x00B4, 0x00B5, 0x00B6, 0x00B7, 0x00B8, 0x00B9,
+            0x00BA, 0x00BB, 0x00BC, 0x00BD, 0x00BE, 0x00BF, 0x00C0, 0x00C1, 0x00C2, 0x00C3,
+            0x00C4, 0x00C5, 0x00C6, 0x00C7, 0x00C8, 0x00C9, 0x00CA, 0x00CB, 0x00CC, 0x00CD,
+            0x00CE, 0x00CF, 0x00D0, 0x00D1, 0x00D2, 0x00D3, 0x00D4, 0x00D5, 0x00D6, 0x00D7,
+            0x00D8, 0x00D9, 0x00DA, 0x00DB, 0x00DC, 0x00DD, 0x00DE, 0x00DF, 0x00E0, 0x00E1,
+            0x00E2, 0x00E3, 0x00E4, 0x00E5, 0x00E6, 0x00E7, 0x00E8, 0x00E9, 0x00EA, 0x00EB,
+            0x00EC, 0x00ED, 0x00EE, 0x00EF, 0x00F0, 0x00F1, 0x00F2, 0x00F3, 0x00F4, 0x00F5,
+            0x00F6, 0x00F7, 0x00F8, 0x00F9, 0x00FA, 0x00FB, 0x00FC, 0x00FD, 0x00FE, 0x00FF,
+            0x0152, 0x0153, 0x0160, 0x0161, 0x0178, 0x0192, 0x02C6, 0x02DC, 0x0391, 0x0392,
+            0x0393, 0x0394, 0x0395, 0x0396, 0x0397, 0x0398, 0x0399, 0x039A, 0x039B, 0x039C,
+            0x039D, 0x039E, 0x039F, 0x03A0, 0x03A1, 0x03A3, 0x03A4, 0x03A5, 0x03A6, 0x03A7,
+            0x03A8, 0x03A9, 0x03B1, 0x03B2, 0x03B3, 0x03B4, 0x03B5, 0x03B6, 0x03B7, 0x03B8,
+            0x03B9, 0x03BA, 0x03BB, 0x03BC, 0x03BD, 0x03BE, 0x03BF, 0x03C0, 0x03C1, 0x03C2,
+            0x03C3, 0x03C4, 0x03C5, 0x03C6, 0x03C7, 0x03C8, 0x03C9, 0x03D1, 0x03D2, 0x03D6,
+            0x2002, 0x2003, 0x2009, 0x200C, 0x200D, 0x200E, 0x200F, 0x2013, 0x2014, 0x2018,
+            0x2019, 0x201A, 0x201C, 0x201D, 0x201E, 0x2020, 0x2021, 0x2022, 0x2026, 0x2030,
+            0x2032, 0x2033, 0x2039, 0x203A, 0x203E, 0x2044, 0x20AC, 0x2111, 0x2118, 0x211C,
+            0x2122, 0x2135, 0x2190, 0x2191, 0x2192, 0x2193, 0x2194, 0x21B5, 0x21D0, 0x21D1,
+            0x21D2, 0x21D3, 0x21D4, 0x2200, 0x2202, 0x2203, 0x2205, 0x2207, 0x2208, 0x2209,
+            0x220B, 0x220F, 0x2211, 0x2212, 0x2217, 0x221A, 0x221D, 0x221E, 0x2220, 0x2227,
+            0x2228, 0x2229, 0x222A, 0x222B, 0x2234, 0x223C, 0x2245, 0x2248, 0x2260, 0x2261,
+            0x2264, 0x2265, 0x2282, 0x2283, 0x2284, 0x2286, 0x2287, 0x2295, 0x2297, 0x22A5,
+            0x22C5, 0x2308, 0x2309, 0x230A, 0x230B, 0x2329, 0x232A, 0x25CA, 0x2660, 0x2663,
+            0x2665, 0x2666
+    };
+
+    // Open-addressing hash table of the entity names, holding index + 1 into ENTITY_NAMES or 0 for an empty slot.
+    // At a load factor below 1/4 almost every name is found in its first slot.
+    private static final int[] ENTITY_TABLE = new int[1024];
+
+    static {
+        for (int i = 0; i < ENTITY_NAMES.length; i++) {
+            String name = ENTITY_NAMES[i];
+            int slot = hash(name, 0, name.length()) & (ENTITY_TABLE.length - 1);
+            while (ENTITY_TABLE[slot] != 0) {
+                slot = (slot + 1) & (ENTITY_TABLE.length - 1);
+            }
+            ENTITY_TABLE[slot] = i + 1;
+        }
+    }
+
     /**
      * Encodes a string to be HTML-safe.
      *
@@ -23,18 +100,144 @@ public class HtmlHelper {
     }
 
     /**
-     * Decodes an HTML-encoded string.
+     * Decodes the named and numeric HTML entities of a string.
+     * The string is returned as is, without any allocation, if it does not contain an entity.
+     * Unknown or malformed entities are kept as they are.
      *
      * @param encoded the HTML-encoded string to decode
      * @return the decoded string
      */
     public static String decodeHtml(String encoded) {
-        try {
-            // Legacy flag to avoid deprecated warnings
-            return Html.fromHtml(encoded, Html.FROM_HTML_MODE_LEGACY).toString();
-        } catch (Exception e) {
-            Log.i("HtmlHelper", "Could not decode HTML, using encoded string\nReason:" + e.getMessage());
+        if (encoded == null) {
+            return null;
+        }
+
+        int ampersand = encoded.indexOf('&');
+        if (ampersand < 0) {
             return encoded;
         }
+
+        int length = encoded.length();
+        StringBuilder decoded = new StringBuilder(length);
+        decoded.append(encoded, 0, ampersand);
+
+        int i = ampersand;
+        while (i < length) {
+            char c = encoded.charAt(i);
+            if (c == '&') {
+                int semicolon = findSemicolon(encoded, i + 1);
+                if (semicolon > 0) {
+                    int codePoint = decodeEntity(encoded, i + 1, semicolon);
+                    if (codePoint >= 0) {
+                        decoded.appendCodePoint(codePoint);
+                        i = semicolon + 1;
+                        continue;
+                    }
+                }
+            }
+            decoded.append(c);
+            i++;
+        }
+        return decoded.toString();
+    }
+
+    /**
+     * Finds the semicolon that ends an entity, within the longest entity length.
+     *
+     * @param encoded the HTML-encoded string
+     * @param start   the index right after the ampersand
+     * @return the index of the semicolon, or -1 if there is none close enough
+     */
+    private static int findSemicolon(String encoded, int start) {
+        int end = Math.min(encoded.length(), start + MAX_ENTITY_LENGTH + 1);
+        for (int i = start + 1; i < end; i++) {
+            char c = encoded.charAt(i);
+            if (c == ';') {
+                return i;
+            }
+            if (c == '&' || c == ' ') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes the entity between the ampersand and the semicolon.
+     *
+     * @param encoded the HTML-encoded string
+     * @param start   the index right after the ampersand
+     * @param end     the index of the semicolon
+     * @return the code point of the entity, or -1 if it is unknown or malformed
+     */
+    private static int decodeEntity(String encoded, int start, int end) {
+        if (encoded.charAt(start) == '#') {
+            return decodeNumericEntity(encoded, start + 1, end);
+        }
+
+        int slot = hash(encoded, start, end) & (ENTITY_TABLE.length - 1);
+        int entityLength = end - start;
+        while (ENTITY_TABLE[slot] != 0) {
+            int index = ENTITY_TABLE[slot] - 1;
+            String name = ENTITY_NAMES[index];
+            if (name.length() == entityLength && encoded.regionMatches(start, name, 0, entityLength)) {
+                return ENTITY_VALUES[index];
+            }
+            slot = (slot + 1) & (ENTITY_TABLE.length - 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes a decimal ("#39") or hexadecimal ("#x27") numeric entity.
+     *
+     * @param encoded the HTML-encoded string
+     * @param start   the index right after the number sign
+     * @param end     the index of the semicolon
+     * @return the code point of the entity, or -1 if it is malformed or not a valid character
+     */
+    private static int decodeNumericEntity(String encoded, int start, int end) {
+        int radix = 10;
+        if (start < end && (encoded.charAt(start) == 'x' || encoded.charAt(start) == 'X')) {
+            radix = 16;
+            start++;
+        }
+
+        if (start >= end) {
+            return -1;
+        }
+
+        int codePoint = 0;
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(encoded.charAt(i), radix);
+            if (digit < 0) {
+                return -1;
+            }
+            codePoint = codePoint * radix + digit;
+            if (codePoint > Character.MAX_CODE_POINT) {
+                return -1;
+            }
+        }
+
+        if (codePoint == 0 || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+            return -1;
+        }
+        return codePoint;
+    }
+
+    /**
+     * Hashes a range of characters, the same way for a name of the table and for a range of the input.
+     *
+     * @param text  the text holding the characters
+     * @param start the index of the first character
+     * @param end   the index after the last character
+     * @return the hash of the characters
+     */
+    private static int hash(String text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        return hash ^ (hash >>> 10);
     }
 }
@@ -1,53 +1,236 @@
 package com.knowledgerealm.helpers;
 
+import android.content.Context;
 import android.util.Log;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 
+import okhttp3.Cache;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * HttpRequestHelperAsync is a helper class that makes HTTP requests asynchronously.
+ * The requests are run by OkHttp's own dispatcher, off the common ForkJoin pool, with a bounded number
+ * of concurrent calls, explicit timeouts, kept-alive connections and, once initialized, an on-disk cache.
+ * Cancelling a returned CompletableFuture cancels the underlying call.
  */
 public class HttpRequestAsyncHelper {
-    private static final OkHttpClient client = new OkHttpClient();
+    // The Open Trivia DB allows one request every 5 seconds per IP
+    public static final String TRIVIA_API_HOST = "opentdb.com";
+    public static final long TRIVIA_API_REQUEST_INTERVAL = 5000;
+
+    public static final long CONNECT_TIMEOUT = 10; // seconds
+    public static final long READ_TIMEOUT = 15; // seconds
+    public static final long CALL_TIMEOUT = 30; // seconds
+    public static final int MAX_REQUESTS = 8;
+    public static final int MAX_REQUESTS_PER_HOST = 2;
+    public static final int MAX_IDLE_CONNECTIONS = 4;
+    public static final long KEEP_ALIVE_DURATION = 5; // minutes
+    public static final long CACHE_SIZE = 5 * 1024 * 1024; // 5 MB
+
+    private static volatile OkHttpClient client = createClient(null);
+    private static boolean isInitialized = false;
+    private static final RequestSchedulerHelper requestScheduler = new RequestSchedulerHelper();
+    private static volatile ResiliencePolicyHelper resiliencePolicy = new ResiliencePolicyHelper();
+
+    static {
+        requestScheduler.setRateLimit(TRIVIA_API_HOST, 1, TRIVIA_API_REQUEST_INTERVAL);
+    }
 
     /**
-     * Makes an HTTP GET request to the specified URL asynchronously.
+     * Decodes a response body stream into an object of type T.
      *
-     * @param url the URL to make the request to.
-     * @return a CompletableFuture that will contain the response body as a string.
+     * @param <T> the type of the decoded object.
      */
-    public static CompletableFuture<String> getResponseAsync(String url) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                return getResponse(url);
-            } catch (IOException e) {
-                Log.e("HttpRequestHelperAsync", "getStringAsync: " + e.getMessage());
-                return null;
-            }
-        });
+    public interface ResponseDecoder<T> {
+        T decode(InputStream body) throws IOException;
+    }
+
+    /**
+     * Adds the on-disk HTTP cache to the client, in the cache directory of the application.
+     * Should be called once when the application starts, requests made before are not cached.
+     *
+     * @param context the context of the application.
+     */
+    public static synchronized void initialize(Context context) {
+        if (isInitialized) {
+            return;
+        }
+
+        client = createClient(new Cache(new File(context.getApplicationContext().getCacheDir(), "http_cache"), CACHE_SIZE));
+        isInitialized = true;
+    }
+
+    /**
+     * Makes an idempotent HTTP GET request to the specified URL asynchronously and decodes
+     * the response body straight from the network stream.
+     * The request waits for the rate limit of its host, and an identical request that is
+     * already in flight with the same decoder is shared instead of being sent again.
+     * Failed requests are retried by the resilience policy, and fail fast while the host is down.
+     *
+     * @param url     the URL to make the request to.
+     * @param decoder the decoder to read the response body stream with.
+     * @param <T>     the type of the decoded response.
+     * @return a CompletableFuture that will contain the decoded response,
+     * or complete exceptionally if the request or the decoding failed.
+     */
+    public static <T> CompletableFuture<T> getResponseAsync(String url, ResponseDecoder<T> decoder) {
+        return getResponseAsync(url, decoder, true);
+    }
+
+    /**
+     * Makes an HTTP GET request to the specified URL asynchronously and decodes
+     * the response body straight from the network stream.
+     * The request waits for the rate limit of its host, and only an idempotent request is shared
+     * with an identical one that is already in flight.
+     * Failed idempotent requests are retried by the resilience policy, the others are sent only once,
+     * and all fail fast while the host is down. The retries of a shared request are made once for all the callers sharing it.
+     *
+     * @param url          the URL to make the request to.
+     * @param decoder      the decoder to read the response body stream with.
+     * @param isIdempotent true if identical requests get the same response, false if every request gets a new one,
+     *                     such as a question request, which must never be shared.
+     * @param <T>          the type of the decoded response.
+     * @return a CompletableFuture that will contain the decoded response,
+     * or complete exceptionally if the request or the decoding failed.
+     */
+    public static <T> CompletableFuture<T> getResponseAsync(String url, ResponseDecoder<T> decoder, boolean isIdempotent) {
+        Supplier<CompletableFuture<T>> resilientCall = () -> resiliencePolicy.execute(RequestSchedulerHelper.getHost(url),
+                () -> requestScheduler.schedule(url, () -> enqueue(url, decoder)), isIdempotent);
+        return isIdempotent ? requestScheduler.share(url, decoder, resilientCall) : resilientCall.get();
+    }
+
+    /**
+     * Replaces the retry and circuit breaker policy of the requests.
+     *
+     * @param policy the new resilience policy.
+     */
+    public static void setResiliencePolicy(ResiliencePolicyHelper policy) {
+        resiliencePolicy = policy;
+    }
+
+    /**
+     * Checks if requests to the host are sent, or fail fast because the host is down.
+     *
+     * @param host the host.
+     * @return false if the circuit breaker of the host is open, true otherwise.
+     */
+    public static boolean isHostAvailable(String host) {
+        return resiliencePolicy.isAvailable(host);
+    }
+
+    /**
+     * Gets the scheduler of the requests, to report the queue depth and the wait time per host.
+     *
+     * @return the request scheduler.
+     */
+    public static RequestSchedulerHelper getRequestScheduler() {
+        return requestScheduler;
     }
 
     /**
-     * Makes an HTTP GET request to the specified URL.
+     * Enqueues an HTTP GET request to the specified URL on the dispatcher of the client,
+     * and decodes the response body stream on the thread of the call.
      *
-     * @param url the URL to make the request to.
-     * @return the response body as a string.
-     * @throws IOException if there was an error making the HTTP request.
+     * @param url     the URL to make the request to.
+     * @param decoder the decoder to read the response body stream with.
+     * @param <T>     the type of the decoded response.
+     * @return a CompletableFuture that will contain the decoded response, cancelling it cancels the call.
      */
-    private static String getResponse(String url) throws IOException {
+    private static <T> CompletableFuture<T> enqueue(String url, ResponseDecoder<T> decoder) {
         Request request = new Request.Builder()
                 .url(url)
                 .build();
 
-        try (Response response = client.newCall(request).execute()) {
-            return response.body().string();
+        Call call = client.newCall(request);
+        CompletableFuture<T> response = new CompletableFuture<>();
+        response.whenComplete((result, e) -> {
+            if (response.isCancelled()) {
+                call.cancel();
+            }
+        });
+
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                Log.e("HttpRequestHelperAsync", "getResponseAsync: " + e.getMessage());
+                response.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response httpResponse) {
+                try (Response closedResponse = httpResponse) {
+                    if (!closedResponse.isSuccessful()) {
+                        throw new HttpStatusException(closedResponse.code(), parseRetryAfter(closedResponse.header("Retry-After")));
+                    }
+
+                    ResponseBody body = closedResponse.body();
+                    if (body == null) {
+                        throw new IOException("Empty response body for " + url);
+                    }
+                    response.complete(decoder.decode(body.byteStream()));
+                } catch (IOException | RuntimeException e) {
+                    Log.e("HttpRequestHelperAsync", "getResponseAsync: " + e.getMessage());
+                    response.completeExceptionally(e);
+                }
+            }
+        });
+        return response;
+    }
+
+    /**
+     * Parses the Retry-After header, in its delay-seconds form.
+     *
+     * @param retryAfter the value of the header, or null if there is none.
+     * @return the delay in milliseconds, or HttpStatusException.NO_RETRY_AFTER if there is no valid delay.
+     */
+    private static long parseRetryAfter(String retryAfter) {
+        if (retryAfter == null) {
+            return HttpStatusException.NO_RETRY_AFTER;
+        }
+
+        try {
+            return Math.max(0, Long.parseLong(retryAfter.trim())) * 1000;
+        } catch (NumberFormatException e) {
+            // HTTP dates are not used by the APIs of the app
+            return HttpStatusException.NO_RETRY_AFTER;
         }
     }
-}
 
+    /**
+     * Creates the OkHttp client with a bounded dispatcher, explicit timeouts and a connection pool.
+     *
+     * @param cache the on-disk cache, or null for no cache.
+     * @return the client.
+     */
+    private static OkHttpClient createClient(Cache cache) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_DURATION, TimeUnit.MINUTES))
+                .connectTimeout(CONNECT_TIMEOUT, TimeUnit.SECONDS)
+                .readTimeout(READ_TIMEOUT, TimeUnit.SECONDS)
+                .callTimeout(CALL_TIMEOUT, TimeUnit.SECONDS);
+
+        if (cache != null) {
+            builder.cache(cache);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,53 @@
+package com.knowledgerealm.helpers;
+
+import java.io.IOException;
+
+/**
+ * HttpStatusException is thrown when an HTTP request is answered with a status code that is not successful.
+ */
+public class HttpStatusException extends IOException {
+    public static final long NO_RETRY_AFTER = -1;
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+    private final long retryAfter;
+
+    /**
+     * Constructor for the HttpStatusException class.
+     *
+     * @param statusCode the HTTP status code of the response.
+     * @param retryAfter the delay asked by the Retry-After header in milliseconds, or NO_RETRY_AFTER if there is none.
+     */
+    public HttpStatusException(int statusCode, long retryAfter) {
+        super("HTTP status " + statusCode);
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Gets the HTTP status code of the response.
+     *
+     * @return the status code.
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Gets the delay asked by the Retry-After header.
+     *
+     * @return the delay in milliseconds, or NO_RETRY_AFTER if there is none.
+     */
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Checks if the request may succeed when it is sent again.
+     *
+     * @return true for 429 Too Many Requests and 5xx server errors, false otherwise.
+     */
+    public boolean isRetriable() {
+        return statusCode == 429 || statusCode >= 500;
+    }
+}
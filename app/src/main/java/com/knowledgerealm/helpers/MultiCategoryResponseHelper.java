@@ -0,0 +1,76 @@
+package com.knowledgerealm.helpers;
+
+import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
+import com.knowledgerealm.models.TriviaQuestion;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MultiCategoryResponseHelper is a helper class that holds the merged response of a question request over several categories.
+ * The questions of the categories that succeeded are kept even if others failed, with the status of every category.
+ */
+public class MultiCategoryResponseHelper {
+    private final List<TriviaQuestion> triviaQuestions;
+    private final Map<TriviaApiCategoriesEnum, TriviaResponseHelper> categoryResponses;
+
+    /**
+     * Constructor for the MultiCategoryResponseHelper class.
+     * @param triviaQuestions the merged and shuffled trivia questions.
+     * @param categoryResponses the response of every requested category.
+     */
+    public MultiCategoryResponseHelper(List<TriviaQuestion> triviaQuestions, Map<TriviaApiCategoriesEnum, TriviaResponseHelper> categoryResponses) {
+        this.triviaQuestions = triviaQuestions;
+        this.categoryResponses = categoryResponses;
+    }
+
+    /**
+     * Getter for the merged trivia questions.
+     * @return the trivia questions of all the categories that succeeded, shuffled.
+     */
+    public List<TriviaQuestion> getTriviaQuestions() {
+        return triviaQuestions;
+    }
+
+    /**
+     * Getter for the response of a category.
+     * @param category the requested category.
+     * @return the response of the category, with its success flag and response code, or null if it was not requested.
+     */
+    public TriviaResponseHelper getCategoryResponse(TriviaApiCategoriesEnum category) {
+        return categoryResponses.get(category);
+    }
+
+    /**
+     * Gets the categories whose request failed.
+     * @return the failed categories, or an empty list if all of them succeeded.
+     */
+    public List<TriviaApiCategoriesEnum> getFailedCategories() {
+        List<TriviaApiCategoriesEnum> failedCategories = new ArrayList<>();
+        for (Map.Entry<TriviaApiCategoriesEnum, TriviaResponseHelper> categoryResponse : categoryResponses.entrySet()) {
+            if (!categoryResponse.getValue().isSuccess()) {
+                failedCategories.add(categoryResponse.getKey());
+            }
+        }
+        return Collections.unmodifiableList(failedCategories);
+    }
+
+    /**
+     * Checks if the request succeeded for every category.
+     * @return true if every category succeeded, false otherwise.
+     */
+    public boolean isSuccess() {
+        return !categoryResponses.isEmpty() && getFailedCategories().isEmpty();
+    }
+
+    /**
+     * Checks if only some of the categories succeeded.
+     * @return true if at least one category succeeded and at least one failed, false otherwise.
+     */
+    public boolean isPartial() {
+        int failedCategories = getFailedCategories().size();
+        return failedCategories > 0 && failedCategories < categoryResponses.size();
+    }
+}
@@ -0,0 +1,68 @@
+package com.knowledgerealm.helpers;
+
+/**
+ * QuestionCountResponseHelper is a helper class that is used to parse the question count response from the Trivia API.
+ */
+public class QuestionCountResponseHelper {
+    private final int totalCount;
+    private final int easyCount;
+    private final int mediumCount;
+    private final int hardCount;
+    private final boolean success;
+
+    /**
+     * Constructor for the QuestionCountResponseHelper class.
+     * @param totalCount the number of questions of the category.
+     * @param easyCount the number of easy questions of the category.
+     * @param mediumCount the number of medium questions of the category.
+     * @param hardCount the number of hard questions of the category.
+     * @param success whether the request was successful.
+     */
+    public QuestionCountResponseHelper(int totalCount, int easyCount, int mediumCount, int hardCount, boolean success) {
+        this.totalCount = totalCount;
+        this.easyCount = easyCount;
+        this.mediumCount = mediumCount;
+        this.hardCount = hardCount;
+        this.success = success;
+    }
+
+    /**
+     * Getter for the number of questions of the category.
+     * @return the number of questions.
+     */
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Getter for the number of easy questions of the category.
+     * @return the number of easy questions.
+     */
+    public int getEasyCount() {
+        return easyCount;
+    }
+
+    /**
+     * Getter for the number of medium questions of the category.
+     * @return the number of medium questions.
+     */
+    public int getMediumCount() {
+        return mediumCount;
+    }
+
+    /**
+     * Getter for the number of hard questions of the category.
+     * @return the number of hard questions.
+     */
+    public int getHardCount() {
+        return hardCount;
+    }
+
+    /**
+     * Getter for whether the request was successful.
+     * @return whether the request was successful.
+     */
+    public boolean isSuccess() {
+        return success;
+    }
+}
@@ -0,0 +1,245 @@
+package com.knowledgerealm.helpers;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+/**
+ * QuestionTimerHelper renders the time left to answer a question.
+ * The time left is reported at most once per display frame, instead of on every millisecond,
+ * and the warning and the expiry are scheduled once, at their exact deadlines, so a question of 10 seconds
+ * wakes the main thread about 600 times at 60 Hz instead of about 10000 times.
+ * <p>
+ * The timer can be paused and resumed, for example while the activity is in the background, and keeps the time left.
+ * Every method must be called on the thread the frames and the timer run their tasks on, the main thread on Android.
+ */
+public class QuestionTimerHelper {
+    public static final long DEFAULT_WARNING_TIME = 3000; // milliseconds
+
+    /**
+     * Receives the events of the timer
+     */
+    public interface Listener {
+        /**
+         * The time left changed, called at most once per frame
+         * @param remainingTime the time left, in milliseconds
+         */
+        void onTimeUpdate(long remainingTime);
+
+        /**
+         * The time left reached the warning time, called once per question
+         */
+        void onWarning();
+
+        /**
+         * The time is up
+         */
+        void onExpired();
+    }
+
+    /**
+     * Runs a callback on the next display frame
+     */
+    public interface FrameSource {
+        /**
+         * Runs the callback once, on the next frame
+         * @param callback the callback
+         */
+        void postFrameCallback(Runnable callback);
+    }
+
+    private final ClockHelper.Clock clock;
+    private final ClockHelper.Timer timer;
+    private final FrameSource frameSource;
+    private final Listener listener;
+    private final long warningTime;
+    // Created once, so a frame does not allocate
+    private final Runnable frameCallback = this::onFrame;
+
+    private boolean isRunning;
+    private boolean isPaused;
+    private boolean isFramePosted;
+    private boolean isWarningDone;
+    // Increased on every start, pause and cancel, so the deadlines scheduled before are ignored
+    private int step;
+    private long deadline;
+    private long pausedRemainingTime;
+    private long frameCount;
+
+    /**
+     * Constructor for the QuestionTimerHelper class, on the main thread, with the frames of the Choreographer
+     * @param listener receives the events of the timer
+     */
+    public QuestionTimerHelper(Listener listener) {
+        this(SystemClock::uptimeMillis, new Handler(Looper.getMainLooper())::postDelayed,
+                new ChoreographerFrameSource(), listener, DEFAULT_WARNING_TIME);
+    }
+
+    /**
+     * Constructor for the QuestionTimerHelper class, with the frames of the Choreographer and the deadlines on the given timer
+     * @param timer runs the deadlines of the timer on the main thread, with the uptime clock
+     * @param listener receives the events of the timer
+     */
+    public QuestionTimerHelper(ClockHelper.Timer timer, Listener listener) {
+        this(SystemClock::uptimeMillis, timer, new ChoreographerFrameSource(), listener, DEFAULT_WARNING_TIME);
+    }
+
+    /**
+     * Constructor for the QuestionTimerHelper class
+     * @param clock the source of the current time
+     * @param timer runs the deadlines of the timer
+     * @param frameSource runs the updates of the time left on the display frames
+     * @param listener receives the events of the timer
+     * @param warningTime the time left at which the warning is given, in milliseconds
+     */
+    public QuestionTimerHelper(ClockHelper.Clock clock, ClockHelper.Timer timer, FrameSource frameSource,
+                               Listener listener, long warningTime) {
+        this.clock = clock;
+        this.timer = timer;
+        this.frameSource = frameSource;
+        this.listener = listener;
+        this.warningTime = warningTime;
+    }
+
+    /**
+     * Starts the timer of a question, the timer running before is replaced
+     * @param duration the time to answer the question, in milliseconds
+     */
+    public void start(long duration) {
+        step++;
+        isRunning = true;
+        isPaused = false;
+        isWarningDone = false;
+        deadline = clock.currentTimeMillis() + duration;
+        scheduleDeadlines(duration);
+        postFrame();
+    }
+
+    /**
+     * Pauses the timer and keeps the time left, ignored if the timer is not running
+     */
+    public void pause() {
+        if (!isRunning || isPaused) {
+            return;
+        }
+        pausedRemainingTime = getRemainingTime();
+        isPaused = true;
+        step++;
+    }
+
+    /**
+     * Resumes the timer with the time left when it was paused, ignored if the timer is not paused
+     */
+    public void resume() {
+        if (!isRunning || !isPaused) {
+            return;
+        }
+        isPaused = false;
+        deadline = clock.currentTimeMillis() + pausedRemainingTime;
+        scheduleDeadlines(pausedRemainingTime);
+        postFrame();
+    }
+
+    /**
+     * Stops the timer, the deadlines and frames still scheduled are ignored
+     */
+    public void cancel() {
+        isRunning = false;
+        isPaused = false;
+        step++;
+    }
+
+    /**
+     * Get the time left
+     * @return the time left in milliseconds, or 0 if the timer is not running
+     */
+    public long getRemainingTime() {
+        if (!isRunning) {
+            return 0;
+        }
+        return isPaused ? pausedRemainingTime : Math.max(0, deadline - clock.currentTimeMillis());
+    }
+
+    /**
+     * Check if the timer is paused
+     * @return true if the timer is paused, false otherwise
+     */
+    public boolean isPaused() {
+        return isPaused;
+    }
+
+    /**
+     * Get the number of frames the time left was updated on, since the timer was created
+     * @return the number of frames
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Schedules the warning, if it was not given yet, and the expiry
+     * @param remainingTime the time left, in milliseconds
+     */
+    private void scheduleDeadlines(long remainingTime) {
+        int scheduledStep = step;
+        if (!isWarningDone) {
+            timer.schedule(() -> {
+                if (step == scheduledStep && !isWarningDone) {
+                    isWarningDone = true;
+                    listener.onWarning();
+                }
+            }, Math.max(0, remainingTime - warningTime));
+        }
+        timer.schedule(() -> {
+            if (step == scheduledStep) {
+                isRunning = false;
+                step++;
+                listener.onTimeUpdate(0);
+                listener.onExpired();
+            }
+        }, remainingTime);
+    }
+
+    /**
+     * Asks for the next frame, once
+     */
+    private void postFrame() {
+        if (!isFramePosted) {
+            isFramePosted = true;
+            frameSource.postFrameCallback(frameCallback);
+        }
+    }
+
+    /**
+     * Updates the time left on a frame, and asks for the next frame while the timer runs
+     */
+    private void onFrame() {
+        isFramePosted = false;
+        if (!isRunning || isPaused) {
+            return;
+        }
+        frameCount++;
+        listener.onTimeUpdate(getRemainingTime());
+        postFrame();
+    }
+
+    /**
+     * Runs the callbacks on the frames of the Choreographer of the main thread, without allocating per frame
+     */
+    private static class ChoreographerFrameSource implements FrameSource, Choreographer.FrameCallback {
+        private final Choreographer choreographer = Choreographer.getInstance();
+        private Runnable callback;
+
+        @Override
+        public void postFrameCallback(Runnable callback) {
+            this.callback = callback;
+            choreographer.postFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            callback.run();
+        }
+    }
+}
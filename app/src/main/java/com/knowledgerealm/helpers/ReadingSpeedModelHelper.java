@@ -0,0 +1,102 @@
+package com.knowledgerealm.helpers;
+
+/**
+ * ReadingSpeedModelHelper learns the reading speed of the player from the time they take to answer,
+ * with a moving average of the time per word of the questions and their answers.
+ * A question whose time is up counts as answered at the end of its time, so a player who runs out of time gets more time.
+ * <p>
+ * The time budget of a question is the learned time per word with a margin, kept between a fastest and a slowest speed,
+ * and the average reading speed until enough answers were seen. Updating the model and computing a time budget
+ * are O(1) and do not allocate.
+ */
+public class ReadingSpeedModelHelper {
+    // Answers needed before the learned speed replaces the average reading speed
+    public static final int MIN_SAMPLES = 5;
+    // Weight of the last answer in the moving average of the time per word
+    private static final double SMOOTHING = 0.2;
+    // The time budget leaves the player this much more than their usual pace
+    private static final double BUDGET_MARGIN = 1.5;
+    private static final double MIN_MILLIS_PER_WORD = 300; // 200 words per minute
+    private static final double MAX_MILLIS_PER_WORD = 1200; // 50 words per minute
+
+    private double millisPerWord;
+    private int sampleCount;
+
+    /**
+     * Constructor for the ReadingSpeedModelHelper class, for a player whose speed is not known yet
+     */
+    public ReadingSpeedModelHelper() {
+        this(TextReadTimeEstimatorHelper.DEFAULT_MILLIS_PER_WORD, 0);
+    }
+
+    /**
+     * Constructor for the ReadingSpeedModelHelper class, with the parameters learned before
+     * @param millisPerWord the moving average of the time per word of the answers, in milliseconds
+     * @param sampleCount the number of answers learned from
+     */
+    public ReadingSpeedModelHelper(double millisPerWord, int sampleCount) {
+        this.millisPerWord = millisPerWord;
+        this.sampleCount = sampleCount;
+    }
+
+    /**
+     * Learns from the time the player took to answer a question
+     * @param wordCount the number of words of the question and its answers
+     * @param answerTime the time taken to answer, or the whole time budget if the time was up, in milliseconds
+     */
+    public synchronized void recordAnswer(int wordCount, long answerTime) {
+        if (wordCount <= 0 || answerTime < 0) {
+            return;
+        }
+
+        double answerMillisPerWord = answerTime / (double) wordCount;
+        millisPerWord = sampleCount == 0 ? answerMillisPerWord : millisPerWord + SMOOTHING * (answerMillisPerWord - millisPerWord);
+        sampleCount++;
+    }
+
+    /**
+     * Gets the time to answer a question, for the reading speed of the player
+     * @param wordCount the number of words of the question and its answers
+     * @return the time budget in milliseconds, in whole seconds
+     */
+    public synchronized long getTimeBudget(int wordCount) {
+        return TextReadTimeEstimatorHelper.estimateReadTime(wordCount, getBudgetMillisPerWord());
+    }
+
+    /**
+     * Get the moving average of the time per word of the answers
+     * @return the time per word in milliseconds
+     */
+    public synchronized double getMillisPerWord() {
+        return millisPerWord;
+    }
+
+    /**
+     * Get the number of answers learned from
+     * @return the number of answers
+     */
+    public synchronized int getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * Replaces the learned parameters, for example with the ones read from the database
+     * @param millisPerWord the moving average of the time per word of the answers, in milliseconds
+     * @param sampleCount the number of answers learned from
+     */
+    public synchronized void restore(double millisPerWord, int sampleCount) {
+        this.millisPerWord = millisPerWord;
+        this.sampleCount = sampleCount;
+    }
+
+    /**
+     * Gets the time per word the time budgets are computed with
+     * @return the time per word in milliseconds
+     */
+    private double getBudgetMillisPerWord() {
+        if (sampleCount < MIN_SAMPLES) {
+            return TextReadTimeEstimatorHelper.DEFAULT_MILLIS_PER_WORD;
+        }
+        return Math.max(MIN_MILLIS_PER_WORD, Math.min(MAX_MILLIS_PER_WORD, millisPerWord * BUDGET_MARGIN));
+    }
+}
@@ -0,0 +1,402 @@
+package com.knowledgerealm.helpers;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * RequestSchedulerHelper is a helper class that schedules outgoing requests through a token bucket per host,
+ * and merges identical idempotent requests that are in flight into a single network call shared by all the callers.
+ * Requests that get a different response every time, such as the question requests, are scheduled without being shared.
+ * The clock and the timer are pluggable, so the scheduling can be driven by a virtual clock.
+ */
+public class RequestSchedulerHelper {
+    private final ClockHelper.Clock clock;
+    private final ClockHelper.Timer timer;
+    private final Map<String, HostQueue> hostQueues = new HashMap<>();
+    private final Map<RequestKey, InFlightRequest<?>> inFlightRequests = new HashMap<>();
+
+    /**
+     * Constructor for the RequestSchedulerHelper class, using the system clock and a single scheduler thread.
+     */
+    public RequestSchedulerHelper() {
+        this(System::currentTimeMillis, ClockHelper.createSystemTimer("RequestScheduler"));
+    }
+
+    /**
+     * Constructor for the RequestSchedulerHelper class.
+     *
+     * @param clock the source of the current time.
+     * @param timer the timer used to wait for the next token of a host.
+     */
+    public RequestSchedulerHelper(ClockHelper.Clock clock, ClockHelper.Timer timer) {
+        this.clock = clock;
+        this.timer = timer;
+    }
+
+    /**
+     * Limits the requests to the given host with a token bucket.
+     * Hosts without a limit are not queued.
+     *
+     * @param host           the host to limit.
+     * @param burst          how many requests can be sent at once.
+     * @param refillInterval the time it takes to get a new token, in milliseconds.
+     */
+    public synchronized void setRateLimit(String host, int burst, long refillInterval) {
+        hostQueues.put(host, new HostQueue(burst, refillInterval, clock.currentTimeMillis()));
+    }
+
+    /**
+     * Schedules an idempotent request. If an identical request is already in flight, its result is shared instead.
+     * Cancelling the returned CompletableFuture only cancels the network call once every caller sharing it has cancelled.
+     *
+     * @param url     the URL of the request, used for the host and for merging identical requests.
+     * @param decoder the decoder of the response, identical requests must use the same decoder.
+     * @param call    starts the network call, invoked once the host has a free token.
+     * @param <T>     the type of the decoded response.
+     * @return a CompletableFuture that will contain the decoded response.
+     */
+    public <T> CompletableFuture<T> schedule(String url, Object decoder, Supplier<CompletableFuture<T>> call) {
+        return share(url, decoder, () -> schedule(url, call));
+    }
+
+    /**
+     * Schedules a request that is never shared, such as a request that gets a different response every time.
+     * Cancelling the returned CompletableFuture cancels the request, queued or in flight.
+     *
+     * @param url  the URL of the request, used for the host.
+     * @param call starts the network call, invoked once the host has a free token.
+     * @param <T>  the type of the decoded response.
+     * @return a CompletableFuture that will contain the decoded response.
+     */
+    public <T> CompletableFuture<T> schedule(String url, Supplier<CompletableFuture<T>> call) {
+        InFlightRequest<T> request = new InFlightRequest<>();
+        request.response.whenComplete((result, e) -> {
+            CompletableFuture<T> networkCall = request.networkCall;
+            if (request.response.isCancelled() && networkCall != null) {
+                networkCall.cancel(true);
+            }
+        });
+        dispatch(url, request, call);
+        return request.response;
+    }
+
+    /**
+     * Merges a request with an identical one that is already in flight, without waiting for the rate limit of its host.
+     * The call is invoked once for all the callers sharing it, and cancelled once every one of them has cancelled.
+     *
+     * @param url     the URL of the request, used for merging identical requests.
+     * @param decoder the decoder of the response, identical requests must use the same decoder.
+     * @param call    starts the request, for example through the rate limit with schedule(url, call).
+     * @param <T>     the type of the decoded response.
+     * @return a CompletableFuture that will contain the decoded response.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> share(String url, Object decoder, Supplier<CompletableFuture<T>> call) {
+        RequestKey requestKey = new RequestKey(url, decoder);
+        InFlightRequest<T> inFlightRequest;
+        boolean isNewRequest = false;
+        synchronized (inFlightRequests) {
+            inFlightRequest = (InFlightRequest<T>) inFlightRequests.get(requestKey);
+            if (inFlightRequest == null) {
+                inFlightRequest = new InFlightRequest<>();
+                inFlightRequests.put(requestKey, inFlightRequest);
+                isNewRequest = true;
+            }
+            inFlightRequest.waiters++;
+        }
+
+        CompletableFuture<T> response = new CompletableFuture<>();
+        InFlightRequest<T> sharedRequest = inFlightRequest;
+        sharedRequest.response.whenComplete((result, e) -> {
+            if (e != null) {
+                response.completeExceptionally(e);
+            } else {
+                response.complete(result);
+            }
+        });
+        response.whenComplete((result, e) -> {
+            if (response.isCancelled()) {
+                release(requestKey, sharedRequest);
+            }
+        });
+
+        if (isNewRequest) {
+            sharedRequest.response.whenComplete((result, e) -> {
+                synchronized (inFlightRequests) {
+                    inFlightRequests.remove(requestKey, sharedRequest);
+                }
+            });
+            start(sharedRequest, call);
+        }
+        return response;
+    }
+
+    /**
+     * Gets the number of requests waiting for a token of the host.
+     *
+     * @param host the host.
+     * @return the number of queued requests.
+     */
+    public synchronized int getQueueDepth(String host) {
+        HostQueue hostQueue = hostQueues.get(host);
+        return hostQueue != null ? hostQueue.pendingRequests.size() : 0;
+    }
+
+    /**
+     * Gets how long the last request to the host waited for a token.
+     *
+     * @param host the host.
+     * @return the wait time, in milliseconds.
+     */
+    public synchronized long getLastWaitTime(String host) {
+        HostQueue hostQueue = hostQueues.get(host);
+        return hostQueue != null ? hostQueue.lastWaitTime : 0;
+    }
+
+    /**
+     * Gets the total time the requests to the host waited for a token.
+     *
+     * @param host the host.
+     * @return the total wait time, in milliseconds.
+     */
+    public synchronized long getTotalWaitTime(String host) {
+        HostQueue hostQueue = hostQueues.get(host);
+        return hostQueue != null ? hostQueue.totalWaitTime : 0;
+    }
+
+    /**
+     * Gets the number of requests that are in flight, after merging the identical ones.
+     *
+     * @return the number of distinct requests in flight.
+     */
+    public int getInFlightCount() {
+        synchronized (inFlightRequests) {
+            return inFlightRequests.size();
+        }
+    }
+
+    /**
+     * Sends the request right away, or queues it behind the token bucket if its host is limited.
+     *
+     * @param url     the URL of the request.
+     * @param request the request.
+     * @param call    starts the network call.
+     * @param <T>     the type of the decoded response.
+     */
+    private <T> void dispatch(String url, InFlightRequest<T> request, Supplier<CompletableFuture<T>> call) {
+        Runnable task = () -> start(request, call);
+
+        HostQueue hostQueue;
+        synchronized (this) {
+            hostQueue = hostQueues.get(getHost(url));
+            if (hostQueue != null) {
+                hostQueue.pendingRequests.add(new PendingRequest(task, request.response, clock.currentTimeMillis()));
+            }
+        }
+
+        if (hostQueue == null) {
+            task.run();
+        } else {
+            drain(hostQueue);
+        }
+    }
+
+    /**
+     * Starts the call of a request, unless the request is already done, and completes the request with its result.
+     *
+     * @param request the request.
+     * @param call    starts the network call.
+     * @param <T>     the type of the decoded response.
+     */
+    private static <T> void start(InFlightRequest<T> request, Supplier<CompletableFuture<T>> call) {
+        if (request.response.isDone()) {
+            return;
+        }
+
+        try {
+            CompletableFuture<T> networkCall = call.get();
+            request.networkCall = networkCall;
+            networkCall.whenComplete((result, e) -> {
+                if (e != null) {
+                    request.response.completeExceptionally(e);
+                } else {
+                    request.response.complete(result);
+                }
+            });
+            if (request.response.isCancelled()) {
+                networkCall.cancel(true);
+            }
+        } catch (RuntimeException e) {
+            request.response.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Removes a caller from a shared request, and cancels the request once no caller is left.
+     *
+     * @param requestKey      the identity of the request.
+     * @param inFlightRequest the request shared by the callers.
+     */
+    private void release(RequestKey requestKey, InFlightRequest<?> inFlightRequest) {
+        synchronized (inFlightRequests) {
+            if (--inFlightRequest.waiters > 0) {
+                return;
+            }
+            inFlightRequests.remove(requestKey, inFlightRequest);
+        }
+
+        inFlightRequest.response.cancel(true);
+        CompletableFuture<?> networkCall = inFlightRequest.networkCall;
+        if (networkCall != null) {
+            networkCall.cancel(true);
+        }
+    }
+
+    /**
+     * Sends the queued requests of the host for which there are tokens,
+     * and waits for the next token if requests are still queued.
+     *
+     * @param hostQueue the queue of the host.
+     */
+    private void drain(HostQueue hostQueue) {
+        ArrayDeque<Runnable> readyTasks = new ArrayDeque<>();
+        long delayUntilNextToken = -1;
+
+        synchronized (this) {
+            long now = clock.currentTimeMillis();
+            hostQueue.refill(now);
+
+            while (!hostQueue.pendingRequests.isEmpty() && hostQueue.tokens >= 1) {
+                PendingRequest pendingRequest = hostQueue.pendingRequests.poll();
+                if (pendingRequest.response.isCancelled()) {
+                    // Cancelled while queued, it does not use a token
+                    continue;
+                }
+                hostQueue.tokens--;
+                hostQueue.lastWaitTime = now - pendingRequest.enqueueTime;
+                hostQueue.totalWaitTime += hostQueue.lastWaitTime;
+                readyTasks.add(pendingRequest.task);
+            }
+
+            if (!hostQueue.pendingRequests.isEmpty() && !hostQueue.isDrainScheduled) {
+                hostQueue.isDrainScheduled = true;
+                delayUntilNextToken = hostQueue.getDelayUntilNextToken();
+            }
+        }
+
+        for (Runnable readyTask : readyTasks) {
+            readyTask.run();
+        }
+
+        if (delayUntilNextToken >= 0) {
+            timer.schedule(() -> {
+                synchronized (this) {
+                    hostQueue.isDrainScheduled = false;
+                }
+                drain(hostQueue);
+            }, delayUntilNextToken);
+        }
+    }
+
+    /**
+     * Gets the host of the URL.
+     *
+     * @param url the URL.
+     * @return the host, or an empty string if the URL is not valid.
+     */
+    static String getHost(String url) {
+        try {
+            String host = new URI(url).getHost();
+            return host != null ? host : "";
+        } catch (Exception e) {
+            return "";
+        }
+    }
+
+    /**
+     * The token bucket and the queued requests of a host.
+     */
+    private static class HostQueue {
+        final int burst;
+        final long refillInterval;
+        final ArrayDeque<PendingRequest> pendingRequests = new ArrayDeque<>();
+        double tokens;
+        long lastRefillTime;
+        long lastWaitTime;
+        long totalWaitTime;
+        boolean isDrainScheduled;
+
+        HostQueue(int burst, long refillInterval, long now) {
+            this.burst = burst;
+            this.refillInterval = refillInterval;
+            this.tokens = burst;
+            this.lastRefillTime = now;
+        }
+
+        void refill(long now) {
+            if (now > lastRefillTime) {
+                tokens = Math.min(burst, tokens + (now - lastRefillTime) / (double) refillInterval);
+                lastRefillTime = now;
+            }
+        }
+
+        long getDelayUntilNextToken() {
+            return (long) Math.ceil((1 - tokens) * refillInterval);
+        }
+    }
+
+    /**
+     * A request waiting for a token.
+     */
+    private static class PendingRequest {
+        final Runnable task;
+        final CompletableFuture<?> response;
+        final long enqueueTime;
+
+        PendingRequest(Runnable task, CompletableFuture<?> response, long enqueueTime) {
+            this.task = task;
+            this.response = response;
+            this.enqueueTime = enqueueTime;
+        }
+    }
+
+    /**
+     * A request in flight and the number of callers sharing it, if it is shared.
+     */
+    private static class InFlightRequest<T> {
+        final CompletableFuture<T> response = new CompletableFuture<>();
+        volatile CompletableFuture<T> networkCall;
+        int waiters;
+    }
+
+    /**
+     * The identity of a request, used to merge identical requests.
+     */
+    private static class RequestKey {
+        final String url;
+        final Object decoder;
+
+        RequestKey(String url, Object decoder) {
+            this.url = url;
+            this.decoder = decoder;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof RequestKey)) return false;
+            RequestKey requestKey = (RequestKey) o;
+            return url.equals(requestKey.url) && decoder == requestKey.decoder;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(url, System.identityHashCode(decoder));
+        }
+    }
+}
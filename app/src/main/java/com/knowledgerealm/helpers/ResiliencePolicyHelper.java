@@ -0,0 +1,327 @@
+package com.knowledgerealm.helpers;
+
+import com.knowledgerealm.enums.CircuitBreakerStateEnum;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * ResiliencePolicyHelper is a helper class that makes requests resilient.
+ * Failed idempotent requests are retried a bounded number of times with a jittered exponential backoff, honouring
+ * the Retry-After header of 429 responses, an attempt that takes too long is cut off and counts as failed,
+ * and a circuit breaker per host fails fast while the host is down. Requests that are not idempotent
+ * go through the circuit breaker and the attempt timeout too, but are sent only once.
+ * The clock, the timer and the random source are pluggable, so the policy can be driven by a virtual clock.
+ */
+public class ResiliencePolicyHelper {
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final long DEFAULT_BASE_DELAY = 1000; // milliseconds
+    public static final long DEFAULT_MAX_DELAY = 30000; // milliseconds
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_OPEN_DURATION = 30000; // milliseconds
+    public static final long DEFAULT_ATTEMPT_TIMEOUT = 15000; // milliseconds
+
+    private final int maxAttempts;
+    private final long baseDelay;
+    private final long maxDelay;
+    private final int failureThreshold;
+    private final long openDuration;
+    private final long attemptTimeout;
+    private final ClockHelper.Clock clock;
+    private final ClockHelper.Timer timer;
+    private final Random random;
+    private final Map<String, CircuitBreaker> circuitBreakers = new HashMap<>();
+
+    /**
+     * Constructor for the ResiliencePolicyHelper class with the default policy,
+     * using the system clock and a single scheduler thread.
+     */
+    public ResiliencePolicyHelper() {
+        this(DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY, DEFAULT_MAX_DELAY, DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION,
+                DEFAULT_ATTEMPT_TIMEOUT, System::currentTimeMillis, ClockHelper.createSystemTimer("ResiliencePolicy"), new Random());
+    }
+
+    /**
+     * Constructor for the ResiliencePolicyHelper class.
+     *
+     * @param maxAttempts      how many times a request is sent at most, including the first time.
+     * @param baseDelay        the backoff before the first retry, doubled for every next retry, in milliseconds.
+     * @param maxDelay         the longest backoff, a longer Retry-After is not waited for, in milliseconds.
+     * @param failureThreshold how many failures in a row open the circuit breaker of a host.
+     * @param openDuration     how long an open circuit breaker fails fast, in milliseconds.
+     * @param attemptTimeout   how long an attempt may take before it is cancelled and counted as failed, in milliseconds.
+     * @param clock            the source of the current time.
+     * @param timer            the timer used to wait for the backoff and for the attempt timeout.
+     * @param random           the random source of the jitter.
+     */
+    public ResiliencePolicyHelper(int maxAttempts, long baseDelay, long maxDelay, int failureThreshold, long openDuration,
+                                  long attemptTimeout, ClockHelper.Clock clock, ClockHelper.Timer timer, Random random) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.attemptTimeout = attemptTimeout;
+        this.clock = clock;
+        this.timer = timer;
+        this.random = random;
+    }
+
+    /**
+     * Sends an idempotent request through the circuit breaker of its host, and retries it while it fails with a retriable error.
+     *
+     * @param host the host of the request.
+     * @param call sends the request once, invoked again for every retry.
+     * @param <T>  the type of the response.
+     * @return a CompletableFuture that will contain the response, or complete exceptionally with the last error,
+     * or with a CircuitBreakerOpenException if the host is down. Cancelling it cancels the attempt in flight.
+     */
+    public <T> CompletableFuture<T> execute(String host, Supplier<CompletableFuture<T>> call) {
+        return execute(host, call, true);
+    }
+
+    /**
+     * Sends a request through the circuit breaker of its host, and retries it while it fails with a retriable error
+     * only if it is idempotent, since a request that is not may have been served before it failed.
+     *
+     * @param host         the host of the request.
+     * @param call         sends the request once, invoked again for every retry.
+     * @param isIdempotent true if the request can be sent again, false if it is sent only once.
+     * @param <T>          the type of the response.
+     * @return a CompletableFuture that will contain the response, or complete exceptionally with the last error,
+     * or with a CircuitBreakerOpenException if the host is down. Cancelling it cancels the attempt in flight.
+     */
+    public <T> CompletableFuture<T> execute(String host, Supplier<CompletableFuture<T>> call, boolean isIdempotent) {
+        CompletableFuture<T> response = new CompletableFuture<>();
+        attempt(host, call, 1, isIdempotent ? maxAttempts : 1, response);
+        return response;
+    }
+
+    /**
+     * Gets the state of the circuit breaker of the host.
+     *
+     * @param host the host.
+     * @return the state of the circuit breaker.
+     */
+    public synchronized CircuitBreakerStateEnum getState(String host) {
+        CircuitBreaker circuitBreaker = circuitBreakers.get(host);
+        if (circuitBreaker == null) {
+            return CircuitBreakerStateEnum.CLOSED;
+        }
+        if (circuitBreaker.state == CircuitBreakerStateEnum.OPEN && clock.currentTimeMillis() - circuitBreaker.openedTime >= openDuration) {
+            return CircuitBreakerStateEnum.HALF_OPEN;
+        }
+        return circuitBreaker.state;
+    }
+
+    /**
+     * Checks if requests to the host are sent, or fail fast because its circuit breaker is open.
+     *
+     * @param host the host.
+     * @return false if the circuit breaker of the host is open, true otherwise.
+     */
+    public boolean isAvailable(String host) {
+        return getState(host) != CircuitBreakerStateEnum.OPEN;
+    }
+
+    /**
+     * Sends one attempt of the request, cuts it off after the attempt timeout,
+     * and schedules the next one if it failed with a retriable error.
+     *
+     * @param host          the host of the request.
+     * @param call          sends the request once.
+     * @param attemptNumber the number of this attempt, starting at 1.
+     * @param attemptLimit  how many times the request is sent at most.
+     * @param response      the CompletableFuture returned to the caller.
+     * @param <T>           the type of the response.
+     */
+    private <T> void attempt(String host, Supplier<CompletableFuture<T>> call, int attemptNumber, int attemptLimit, CompletableFuture<T> response) {
+        if (response.isDone()) {
+            return;
+        }
+
+        if (!allowRequest(host)) {
+            response.completeExceptionally(new CircuitBreakerOpenException(host));
+            return;
+        }
+
+        CompletableFuture<T> currentAttempt;
+        try {
+            currentAttempt = call.get();
+        } catch (RuntimeException e) {
+            recordNeutral(host);
+            response.completeExceptionally(e);
+            return;
+        }
+
+        response.whenComplete((result, e) -> {
+            if (response.isCancelled()) {
+                currentAttempt.cancel(true);
+            }
+        });
+
+        AtomicBoolean isTimedOut = new AtomicBoolean();
+        timer.schedule(() -> {
+            if (!currentAttempt.isDone()) {
+                isTimedOut.set(true);
+                currentAttempt.cancel(true);
+            }
+        }, attemptTimeout);
+
+        currentAttempt.whenComplete((result, e) -> {
+            if (e == null) {
+                recordSuccess(host);
+                response.complete(result);
+                return;
+            }
+
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof CancellationException && isTimedOut.get()) {
+                cause = new SocketTimeoutException("Attempt timed out after " + attemptTimeout + " ms");
+            }
+            if (cause instanceof CancellationException || !(cause instanceof IOException)) {
+                recordNeutral(host);
+                response.completeExceptionally(cause);
+                return;
+            }
+
+            if (cause instanceof HttpStatusException && !((HttpStatusException) cause).isRetriable()) {
+                // The host answered, so it is up even if the request is not valid
+                recordSuccess(host);
+                response.completeExceptionally(cause);
+                return;
+            }
+
+            recordFailure(host);
+            long delay = getRetryDelay(cause, attemptNumber);
+            if (attemptNumber >= attemptLimit || delay < 0) {
+                response.completeExceptionally(cause);
+                return;
+            }
+
+            timer.schedule(() -> attempt(host, call, attemptNumber + 1, attemptLimit, response), delay);
+        });
+    }
+
+    /**
+     * Gets the backoff before the next attempt: an exponential delay with equal jitter,
+     * or the delay asked by the Retry-After header of a 429 response if it is longer.
+     *
+     * @param cause         the error of the last attempt.
+     * @param attemptNumber the number of the last attempt, starting at 1.
+     * @return the delay in milliseconds, or -1 if the asked delay is longer than the maximum delay.
+     */
+    private long getRetryDelay(Throwable cause, int attemptNumber) {
+        long exponentialDelay = Math.min(maxDelay, baseDelay << Math.min(attemptNumber - 1, 20));
+        long delay;
+        synchronized (random) {
+            delay = exponentialDelay / 2 + (long) (random.nextDouble() * (exponentialDelay / 2 + 1));
+        }
+
+        if (cause instanceof HttpStatusException) {
+            long retryAfter = ((HttpStatusException) cause).getRetryAfter();
+            if (retryAfter > maxDelay) {
+                return -1;
+            }
+            delay = Math.max(delay, retryAfter);
+        }
+        return delay;
+    }
+
+    /**
+     * Checks the circuit breaker of the host before a request, and lets a single trial request through once it is half open.
+     *
+     * @param host the host.
+     * @return true if the request can be sent, false if it must fail fast.
+     */
+    private synchronized boolean allowRequest(String host) {
+        CircuitBreaker circuitBreaker = getCircuitBreaker(host);
+        switch (circuitBreaker.state) {
+            case OPEN:
+                if (clock.currentTimeMillis() - circuitBreaker.openedTime < openDuration) {
+                    return false;
+                }
+                circuitBreaker.state = CircuitBreakerStateEnum.HALF_OPEN;
+                circuitBreaker.isTrialInFlight = true;
+                return true;
+            case HALF_OPEN:
+                if (circuitBreaker.isTrialInFlight) {
+                    return false;
+                }
+                circuitBreaker.isTrialInFlight = true;
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Closes the circuit breaker of the host after a request it answered.
+     *
+     * @param host the host.
+     */
+    private synchronized void recordSuccess(String host) {
+        CircuitBreaker circuitBreaker = getCircuitBreaker(host);
+        circuitBreaker.state = CircuitBreakerStateEnum.CLOSED;
+        circuitBreaker.consecutiveFailures = 0;
+        circuitBreaker.isTrialInFlight = false;
+    }
+
+    /**
+     * Counts a failed request of the host, and opens its circuit breaker after too many failures in a row
+     * or when the trial request failed.
+     *
+     * @param host the host.
+     */
+    private synchronized void recordFailure(String host) {
+        CircuitBreaker circuitBreaker = getCircuitBreaker(host);
+        circuitBreaker.consecutiveFailures++;
+        circuitBreaker.isTrialInFlight = false;
+        if (circuitBreaker.state == CircuitBreakerStateEnum.HALF_OPEN || circuitBreaker.consecutiveFailures >= failureThreshold) {
+            circuitBreaker.state = CircuitBreakerStateEnum.OPEN;
+            circuitBreaker.openedTime = clock.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Ends a request that says nothing about the health of the host, such as a cancelled one.
+     *
+     * @param host the host.
+     */
+    private synchronized void recordNeutral(String host) {
+        getCircuitBreaker(host).isTrialInFlight = false;
+    }
+
+    /**
+     * Gets the circuit breaker of the host, must be called while holding the lock.
+     *
+     * @param host the host.
+     * @return the circuit breaker.
+     */
+    private CircuitBreaker getCircuitBreaker(String host) {
+        CircuitBreaker circuitBreaker = circuitBreakers.get(host);
+        if (circuitBreaker == null) {
+            circuitBreaker = new CircuitBreaker();
+            circuitBreakers.put(host, circuitBreaker);
+        }
+        return circuitBreaker;
+    }
+
+    /**
+     * The circuit breaker of a host.
+     */
+    private static class CircuitBreaker {
+        CircuitBreakerStateEnum state = CircuitBreakerStateEnum.CLOSED;
+        int consecutiveFailures;
+        long openedTime;
+        boolean isTrialInFlight;
+    }
+}
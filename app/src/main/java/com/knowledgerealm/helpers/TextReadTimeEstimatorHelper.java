@@ -1,10 +1,12 @@
 package com.knowledgerealm.helpers;
 
 /**
- * A helper class that estimates the time needed to read a text paragraph based on the average reading speed of 200 words per minute.
+ * A helper class that estimates the time needed to read a text paragraph based on the average reading speed of 100 words per minute.
+ * The words are counted once, without allocating, and the time is computed from the word count.
  */
 public class TextReadTimeEstimatorHelper {
     private static final int AVERAGE_READING_SPEED = 100; // words per minute
+    public static final double DEFAULT_MILLIS_PER_WORD = 60000.0 / AVERAGE_READING_SPEED;
 
     private TextReadTimeEstimatorHelper() {
         // private constructor to prevent
@@ -17,7 +19,48 @@ public class TextReadTimeEstimatorHelper {
      * @return the estimated time needed to read the paragraph, in milliseconds
      */
     public static int estimateReadTime(String text) {
-        int numWords = text.split("\\s+").length;
-       return (int) Math.ceil(numWords / (double) AVERAGE_READING_SPEED * 60) * 1000;
+        return estimateReadTime(countWords(text));
+    }
+
+    /**
+     * Estimates the time needed to read the given number of words at the average reading speed.
+     * @param wordCount the number of words to be read
+     * @return the estimated time needed to read the words, in whole seconds, in milliseconds
+     */
+    public static int estimateReadTime(int wordCount) {
+        return estimateReadTime(wordCount, DEFAULT_MILLIS_PER_WORD);
+    }
+
+    /**
+     * Estimates the time needed to read the given number of words at the given reading speed.
+     * @param wordCount the number of words to be read
+     * @param millisPerWord the time needed to read a word, in milliseconds
+     * @return the estimated time needed to read the words, in whole seconds, in milliseconds
+     */
+    public static int estimateReadTime(int wordCount, double millisPerWord) {
+        return (int) Math.ceil(wordCount * millisPerWord / 1000) * 1000;
+    }
+
+    /**
+     * Counts the words of the text, the runs of characters between whitespace, without allocating.
+     * @param text the text, can be null
+     * @return the number of words, or 0 if the text is null or blank
+     */
+    public static int countWords(CharSequence text) {
+        if (text == null) {
+            return 0;
+        }
+
+        int wordCount = 0;
+        boolean isInWord = false;
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                isInWord = false;
+            } else if (!isInWord) {
+                isInWord = true;
+                wordCount++;
+            }
+        }
+        return wordCount;
     }
 }
@@ -0,0 +1,35 @@
+package com.knowledgerealm.helpers;
+
+/**
+ * TokenResponseHelper is a helper class that is used to parse the session token responses from the Trivia API.
+ */
+public class TokenResponseHelper {
+    private int responseCode;
+    private String token;
+
+    /**
+     * Constructor for the TokenResponseHelper class.
+     * @param responseCode the response code of the request.
+     * @param token the session token, or null if there was none in the response.
+     */
+    public TokenResponseHelper(int responseCode, String token) {
+        this.responseCode = responseCode;
+        this.token = token;
+    }
+
+    /**
+     * Getter for the response code.
+     * @return the response code of the request.
+     */
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    /**
+     * Getter for the session token.
+     * @return the session token, or null if there was none in the response.
+     */
+    public String getToken() {
+        return token;
+    }
+}
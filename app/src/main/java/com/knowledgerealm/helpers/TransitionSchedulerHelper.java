@@ -0,0 +1,64 @@
+package com.knowledgerealm.helpers;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+/**
+ * TransitionSchedulerHelper runs the transitions of a game screen on the main looper, after a delay,
+ * such as the move to the next question once the correct answer was shown.
+ * Every transition is posted with the token of the session, so cancelling the scheduler removes all the
+ * pending transitions from the looper at once, and the transitions scheduled after the cancel are dropped.
+ * No thread is created or left sleeping for a transition.
+ */
+public class TransitionSchedulerHelper implements ClockHelper.Timer {
+    private final Handler handler;
+    // Identifies the messages of the session in the queue of the looper
+    private final Object sessionToken = new Object();
+    // Read by the threads that schedule the question arrivals
+    private volatile boolean isCancelled;
+
+    /**
+     * Constructor for the TransitionSchedulerHelper class, on the main looper
+     */
+    public TransitionSchedulerHelper() {
+        this(new Handler(Looper.getMainLooper()));
+    }
+
+    /**
+     * Constructor for the TransitionSchedulerHelper class
+     * @param handler the handler of the looper the transitions run on
+     */
+    public TransitionSchedulerHelper(Handler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Runs the transition on the looper after the delay, dropped if the scheduler is cancelled
+     * @param task the transition
+     * @param delayMillis the delay in milliseconds
+     */
+    @Override
+    public void schedule(Runnable task, long delayMillis) {
+        if (isCancelled) {
+            return;
+        }
+        handler.postAtTime(task, sessionToken, SystemClock.uptimeMillis() + Math.max(0, delayMillis));
+    }
+
+    /**
+     * Drops the pending transitions and the ones scheduled from now on, for example when the activity is finished
+     */
+    public void cancel() {
+        isCancelled = true;
+        handler.removeCallbacksAndMessages(sessionToken);
+    }
+
+    /**
+     * Check if the scheduler is cancelled
+     * @return true if the scheduler is cancelled, false otherwise
+     */
+    public boolean isCancelled() {
+        return isCancelled;
+    }
+}
@@ -0,0 +1,347 @@
+package com.knowledgerealm.helpers;
+
+import static com.knowledgerealm.enums.TriviaApiResponseCodeEnum.RATE_LIMIT;
+import static com.knowledgerealm.enums.TriviaApiResponseCodeEnum.SUCCESS;
+import static com.knowledgerealm.helpers.HtmlHelper.decodeHtml;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
+import com.knowledgerealm.enums.TriviaApiDifficultyEnum;
+import com.knowledgerealm.enums.TriviaApiEncodingEnum;
+import com.knowledgerealm.models.TriviaQuestion;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TriviaResponseDecoderHelper is a helper class that decodes the Trivia API responses
+ * straight from the response stream with a streaming JsonParser, without building a tree or a String body.
+ */
+public class TriviaResponseDecoderHelper {
+    // JsonFactory is thread-safe once configured, so a single instance is shared by all the decoders
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    // Shared decoder instances, so identical requests in flight can be merged into one
+    public static final HttpRequestAsyncHelper.ResponseDecoder<TriviaResponseHelper> QUESTIONS_DECODER = TriviaResponseDecoderHelper::decodeQuestions;
+    public static final HttpRequestAsyncHelper.ResponseDecoder<TriviaResponseHelper> BASE64_QUESTIONS_DECODER = body -> decodeQuestions(body, TriviaApiEncodingEnum.BASE64);
+    public static final HttpRequestAsyncHelper.ResponseDecoder<TriviaResponseHelper> URL3986_QUESTIONS_DECODER = body -> decodeQuestions(body, TriviaApiEncodingEnum.URL3986);
+    public static final HttpRequestAsyncHelper.ResponseDecoder<CategoriesResponseHelper> CATEGORIES_DECODER = TriviaResponseDecoderHelper::decodeCategories;
+    public static final HttpRequestAsyncHelper.ResponseDecoder<TokenResponseHelper> TOKEN_DECODER = TriviaResponseDecoderHelper::decodeToken;
+    public static final HttpRequestAsyncHelper.ResponseDecoder<QuestionCountResponseHelper> QUESTION_COUNT_DECODER = TriviaResponseDecoderHelper::decodeQuestionCount;
+
+    private TriviaResponseDecoderHelper() {
+        // private constructor to prevent
+        // instantiation of this helper class
+    }
+
+    /**
+     * Gets the shared decoder of api.php responses for the given encoding.
+     * @param encoding the encoding of the text of the questions.
+     * @return the decoder.
+     */
+    public static HttpRequestAsyncHelper.ResponseDecoder<TriviaResponseHelper> getQuestionsDecoder(TriviaApiEncodingEnum encoding) {
+        switch (encoding) {
+            case BASE64:
+                return BASE64_QUESTIONS_DECODER;
+            case URL3986:
+                return URL3986_QUESTIONS_DECODER;
+            default:
+                return QUESTIONS_DECODER;
+        }
+    }
+
+    /**
+     * Decodes a response of api.php, with HTML entities, into a list of trivia questions.
+     * @param body the response body stream.
+     * @return a TriviaResponseHelper with the trivia questions, a success flag and the response code.
+     * @throws IOException if the stream could not be read or is not a valid response.
+     */
+    public static TriviaResponseHelper decodeQuestions(InputStream body) throws IOException {
+        return decodeQuestions(body, TriviaApiEncodingEnum.DEFAULT);
+    }
+
+    /**
+     * Decodes a response of api.php into a list of trivia questions.
+     * @param body the response body stream.
+     * @param encoding the encoding of the text of the questions.
+     * @return a TriviaResponseHelper with the trivia questions, a success flag and the response code.
+     * @throws IOException if the stream could not be read or is not a valid response.
+     */
+    public static TriviaResponseHelper decodeQuestions(InputStream body, TriviaApiEncodingEnum encoding) throws IOException {
+        int responseCode = TriviaResponseHelper.NO_RESPONSE_CODE;
+        List<TriviaQuestion> triviaQuestions = new ArrayList<>();
+
+        try (JsonParser parser = createParser(body)) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                parser.nextToken();
+
+                if ("response_code".equals(fieldName)) {
+                    responseCode = parser.getIntValue();
+                } else if ("results".equals(fieldName) && parser.currentToken() == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        triviaQuestions.add(decodeQuestion(parser, encoding));
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        checkRateLimit(responseCode);
+        boolean success = responseCode == SUCCESS.getResponseCode();
+        return new TriviaResponseHelper(success ? triviaQuestions : new ArrayList<>(), success, responseCode);
+    }
+
+    /**
+     * Decodes newline-delimited JSON, one question object of the api.php format per line, into a list of trivia questions.
+     * @param body the stream of question objects.
+     * @param encoding the encoding of the text of the questions.
+     * @return the decoded trivia questions, in the order of the stream.
+     * @throws IOException if the stream could not be read or a line is not a question object.
+     */
+    public static List<TriviaQuestion> decodeQuestionLines(InputStream body, TriviaApiEncodingEnum encoding) throws IOException {
+        if (body == null) {
+            throw new IOException("Empty question stream");
+        }
+
+        List<TriviaQuestion> triviaQuestions = new ArrayList<>();
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IOException("Line " + parser.getCurrentLocation().getLineNr() + " is not a question object");
+                }
+                triviaQuestions.add(decodeQuestion(parser, encoding));
+            }
+        }
+        return triviaQuestions;
+    }
+
+    /**
+     * Decodes a response of api_category.php into a list of category names.
+     * @param body the response body stream.
+     * @return a CategoriesResponseHelper with the category names and a success flag.
+     * @throws IOException if the stream could not be read or is not a valid response.
+     */
+    public static CategoriesResponseHelper decodeCategories(InputStream body) throws IOException {
+        List<String> categories = new ArrayList<>();
+        boolean success = false;
+
+        try (JsonParser parser = createParser(body)) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                parser.nextToken();
+
+                if ("trivia_categories".equals(fieldName) && parser.currentToken() == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String categoryFieldName = parser.getCurrentName();
+                            parser.nextToken();
+
+                            if ("name".equals(categoryFieldName)) {
+                                categories.add(parser.getText());
+                            } else {
+                                parser.skipChildren();
+                            }
+                        }
+                    }
+                    success = true;
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        return new CategoriesResponseHelper(categories, success);
+    }
+
+    /**
+     * Decodes a response of api_token.php (request or reset command).
+     * @param body the response body stream.
+     * @return a TokenResponseHelper with the response code and the session token, if any.
+     * @throws IOException if the stream could not be read or is not a valid response.
+     */
+    public static TokenResponseHelper decodeToken(InputStream body) throws IOException {
+        int responseCode = TriviaResponseHelper.NO_RESPONSE_CODE;
+        String token = null;
+
+        try (JsonParser parser = createParser(body)) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                parser.nextToken();
+
+                if ("response_code".equals(fieldName)) {
+                    responseCode = parser.getIntValue();
+                } else if ("token".equals(fieldName)) {
+                    token = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        checkRateLimit(responseCode);
+        return new TokenResponseHelper(responseCode, token);
+    }
+
+    /**
+     * Turns the rate limit response code into a 429 error, so the request is retried after a backoff
+     * like a request answered with 429 Too Many Requests.
+     * @param responseCode the response code of the Trivia API.
+     * @throws HttpStatusException if the response code is the rate limit one.
+     */
+    private static void checkRateLimit(int responseCode) throws HttpStatusException {
+        if (responseCode == RATE_LIMIT.getResponseCode()) {
+            throw new HttpStatusException(429, HttpStatusException.NO_RETRY_AFTER);
+        }
+    }
+
+    /**
+     * Decodes a response of api_count.php into the question counts of a category.
+     * @param body the response body stream.
+     * @return a QuestionCountResponseHelper with the question counts per difficulty and a success flag.
+     * @throws IOException if the stream could not be read or is not a valid response.
+     */
+    public static QuestionCountResponseHelper decodeQuestionCount(InputStream body) throws IOException {
+        int totalCount = 0;
+        int easyCount = 0;
+        int mediumCount = 0;
+        int hardCount = 0;
+        boolean success = false;
+
+        try (JsonParser parser = createParser(body)) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                parser.nextToken();
+
+                if ("category_question_count".equals(fieldName) && parser.currentToken() == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String countFieldName = parser.getCurrentName();
+                        parser.nextToken();
+
+                        switch (countFieldName) {
+                            case "total_question_count":
+                                totalCount = parser.getIntValue();
+                                break;
+                            case "total_easy_question_count":
+                                easyCount = parser.getIntValue();
+                                break;
+                            case "total_medium_question_count":
+                                mediumCount = parser.getIntValue();
+                                break;
+                            case "total_hard_question_count":
+                                hardCount = parser.getIntValue();
+                                break;
+                            default:
+                                parser.skipChildren();
+                                break;
+                        }
+                    }
+                    success = true;
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        return new QuestionCountResponseHelper(totalCount, easyCount, mediumCount, hardCount, success);
+    }
+
+    /**
+     * Creates a parser for the given stream and moves it inside the root object.
+     * @param body the response body stream.
+     * @return the parser, positioned at the start of the root object.
+     * @throws IOException if the stream does not start with a JSON object.
+     */
+    private static JsonParser createParser(InputStream body) throws IOException {
+        if (body == null) {
+            throw new IOException("Empty response body");
+        }
+
+        JsonParser parser = jsonFactory.createParser(body);
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            parser.close();
+            throw new IOException("Response is not a JSON object");
+        }
+        return parser;
+    }
+
+    /**
+     * Decodes a single question object, the parser must be positioned at its START_OBJECT.
+     * @param parser the parser.
+     * @param encoding the encoding of the text of the question.
+     * @return the decoded trivia question.
+     * @throws IOException if the object could not be read.
+     */
+    private static TriviaQuestion decodeQuestion(JsonParser parser, TriviaApiEncodingEnum encoding) throws IOException {
+        String question = null;
+        String correctAnswer = null;
+        String category = null;
+        String difficulty = null;
+        List<String> incorrectAnswers = new ArrayList<>(3);
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+
+            switch (fieldName) {
+                case "question":
+                    question = decodeText(parser, encoding);
+                    break;
+                case "correct_answer":
+                    correctAnswer = decodeText(parser, encoding);
+                    break;
+                case "category":
+                    category = decodeText(parser, encoding);
+                    break;
+                case "difficulty":
+                    difficulty = decodeText(parser, encoding);
+                    break;
+                case "incorrect_answers":
+                    while (parser.nextToken() == JsonToken.VALUE_STRING) {
+                        incorrectAnswers.add(decodeText(parser, encoding));
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+            }
+        }
+
+        return new TriviaQuestion(
+                question,
+                correctAnswer,
+                incorrectAnswers,
+                TriviaApiCategoriesEnum.getEnumByName(category),
+                // an unknown difficulty leaves the question without one instead of failing the whole response
+                TriviaApiDifficultyEnum.getEnumByName(difficulty)
+        );
+    }
+
+    /**
+     * Decodes the current string value of the parser, straight from its text buffer for the byte encodings.
+     * @param parser the parser, positioned at a string value.
+     * @param encoding the encoding of the text.
+     * @return the decoded text.
+     * @throws IOException if the value could not be read or is not validly encoded.
+     */
+    private static String decodeText(JsonParser parser, TriviaApiEncodingEnum encoding) throws IOException {
+        try {
+            switch (encoding) {
+                case BASE64:
+                    return EncodedTextDecoderHelper.decodeBase64(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                case URL3986:
+                    return EncodedTextDecoderHelper.decodeUrl3986(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                default:
+                    return decodeHtml(parser.getText());
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid " + encoding.getParameter() + " text: " + e.getMessage(), e);
+        }
+    }
+}
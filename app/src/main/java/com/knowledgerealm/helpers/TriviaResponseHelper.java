@@ -8,8 +8,11 @@ import java.util.List;
  * TriviaResponseHelper is a helper class that is used to parse the response from the Trivia API.
  */
 public class TriviaResponseHelper {
+    public static final int NO_RESPONSE_CODE = -1;
+
     private List<TriviaQuestion> triviaQuestions;
     private boolean success;
+    private int responseCode;
 
     /**
      * Constructor for the TriviaResponseHelper class.
@@ -17,8 +20,19 @@ public class TriviaResponseHelper {
      * @param success whether the request was successful.
      */
     public TriviaResponseHelper(List<TriviaQuestion> triviaQuestions, boolean success) {
+        this(triviaQuestions, success, NO_RESPONSE_CODE);
+    }
+
+    /**
+     * Constructor for the TriviaResponseHelper class.
+     * @param triviaQuestions the trivia questions.
+     * @param success whether the request was successful.
+     * @param responseCode the response code returned by the Trivia API, or NO_RESPONSE_CODE if there was none.
+     */
+    public TriviaResponseHelper(List<TriviaQuestion> triviaQuestions, boolean success, int responseCode) {
         this.triviaQuestions = triviaQuestions;
         this.success = success;
+        this.responseCode = responseCode;
     }
 
     /**
@@ -36,4 +50,12 @@ public class TriviaResponseHelper {
     public boolean isSuccess() {
         return success;
     }
+
+    /**
+     * Getter for the response code returned by the Trivia API.
+     * @return the response code, or NO_RESPONSE_CODE if there was none.
+     */
+    public int getResponseCode() {
+        return responseCode;
+    }
 }
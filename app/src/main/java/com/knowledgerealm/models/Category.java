@@ -0,0 +1,63 @@
+package com.knowledgerealm.models;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Class for the category model
+ * This class is used to store the last known category catalogue of the Trivia API
+ */
+@Entity(tableName = "category")
+public class Category {
+    @PrimaryKey
+    @NonNull
+    private String name = "";
+
+    private int position;
+
+    private long timestamp;
+
+    /**
+     * Get the name of the category
+     */
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Set the name of the category
+     */
+    public void setName(@NonNull String name) {
+        this.name = name;
+    }
+
+    /**
+     * Get the position of the category in the catalogue
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Set the position of the category in the catalogue
+     */
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    /**
+     * Get the timestamp the catalogue was fetched from the Trivia API
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Set the timestamp the catalogue was fetched from the Trivia API
+     */
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -0,0 +1,132 @@
+package com.knowledgerealm.models;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+import com.knowledgerealm.enums.TriviaApiDifficultyEnum;
+
+/**
+ * Class for the question count model
+ * This class is used to store how many questions the Trivia API has for a category, per difficulty
+ */
+@Entity(tableName = "question_count")
+public class QuestionCount {
+    @PrimaryKey
+    private int categoryId;
+
+    private int totalCount;
+
+    private int easyCount;
+
+    private int mediumCount;
+
+    private int hardCount;
+
+    private long timestamp;
+
+    /**
+     * Get the number of questions of the difficulty
+     * @param difficulty the difficulty, or null for any difficulty
+     * @return the number of questions
+     */
+    public int getCount(TriviaApiDifficultyEnum difficulty) {
+        if (difficulty == null) {
+            return totalCount;
+        }
+
+        switch (difficulty) {
+            case EASY:
+                return easyCount;
+            case MEDIUM:
+                return mediumCount;
+            case HARD:
+                return hardCount;
+            default:
+                return totalCount;
+        }
+    }
+
+    /**
+     * Get the id of the category
+     */
+    public int getCategoryId() {
+        return categoryId;
+    }
+
+    /**
+     * Set the id of the category
+     */
+    public void setCategoryId(int categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    /**
+     * Get the number of questions of the category
+     */
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Set the number of questions of the category
+     */
+    public void setTotalCount(int totalCount) {
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * Get the number of easy questions of the category
+     */
+    public int getEasyCount() {
+        return easyCount;
+    }
+
+    /**
+     * Set the number of easy questions of the category
+     */
+    public void setEasyCount(int easyCount) {
+        this.easyCount = easyCount;
+    }
+
+    /**
+     * Get the number of medium questions of the category
+     */
+    public int getMediumCount() {
+        return mediumCount;
+    }
+
+    /**
+     * Set the number of medium questions of the category
+     */
+    public void setMediumCount(int mediumCount) {
+        this.mediumCount = mediumCount;
+    }
+
+    /**
+     * Get the number of hard questions of the category
+     */
+    public int getHardCount() {
+        return hardCount;
+    }
+
+    /**
+     * Set the number of hard questions of the category
+     */
+    public void setHardCount(int hardCount) {
+        this.hardCount = hardCount;
+    }
+
+    /**
+     * Get the time the counts were fetched
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Set the time the counts were fetched
+     */
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
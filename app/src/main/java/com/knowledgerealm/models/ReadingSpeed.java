@@ -0,0 +1,71 @@
+package com.knowledgerealm.models;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * ReadingSpeed model class
+ * This class is used to store the reading speed learned from the answers of the player
+ */
+@Entity(tableName = "reading_speed")
+public class ReadingSpeed {
+    @PrimaryKey
+    private int id;
+
+    private double millisPerWord;
+
+    private int sampleCount;
+
+    /**
+     * Constructor for ReadingSpeed class
+     * @param millisPerWord The moving average of the time per word of the answers, in milliseconds
+     * @param sampleCount The number of answers learned from
+     */
+    public ReadingSpeed(double millisPerWord, int sampleCount) {
+        this.id = 1;
+        this.millisPerWord = millisPerWord;
+        this.sampleCount = sampleCount;
+    }
+
+    /**
+     * Get the id of the reading speed
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Set the id of the reading speed
+     */
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Get the moving average of the time per word of the answers, in milliseconds
+     */
+    public double getMillisPerWord() {
+        return millisPerWord;
+    }
+
+    /**
+     * Set the moving average of the time per word of the answers, in milliseconds
+     */
+    public void setMillisPerWord(double millisPerWord) {
+        this.millisPerWord = millisPerWord;
+    }
+
+    /**
+     * Get the number of answers learned from
+     */
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * Set the number of answers learned from
+     */
+    public void setSampleCount(int sampleCount) {
+        this.sampleCount = sampleCount;
+    }
+}
@@ -0,0 +1,221 @@
+package com.knowledgerealm.models;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
+import com.knowledgerealm.enums.TriviaApiDifficultyEnum;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class for the stored question model
+ * This class is used to keep decoded trivia questions in the offline question bank,
+ * indexed by category id, difficulty and type
+ */
+@Entity(tableName = "question",
+        indices = {
+                @Index(value = "question", unique = true),
+                @Index(value = {"categoryId", "difficulty", "type", "seen"})
+        })
+public class StoredQuestion {
+    // Separator of the incorrect answers, a control character that never appears in a question
+    private static final String ANSWER_SEPARATOR = "\u001F";
+    public static final String BOOLEAN_TYPE = "boolean";
+    public static final String MULTIPLE_TYPE = "multiple";
+
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+
+    @NonNull
+    private String question = "";
+
+    @NonNull
+    private String correctAnswer = "";
+
+    @NonNull
+    private String incorrectAnswers = "";
+
+    private int categoryId;
+
+    @NonNull
+    private String difficulty = "";
+
+    @NonNull
+    private String type = "";
+
+    private boolean seen;
+
+    private long timestamp;
+
+    /**
+     * Create a stored question from a decoded trivia question
+     * @param triviaQuestion the decoded trivia question
+     * @return the stored question, not seen yet
+     */
+    public static StoredQuestion fromTriviaQuestion(TriviaQuestion triviaQuestion) {
+        StoredQuestion storedQuestion = new StoredQuestion();
+        storedQuestion.setQuestion(triviaQuestion.getQuestion());
+        storedQuestion.setCorrectAnswer(triviaQuestion.getCorrectAnswer());
+        storedQuestion.setIncorrectAnswers(String.join(ANSWER_SEPARATOR, triviaQuestion.getIncorrectAnswers()));
+        storedQuestion.setCategoryId(triviaQuestion.getCategory() != null ? triviaQuestion.getCategory().getId() : TriviaApiCategoriesEnum.NO_CATEGORY.getId());
+        storedQuestion.setDifficulty(triviaQuestion.getDifficulty() != null ? triviaQuestion.getDifficulty().name() : "");
+        storedQuestion.setType(getType(triviaQuestion));
+        storedQuestion.setTimestamp(System.currentTimeMillis());
+        return storedQuestion;
+    }
+
+    /**
+     * Get the type of a trivia question, as in the type parameter of the Trivia API
+     * @param triviaQuestion the trivia question
+     * @return "boolean" if the question has a single incorrect answer, "multiple" otherwise
+     */
+    public static String getType(TriviaQuestion triviaQuestion) {
+        return triviaQuestion.getIncorrectAnswers().size() == 1 ? BOOLEAN_TYPE : MULTIPLE_TYPE;
+    }
+
+    /**
+     * Convert the stored question back to a trivia question, with the same order of answers it had when it was stored
+     * @return the trivia question
+     */
+    public TriviaQuestion toTriviaQuestion() {
+        List<String> incorrectAnswersList = Arrays.asList(incorrectAnswers.split(ANSWER_SEPARATOR));
+        TriviaApiCategoriesEnum category = TriviaApiCategoriesEnum.getEnum(categoryId);
+        TriviaApiDifficultyEnum difficultyEnum = difficulty.isEmpty() ? TriviaApiDifficultyEnum.NO_DIFFICULTY : TriviaApiDifficultyEnum.valueOf(difficulty);
+        return new TriviaQuestion(question, correctAnswer, incorrectAnswersList, category, difficultyEnum);
+    }
+
+    /**
+     * Get the id of the stored question
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Set the id of the stored question
+     */
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    /**
+     * Get the decoded question text
+     */
+    @NonNull
+    public String getQuestion() {
+        return question;
+    }
+
+    /**
+     * Set the decoded question text
+     */
+    public void setQuestion(@NonNull String question) {
+        this.question = question;
+    }
+
+    /**
+     * Get the correct answer
+     */
+    @NonNull
+    public String getCorrectAnswer() {
+        return correctAnswer;
+    }
+
+    /**
+     * Set the correct answer
+     */
+    public void setCorrectAnswer(@NonNull String correctAnswer) {
+        this.correctAnswer = correctAnswer;
+    }
+
+    /**
+     * Get the incorrect answers, joined with the answer separator
+     */
+    @NonNull
+    public String getIncorrectAnswers() {
+        return incorrectAnswers;
+    }
+
+    /**
+     * Set the incorrect answers, joined with the answer separator
+     */
+    public void setIncorrectAnswers(@NonNull String incorrectAnswers) {
+        this.incorrectAnswers = incorrectAnswers;
+    }
+
+    /**
+     * Get the id of the category, as in TriviaApiCategoriesEnum
+     */
+    public int getCategoryId() {
+        return categoryId;
+    }
+
+    /**
+     * Set the id of the category, as in TriviaApiCategoriesEnum
+     */
+    public void setCategoryId(int categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    /**
+     * Get the name of the TriviaApiDifficultyEnum constant, or an empty string if there is none
+     */
+    @NonNull
+    public String getDifficulty() {
+        return difficulty;
+    }
+
+    /**
+     * Set the name of the TriviaApiDifficultyEnum constant, or an empty string if there is none
+     */
+    public void setDifficulty(@NonNull String difficulty) {
+        this.difficulty = difficulty;
+    }
+
+    /**
+     * Get the type of the question, "multiple" or "boolean"
+     */
+    @NonNull
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Set the type of the question, "multiple" or "boolean"
+     */
+    public void setType(@NonNull String type) {
+        this.type = type;
+    }
+
+    /**
+     * Get whether the question has already been served in a game
+     */
+    public boolean isSeen() {
+        return seen;
+    }
+
+    /**
+     * Set whether the question has already been served in a game
+     */
+    public void setSeen(boolean seen) {
+        this.seen = seen;
+    }
+
+    /**
+     * Get the timestamp the question was stored, or served if it is seen
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Set the timestamp the question was stored, or served if it is seen
+     */
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
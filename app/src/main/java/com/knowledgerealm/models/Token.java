@@ -13,8 +13,8 @@ public class Token {
     private long timestamp;
 
     /**
-     * Get the id of the token. This is the primary key of the token
-     * and the default value is 0, so there will only be one token.
+     * Get the id of the token. This is the primary key of the token and the slot of the token pool,
+     * one slot per category and difficulty combination, 0 being any category with any difficulty.
      * @return the id of the token
      */
     public int getId() {
@@ -22,8 +22,8 @@ public class Token {
     }
 
     /**
-     * Set the id of the token. This is the primary key of the token
-     * and the default value should be 0, so there will only be one token.
+     * Set the id of the token. This is the primary key of the token and the slot of the token pool,
+     * one slot per category and difficulty combination, 0 being any category with any difficulty.
      */
     public void setId(int id) {
         this.id = id;
@@ -45,7 +45,7 @@ public class Token {
     }
 
     /**
-     * Get the timestamp of the token
+     * Get the timestamp of the last use of the token
      * @return the timestamp of the token or 0 if there is an error
      */
     public long getTimestamp() {
@@ -3,22 +3,33 @@ package com.knowledgerealm.models;
 import com.knowledgerealm.enums.QuestionPointsEnum;
 import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
 import com.knowledgerealm.enums.TriviaApiDifficultyEnum;
+import com.knowledgerealm.helpers.TextReadTimeEstimatorHelper;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 /**
- * TriviaQuestion is a model that represents a question from the Trivia API.
+ * TriviaQuestion is an immutable model that represents a question from the Trivia API.
+ * The order of the answers is shuffled once, when the question is decoded, with a seed taken from
+ * the question itself, so the same question always shows its answers in the same order.
+ * The words of the question and its answers are counted once too, for the time budget of the question.
+ * Reading the answers, the index of the correct answer, the points and the word count does not allocate.
  */
-public class TriviaQuestion {
-    private String question;
-    private String correctAnswer;
-    private List<String> incorrectAnswers;
-    private TriviaApiCategoriesEnum category;
-    private TriviaApiDifficultyEnum difficulty;
+public final class TriviaQuestion {
+    private final String question;
+    private final String correctAnswer;
+    private final List<String> incorrectAnswers;
+    private final TriviaApiCategoriesEnum category;
+    private final TriviaApiDifficultyEnum difficulty;
+    private final String[] answers;
+    private final List<String> answerList;
+    private final int correctAnswerIndex;
+    private final int points;
+    private final int wordCount;
 
     /**
-     * Constructor for the TriviaQuestion class.
+     * Constructor for the TriviaQuestion class, the answers are shuffled with a seed taken from the question.
      * @param question the question.
      * @param correctAnswer the correct answer.
      * @param incorrectAnswers the incorrect answers.
@@ -26,11 +37,59 @@ public class TriviaQuestion {
      * @param difficulty the difficulty.
      */
     public TriviaQuestion(String question, String correctAnswer, List<String> incorrectAnswers, TriviaApiCategoriesEnum category, TriviaApiDifficultyEnum difficulty) {
+        this(question, correctAnswer, incorrectAnswers, category, difficulty, getSeed(question, correctAnswer));
+    }
+
+    /**
+     * Constructor for the TriviaQuestion class.
+     * @param question the question.
+     * @param correctAnswer the correct answer.
+     * @param incorrectAnswers the incorrect answers, copied.
+     * @param category the category.
+     * @param difficulty the difficulty.
+     * @param seed the seed of the shuffle of the answers.
+     */
+    public TriviaQuestion(String question, String correctAnswer, List<String> incorrectAnswers, TriviaApiCategoriesEnum category, TriviaApiDifficultyEnum difficulty, long seed) {
         this.question = question;
         this.correctAnswer = correctAnswer;
-        this.incorrectAnswers = incorrectAnswers;
+        this.incorrectAnswers = incorrectAnswers != null
+                ? Collections.unmodifiableList(Arrays.asList(incorrectAnswers.toArray(new String[0])))
+                : Collections.<String>emptyList();
         this.category = category;
         this.difficulty = difficulty;
+
+        // Fisher-Yates shuffle, following the correct answer from the last position
+        answers = new String[this.incorrectAnswers.size() + 1];
+        for (int i = 0; i < this.incorrectAnswers.size(); i++) {
+            answers[i] = this.incorrectAnswers.get(i);
+        }
+        int correctIndex = answers.length - 1;
+        answers[correctIndex] = correctAnswer;
+
+        long state = seed;
+        for (int i = answers.length - 1; i > 0; i--) {
+            state = nextRandom(state);
+            int j = (int) ((state >>> 33) % (i + 1));
+            String answer = answers[i];
+            answers[i] = answers[j];
+            answers[j] = answer;
+
+            if (correctIndex == i) {
+                correctIndex = j;
+            } else if (correctIndex == j) {
+                correctIndex = i;
+            }
+        }
+
+        this.correctAnswerIndex = correctIndex;
+        this.answerList = Collections.unmodifiableList(Arrays.asList(answers));
+        this.points = getPoints(difficulty);
+
+        int words = TextReadTimeEstimatorHelper.countWords(question);
+        for (String answer : answers) {
+            words += TextReadTimeEstimatorHelper.countWords(answer);
+        }
+        this.wordCount = words;
     }
 
     /**
@@ -41,10 +100,7 @@ public class TriviaQuestion {
      * @param category the category.
      */
     public TriviaQuestion(String question, String correctAnswer, List<String> incorrectAnswers, TriviaApiCategoriesEnum category) {
-        this.question = question;
-        this.correctAnswer = correctAnswer;
-        this.incorrectAnswers = incorrectAnswers;
-        this.category = category;
+        this(question, correctAnswer, incorrectAnswers, category, null);
     }
 
     /**
@@ -54,9 +110,7 @@ public class TriviaQuestion {
      * @param incorrectAnswers the incorrect answers.
      */
     public TriviaQuestion(String question, String correctAnswer, List<String> incorrectAnswers) {
-        this.question = question;
-        this.correctAnswer = correctAnswer;
-        this.incorrectAnswers = incorrectAnswers;
+        this(question, correctAnswer, incorrectAnswers, null, null);
     }
 
     /**
@@ -65,8 +119,7 @@ public class TriviaQuestion {
      * @param correctAnswer the correct answer.
      */
     public TriviaQuestion(String question, String correctAnswer) {
-        this.question = question;
-        this.correctAnswer = correctAnswer;
+        this(question, correctAnswer, null, null, null);
     }
 
     /**
@@ -77,14 +130,6 @@ public class TriviaQuestion {
         return question;
     }
 
-    /**
-     * Sets the question.
-     * @param question the question.
-     */
-    public void setQuestion(String question) {
-        this.question = question;
-    }
-
     /**
      * Returns the correct answer.
      * @return the correct answer.
@@ -94,54 +139,62 @@ public class TriviaQuestion {
     }
 
     /**
-     * Sets the correct answer.
-     * @param correctAnswer the correct answer.
+     * Returns the incorrect answers.
+     * @return the incorrect answers, unmodifiable.
      */
-    public void setCorrectAnswer(String correctAnswer) {
-        this.correctAnswer = correctAnswer;
+    public List<String> getIncorrectAnswers() {
+        return incorrectAnswers;
     }
 
     /**
-     * Returns the incorrect answers.
-     * @return the incorrect answers.
+     * Returns all the answers, in the order they were shuffled in when the question was decoded.
+     * Every call returns the same list, without allocating.
+     * @return all the answers randomized, unmodifiable.
      */
-    public List<String> getIncorrectAnswers() {
-        return incorrectAnswers;
+    public List<String> getAllAnswersRandomized() {
+        return answerList;
     }
 
     /**
-     * Sets the incorrect answers.
-     * @param incorrectAnswers the incorrect answers.
+     * Returns the number of answers.
+     * @return the number of answers, the incorrect ones and the correct one.
      */
-    public void setIncorrectAnswers(List<String> incorrectAnswers) {
-        this.incorrectAnswers = incorrectAnswers;
+    public int getAnswerCount() {
+        return answers.length;
     }
 
     /**
-     * Returns all the answers randomized.
-     * @return all the answers randomized.
+     * Returns the answer at the given position of the randomized answers.
+     * @param index the position of the answer.
+     * @return the answer.
      */
-    public List<String> getAllAnswersRandomized() {
-        List<String> allAnswers = incorrectAnswers;
-        allAnswers.add(correctAnswer);
-        Collections.shuffle(allAnswers);
-        return allAnswers;
+    public String getAnswer(int index) {
+        return answers[index];
     }
 
     /**
-     * Returns the category.
-     * @return the category.
+     * Returns the position of the correct answer in the randomized answers.
+     * @return the index of the correct answer.
      */
-    public TriviaApiCategoriesEnum getCategory() {
-        return category;
+    public int getCorrectAnswerIndex() {
+        return correctAnswerIndex;
     }
 
     /**
-     * Sets the category.
-     * @param category the category.
+     * Checks if the answer at the given position of the randomized answers is the correct one.
+     * @param index the position of the answer.
+     * @return true if the answer is correct, false otherwise.
      */
-    public void setCategory(TriviaApiCategoriesEnum category) {
-        this.category = category;
+    public boolean isCorrectAnswer(int index) {
+        return index == correctAnswerIndex;
+    }
+
+    /**
+     * Returns the category.
+     * @return the category.
+     */
+    public TriviaApiCategoriesEnum getCategory() {
+        return category;
     }
 
     /**
@@ -153,18 +206,31 @@ public class TriviaQuestion {
     }
 
     /**
-     * Sets the difficulty.
-     * @param difficulty the difficulty.
+     * Returns the points for the question.
+     * @return the points for the question or 0 if the difficulty is not recognized.
      */
-    public void setDifficulty(TriviaApiDifficultyEnum difficulty) {
-        this.difficulty = difficulty;
+    public int getPoints() {
+        return points;
     }
 
     /**
-     * Returns the points for the question.
-     * @return the points for the question or 0 if the difficulty is not recognized.
+     * Returns the number of words of the question and its answers, counted when the question was decoded.
+     * @return the number of words.
      */
-    public int getPoints() {
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Returns the points for a question of the difficulty.
+     * @param difficulty the difficulty, or null if there is none.
+     * @return the points or 0 if the difficulty is not recognized.
+     */
+    private static int getPoints(TriviaApiDifficultyEnum difficulty) {
+        if (difficulty == null) {
+            return 0;
+        }
+
         switch (difficulty) {
             case EASY:
                 return QuestionPointsEnum.EASY.getPoints();
@@ -176,4 +242,26 @@ public class TriviaQuestion {
                 return 0;
         }
     }
+
+    /**
+     * Gets the seed of the shuffle of the answers from the question, so a question keeps its order of answers
+     * when it is decoded again, for example from the question bank.
+     * @param question the question.
+     * @param correctAnswer the correct answer.
+     * @return the seed.
+     */
+    private static long getSeed(String question, String correctAnswer) {
+        long questionHash = question != null ? question.hashCode() : 0;
+        long answerHash = correctAnswer != null ? correctAnswer.hashCode() : 0;
+        return (questionHash << 32) ^ (answerHash & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Advances the state of a 64-bit linear congruential generator.
+     * @param state the current state.
+     * @return the next state, its high bits are the random bits.
+     */
+    private static long nextRandom(long state) {
+        return state * 6364136223846793005L + 1442695040888963407L;
+    }
 }
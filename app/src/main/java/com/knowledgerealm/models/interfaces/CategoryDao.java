@@ -0,0 +1,47 @@
+package com.knowledgerealm.models.interfaces;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.knowledgerealm.models.Category;
+
+import java.util.List;
+
+/**
+ * Interface for the category catalogue database
+ */
+@Dao
+public interface CategoryDao {
+    /**
+     * Insert categories into the catalogue
+     * @param categories the categories to insert
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertAll(List<Category> categories);
+
+    /**
+     * Get the whole catalogue
+     * @return the categories in catalogue order, or an empty list if none is stored
+     */
+    @Query("SELECT * FROM category ORDER BY position")
+    List<Category> getAll();
+
+    /**
+     * Delete the whole catalogue
+     */
+    @Query("DELETE FROM category")
+    void deleteAll();
+
+    /**
+     * Replace the whole catalogue in a single transaction
+     * @param categories the categories of the new catalogue
+     */
+    @Transaction
+    default void replaceAll(List<Category> categories) {
+        deleteAll();
+        insertAll(categories);
+    }
+}
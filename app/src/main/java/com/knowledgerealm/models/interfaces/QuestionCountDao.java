@@ -0,0 +1,30 @@
+package com.knowledgerealm.models.interfaces;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.knowledgerealm.models.QuestionCount;
+
+import java.util.List;
+
+/**
+ * Interface for the question count index database
+ */
+@Dao
+public interface QuestionCountDao {
+    /**
+     * Insert the question counts of a category, or replace the stored ones
+     * @param questionCount the question counts to insert or replace
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertOrReplace(QuestionCount questionCount);
+
+    /**
+     * Get the question counts of all the categories
+     * @return the question counts, or an empty list if none is stored
+     */
+    @Query("SELECT * FROM question_count")
+    List<QuestionCount> getAll();
+}
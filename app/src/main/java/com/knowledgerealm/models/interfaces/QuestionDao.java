@@ -0,0 +1,80 @@
+package com.knowledgerealm.models.interfaces;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.knowledgerealm.models.StoredQuestion;
+
+import java.util.List;
+
+/**
+ * Interface for the offline question bank
+ */
+@Dao
+public interface QuestionDao {
+    /**
+     * Insert questions into the bank, questions that are already stored are ignored
+     * @param questions the questions to insert
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertAll(List<StoredQuestion> questions);
+
+    /**
+     * Get random questions that have not been served yet
+     * @param categoryId the id of the category, or 0 for any category
+     * @param difficulty the name of the difficulty, or an empty string for any difficulty
+     * @param type the type of the questions, or an empty string for any type
+     * @param amount the maximum number of questions
+     * @return the questions, in random order
+     */
+    @Query("SELECT * FROM question WHERE seen = 0 " +
+            "AND (:categoryId = 0 OR categoryId = :categoryId) " +
+            "AND (:difficulty = '' OR difficulty = :difficulty) " +
+            "AND (:type = '' OR type = :type) " +
+            "ORDER BY RANDOM() LIMIT :amount")
+    List<StoredQuestion> getRandomUnseen(int categoryId, String difficulty, String type, int amount);
+
+    /**
+     * Count the questions that have not been served yet
+     * @param categoryId the id of the category, or 0 for any category
+     * @param difficulty the name of the difficulty, or an empty string for any difficulty
+     * @return the number of questions
+     */
+    @Query("SELECT COUNT(*) FROM question WHERE seen = 0 " +
+            "AND (:categoryId = 0 OR categoryId = :categoryId) " +
+            "AND (:difficulty = '' OR difficulty = :difficulty)")
+    int countUnseen(int categoryId, String difficulty);
+
+    /**
+     * Mark questions as served
+     * @param ids the ids of the questions
+     * @param timestamp the time the questions were served
+     */
+    @Query("UPDATE question SET seen = 1, timestamp = :timestamp WHERE id IN (:ids)")
+    void markSeen(List<Long> ids, long timestamp);
+
+    /**
+     * Count all the stored questions
+     * @return the number of questions
+     */
+    @Query("SELECT COUNT(*) FROM question")
+    int count();
+
+    /**
+     * Delete the questions that were served the longest time ago
+     * @param amount the maximum number of questions to delete
+     */
+    @Query("DELETE FROM question WHERE id IN " +
+            "(SELECT id FROM question WHERE seen = 1 ORDER BY timestamp LIMIT :amount)")
+    void deleteOldestSeen(int amount);
+
+    /**
+     * Delete the questions that were stored the longest time ago and have not been served yet
+     * @param amount the maximum number of questions to delete
+     */
+    @Query("DELETE FROM question WHERE id IN " +
+            "(SELECT id FROM question WHERE seen = 0 ORDER BY timestamp, id LIMIT :amount)")
+    void deleteOldestUnseen(int amount);
+}
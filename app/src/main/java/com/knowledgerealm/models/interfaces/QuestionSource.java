@@ -0,0 +1,61 @@
+package com.knowledgerealm.models.interfaces;
+
+import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
+import com.knowledgerealm.enums.TriviaApiDifficultyEnum;
+import com.knowledgerealm.enums.TriviaApiTokenStateEnum;
+import com.knowledgerealm.helpers.CategoriesResponseHelper;
+import com.knowledgerealm.helpers.TriviaResponseHelper;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Interface for the sources the questions of a game are fetched from,
+ * such as the Trivia API, the offline question bank or a local question pack
+ */
+public interface QuestionSource {
+    /**
+     * Get the name of the source, used in the logs
+     * @return the name of the source
+     */
+    String getName();
+
+    /**
+     * Fetches a list of trivia questions without blocking
+     * @param category the category of questions to fetch, or null for any category
+     * @param difficulty the difficulty of questions to fetch, or null for any difficulty
+     * @param type the type of questions to fetch, or null for any type
+     * @param amount the number of questions to fetch
+     * @return a CompletableFuture that will contain a TriviaResponseHelper with the questions and a success flag
+     */
+    CompletableFuture<TriviaResponseHelper> getTriviaQuestionsAsync(TriviaApiCategoriesEnum category, TriviaApiDifficultyEnum difficulty, String type, int amount);
+
+    /**
+     * Fetches the names of the categories the source has questions for, without blocking
+     * @return a CompletableFuture that will contain a CategoriesResponseHelper with the category names and a success flag
+     */
+    CompletableFuture<CategoriesResponseHelper> getCategoriesAsync();
+
+    /**
+     * Get the session token that keeps the source from returning the same questions twice
+     * @return the session token, or null if the source has none
+     */
+    String getSessionToken();
+
+    /**
+     * Get the known state of the session token
+     * @return the state of the session token
+     */
+    TriviaApiTokenStateEnum getTokenState();
+
+    /**
+     * Resets the session token if it is exhausted, or retrieves a new one if it is missing
+     * @return a CompletableFuture that will contain true if the source can serve questions, false otherwise
+     */
+    CompletableFuture<Boolean> refreshSessionTokenAsync();
+
+    /**
+     * Check if the source is expected to answer, without making a request
+     * @return true if the source is available, false if it is known to be down
+     */
+    boolean isAvailable();
+}
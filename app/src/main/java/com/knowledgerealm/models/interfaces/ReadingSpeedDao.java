@@ -0,0 +1,28 @@
+package com.knowledgerealm.models.interfaces;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.knowledgerealm.models.ReadingSpeed;
+
+/**
+ * Interface for ReadingSpeedDao
+ */
+@Dao
+public interface ReadingSpeedDao {
+    /**
+     * Insert the reading speed, or replace the stored one
+     * @param readingSpeed ReadingSpeed object
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertOrReplace(ReadingSpeed readingSpeed);
+
+    /**
+     * Get the reading speed
+     * @return ReadingSpeed object, or null if none is stored
+     */
+    @Query("SELECT * FROM reading_speed LIMIT 1")
+    ReadingSpeed getReadingSpeed();
+}
@@ -2,11 +2,14 @@ package com.knowledgerealm.models.interfaces;
 
 import androidx.room.Dao;
 import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
 import androidx.room.Update;
 
 import com.knowledgerealm.models.Token;
 
+import java.util.List;
+
 /**
  * Interface for the token database
  */
@@ -33,5 +36,19 @@ public interface TokenDao {
      */
     @Query("SELECT * FROM token WHERE id = :id")
     Token getById(int id);
+
+    /**
+     * Insert a token into the database, or replace the token with the same id
+     * @param token the token to insert or replace
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertOrReplace(Token token);
+
+    /**
+     * Get all the tokens of the token pool
+     * @return the tokens, or an empty list if none is stored
+     */
+    @Query("SELECT * FROM token")
+    List<Token> getAll();
 }
 
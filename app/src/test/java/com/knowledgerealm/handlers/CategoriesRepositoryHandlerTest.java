@@ -0,0 +1,155 @@
+package com.knowledgerealm.handlers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
+import com.knowledgerealm.helpers.CategoriesResponseHelper;
+import com.knowledgerealm.models.Category;
+import com.knowledgerealm.models.interfaces.CategoryDao;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Local unit tests for the CategoriesRepositoryHandler, with an in-memory database, a virtual clock,
+ * a fake catalogue request and the database work run on the calling thread.
+ */
+public class CategoriesRepositoryHandlerTest {
+    private static final List<String> STORED_CATEGORIES = Arrays.asList("General Knowledge", "History", "Geography");
+    private static final List<String> FETCHED_CATEGORIES = Arrays.asList("General Knowledge", "History", "Geography", "Art");
+
+    /**
+     * Keeps the categories in a list, like the database would
+     */
+    private static class InMemoryCategoryDao implements CategoryDao {
+        final List<Category> categories = new ArrayList<>();
+
+        @Override
+        public synchronized void insertAll(List<Category> categories) {
+            this.categories.addAll(categories);
+        }
+
+        @Override
+        public synchronized List<Category> getAll() {
+            return new ArrayList<>(categories);
+        }
+
+        @Override
+        public synchronized void deleteAll() {
+            categories.clear();
+        }
+    }
+
+    private final InMemoryCategoryDao categoryDao = new InMemoryCategoryDao();
+    private final List<List<String>> notifiedCategories = new ArrayList<>();
+    private final CategoriesRepositoryHandler.OnCategoriesChangedListener listener = notifiedCategories::add;
+    private List<String> apiCategories = FETCHED_CATEGORIES;
+    private int fetchCount;
+    private long now = CategoriesRepositoryHandler.DEFAULT_TIME_TO_LIVE;
+
+    @Test
+    public void firstRequest_misses_thenTheStoredCatalogueIsServedFromMemory() {
+        storeCategories(STORED_CATEGORIES);
+        CategoriesRepositoryHandler categoriesRepository = createRepository();
+
+        assertEquals(enumCategories(), categoriesRepository.getCategories(listener));
+        assertEquals(STORED_CATEGORIES, categoriesRepository.getCategories(listener));
+        assertEquals(STORED_CATEGORIES, categoriesRepository.getCategories(listener));
+
+        assertEquals(1, categoriesRepository.getCacheMisses());
+        assertEquals(2, categoriesRepository.getCacheHits());
+        assertEquals(1, notifiedCategories.size());
+        assertEquals(STORED_CATEGORIES, notifiedCategories.get(0));
+        assertEquals(0, fetchCount);
+    }
+
+    @Test
+    public void storedCatalogue_isRevalidated_onlyAfterTheTimeToLive() {
+        storeCategories(STORED_CATEGORIES);
+        CategoriesRepositoryHandler categoriesRepository = createRepository();
+        categoriesRepository.getCategories(listener);
+
+        now += CategoriesRepositoryHandler.DEFAULT_TIME_TO_LIVE - 1;
+        categoriesRepository.getCategories(listener);
+        assertEquals(0, fetchCount);
+
+        now += 1;
+        categoriesRepository.getCategories(listener);
+
+        assertEquals(1, fetchCount);
+        assertEquals(FETCHED_CATEGORIES, categoriesRepository.getCategories(listener));
+        assertEquals(FETCHED_CATEGORIES, notifiedCategories.get(notifiedCategories.size() - 1));
+        assertEquals(FETCHED_CATEGORIES.size(), categoryDao.getAll().size());
+        assertEquals(now, categoryDao.getAll().get(0).getTimestamp());
+
+        categoriesRepository.getCategories(listener);
+        assertEquals(1, fetchCount);
+    }
+
+    @Test
+    public void unchangedCatalogue_doesNotNotifyTheListener() {
+        storeCategories(STORED_CATEGORIES);
+        CategoriesRepositoryHandler categoriesRepository = createRepository();
+        categoriesRepository.getCategories(listener);
+        notifiedCategories.clear();
+
+        apiCategories = STORED_CATEGORIES;
+        now += CategoriesRepositoryHandler.DEFAULT_TIME_TO_LIVE;
+        categoriesRepository.getCategories(listener);
+
+        assertEquals(1, fetchCount);
+        assertTrue(notifiedCategories.isEmpty());
+        assertEquals(now, categoryDao.getAll().get(0).getTimestamp());
+    }
+
+    @Test
+    public void noStoredCatalogue_isFetched_andNotifiedOnlyIfItDiffersFromTheEnum() {
+        CategoriesRepositoryHandler categoriesRepository = createRepository();
+        apiCategories = enumCategories();
+
+        assertEquals(enumCategories(), categoriesRepository.getCategories(listener));
+
+        assertEquals(1, fetchCount);
+        assertTrue(notifiedCategories.isEmpty());
+        assertEquals(enumCategories().size(), categoryDao.getAll().size());
+        assertEquals(enumCategories(), categoriesRepository.getCategories(listener));
+        assertEquals(1, categoriesRepository.getCacheHits());
+    }
+
+    private CategoriesRepositoryHandler createRepository() {
+        return new CategoriesRepositoryHandler(categoryDao, () -> {
+            fetchCount++;
+            return CompletableFuture.completedFuture(new CategoriesResponseHelper(apiCategories, true));
+        }, () -> now, Runnable::run);
+    }
+
+    /**
+     * Stores the catalogue as if it was fetched now
+     */
+    private void storeCategories(List<String> categoryNames) {
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < categoryNames.size(); i++) {
+            Category category = new Category();
+            category.setName(categoryNames.get(i));
+            category.setPosition(i);
+            category.setTimestamp(now);
+            categories.add(category);
+        }
+        categoryDao.replaceAll(categories);
+    }
+
+    private static List<String> enumCategories() {
+        List<String> enumCategories = new ArrayList<>();
+        for (TriviaApiCategoriesEnum category : TriviaApiCategoriesEnum.values()) {
+            if (category != TriviaApiCategoriesEnum.NO_CATEGORY) {
+                enumCategories.add(category.getName());
+            }
+        }
+        return enumCategories;
+    }
+}
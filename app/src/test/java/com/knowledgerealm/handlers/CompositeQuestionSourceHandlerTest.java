@@ -0,0 +1,179 @@
+package com.knowledgerealm.handlers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
+import com.knowledgerealm.enums.TriviaApiDifficultyEnum;
+import com.knowledgerealm.enums.TriviaApiResponseCodeEnum;
+import com.knowledgerealm.enums.TriviaApiTokenStateEnum;
+import com.knowledgerealm.helpers.CategoriesResponseHelper;
+import com.knowledgerealm.helpers.TriviaResponseHelper;
+import com.knowledgerealm.models.TriviaQuestion;
+import com.knowledgerealm.models.interfaces.QuestionSource;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Local unit tests for the CompositeQuestionSourceHandler, with fake sources that answer after a latency
+ * and record the requests they receive.
+ */
+public class CompositeQuestionSourceHandlerTest {
+    private static final int AMOUNT = 10;
+
+    /**
+     * Answers with up to a number of questions after sleeping for its latency, so the composite measures it
+     */
+    private static class FakeQuestionSource implements QuestionSource {
+        private final String name;
+        private final List<String> requests;
+        private final long latency;
+        private final int availableQuestions;
+        private int questionCount;
+
+        FakeQuestionSource(String name, List<String> requests, long latency, int availableQuestions) {
+            this.name = name;
+            this.requests = requests;
+            this.latency = latency;
+            this.availableQuestions = availableQuestions;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public CompletableFuture<TriviaResponseHelper> getTriviaQuestionsAsync(TriviaApiCategoriesEnum category, TriviaApiDifficultyEnum difficulty, String type, int amount) {
+            requests.add(name + ":" + amount);
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (availableQuestions == 0) {
+                return CompletableFuture.completedFuture(new TriviaResponseHelper(new ArrayList<>(), false, TriviaApiResponseCodeEnum.NO_RESULTS.getResponseCode()));
+            }
+
+            List<TriviaQuestion> questions = new ArrayList<>();
+            for (int i = 0; i < Math.min(amount, availableQuestions); i++) {
+                questions.add(new TriviaQuestion(name + " question " + questionCount++, "Right",
+                        Arrays.asList("Wrong 1", "Wrong 2", "Wrong 3"), category, difficulty));
+            }
+            return CompletableFuture.completedFuture(new TriviaResponseHelper(questions, true));
+        }
+
+        @Override
+        public CompletableFuture<CategoriesResponseHelper> getCategoriesAsync() {
+            return CompletableFuture.completedFuture(new CategoriesResponseHelper(new ArrayList<>(), false));
+        }
+
+        @Override
+        public String getSessionToken() {
+            return null;
+        }
+
+        @Override
+        public TriviaApiTokenStateEnum getTokenState() {
+            return TriviaApiTokenStateEnum.VALID;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> refreshSessionTokenAsync() {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+    }
+
+    @Test
+    public void sourcesNotMeasuredYet_keepTheirPriority() {
+        List<String> requests = new ArrayList<>();
+        FakeQuestionSource api = new FakeQuestionSource("api", requests, 50, AMOUNT);
+        FakeQuestionSource bank = new FakeQuestionSource("bank", requests, 0, AMOUNT);
+        CompositeQuestionSourceHandler questionSource = new CompositeQuestionSourceHandler(Arrays.asList(api, bank));
+
+        fetch(questionSource);
+        assertTrue(questionSource.getLatency(api) >= 50);
+        assertEquals(-1, questionSource.getLatency(bank));
+
+        // the bank was not measured, so it is not taken for the fastest source
+        fetch(questionSource);
+        assertEquals(Arrays.asList("api:10", "api:10"), requests);
+    }
+
+    @Test
+    public void measuredSources_areOrderedByLatency() {
+        List<String> requests = new ArrayList<>();
+        FakeQuestionSource api = new FakeQuestionSource("api", requests, 50, 4);
+        FakeQuestionSource bank = new FakeQuestionSource("bank", requests, 0, AMOUNT);
+        FakeQuestionSource pack = new FakeQuestionSource("pack", requests, 0, AMOUNT);
+        CompositeQuestionSourceHandler questionSource = new CompositeQuestionSourceHandler(Arrays.asList(api, bank, pack));
+
+        fetch(questionSource);
+        assertTrue(questionSource.getLatency(bank) < questionSource.getLatency(api));
+
+        requests.clear();
+        fetch(questionSource);
+        assertEquals(Arrays.asList("bank:10"), requests);
+    }
+
+    @Test
+    public void shortResult_fallsThroughForTheMissingQuestions() {
+        List<String> requests = new ArrayList<>();
+        FakeQuestionSource api = new FakeQuestionSource("api", requests, 0, 4);
+        FakeQuestionSource bank = new FakeQuestionSource("bank", requests, 0, 0);
+        FakeQuestionSource pack = new FakeQuestionSource("pack", requests, 0, AMOUNT);
+        CompositeQuestionSourceHandler questionSource = new CompositeQuestionSourceHandler(Arrays.asList(api, bank, pack));
+
+        TriviaResponseHelper triviaResponse = fetch(questionSource);
+
+        assertTrue(triviaResponse.isSuccess());
+        assertEquals(AMOUNT, triviaResponse.getTriviaQuestions().size());
+        assertEquals("api question 3", triviaResponse.getTriviaQuestions().get(3).getQuestion());
+        assertEquals("pack question 0", triviaResponse.getTriviaQuestions().get(4).getQuestion());
+        assertEquals(Arrays.asList("api:10", "bank:6", "pack:6"), requests);
+    }
+
+    @Test
+    public void shortResults_ofAllTheSources_areServedTogether() {
+        List<String> requests = new ArrayList<>();
+        FakeQuestionSource api = new FakeQuestionSource("api", requests, 0, 4);
+        FakeQuestionSource bank = new FakeQuestionSource("bank", requests, 0, 3);
+        CompositeQuestionSourceHandler questionSource = new CompositeQuestionSourceHandler(Arrays.asList(api, bank));
+
+        TriviaResponseHelper triviaResponse = fetch(questionSource);
+
+        assertTrue(triviaResponse.isSuccess());
+        assertEquals(7, triviaResponse.getTriviaQuestions().size());
+        assertEquals(Arrays.asList("api:10", "bank:6"), requests);
+    }
+
+    @Test
+    public void replacedSource_keepsTheLatencyMeasuredAtItsPlace() {
+        List<String> requests = new ArrayList<>();
+        FakeQuestionSource api = new FakeQuestionSource("api", requests, 50, AMOUNT);
+        FakeQuestionSource bank = new FakeQuestionSource("bank", requests, 0, AMOUNT);
+        CompositeQuestionSourceHandler questionSource = new CompositeQuestionSourceHandler(Arrays.asList(api, bank));
+        fetch(questionSource);
+        long apiLatency = questionSource.getLatency(api);
+
+        FakeQuestionSource nextGameApi = new FakeQuestionSource("next game api", requests, 50, AMOUNT);
+        questionSource.setSource(0, nextGameApi);
+
+        assertEquals(apiLatency, questionSource.getLatency(nextGameApi));
+        assertEquals(-1, questionSource.getLatency(api));
+    }
+
+    private static TriviaResponseHelper fetch(CompositeQuestionSourceHandler questionSource) {
+        return questionSource.getTriviaQuestionsAsync(TriviaApiCategoriesEnum.HISTORY, TriviaApiDifficultyEnum.EASY, null, AMOUNT).join();
+    }
+}
@@ -0,0 +1,291 @@
+package com.knowledgerealm.handlers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.knowledgerealm.enums.QuestionPointsEnum;
+import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
+import com.knowledgerealm.enums.TriviaApiDifficultyEnum;
+import com.knowledgerealm.helpers.ClockHelper;
+import com.knowledgerealm.helpers.ReadingSpeedModelHelper;
+import com.knowledgerealm.helpers.TextReadTimeEstimatorHelper;
+import com.knowledgerealm.models.TriviaQuestion;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Local unit tests for the GameSessionHandler, played on a virtual clock.
+ */
+public class GameSessionHandlerTest {
+    private static final int MAX_QUESTIONS = 10;
+    private static final long REVEAL_DURATION = 1500;
+
+    private static final List<TriviaQuestion> QUESTIONS = createQuestions();
+
+    private static List<TriviaQuestion> createQuestions() {
+        List<TriviaQuestion> questions = new ArrayList<>(MAX_QUESTIONS);
+        for (int i = 0; i < MAX_QUESTIONS; i++) {
+            questions.add(new TriviaQuestion("Which answer of question " + i + " is correct?", "Correct",
+                    Arrays.asList("Wrong 1", "Wrong 2", "Wrong 3"), TriviaApiCategoriesEnum.getEnum(9), TriviaApiDifficultyEnum.EASY));
+        }
+        return questions;
+    }
+
+    /**
+     * Runs the tasks of the session in the order of their virtual time, on the calling thread
+     */
+    private static class VirtualTimer implements ClockHelper.Clock, ClockHelper.Timer {
+        private final PriorityQueue<long[]> taskTimes = new PriorityQueue<>((first, second) -> first[0] != second[0]
+                ? Long.compare(first[0], second[0]) : Long.compare(first[1], second[1]));
+        private final List<Runnable> tasks = new ArrayList<>();
+        private long now;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+
+        @Override
+        public void schedule(Runnable task, long delayMillis) {
+            taskTimes.add(new long[]{now + delayMillis, tasks.size()});
+            tasks.add(task);
+        }
+
+        /**
+         * Runs the tasks due until the given time
+         */
+        void advanceTo(long time) {
+            runUntil(time);
+            now = Math.max(now, time);
+        }
+
+        /**
+         * Runs all the tasks, the clock stops at the last one
+         */
+        void runAll() {
+            runUntil(Long.MAX_VALUE);
+        }
+
+        private void runUntil(long time) {
+            while (!taskTimes.isEmpty() && taskTimes.peek()[0] <= time) {
+                long[] taskTime = taskTimes.poll();
+                now = taskTime[0];
+                tasks.get((int) taskTime[1]).run();
+            }
+        }
+    }
+
+    /**
+     * Answers every question as soon as it is shown, correctly, wrongly or not at all
+     */
+    private static class AnsweringListener implements GameSessionHandler.Listener {
+        GameSessionHandler gameSession;
+        GameSessionHandler.Result result;
+        int startedQuestions;
+        long lastTimeBudget;
+        int revealedAnswers;
+        boolean answerCorrectly = true;
+        boolean answerWrongly;
+
+        @Override
+        public void onQuestionStarted(int questionNumber, TriviaQuestion question, long timeBudget) {
+            startedQuestions++;
+            lastTimeBudget = timeBudget;
+            if (answerCorrectly) {
+                gameSession.answer(question.getCorrectAnswerIndex());
+            } else if (answerWrongly) {
+                gameSession.answer((question.getCorrectAnswerIndex() + 1) % question.getAnswerCount());
+            }
+        }
+
+        @Override
+        public void onAnswerRevealed(int questionNumber, int answerIndex, int correctAnswerIndex, int points) {
+            revealedAnswers++;
+        }
+
+        @Override
+        public void onGameFinished(GameSessionHandler.Result result) {
+            this.result = result;
+        }
+    }
+
+    private static GameSessionHandler createSession(VirtualTimer timer, AnsweringListener listener, GameSessionHandler.QuestionProvider questionProvider) {
+        return createSession(timer, listener, questionProvider, new ReadingSpeedModelHelper());
+    }
+
+    private static GameSessionHandler createSession(VirtualTimer timer, AnsweringListener listener, GameSessionHandler.QuestionProvider questionProvider,
+                                                    ReadingSpeedModelHelper readingSpeedModel) {
+        GameSessionHandler gameSession = new GameSessionHandler(questionProvider, timer, timer, listener, MAX_QUESTIONS, REVEAL_DURATION, readingSpeedModel);
+        listener.gameSession = gameSession;
+        return gameSession;
+    }
+
+    /**
+     * A model of a player who reads faster than average, so its time budgets differ from the average estimate
+     */
+    private static ReadingSpeedModelHelper createFastReaderModel() {
+        return new ReadingSpeedModelHelper(300, ReadingSpeedModelHelper.MIN_SAMPLES);
+    }
+
+    private static CompletableFuture<TriviaQuestion> getQuestion(int questionNumber) {
+        return CompletableFuture.completedFuture(QUESTIONS.get(questionNumber));
+    }
+
+    @Test
+    public void correctAnswers_scoreThePointsOfTheDifficulty() {
+        VirtualTimer timer = new VirtualTimer();
+        AnsweringListener listener = new AnsweringListener();
+        createSession(timer, listener, GameSessionHandlerTest::getQuestion).start();
+        timer.runAll();
+
+        assertNotNull(listener.result);
+        assertEquals(MAX_QUESTIONS, listener.result.getCorrectAnswers());
+        assertEquals(MAX_QUESTIONS * QuestionPointsEnum.EASY.getPoints(), listener.result.getPoints());
+        assertEquals(MAX_QUESTIONS, listener.result.getPlayedQuestions());
+    }
+
+    @Test
+    public void wrongAnswers_scoreNothing() {
+        VirtualTimer timer = new VirtualTimer();
+        AnsweringListener listener = new AnsweringListener();
+        listener.answerCorrectly = false;
+        listener.answerWrongly = true;
+        createSession(timer, listener, GameSessionHandlerTest::getQuestion).start();
+        timer.runAll();
+
+        assertEquals(0, listener.result.getCorrectAnswers());
+        assertEquals(0, listener.result.getPoints());
+        assertEquals(MAX_QUESTIONS, listener.revealedAnswers);
+    }
+
+    @Test
+    public void unansweredQuestion_timesOutAfterItsTimeBudget() {
+        VirtualTimer timer = new VirtualTimer();
+        AnsweringListener listener = new AnsweringListener();
+        listener.answerCorrectly = false;
+        ReadingSpeedModelHelper readingSpeedModel = createFastReaderModel();
+        GameSessionHandler gameSession = createSession(timer, listener, GameSessionHandlerTest::getQuestion, readingSpeedModel);
+
+        long timeBudget = readingSpeedModel.getTimeBudget(QUESTIONS.get(0).getWordCount());
+        assertNotEquals(TextReadTimeEstimatorHelper.estimateReadTime(QUESTIONS.get(0).getWordCount()), timeBudget);
+        gameSession.start();
+        timer.advanceTo(0);
+        assertEquals(timeBudget, listener.lastTimeBudget);
+        assertEquals(timeBudget, gameSession.getRemainingTime());
+
+        timer.advanceTo(timeBudget - 1);
+        assertEquals(0, listener.revealedAnswers);
+
+        timer.advanceTo(timeBudget);
+        assertEquals(1, listener.revealedAnswers);
+        assertEquals(0, gameSession.getRemainingTime());
+
+        // a late answer is ignored
+        gameSession.answer(QUESTIONS.get(0).getCorrectAnswerIndex());
+        assertEquals(0, gameSession.getPoints());
+    }
+
+    @Test
+    public void missingQuestion_endsTheGameEarly() {
+        VirtualTimer timer = new VirtualTimer();
+        AnsweringListener listener = new AnsweringListener();
+        createSession(timer, listener, questionNumber -> questionNumber < 3
+                ? getQuestion(questionNumber) : CompletableFuture.completedFuture(null)).start();
+        timer.runAll();
+
+        assertEquals(3, listener.result.getPlayedQuestions());
+        assertEquals(3, listener.result.getCorrectAnswers());
+    }
+
+    @Test
+    public void pendingQuestion_startsWhenItArrives() {
+        VirtualTimer timer = new VirtualTimer();
+        AnsweringListener listener = new AnsweringListener();
+        CompletableFuture<TriviaQuestion> pendingQuestion = new CompletableFuture<>();
+        createSession(timer, listener, questionNumber -> questionNumber == 1 ? pendingQuestion : getQuestion(questionNumber)).start();
+        timer.runAll();
+
+        assertEquals(1, listener.startedQuestions);
+        assertNull(listener.result);
+
+        pendingQuestion.complete(QUESTIONS.get(1));
+        timer.runAll();
+        assertEquals(MAX_QUESTIONS, listener.startedQuestions);
+        assertNotNull(listener.result);
+    }
+
+    @Test
+    public void cancelledSession_ignoresItsScheduledTasks() {
+        VirtualTimer timer = new VirtualTimer();
+        AnsweringListener listener = new AnsweringListener();
+        GameSessionHandler gameSession = createSession(timer, listener, GameSessionHandlerTest::getQuestion);
+        gameSession.start();
+        timer.advanceTo(0);
+        gameSession.cancel();
+        timer.runAll();
+
+        assertTrue(gameSession.isFinished());
+        assertEquals(1, listener.startedQuestions);
+        assertNull(listener.result);
+        assertFalse(gameSession.getRemainingTime() > 0);
+    }
+
+    @Test
+    public void pausedSession_keepsTheTimeOfTheQuestion() {
+        VirtualTimer timer = new VirtualTimer();
+        AnsweringListener listener = new AnsweringListener();
+        listener.answerCorrectly = false;
+        ReadingSpeedModelHelper readingSpeedModel = createFastReaderModel();
+        GameSessionHandler gameSession = createSession(timer, listener, GameSessionHandlerTest::getQuestion, readingSpeedModel);
+
+        long timeBudget = readingSpeedModel.getTimeBudget(QUESTIONS.get(0).getWordCount());
+        gameSession.start();
+        timer.advanceTo(1000);
+        gameSession.pause();
+        timer.advanceTo(1000 + 10 * timeBudget);
+        assertEquals(0, listener.revealedAnswers);
+        assertEquals(timeBudget - 1000, gameSession.getRemainingTime());
+
+        // answers are ignored while paused
+        gameSession.answer(QUESTIONS.get(0).getCorrectAnswerIndex());
+        assertEquals(0, gameSession.getPoints());
+
+        gameSession.resume();
+        long resumeTime = timer.currentTimeMillis();
+        timer.advanceTo(resumeTime + timeBudget - 1001);
+        assertEquals(0, listener.revealedAnswers);
+        timer.advanceTo(resumeTime + timeBudget - 1000);
+        assertEquals(1, listener.revealedAnswers);
+    }
+
+    @Test
+    public void questionArrivingWhilePaused_startsOnResume() {
+        VirtualTimer timer = new VirtualTimer();
+        AnsweringListener listener = new AnsweringListener();
+        CompletableFuture<TriviaQuestion> pendingQuestion = new CompletableFuture<>();
+        GameSessionHandler gameSession = createSession(timer, listener,
+                questionNumber -> questionNumber == 1 ? pendingQuestion : getQuestion(questionNumber));
+        gameSession.start();
+        timer.runAll();
+
+        gameSession.pause();
+        pendingQuestion.complete(QUESTIONS.get(1));
+        timer.runAll();
+        assertEquals(1, listener.startedQuestions);
+
+        gameSession.resume();
+        timer.runAll();
+        assertEquals(MAX_QUESTIONS, listener.startedQuestions);
+        assertNotNull(listener.result);
+    }
+}
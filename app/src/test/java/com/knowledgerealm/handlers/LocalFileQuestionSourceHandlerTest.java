@@ -0,0 +1,102 @@
+package com.knowledgerealm.handlers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
+import com.knowledgerealm.enums.TriviaApiDifficultyEnum;
+import com.knowledgerealm.enums.TriviaApiResponseCodeEnum;
+import com.knowledgerealm.helpers.TriviaResponseHelper;
+import com.knowledgerealm.models.TriviaQuestion;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Local unit tests for the LocalFileQuestionSourceHandler, with question packs written to a temporary folder.
+ */
+public class LocalFileQuestionSourceHandlerTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void packWithUnknownFields_isLoadedWithoutThem() throws IOException {
+        LocalFileQuestionSourceHandler questionSource = LocalFileQuestionSourceHandler.fromFile(writePack("pack.ndjson",
+                question("Known question", "History", "easy"),
+                question("Question without difficulty", "History", null),
+                question("Question of an unknown category", "Cooking", "medium"),
+                question("Question of an unknown difficulty", "History", "extreme")));
+
+        assertTrue(questionSource.loadAsync().join());
+        List<TriviaQuestion> questions = questionSource.getTriviaQuestionsAsync(null, null, null, 4).join().getTriviaQuestions();
+
+        assertEquals(4, questions.size());
+        assertEquals(TriviaApiDifficultyEnum.EASY, questions.get(0).getDifficulty());
+        assertNull(questions.get(1).getDifficulty());
+        assertEquals(0, questions.get(1).getPoints());
+        assertNull(questions.get(2).getCategory());
+        assertEquals(TriviaApiDifficultyEnum.MEDIUM, questions.get(2).getDifficulty());
+        assertNull(questions.get(3).getDifficulty());
+        assertEquals(Arrays.asList("History"), questionSource.getCategoriesAsync().join().categories);
+    }
+
+    @Test
+    public void questionsWithoutDifficulty_matchOnlyAnyDifficulty() throws IOException {
+        LocalFileQuestionSourceHandler questionSource = LocalFileQuestionSourceHandler.fromFile(writePack("pack.ndjson",
+                question("Question without difficulty", "History", null),
+                question("Easy question", "History", "easy")));
+
+        TriviaResponseHelper easyQuestions = questionSource.getTriviaQuestionsAsync(TriviaApiCategoriesEnum.HISTORY, TriviaApiDifficultyEnum.EASY, null, 2).join();
+        TriviaResponseHelper hardQuestions = questionSource.getTriviaQuestionsAsync(TriviaApiCategoriesEnum.HISTORY, TriviaApiDifficultyEnum.HARD, null, 2).join();
+
+        assertEquals(1, easyQuestions.getTriviaQuestions().size());
+        assertEquals("Easy question", easyQuestions.getTriviaQuestions().get(0).getQuestion());
+        assertFalse(hardQuestions.isSuccess());
+        assertEquals(TriviaApiResponseCodeEnum.NO_RESULTS.getResponseCode(), hardQuestions.getResponseCode());
+    }
+
+    @Test
+    public void exhaustedPack_startsOverFromTheCursor() throws IOException {
+        LocalFileQuestionSourceHandler questionSource = LocalFileQuestionSourceHandler.fromFile(writePack("pack.ndjson",
+                question("Question 0", "History", "easy"),
+                question("Question 1", "History", "easy"),
+                question("Question 2", "History", "easy")));
+
+        List<TriviaQuestion> firstQuestions = questionSource.getTriviaQuestionsAsync(null, null, null, 2).join().getTriviaQuestions();
+        List<TriviaQuestion> nextQuestions = questionSource.getTriviaQuestionsAsync(null, null, null, 2).join().getTriviaQuestions();
+
+        assertEquals(Arrays.asList("Question 0", "Question 1"), getTexts(firstQuestions));
+        assertEquals(Arrays.asList("Question 2", "Question 0"), getTexts(nextQuestions));
+    }
+
+    private File writePack(String fileName, String... lines) throws IOException {
+        File pack = temporaryFolder.newFile(fileName);
+        Files.write(pack.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+        return pack;
+    }
+
+    private static String question(String text, String category, String difficulty) {
+        return "{\"type\":\"multiple\"," + (difficulty != null ? "\"difficulty\":\"" + difficulty + "\"," : "")
+                + "\"category\":\"" + category + "\",\"question\":\"" + text + "\",\"correct_answer\":\"Right\","
+                + "\"incorrect_answers\":[\"Wrong 1\",\"Wrong 2\",\"Wrong 3\"]}";
+    }
+
+    private static List<String> getTexts(List<TriviaQuestion> questions) {
+        List<String> texts = new ArrayList<>(questions.size());
+        for (TriviaQuestion question : questions) {
+            texts.add(question.getQuestion());
+        }
+        return texts;
+    }
+}
@@ -0,0 +1,130 @@
+package com.knowledgerealm.handlers;
+
+import static org.junit.Assert.assertEquals;
+
+import com.knowledgerealm.models.StoredQuestion;
+import com.knowledgerealm.models.interfaces.QuestionDao;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Local unit tests for the size cap of the offline question bank, with the questions kept in memory
+ */
+public class QuestionBankHandlerTest {
+
+    /**
+     * Keeps the questions in memory, with the same eviction order as the queries of the dao
+     */
+    private static class InMemoryQuestionDao implements QuestionDao {
+        final List<StoredQuestion> questions = new ArrayList<>();
+        private long nextId = 1;
+
+        void store(int amount, boolean seen, long timestamp) {
+            for (int i = 0; i < amount; i++) {
+                StoredQuestion storedQuestion = new StoredQuestion();
+                storedQuestion.setId(nextId++);
+                storedQuestion.setSeen(seen);
+                storedQuestion.setTimestamp(timestamp);
+                questions.add(storedQuestion);
+            }
+        }
+
+        int countSeen() {
+            int seen = 0;
+            for (StoredQuestion storedQuestion : questions) {
+                if (storedQuestion.isSeen()) {
+                    seen++;
+                }
+            }
+            return seen;
+        }
+
+        @Override
+        public void insertAll(List<StoredQuestion> questions) {
+            this.questions.addAll(questions);
+        }
+
+        @Override
+        public List<StoredQuestion> getRandomUnseen(int categoryId, String difficulty, String type, int amount) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int countUnseen(int categoryId, String difficulty) {
+            return questions.size() - countSeen();
+        }
+
+        @Override
+        public void markSeen(List<Long> ids, long timestamp) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int count() {
+            return questions.size();
+        }
+
+        @Override
+        public void deleteOldestSeen(int amount) {
+            delete(true, amount);
+        }
+
+        @Override
+        public void deleteOldestUnseen(int amount) {
+            delete(false, amount);
+        }
+
+        private void delete(boolean seen, int amount) {
+            List<StoredQuestion> candidates = new ArrayList<>();
+            for (StoredQuestion storedQuestion : questions) {
+                if (storedQuestion.isSeen() == seen) {
+                    candidates.add(storedQuestion);
+                }
+            }
+            candidates.sort(Comparator.comparingLong(StoredQuestion::getTimestamp).thenComparingLong(StoredQuestion::getId));
+            questions.removeAll(candidates.subList(0, Math.min(amount, candidates.size())));
+        }
+    }
+
+    @Test
+    public void underTheCap_nothingIsEvicted() {
+        InMemoryQuestionDao questionDao = new InMemoryQuestionDao();
+        questionDao.store(QuestionBankHandler.MAX_STORED_QUESTIONS, false, 1);
+
+        QuestionBankHandler.evictQuestions(questionDao);
+
+        assertEquals(QuestionBankHandler.MAX_STORED_QUESTIONS, questionDao.count());
+    }
+
+    @Test
+    public void servedQuestions_areEvictedFirst() {
+        InMemoryQuestionDao questionDao = new InMemoryQuestionDao();
+        questionDao.store(100, true, 5);
+        questionDao.store(QuestionBankHandler.MAX_STORED_QUESTIONS, false, 1);
+
+        QuestionBankHandler.evictQuestions(questionDao);
+
+        assertEquals(QuestionBankHandler.MAX_STORED_QUESTIONS, questionDao.count());
+        assertEquals(0, questionDao.countSeen());
+    }
+
+    @Test
+    public void withoutServedQuestions_theOldestUnseenAreEvicted() {
+        InMemoryQuestionDao questionDao = new InMemoryQuestionDao();
+        questionDao.store(10, true, 5);
+        questionDao.store(QuestionBankHandler.MAX_STORED_QUESTIONS, false, 1);
+        questionDao.store(QuestionBankHandler.REFILL_AMOUNT, false, 2);
+
+        QuestionBankHandler.evictQuestions(questionDao);
+
+        assertEquals(QuestionBankHandler.MAX_STORED_QUESTIONS, questionDao.count());
+        assertEquals(0, questionDao.countSeen());
+        // the 50 oldest unseen questions make room, the refill that was just stored is kept
+        assertEquals(61, questionDao.questions.get(0).getId());
+        assertEquals(2, questionDao.questions.get(questionDao.count() - 1).getTimestamp());
+    }
+}
@@ -0,0 +1,177 @@
+package com.knowledgerealm.handlers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
+import com.knowledgerealm.enums.TriviaApiDifficultyEnum;
+import com.knowledgerealm.models.QuestionCount;
+import com.knowledgerealm.models.interfaces.QuestionCountDao;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * Local unit tests for the QuestionCountIndexHandler, with an in-memory database, a virtual clock
+ * and a mock server for the count requests.
+ */
+public class QuestionCountIndexHandlerTest {
+    private static final int AMOUNT = 10;
+    private static final TriviaApiCategoriesEnum CATEGORY = TriviaApiCategoriesEnum.HISTORY;
+
+    /**
+     * Keeps the question counts in a list, like the database would
+     */
+    private static class InMemoryQuestionCountDao implements QuestionCountDao {
+        final List<QuestionCount> questionCounts = new ArrayList<>();
+
+        @Override
+        public synchronized void insertOrReplace(QuestionCount questionCount) {
+            questionCounts.removeIf(storedCount -> storedCount.getCategoryId() == questionCount.getCategoryId());
+            questionCounts.add(questionCount);
+        }
+
+        @Override
+        public synchronized List<QuestionCount> getAll() {
+            return new ArrayList<>(questionCounts);
+        }
+    }
+
+    private MockWebServer server;
+    private TriviaApiHandler triviaApiHandler;
+    private final InMemoryQuestionCountDao questionCountDao = new InMemoryQuestionCountDao();
+    private long now = QuestionCountIndexHandler.TIME_TO_LIVE;
+
+    @Before
+    public void startServer() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        triviaApiHandler = new TriviaApiHandler(null, server.url("").toString().replaceAll("/$", ""));
+    }
+
+    @After
+    public void stopServer() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void enoughQuestions_keepTheChosenDifficulty() {
+        QuestionCountIndexHandler questionCountIndex = createIndex(50, 20, 20, 10);
+
+        QuestionCountIndexHandler.GamePlan gamePlan = questionCountIndex.planGame(CATEGORY, TriviaApiDifficultyEnum.MEDIUM, AMOUNT);
+
+        assertTrue(gamePlan.isCountKnown());
+        assertEquals(AMOUNT, gamePlan.getAmount());
+        assertEquals(1, gamePlan.getParts().size());
+        assertEquals(TriviaApiDifficultyEnum.MEDIUM, gamePlan.getDifficulty());
+        assertEquals(20, gamePlan.getParts().get(0).getAvailableQuestions());
+    }
+
+    @Test
+    public void shortDifficulty_keepsItsQuestions_andTopsUpWithTheClosestDifficulty() {
+        QuestionCountIndexHandler questionCountIndex = createIndex(30, 20, 6, 4);
+
+        QuestionCountIndexHandler.GamePlan gamePlan = questionCountIndex.planGame(CATEGORY, TriviaApiDifficultyEnum.HARD, AMOUNT);
+
+        assertEquals(AMOUNT, gamePlan.getAmount());
+        assertEquals(TriviaApiDifficultyEnum.HARD, gamePlan.getDifficulty());
+        assertEquals(2, gamePlan.getParts().size());
+        assertEquals(4, gamePlan.getParts().get(0).getAmount());
+        assertEquals(TriviaApiDifficultyEnum.MEDIUM, gamePlan.getParts().get(1).getDifficulty());
+        assertEquals(6, gamePlan.getParts().get(1).getAmount());
+        assertEquals(6, gamePlan.getParts().get(1).getAvailableQuestions());
+    }
+
+    @Test
+    public void shortCategory_shortensTheGame() {
+        QuestionCountIndexHandler questionCountIndex = createIndex(7, 3, 2, 2);
+
+        QuestionCountIndexHandler.GamePlan gamePlan = questionCountIndex.planGame(CATEGORY, TriviaApiDifficultyEnum.EASY, AMOUNT);
+
+        assertEquals(7, gamePlan.getAmount());
+        assertEquals(TriviaApiDifficultyEnum.EASY, gamePlan.getDifficulty());
+        assertEquals(3, gamePlan.getParts().size());
+        assertEquals(3, gamePlan.getParts().get(0).getAmount());
+    }
+
+    @Test
+    public void unknownCounts_leaveTheGameAsRequested() {
+        QuestionCountIndexHandler questionCountIndex = new QuestionCountIndexHandler(questionCountDao, () -> now);
+        questionCountIndex.loadAsync().join();
+
+        QuestionCountIndexHandler.GamePlan gamePlan = questionCountIndex.planGame(CATEGORY, TriviaApiDifficultyEnum.HARD, AMOUNT);
+
+        assertFalse(gamePlan.isCountKnown());
+        assertEquals(AMOUNT, gamePlan.getAmount());
+        assertEquals(TriviaApiDifficultyEnum.HARD, gamePlan.getDifficulty());
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    public void loadAndRefresh_whileFetching_shareOneRequest() {
+        server.enqueue(countResponse(30, 20, 6, 4).setHeadersDelay(200, TimeUnit.MILLISECONDS));
+        QuestionCountIndexHandler questionCountIndex = new QuestionCountIndexHandler(questionCountDao, () -> now);
+        questionCountIndex.loadAsync().join();
+
+        CompletableFuture<Void> countLoaded = questionCountIndex.loadCountAsync(triviaApiHandler, CATEGORY);
+        CompletableFuture<Void> countRefreshed = questionCountIndex.refreshIfStaleAsync(triviaApiHandler, CATEGORY);
+
+        assertSame(countLoaded, countRefreshed);
+        countLoaded.join();
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, questionCountDao.getAll().size());
+        assertTrue(questionCountIndex.planGame(CATEGORY, TriviaApiDifficultyEnum.HARD, AMOUNT).isCountKnown());
+    }
+
+    @Test
+    public void staleCounts_areRefreshed_afterTheTimeToLive() {
+        QuestionCountIndexHandler questionCountIndex = createIndex(30, 20, 6, 4);
+
+        questionCountIndex.refreshIfStaleAsync(triviaApiHandler, CATEGORY).join();
+        assertEquals(0, server.getRequestCount());
+
+        server.enqueue(countResponse(40, 20, 10, 10));
+        now += QuestionCountIndexHandler.TIME_TO_LIVE;
+        questionCountIndex.refreshIfStaleAsync(triviaApiHandler, CATEGORY).join();
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals(AMOUNT, questionCountIndex.planGame(CATEGORY, TriviaApiDifficultyEnum.HARD, AMOUNT).getParts().get(0).getAmount());
+    }
+
+    /**
+     * Creates an index with the stored counts of the category
+     */
+    private QuestionCountIndexHandler createIndex(int totalCount, int easyCount, int mediumCount, int hardCount) {
+        QuestionCount questionCount = new QuestionCount();
+        questionCount.setCategoryId(CATEGORY.getId());
+        questionCount.setTotalCount(totalCount);
+        questionCount.setEasyCount(easyCount);
+        questionCount.setMediumCount(mediumCount);
+        questionCount.setHardCount(hardCount);
+        questionCount.setTimestamp(now);
+        questionCountDao.insertOrReplace(questionCount);
+
+        QuestionCountIndexHandler questionCountIndex = new QuestionCountIndexHandler(questionCountDao, () -> now);
+        questionCountIndex.loadAsync().join();
+        return questionCountIndex;
+    }
+
+    private static MockResponse countResponse(int totalCount, int easyCount, int mediumCount, int hardCount) {
+        return new MockResponse().setBody("{\"category_id\":" + CATEGORY.getId() + ",\"category_question_count\":{"
+                + "\"total_question_count\":" + totalCount + ",\"total_easy_question_count\":" + easyCount
+                + ",\"total_medium_question_count\":" + mediumCount + ",\"total_hard_question_count\":" + hardCount + "}}");
+    }
+}
@@ -0,0 +1,390 @@
+package com.knowledgerealm.handlers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
+import com.knowledgerealm.enums.TriviaApiDifficultyEnum;
+import com.knowledgerealm.enums.TriviaApiResponseCodeEnum;
+import com.knowledgerealm.enums.TriviaApiTokenStateEnum;
+import com.knowledgerealm.helpers.CategoriesResponseHelper;
+import com.knowledgerealm.helpers.ClockHelper;
+import com.knowledgerealm.helpers.TriviaResponseHelper;
+import com.knowledgerealm.models.TriviaQuestion;
+import com.knowledgerealm.models.interfaces.QuestionSource;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local unit tests for the QuestionPrefetchHandler, with a fake question source whose requests
+ * are answered when the test decides, or after an injected latency.
+ * Every test uses its own category, so the warm batch of a test is never taken by another one.
+ */
+public class QuestionPrefetchHandlerTest {
+    private static final int MAX_QUESTIONS = 10;
+    private static final TriviaApiDifficultyEnum DIFFICULTY = TriviaApiDifficultyEnum.EASY;
+
+    /**
+     * Keeps the requests pending until the test answers them, or answers them after a latency
+     */
+    private static class FakeQuestionSource implements QuestionSource {
+        final Queue<PendingRequest> pendingRequests = new ArrayDeque<>();
+        final List<Integer> requestedAmounts = new ArrayList<>();
+        final List<TriviaApiDifficultyEnum> requestedDifficulties = new ArrayList<>();
+        private final ScheduledExecutorService network;
+        private final long latency;
+        private int questionCount;
+        // like the Trivia API, a request for more questions than the category has fails
+        int availableQuestions = Integer.MAX_VALUE;
+
+        FakeQuestionSource() {
+            this(null, 0);
+        }
+
+        FakeQuestionSource(ScheduledExecutorService network, long latency) {
+            this.network = network;
+            this.latency = latency;
+        }
+
+        @Override
+        public synchronized CompletableFuture<TriviaResponseHelper> getTriviaQuestionsAsync(TriviaApiCategoriesEnum category, TriviaApiDifficultyEnum difficulty, String type, int amount) {
+            requestedAmounts.add(amount);
+            requestedDifficulties.add(difficulty);
+            if (amount > availableQuestions) {
+                return CompletableFuture.completedFuture(new TriviaResponseHelper(new ArrayList<>(), false, TriviaApiResponseCodeEnum.NO_RESULTS.getResponseCode()));
+            }
+            PendingRequest pendingRequest = new PendingRequest(category, amount);
+            if (network != null) {
+                network.schedule(() -> pendingRequest.response.complete(new TriviaResponseHelper(createQuestions(category, amount), true)),
+                        latency, TimeUnit.MILLISECONDS);
+            } else {
+                pendingRequests.add(pendingRequest);
+            }
+            return pendingRequest.response;
+        }
+
+        /**
+         * Answers the oldest pending request with all the questions it asked for
+         */
+        void answer() {
+            PendingRequest pendingRequest;
+            synchronized (this) {
+                pendingRequest = pendingRequests.poll();
+            }
+            pendingRequest.response.complete(new TriviaResponseHelper(createQuestions(pendingRequest.category, pendingRequest.amount), true));
+        }
+
+        /**
+         * Fails the oldest pending request, like a request that timed out
+         */
+        void fail() {
+            PendingRequest pendingRequest;
+            synchronized (this) {
+                pendingRequest = pendingRequests.poll();
+            }
+            pendingRequest.response.completeExceptionally(new IOException("timeout"));
+        }
+
+        synchronized List<TriviaQuestion> createQuestions(TriviaApiCategoriesEnum category, int amount) {
+            List<TriviaQuestion> questions = new ArrayList<>(amount);
+            for (int i = 0; i < amount; i++) {
+                questions.add(new TriviaQuestion("Question " + questionCount++, "Right",
+                        Arrays.asList("Wrong 1", "Wrong 2", "Wrong 3"), category, DIFFICULTY));
+            }
+            return questions;
+        }
+
+        @Override
+        public String getName() {
+            return "fake";
+        }
+
+        @Override
+        public CompletableFuture<CategoriesResponseHelper> getCategoriesAsync() {
+            return CompletableFuture.completedFuture(new CategoriesResponseHelper(new ArrayList<>(), false));
+        }
+
+        @Override
+        public String getSessionToken() {
+            return null;
+        }
+
+        @Override
+        public TriviaApiTokenStateEnum getTokenState() {
+            return TriviaApiTokenStateEnum.VALID;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> refreshSessionTokenAsync() {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+    }
+
+    /**
+     * Keeps the scheduled retries until the test runs them
+     */
+    private static class ManualTimer implements ClockHelper.Timer {
+        final List<Long> delays = new ArrayList<>();
+        final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public synchronized void schedule(Runnable task, long delayMillis) {
+            delays.add(delayMillis);
+            tasks.add(task);
+        }
+
+        void runNext() {
+            Runnable task;
+            synchronized (this) {
+                task = tasks.poll();
+            }
+            task.run();
+        }
+    }
+
+    private static class PendingRequest {
+        final TriviaApiCategoriesEnum category;
+        final int amount;
+        final CompletableFuture<TriviaResponseHelper> response = new CompletableFuture<>();
+
+        PendingRequest(TriviaApiCategoriesEnum category, int amount) {
+            this.category = category;
+            this.amount = amount;
+        }
+    }
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void firstBatch_makesTheFirstQuestionReady_beforeTheRestOfTheGame() {
+        FakeQuestionSource questionSource = new FakeQuestionSource();
+        QuestionPrefetchHandler prefetch = new QuestionPrefetchHandler(questionSource, TriviaApiCategoriesEnum.BOOKS, DIFFICULTY, MAX_QUESTIONS);
+
+        CompletableFuture<Boolean> firstQuestion = prefetch.start();
+        assertFalse(firstQuestion.isDone());
+        assertEquals(Arrays.asList(QuestionPrefetchHandler.FIRST_BATCH_SIZE), questionSource.requestedAmounts);
+
+        questionSource.answer();
+        assertTrue(firstQuestion.join());
+        assertTrue(prefetch.isQuestionReady(QuestionPrefetchHandler.FIRST_BATCH_SIZE - 1));
+        assertFalse(prefetch.isQuestionReady(QuestionPrefetchHandler.FIRST_BATCH_SIZE));
+
+        // the rest of the game in one request, then the batch of the next game
+        questionSource.answer();
+        for (int i = 0; i < MAX_QUESTIONS; i++) {
+            assertTrue(prefetch.isQuestionReady(i));
+            assertEquals("Question " + i, prefetch.getQuestion(i).getQuestion());
+        }
+        assertEquals(Arrays.asList(QuestionPrefetchHandler.FIRST_BATCH_SIZE, MAX_QUESTIONS - QuestionPrefetchHandler.FIRST_BATCH_SIZE, MAX_QUESTIONS),
+                questionSource.requestedAmounts);
+    }
+
+    @Test
+    public void slowSource_startsTheGameAfterOneRoundTrip() throws Exception {
+        ScheduledExecutorService network = Executors.newSingleThreadScheduledExecutor();
+        try {
+            long latency = 200;
+            FakeQuestionSource questionSource = new FakeQuestionSource(network, latency);
+            QuestionPrefetchHandler prefetch = new QuestionPrefetchHandler(questionSource, TriviaApiCategoriesEnum.FILM, DIFFICULTY, MAX_QUESTIONS);
+
+            long startTime = System.nanoTime();
+            assertTrue(prefetch.start().get(5, TimeUnit.SECONDS));
+            long firstQuestionTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            assertFalse(prefetch.isQuestionReady(MAX_QUESTIONS - 1));
+
+            assertEquals("Question " + (MAX_QUESTIONS - 1), prefetch.getQuestionAsync(MAX_QUESTIONS - 1).get(5, TimeUnit.SECONDS).getQuestion());
+            long lastQuestionTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+            assertTrue(firstQuestionTime >= latency && firstQuestionTime < 2 * latency);
+            assertTrue(lastQuestionTime >= 2 * latency);
+            prefetch.cancel();
+        } finally {
+            network.shutdownNow();
+        }
+    }
+
+    @Test
+    public void warmBatch_startsTheNextGameWithoutWaiting() {
+        FakeQuestionSource questionSource = new FakeQuestionSource();
+        QuestionPrefetchHandler firstGame = new QuestionPrefetchHandler(questionSource, TriviaApiCategoriesEnum.TELEVISION, DIFFICULTY, MAX_QUESTIONS);
+        firstGame.start();
+        questionSource.answer();
+        questionSource.answer();
+        questionSource.answer();
+
+        QuestionPrefetchHandler nextGame = new QuestionPrefetchHandler(questionSource, TriviaApiCategoriesEnum.TELEVISION, DIFFICULTY, MAX_QUESTIONS);
+        CompletableFuture<Boolean> firstQuestion = nextGame.start();
+
+        assertTrue(firstQuestion.isDone());
+        for (int i = 0; i < MAX_QUESTIONS; i++) {
+            assertTrue(nextGame.isQuestionReady(i));
+        }
+        // only the warm batch of the game after it
+        assertEquals(4, questionSource.requestedAmounts.size());
+        assertEquals(MAX_QUESTIONS, (int) questionSource.requestedAmounts.get(3));
+    }
+
+    @Test
+    public void localQuestions_fillingTheGame_makeNoRequest() {
+        FakeQuestionSource questionSource = new FakeQuestionSource();
+        List<TriviaQuestion> localQuestions = questionSource.createQuestions(TriviaApiCategoriesEnum.MUSICALS_THEATRES, MAX_QUESTIONS);
+        QuestionPrefetchHandler prefetch = new QuestionPrefetchHandler(questionSource, TriviaApiCategoriesEnum.MUSICALS_THEATRES, DIFFICULTY, MAX_QUESTIONS);
+
+        assertTrue(prefetch.start(localQuestions).join());
+
+        assertTrue(prefetch.isQuestionReady(MAX_QUESTIONS - 1));
+        assertTrue(questionSource.requestedAmounts.isEmpty());
+    }
+
+    @Test
+    public void smallCategory_withManySeenQuestions_stillFillsTheGame() throws IOException {
+        FakeQuestionSource questionSource = new FakeQuestionSource();
+        questionSource.availableQuestions = MAX_QUESTIONS;
+        SeenQuestionFilterHandler seenQuestionFilter = createRepeatingFilter(questionSource);
+        assertTrue(seenQuestionFilter.getOverFetchAmount(QuestionPrefetchHandler.FIRST_BATCH_SIZE, QuestionPrefetchHandler.MAX_REQUEST_AMOUNT) > MAX_QUESTIONS);
+        QuestionPrefetchHandler prefetch = new QuestionPrefetchHandler(questionSource, seenQuestionFilter, TriviaApiCategoriesEnum.ART,
+                QuestionCountIndexHandler.GamePlan.of(DIFFICULTY, MAX_QUESTIONS, MAX_QUESTIONS), null);
+
+        CompletableFuture<Boolean> firstQuestion = prefetch.start();
+        questionSource.answer();
+
+        assertTrue(firstQuestion.join());
+        for (int i = 0; i < MAX_QUESTIONS; i++) {
+            assertTrue(prefetch.isQuestionReady(i));
+            assertNotNull(prefetch.getQuestion(i));
+        }
+        for (int requestedAmount : questionSource.requestedAmounts) {
+            assertTrue(requestedAmount <= MAX_QUESTIONS);
+        }
+    }
+
+    @Test
+    public void plannedGame_fetchesTheShortfallWithTheNextDifficulty() {
+        FakeQuestionSource questionSource = new FakeQuestionSource();
+        QuestionCountIndexHandler.GamePlan gamePlan = new QuestionCountIndexHandler.GamePlan(Arrays.asList(
+                new QuestionCountIndexHandler.Part(DIFFICULTY, 4, 4),
+                new QuestionCountIndexHandler.Part(TriviaApiDifficultyEnum.MEDIUM, 6, 30)), true);
+        QuestionPrefetchHandler prefetch = new QuestionPrefetchHandler(questionSource, null, TriviaApiCategoriesEnum.GEOGRAPHY, gamePlan, null);
+
+        CompletableFuture<Boolean> firstQuestion = prefetch.start();
+        questionSource.answer();
+        questionSource.answer();
+        questionSource.answer();
+
+        assertTrue(firstQuestion.join());
+        assertTrue(prefetch.isQuestionReady(MAX_QUESTIONS - 1));
+        // the last request warms up the next game
+        assertEquals(Arrays.asList(3, 1, 6), questionSource.requestedAmounts.subList(0, 3));
+        assertEquals(Arrays.asList(DIFFICULTY, DIFFICULTY, TriviaApiDifficultyEnum.MEDIUM), questionSource.requestedDifficulties.subList(0, 3));
+    }
+
+    @Test
+    public void noResults_withoutTheCounts_plansTheGameAgain() {
+        FakeQuestionSource questionSource = new FakeQuestionSource();
+        questionSource.availableQuestions = 6;
+        List<Integer> refreshedPlans = new ArrayList<>();
+        QuestionPrefetchHandler prefetch = new QuestionPrefetchHandler(questionSource, null, TriviaApiCategoriesEnum.SPORTS,
+                QuestionCountIndexHandler.GamePlan.of(DIFFICULTY, MAX_QUESTIONS, QuestionCountIndexHandler.UNKNOWN_COUNT), () -> {
+                    refreshedPlans.add(1);
+                    return CompletableFuture.completedFuture(new QuestionCountIndexHandler.GamePlan(Arrays.asList(
+                            new QuestionCountIndexHandler.Part(DIFFICULTY, 6, 6),
+                            new QuestionCountIndexHandler.Part(TriviaApiDifficultyEnum.MEDIUM, 4, 6)), true));
+                });
+
+        CompletableFuture<Boolean> firstQuestion = prefetch.start();
+        // the second batch asks for more questions than the category has and finds no results
+        questionSource.answer();
+        questionSource.answer();
+        questionSource.answer();
+
+        assertTrue(firstQuestion.join());
+        assertEquals(1, refreshedPlans.size());
+        for (int i = 0; i < MAX_QUESTIONS; i++) {
+            assertNotNull(prefetch.getQuestion(i));
+        }
+        assertEquals(Arrays.asList(3, 7, 3, 4), questionSource.requestedAmounts.subList(0, 4));
+        assertEquals(TriviaApiDifficultyEnum.MEDIUM, questionSource.requestedDifficulties.get(3));
+    }
+
+    @Test
+    public void batchFailingOnce_midGame_isRetried_andTheGameIsFilled() {
+        FakeQuestionSource questionSource = new FakeQuestionSource();
+        ManualTimer timer = new ManualTimer();
+        QuestionPrefetchHandler prefetch = new QuestionPrefetchHandler(questionSource, null, TriviaApiCategoriesEnum.MYTHOLOGY,
+                QuestionCountIndexHandler.GamePlan.of(DIFFICULTY, MAX_QUESTIONS, QuestionCountIndexHandler.UNKNOWN_COUNT), null, timer);
+
+        CompletableFuture<Boolean> firstQuestion = prefetch.start();
+        questionSource.answer();
+        questionSource.fail();
+
+        assertTrue(firstQuestion.join());
+        assertFalse(prefetch.isQuestionReady(QuestionPrefetchHandler.FIRST_BATCH_SIZE));
+        assertEquals(Arrays.asList(QuestionPrefetchHandler.RETRY_DELAY), timer.delays);
+
+        timer.runNext();
+        questionSource.answer();
+
+        for (int i = 0; i < MAX_QUESTIONS; i++) {
+            assertNotNull(prefetch.getQuestion(i));
+        }
+    }
+
+    @Test
+    public void failedRequest_afterEveryRetry_endsTheQuestionsThatAreNotReady() {
+        FakeQuestionSource questionSource = new FakeQuestionSource();
+        ManualTimer timer = new ManualTimer();
+        QuestionPrefetchHandler prefetch = new QuestionPrefetchHandler(questionSource, null, TriviaApiCategoriesEnum.MUSIC,
+                QuestionCountIndexHandler.GamePlan.of(DIFFICULTY, MAX_QUESTIONS, QuestionCountIndexHandler.UNKNOWN_COUNT), null, timer);
+
+        CompletableFuture<Boolean> firstQuestion = prefetch.start();
+        questionSource.answer();
+        questionSource.fail();
+        for (int i = 0; i < QuestionPrefetchHandler.MAX_BATCH_RETRIES; i++) {
+            timer.runNext();
+            questionSource.fail();
+        }
+
+        assertTrue(firstQuestion.join());
+        assertEquals(Arrays.asList(QuestionPrefetchHandler.RETRY_DELAY, 2 * QuestionPrefetchHandler.RETRY_DELAY), timer.delays);
+        assertEquals("Question 0", prefetch.getQuestionAsync(0).join().getQuestion());
+        assertNull(prefetch.getQuestionAsync(QuestionPrefetchHandler.FIRST_BATCH_SIZE).join());
+        assertNull(prefetch.getQuestionAsync(MAX_QUESTIONS - 1).join());
+        assertEquals(2 + QuestionPrefetchHandler.MAX_BATCH_RETRIES, questionSource.requestedAmounts.size());
+    }
+
+    /**
+     * Creates a seen question filter whose repeat rate makes every request over-fetch as much as it can
+     */
+    private SeenQuestionFilterHandler createRepeatingFilter(FakeQuestionSource questionSource) throws IOException {
+        SeenQuestionFilterHandler seenQuestionFilter = new SeenQuestionFilterHandler(new File(temporaryFolder.getRoot(), "seen_questions.bin"));
+        List<TriviaQuestion> seenQuestions = questionSource.createQuestions(TriviaApiCategoriesEnum.ART, MAX_QUESTIONS);
+        seenQuestionFilter.markSeen(seenQuestions).join();
+        for (int i = 0; i < 10; i++) {
+            seenQuestionFilter.filterUnseen(seenQuestions);
+        }
+        return seenQuestionFilter;
+    }
+}
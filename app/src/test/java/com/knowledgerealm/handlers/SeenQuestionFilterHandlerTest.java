@@ -0,0 +1,105 @@
+package com.knowledgerealm.handlers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.knowledgerealm.models.TriviaQuestion;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Local unit tests for the SeenQuestionFilterHandler, with its append-only file in a temporary folder.
+ */
+public class SeenQuestionFilterHandlerTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void storedQuestions_areSeenOnceLoaded() throws IOException {
+        File file = temporaryFolder.newFile();
+        new SeenQuestionFilterHandler(file).markSeen(questions("Question 1", "Question 2")).join();
+
+        SeenQuestionFilterHandler seenQuestionFilter = new SeenQuestionFilterHandler(file);
+        assertFalse(seenQuestionFilter.isSeen("Question 1"));
+        seenQuestionFilter.loadAsync().join();
+
+        assertTrue(seenQuestionFilter.isSeen("Question 1"));
+        assertTrue(seenQuestionFilter.isSeen("Question 2"));
+        assertFalse(seenQuestionFilter.isSeen("Question 3"));
+        assertEquals(2, seenQuestionFilter.getSize());
+    }
+
+    @Test
+    public void questionMarkedBeforeTheLoad_isNotEvictedWithItsOldCopy() throws IOException {
+        File file = temporaryFolder.newFile();
+        long[] storedHashes = new long[SeenQuestionFilterHandler.MAX_ENTRIES];
+        storedHashes[0] = SeenQuestionFilterHandler.hash("Replayed question");
+        for (int i = 1; i < storedHashes.length; i++) {
+            storedHashes[i] = SeenQuestionFilterHandler.hash("Old question " + i);
+        }
+        writeHashes(file, storedHashes);
+        SeenQuestionFilterHandler seenQuestionFilter = new SeenQuestionFilterHandler(file);
+
+        // served again before the file is loaded, so it is appended a second time
+        seenQuestionFilter.markSeen(questions("Replayed question")).join();
+        seenQuestionFilter.loadAsync().join();
+        assertEquals(SeenQuestionFilterHandler.MAX_ENTRIES, seenQuestionFilter.getSize());
+        // one more question fills the filter and evicts the oldest quarter
+        seenQuestionFilter.markSeen(questions("New question")).join();
+
+        int keptCount = SeenQuestionFilterHandler.MAX_ENTRIES * 3 / 4;
+        assertEquals(keptCount, seenQuestionFilter.getSize());
+        assertEquals(keptCount * 8L, file.length());
+        assertTrue(seenQuestionFilter.isSeen("Replayed question"));
+        assertTrue(seenQuestionFilter.isSeen("New question"));
+        assertFalse(seenQuestionFilter.isSeen("Old question 1"));
+
+        // the file agrees with the memory after a restart
+        SeenQuestionFilterHandler restartedFilter = new SeenQuestionFilterHandler(file);
+        restartedFilter.loadAsync().join();
+        assertEquals(keptCount, restartedFilter.getSize());
+        assertTrue(restartedFilter.isSeen("Replayed question"));
+    }
+
+    @Test
+    public void overFetchAmount_growsWithTheRepeatRate_upToTheMaximum() throws IOException {
+        SeenQuestionFilterHandler seenQuestionFilter = new SeenQuestionFilterHandler(temporaryFolder.newFile());
+        assertEquals(10, seenQuestionFilter.getOverFetchAmount(10, 50));
+
+        List<TriviaQuestion> seenQuestions = questions("Question 1", "Question 2");
+        seenQuestionFilter.markSeen(seenQuestions).join();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(seenQuestionFilter.filterUnseen(seenQuestions).isEmpty());
+        }
+
+        assertEquals(40, seenQuestionFilter.getOverFetchAmount(10, 50));
+        assertEquals(12, seenQuestionFilter.getOverFetchAmount(10, 12));
+    }
+
+    private static List<TriviaQuestion> questions(String... texts) {
+        TriviaQuestion[] questions = new TriviaQuestion[texts.length];
+        for (int i = 0; i < texts.length; i++) {
+            questions[i] = new TriviaQuestion(texts[i], "Right");
+        }
+        return Arrays.asList(questions);
+    }
+
+    private static void writeHashes(File file, long[] hashes) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            for (long hash : hashes) {
+                output.writeLong(hash);
+            }
+        }
+    }
+}
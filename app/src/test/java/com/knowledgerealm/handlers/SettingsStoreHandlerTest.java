@@ -0,0 +1,197 @@
+package com.knowledgerealm.handlers;
+
+import static org.junit.Assert.assertEquals;
+
+import com.knowledgerealm.models.Settings;
+import com.knowledgerealm.models.interfaces.SettingsDao;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+/**
+ * Local unit tests for the SettingsStoreHandler, counting the calls to the dao for every user action,
+ * and the notifications of its subscribers.
+ */
+public class SettingsStoreHandlerTest {
+
+    /**
+     * Keeps the settings in memory and counts the calls
+     */
+    private static class CountingSettingsDao implements SettingsDao {
+        Settings storedSettings;
+        int reads;
+        int writes;
+
+        @Override
+        public void insertSettings(Settings settings) {
+            writes++;
+            storedSettings = settings;
+        }
+
+        @Override
+        public void updateSettings(Settings settings) {
+            writes++;
+            storedSettings = settings;
+        }
+
+        @Override
+        public Settings getSettings() {
+            reads++;
+            return storedSettings;
+        }
+    }
+
+    /**
+     * Queues the database tasks until the test runs them, like a busy database thread
+     */
+    private static class QueuedExecutor implements Executor {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+    }
+
+    private static SettingsStoreHandler createStore(CountingSettingsDao settingsDao, QueuedExecutor databaseExecutor) {
+        return new SettingsStoreHandler(() -> settingsDao, databaseExecutor, Runnable::run);
+    }
+
+    @Test
+    public void getters_readTheDatabaseOnce() {
+        CountingSettingsDao settingsDao = new CountingSettingsDao();
+        settingsDao.storedSettings = new Settings("easy", "Science", 4.0f, 6.0f);
+        QueuedExecutor databaseExecutor = new QueuedExecutor();
+        SettingsStoreHandler settingsStore = createStore(settingsDao, databaseExecutor);
+
+        settingsStore.loadAsync();
+        databaseExecutor.runAll();
+        for (int i = 0; i < 100; i++) {
+            assertEquals("easy", settingsStore.getSnapshot().getDifficulty());
+            assertEquals(6.0f, settingsStore.getSnapshot().getMusicVolume(), 0);
+        }
+        databaseExecutor.runAll();
+
+        assertEquals(1, settingsDao.reads);
+        assertEquals(0, settingsDao.writes);
+    }
+
+    @Test
+    public void oneChange_isOneWrite_andNoRead() {
+        CountingSettingsDao settingsDao = new CountingSettingsDao();
+        QueuedExecutor databaseExecutor = new QueuedExecutor();
+        SettingsStoreHandler settingsStore = createStore(settingsDao, databaseExecutor);
+        settingsStore.loadAsync();
+        databaseExecutor.runAll();
+        int readsAfterLoad = settingsDao.reads;
+
+        settingsStore.update(settings -> settings.withDifficulty("hard"));
+        assertEquals("hard", settingsStore.getSnapshot().getDifficulty());
+        databaseExecutor.runAll();
+
+        assertEquals(readsAfterLoad, settingsDao.reads);
+        assertEquals(1, settingsDao.writes);
+        assertEquals("hard", settingsDao.storedSettings.getDifficulty());
+    }
+
+    @Test
+    public void sliderDrag_isCoalescedIntoOneWrite() {
+        CountingSettingsDao settingsDao = new CountingSettingsDao();
+        QueuedExecutor databaseExecutor = new QueuedExecutor();
+        SettingsStoreHandler settingsStore = createStore(settingsDao, databaseExecutor);
+        settingsStore.loadAsync();
+        databaseExecutor.runAll();
+
+        for (int value = 0; value <= 10; value++) {
+            float soundVolume = value;
+            settingsStore.update(settings -> settings.withSoundVolume(soundVolume));
+        }
+        databaseExecutor.runAll();
+
+        assertEquals(1, settingsDao.writes);
+        assertEquals(10.0f, settingsDao.storedSettings.getSoundVolume(), 0);
+    }
+
+    @Test
+    public void changeBeforeLoad_keepsTheOtherStoredSettings() {
+        CountingSettingsDao settingsDao = new CountingSettingsDao();
+        settingsDao.storedSettings = new Settings("medium", "History", 3.0f, 2.0f);
+        QueuedExecutor databaseExecutor = new QueuedExecutor();
+        SettingsStoreHandler settingsStore = createStore(settingsDao, databaseExecutor);
+
+        settingsStore.update(settings -> settings.withMusicVolume(8.0f));
+        databaseExecutor.runAll();
+
+        SettingsStoreHandler.Snapshot snapshot = settingsStore.getSnapshot();
+        assertEquals("medium", snapshot.getDifficulty());
+        assertEquals("History", snapshot.getCategory());
+        assertEquals(3.0f, snapshot.getSoundVolume(), 0);
+        assertEquals(8.0f, snapshot.getMusicVolume(), 0);
+        assertEquals(1, settingsDao.reads);
+        assertEquals(1, settingsDao.writes);
+        assertEquals("History", settingsDao.storedSettings.getCategory());
+        assertEquals(8.0f, settingsDao.storedSettings.getMusicVolume(), 0);
+    }
+
+    @Test
+    public void changeDuringWrite_isWrittenToo() {
+        CountingSettingsDao settingsDao = new CountingSettingsDao();
+        QueuedExecutor databaseExecutor = new QueuedExecutor();
+        SettingsStoreHandler settingsStore = createStore(settingsDao, databaseExecutor);
+        settingsStore.loadAsync();
+        databaseExecutor.runAll();
+
+        settingsStore.update(settings -> settings.withCategory("Art"));
+        databaseExecutor.runAll();
+        settingsStore.update(settings -> settings.withCategory("Sports"));
+        databaseExecutor.runAll();
+
+        assertEquals(2, settingsDao.writes);
+        assertEquals("Sports", settingsDao.storedSettings.getCategory());
+    }
+
+    @Test
+    public void subscriber_getsTheCurrentSettings_andEveryChange() {
+        CountingSettingsDao settingsDao = new CountingSettingsDao();
+        settingsDao.storedSettings = new Settings("easy", "Science", 4.0f, 6.0f);
+        QueuedExecutor databaseExecutor = new QueuedExecutor();
+        QueuedExecutor mainThread = new QueuedExecutor();
+        SettingsStoreHandler settingsStore = new SettingsStoreHandler(() -> settingsDao, databaseExecutor, mainThread);
+        List<Float> musicVolumes = new ArrayList<>();
+        SettingsStoreHandler.Listener listener = settings -> musicVolumes.add(settings.getMusicVolume());
+
+        // the defaults right away, the stored settings once they are loaded
+        settingsStore.subscribe(listener);
+        databaseExecutor.runAll();
+        mainThread.runAll();
+        assertEquals(2, musicVolumes.size());
+        assertEquals(6.0f, musicVolumes.get(1), 0);
+
+        // a drag of the slider is delivered once, with its last value
+        for (int value = 0; value <= 10; value++) {
+            float musicVolume = value;
+            settingsStore.update(settings -> settings.withMusicVolume(musicVolume));
+        }
+        mainThread.runAll();
+        assertEquals(3, musicVolumes.size());
+        assertEquals(10.0f, musicVolumes.get(2), 0);
+
+        settingsStore.unsubscribe(listener);
+        settingsStore.update(settings -> settings.withMusicVolume(1.0f));
+        mainThread.runAll();
+        databaseExecutor.runAll();
+        assertEquals(3, musicVolumes.size());
+        assertEquals(1, settingsDao.reads);
+    }
+}
@@ -0,0 +1,225 @@
+package com.knowledgerealm.handlers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
+import com.knowledgerealm.enums.TriviaApiDifficultyEnum;
+import com.knowledgerealm.enums.TriviaApiTokenStateEnum;
+import com.knowledgerealm.helpers.MultiCategoryResponseHelper;
+import com.knowledgerealm.helpers.TriviaResponseHelper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Local unit tests for the TriviaApiHandler against a mock server, counting the requests sent for every game start
+ * and injecting latency into the requests of mixed-category games.
+ */
+public class TriviaApiHandlerTest {
+    private static final int AMOUNT = 10;
+    private static final long LATENCY = 500; // milliseconds
+
+    private MockWebServer server;
+    private String apiURL;
+
+    @Before
+    public void startServer() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        apiURL = server.url("").toString().replaceAll("/$", "");
+    }
+
+    @After
+    public void stopServer() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void firstGame_withoutToken_retrievesTheTokenOnce() throws Exception {
+        server.enqueue(tokenResponse("token-1"));
+        server.enqueue(questionsResponse(0, AMOUNT));
+        TriviaApiHandler triviaApiHandler = new TriviaApiHandler(null, apiURL);
+
+        TriviaResponseHelper triviaResponse = startGame(triviaApiHandler);
+
+        assertTrue(triviaResponse.isSuccess());
+        assertEquals(AMOUNT, triviaResponse.getTriviaQuestions().size());
+        assertEquals(2, server.getRequestCount());
+        assertEquals("/api_token.php?command=request", takeRequest().getPath());
+        assertTrue(takeRequest().getPath().endsWith("&token=token-1"));
+    }
+
+    @Test
+    public void gameStart_withCachedToken_isOneRequest() throws Exception {
+        server.enqueue(questionsResponse(0, AMOUNT));
+        server.enqueue(questionsResponse(0, AMOUNT));
+        TriviaApiHandler triviaApiHandler = new TriviaApiHandler("token-1", apiURL);
+
+        assertTrue(startGame(triviaApiHandler).isSuccess());
+        assertEquals(TriviaApiTokenStateEnum.VALID, triviaApiHandler.getTokenState());
+        assertTrue(startGame(triviaApiHandler).isSuccess());
+
+        assertEquals(2, server.getRequestCount());
+        assertTrue(takeRequest().getPath().startsWith("/api.php?amount=" + AMOUNT));
+        assertTrue(takeRequest().getPath().startsWith("/api.php?amount=" + AMOUNT));
+    }
+
+    @Test
+    public void gameStart_withExhaustedToken_resetsItAndRetriesOnce() throws Exception {
+        server.enqueue(questionsResponse(4, 0));
+        server.enqueue(tokenResponse("token-1"));
+        server.enqueue(questionsResponse(0, AMOUNT));
+        TriviaApiHandler triviaApiHandler = new TriviaApiHandler("token-1", apiURL);
+
+        assertTrue(startGame(triviaApiHandler).isSuccess());
+
+        assertEquals(3, server.getRequestCount());
+        takeRequest();
+        assertEquals("/api_token.php?command=reset&token=token-1", takeRequest().getPath());
+        takeRequest();
+    }
+
+    @Test
+    public void gameStart_withUnknownToken_retrievesANewOneAndRetriesOnce() throws Exception {
+        server.enqueue(questionsResponse(3, 0));
+        server.enqueue(tokenResponse("token-2"));
+        server.enqueue(questionsResponse(0, AMOUNT));
+        TriviaApiHandler triviaApiHandler = new TriviaApiHandler("expired-token", apiURL);
+
+        assertTrue(startGame(triviaApiHandler).isSuccess());
+
+        assertEquals(3, server.getRequestCount());
+        assertTrue(takeRequest().getPath().endsWith("&token=expired-token"));
+        assertEquals("/api_token.php?command=request", takeRequest().getPath());
+        assertTrue(takeRequest().getPath().endsWith("&token=token-2"));
+        assertEquals("token-2", triviaApiHandler.getSessionToken());
+    }
+
+    @Test
+    public void lateResponse_forTheOldToken_keepsTheCorrectedToken() throws Exception {
+        AtomicInteger tokenRequests = new AtomicInteger();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String path = request.getPath();
+                if (path.startsWith("/api_token.php")) {
+                    return tokenResponse("new-token-" + tokenRequests.incrementAndGet());
+                }
+                if (path.endsWith("&token=old-token")) {
+                    // the second game only hears about the old token once the first one has corrected it
+                    MockResponse tokenNotFound = questionsResponse(3, 0);
+                    return path.contains("amount=5&") ? tokenNotFound.setHeadersDelay(500, TimeUnit.MILLISECONDS) : tokenNotFound;
+                }
+                return questionsResponse(0, 5);
+            }
+        });
+        TriviaApiHandler triviaApiHandler = new TriviaApiHandler("old-token", apiURL);
+
+        CompletableFuture<TriviaResponseHelper> firstGame = triviaApiHandler.getTriviaQuestionsAsync(TriviaApiCategoriesEnum.GENERAL_KNOWLEDGE, TriviaApiDifficultyEnum.EASY, null, AMOUNT);
+        CompletableFuture<TriviaResponseHelper> secondGame = triviaApiHandler.getTriviaQuestionsAsync(TriviaApiCategoriesEnum.GENERAL_KNOWLEDGE, TriviaApiDifficultyEnum.EASY, null, 5);
+
+        assertTrue(firstGame.get(10, TimeUnit.SECONDS).isSuccess());
+        assertTrue(secondGame.get(10, TimeUnit.SECONDS).isSuccess());
+        assertEquals(1, tokenRequests.get());
+        assertEquals("new-token-1", triviaApiHandler.getSessionToken());
+        assertEquals(TriviaApiTokenStateEnum.VALID, triviaApiHandler.getTokenState());
+    }
+
+    @Test
+    public void mixedCategoryGame_fetchesTheCategoriesInOneRoundTrip() throws Exception {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return questionsResponse(0, getAmount(request)).setHeadersDelay(LATENCY, TimeUnit.MILLISECONDS);
+            }
+        });
+        TriviaApiHandler triviaApiHandler = new TriviaApiHandler("token-1", apiURL);
+
+        long startTime = System.nanoTime();
+        MultiCategoryResponseHelper multiCategoryResponse = triviaApiHandler.getTriviaQuestionsAsync(
+                Arrays.asList(TriviaApiCategoriesEnum.HISTORY, TriviaApiCategoriesEnum.GEOGRAPHY), TriviaApiDifficultyEnum.EASY, null, 5)
+                .get(10, TimeUnit.SECONDS);
+        long elapsedTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+        // concurrent requests take one latency, sequential ones would take two
+        assertTrue(elapsedTime >= LATENCY && elapsedTime < 2 * LATENCY);
+        assertTrue(multiCategoryResponse.isSuccess());
+        assertFalse(multiCategoryResponse.isPartial());
+        assertEquals(5, multiCategoryResponse.getTriviaQuestions().size());
+        assertEquals(3, multiCategoryResponse.getCategoryResponse(TriviaApiCategoriesEnum.HISTORY).getTriviaQuestions().size());
+        assertEquals(2, multiCategoryResponse.getCategoryResponse(TriviaApiCategoriesEnum.GEOGRAPHY).getTriviaQuestions().size());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void mixedCategoryGame_withAFailedCategory_isPartial() throws Exception {
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                boolean isPolitics = request.getPath().contains("&category=" + TriviaApiCategoriesEnum.POLITICS.getId() + "&");
+                return questionsResponse(isPolitics ? 1 : 0, isPolitics ? 0 : getAmount(request)).setHeadersDelay(LATENCY, TimeUnit.MILLISECONDS);
+            }
+        });
+        TriviaApiHandler triviaApiHandler = new TriviaApiHandler("token-1", apiURL);
+
+        MultiCategoryResponseHelper multiCategoryResponse = triviaApiHandler.getTriviaQuestionsAsync(
+                Arrays.asList(TriviaApiCategoriesEnum.ART, TriviaApiCategoriesEnum.POLITICS, TriviaApiCategoriesEnum.ANIMALS), TriviaApiDifficultyEnum.EASY, null, AMOUNT)
+                .get(10, TimeUnit.SECONDS);
+
+        assertTrue(multiCategoryResponse.isPartial());
+        assertEquals(Collections.singletonList(TriviaApiCategoriesEnum.POLITICS), multiCategoryResponse.getFailedCategories());
+        // 4 art and 3 animal questions, the 3 politics ones failed
+        assertEquals(7, multiCategoryResponse.getTriviaQuestions().size());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    private static int getAmount(RecordedRequest request) {
+        String path = request.getPath();
+        int start = path.indexOf("amount=") + "amount=".length();
+        return Integer.parseInt(path.substring(start, path.indexOf('&', start)));
+    }
+
+    private static TriviaResponseHelper startGame(TriviaApiHandler triviaApiHandler) throws Exception {
+        return triviaApiHandler.getTriviaQuestionsAsync(TriviaApiCategoriesEnum.GENERAL_KNOWLEDGE, TriviaApiDifficultyEnum.EASY, null, AMOUNT)
+                .get(10, TimeUnit.SECONDS);
+    }
+
+    private RecordedRequest takeRequest() throws InterruptedException {
+        return server.takeRequest(1, TimeUnit.SECONDS);
+    }
+
+    static MockResponse tokenResponse(String token) {
+        return new MockResponse().setBody("{\"response_code\":0,\"response_message\":\"Token Generated Successfully!\",\"token\":\"" + token + "\"}");
+    }
+
+    /**
+     * Gets an api.php response in HTML entities, the encoding the handler requests by default
+     */
+    static MockResponse questionsResponse(int responseCode, int amount) {
+        StringBuilder body = new StringBuilder("{\"response_code\":").append(responseCode).append(",\"results\":[");
+        for (int i = 0; i < amount; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append("{\"type\":\"multiple\",\"difficulty\":\"easy\",\"category\":\"General Knowledge\",")
+                    .append("\"question\":\"Question ").append(i).append("?\",\"correct_answer\":\"Right\",")
+                    .append("\"incorrect_answers\":[\"Wrong 1\",\"Wrong 2\",\"Wrong 3\"]}");
+        }
+        return new MockResponse().setBody(body.append("]}").toString());
+    }
+}
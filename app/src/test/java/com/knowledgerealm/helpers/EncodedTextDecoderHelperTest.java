@@ -0,0 +1,99 @@
+package com.knowledgerealm.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Local unit tests for the Base64 and RFC 3986 decoding of the EncodedTextDecoderHelper.
+ */
+public class EncodedTextDecoderHelperTest {
+
+    @Test
+    public void base64_isDecodedWithOrWithoutPadding() {
+        assertEquals("A", decodeBase64("QQ=="));
+        assertEquals("A", decodeBase64("QQ"));
+        assertEquals("AB", decodeBase64("QUI="));
+        assertEquals("ABC", decodeBase64("QUJD"));
+        assertEquals("", decodeBase64(""));
+    }
+
+    @Test
+    public void base64_isDecodedAsUtf8() {
+        String text = "Les Misérables, Škoda & π — 🎵";
+        String encoded = Base64.getEncoder().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(text, decodeBase64(encoded));
+    }
+
+    @Test
+    public void base64_isDecodedFromARangeOfCharacters() {
+        char[] chars = "\"QUJD\",".toCharArray();
+
+        assertEquals("ABC", EncodedTextDecoderHelper.decodeBase64(chars, 1, 4));
+    }
+
+    @Test
+    public void base64_withAnInvalidLength_isRejected() {
+        assertInvalidBase64("QUJDR", "Invalid Base64 length");
+        assertInvalidBase64("Q===", "Invalid Base64 length");
+    }
+
+    @Test
+    public void base64_withAnInvalidCharacter_isRejected() {
+        assertInvalidBase64("QU*D", "Invalid Base64 character: *");
+        assertInvalidBase64("QU-D", "Invalid Base64 character: -");
+        assertInvalidBase64("QUé=", "Invalid Base64 character: é");
+        assertInvalidBase64("Q=JD", "Invalid Base64 character: =");
+    }
+
+    @Test
+    public void url3986_isDecodedAsUtf8() {
+        assertEquals("Don't stop", decodeUrl3986("Don%27t%20stop"));
+        assertEquals("Reykjavík", decodeUrl3986("Reykjav%C3%ADk"));
+        assertEquals("Reykjavík", decodeUrl3986("Reykjav%c3%adk"));
+        assertEquals("plain-text_1.0~", decodeUrl3986("plain-text_1.0~"));
+    }
+
+    @Test
+    public void url3986_withAnIncompleteEscape_isRejected() {
+        assertInvalidUrl3986("100%", "Incomplete percent-encoding");
+        assertInvalidUrl3986("%4", "Incomplete percent-encoding");
+    }
+
+    @Test
+    public void url3986_withAnInvalidEscape_isRejected() {
+        assertInvalidUrl3986("%G1", "Invalid percent-encoding");
+        assertInvalidUrl3986("%2 x", "Invalid percent-encoding");
+    }
+
+    private static String decodeBase64(String text) {
+        return EncodedTextDecoderHelper.decodeBase64(text.toCharArray(), 0, text.length());
+    }
+
+    private static String decodeUrl3986(String text) {
+        return EncodedTextDecoderHelper.decodeUrl3986(text.toCharArray(), 0, text.length());
+    }
+
+    private static void assertInvalidBase64(String text, String message) {
+        try {
+            decodeBase64(text);
+            fail("Expected an IllegalArgumentException for " + text);
+        } catch (IllegalArgumentException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    private static void assertInvalidUrl3986(String text, String message) {
+        try {
+            decodeUrl3986(text);
+            fail("Expected an IllegalArgumentException for " + text);
+        } catch (IllegalArgumentException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+}
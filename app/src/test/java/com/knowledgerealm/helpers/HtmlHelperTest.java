@@ -0,0 +1,73 @@
+package com.knowledgerealm.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/**
+ * Local unit tests for the decoding of HTML entities of the HtmlHelper.
+ */
+public class HtmlHelperTest {
+
+    @Test
+    public void textWithoutAmpersand_isReturnedAsIs() {
+        String text = "Which planet is known as the \"Red Planet\"?";
+
+        assertSame(text, HtmlHelper.decodeHtml(text));
+        assertNull(HtmlHelper.decodeHtml(null));
+    }
+
+    @Test
+    public void namedEntities_areDecoded() {
+        assertEquals("\"Hello\" & <goodbye>", HtmlHelper.decodeHtml("&quot;Hello&quot; &amp; &lt;goodbye&gt;"));
+        assertEquals("Pokémon… © Ω", HtmlHelper.decodeHtml("Pok&eacute;mon&hellip; &copy; &Omega;"));
+        // names are case sensitive
+        assertEquals("É é", HtmlHelper.decodeHtml("&Eacute; &eacute;"));
+    }
+
+    @Test
+    public void numericEntities_areDecoded() {
+        assertEquals("Don't", HtmlHelper.decodeHtml("Don&#039;t"));
+        assertEquals("Don't", HtmlHelper.decodeHtml("Don&#39;t"));
+        assertEquals("Don't", HtmlHelper.decodeHtml("Don&#x27;t"));
+        assertEquals("Don't", HtmlHelper.decodeHtml("Don&#X27;t"));
+        assertEquals("é", HtmlHelper.decodeHtml("&#xE9;"));
+        assertEquals(new String(Character.toChars(0x1F600)), HtmlHelper.decodeHtml("&#x1F600;"));
+    }
+
+    @Test
+    public void unknownEntities_areKept() {
+        assertEquals("&foo; &apos;", HtmlHelper.decodeHtml("&foo; &apos;"));
+        assertEquals("AT&T & co", HtmlHelper.decodeHtml("AT&T & co"));
+    }
+
+    @Test
+    public void malformedEntities_areKept() {
+        assertEquals("&; &#; &#x; &#xZZ; &#12a;", HtmlHelper.decodeHtml("&; &#; &#x; &#xZZ; &#12a;"));
+        assertEquals("&amp", HtmlHelper.decodeHtml("&amp"));
+        assertEquals("& amp;", HtmlHelper.decodeHtml("& amp;"));
+        // null, surrogate and out of range code points are not characters
+        assertEquals("&#0; &#xD800; &#x110000;", HtmlHelper.decodeHtml("&#0; &#xD800; &#x110000;"));
+    }
+
+    @Test
+    public void entities_areDecodedOnce() {
+        assertEquals("&lt;", HtmlHelper.decodeHtml("&amp;lt;"));
+        assertEquals("&&", HtmlHelper.decodeHtml("&&amp;"));
+        assertEquals("<>", HtmlHelper.decodeHtml("&lt;&gt;"));
+    }
+
+    @Test
+    public void entities_upToTheLongestLength_areDecoded() {
+        // 8 characters between the ampersand and the semicolon
+        assertEquals("ϑ", HtmlHelper.decodeHtml("&thetasym;"));
+        assertEquals("'", HtmlHelper.decodeHtml("&#0000039;"));
+        assertEquals(new String(Character.toChars(Character.MAX_CODE_POINT)), HtmlHelper.decodeHtml("&#x10FFFF;"));
+
+        // 9 characters are kept as they are
+        assertEquals("&#00000039;", HtmlHelper.decodeHtml("&#00000039;"));
+        assertEquals("&thetasymx;", HtmlHelper.decodeHtml("&thetasymx;"));
+    }
+}
@@ -0,0 +1,173 @@
+package com.knowledgerealm.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+
+/**
+ * Local unit tests for the retries and the circuit breaker of the HttpRequestAsyncHelper,
+ * against a mock server that injects failures, timeouts and 429 responses.
+ */
+public class HttpRequestAsyncHelperTest {
+    private static final long BASE_DELAY = 20; // milliseconds
+    private static final long MAX_DELAY = 2000; // milliseconds
+    private static final String CATEGORIES = "{\"trivia_categories\":[{\"id\":9,\"name\":\"General Knowledge\"}]}";
+
+    private MockWebServer server;
+
+    @Before
+    public void startServer() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        setPolicy(3, 5);
+    }
+
+    @After
+    public void stopServer() throws IOException {
+        HttpRequestAsyncHelper.setResiliencePolicy(new ResiliencePolicyHelper());
+        server.shutdown();
+    }
+
+    @Test
+    public void serverErrors_areRetriedUntilTheRequestSucceeds() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        server.enqueue(new MockResponse().setBody(CATEGORIES));
+
+        CategoriesResponseHelper categoriesResponse = getCategories("/categories-1").get(5, TimeUnit.SECONDS);
+
+        assertTrue(categoriesResponse.success);
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void timedOutRequest_isRetried() throws Exception {
+        setPolicy(3, 5, 200);
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+        server.enqueue(new MockResponse().setBody(CATEGORIES));
+
+        assertTrue(getCategories("/categories-2").get(5, TimeUnit.SECONDS).success);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void tooManyRequests_waitsForTheRetryAfterDelay() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(429).addHeader("Retry-After", "1"));
+        server.enqueue(new MockResponse().setBody(CATEGORIES));
+
+        long startTime = System.nanoTime();
+        assertTrue(getCategories("/categories-3").get(5, TimeUnit.SECONDS).success);
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) >= 1000);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void retryAfter_longerThanTheMaximumDelay_isNotWaitedFor() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(429).addHeader("Retry-After", "60"));
+
+        assertFailsWith(HttpStatusException.class, getCategories("/categories-4"));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void rateLimitResponseCode_isRetriedAfterABackoff() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"response_code\":5,\"results\":[]}"));
+        server.enqueue(new MockResponse().setBody("{\"response_code\":0,\"results\":[]}"));
+
+        TriviaResponseHelper triviaResponse = HttpRequestAsyncHelper.getResponseAsync(server.url("/api.php?amount=1").toString(),
+                TriviaResponseDecoderHelper.QUESTIONS_DECODER).get(5, TimeUnit.SECONDS);
+
+        assertTrue(triviaResponse.isSuccess());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void nonIdempotentRequest_isSentOnce_butCountsForTheCircuitBreaker() throws Exception {
+        setPolicy(3, 1);
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setBody("{\"response_code\":0,\"results\":[]}"));
+
+        assertFailsWith(HttpStatusException.class, HttpRequestAsyncHelper.getResponseAsync(server.url("/api.php?amount=2").toString(),
+                TriviaResponseDecoderHelper.QUESTIONS_DECODER, false));
+
+        assertEquals(1, server.getRequestCount());
+        assertFalse(HttpRequestAsyncHelper.isHostAvailable(server.getHostName()));
+    }
+
+    @Test
+    public void clientError_isNotRetried() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(404));
+
+        assertFailsWith(HttpStatusException.class, getCategories("/categories-5"));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void sharedRequest_isRetriedOnceForAllTheCallers() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503).setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        server.enqueue(new MockResponse().setBody(CATEGORIES));
+
+        CompletableFuture<CategoriesResponseHelper> first = getCategories("/categories-6");
+        CompletableFuture<CategoriesResponseHelper> second = getCategories("/categories-6");
+
+        assertTrue(first.get(5, TimeUnit.SECONDS).success);
+        assertTrue(second.get(5, TimeUnit.SECONDS).success);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void hostDown_opensTheCircuitBreakerAndFailsFast() throws Exception {
+        setPolicy(2, 2);
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setBody(CATEGORIES));
+
+        assertFailsWith(HttpStatusException.class, getCategories("/categories-7"));
+        assertFalse(HttpRequestAsyncHelper.isHostAvailable(server.getHostName()));
+        assertFailsWith(CircuitBreakerOpenException.class, getCategories("/categories-8"));
+
+        assertEquals(2, server.getRequestCount());
+    }
+
+    /**
+     * Replaces the resilience policy by one with short delays, so the retries of a test take milliseconds
+     */
+    private void setPolicy(int maxAttempts, int failureThreshold) {
+        setPolicy(maxAttempts, failureThreshold, ResiliencePolicyHelper.DEFAULT_ATTEMPT_TIMEOUT);
+    }
+
+    private void setPolicy(int maxAttempts, int failureThreshold, long attemptTimeout) {
+        HttpRequestAsyncHelper.setResiliencePolicy(new ResiliencePolicyHelper(maxAttempts, BASE_DELAY, MAX_DELAY, failureThreshold,
+                ResiliencePolicyHelper.DEFAULT_OPEN_DURATION, attemptTimeout, System::currentTimeMillis,
+                ClockHelper.createSystemTimer("ResiliencePolicy"), new Random(1)));
+    }
+
+    private CompletableFuture<CategoriesResponseHelper> getCategories(String path) {
+        return HttpRequestAsyncHelper.getResponseAsync(server.url(path).toString(), TriviaResponseDecoderHelper.CATEGORIES_DECODER);
+    }
+
+    private static void assertFailsWith(Class<? extends Throwable> expected, CompletableFuture<?> response) throws Exception {
+        try {
+            response.get(5, TimeUnit.SECONDS);
+            fail("Expected " + expected.getSimpleName());
+        } catch (ExecutionException e) {
+            assertEquals(expected, e.getCause().getClass());
+        }
+    }
+}
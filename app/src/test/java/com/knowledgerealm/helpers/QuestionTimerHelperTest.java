@@ -0,0 +1,199 @@
+package com.knowledgerealm.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Local unit tests for the QuestionTimerHelper, on a virtual main looper with 60 Hz frames.
+ */
+public class QuestionTimerHelperTest {
+    private static final long FRAME_INTERVAL = 16; // milliseconds, about 60 Hz
+    private static final long WARNING_TIME = 3000;
+    private static final long QUESTION_DURATION = 10000;
+
+    /**
+     * Runs the tasks and the frames in the order of their virtual time, on the calling thread, and counts the wakeups
+     */
+    private static class VirtualLooper implements ClockHelper.Clock, ClockHelper.Timer, QuestionTimerHelper.FrameSource {
+        private final PriorityQueue<long[]> taskTimes = new PriorityQueue<>((first, second) -> first[0] != second[0]
+                ? Long.compare(first[0], second[0]) : Long.compare(first[1], second[1]));
+        private final List<Runnable> tasks = new ArrayList<>();
+        private long now;
+        int wakeups;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+
+        @Override
+        public void schedule(Runnable task, long delayMillis) {
+            scheduleAt(task, now + delayMillis);
+        }
+
+        @Override
+        public void postFrameCallback(Runnable callback) {
+            // the next vsync
+            scheduleAt(callback, (now / FRAME_INTERVAL + 1) * FRAME_INTERVAL);
+        }
+
+        private void scheduleAt(Runnable task, long time) {
+            taskTimes.add(new long[]{time, tasks.size()});
+            tasks.add(task);
+        }
+
+        /**
+         * Runs the tasks due until the given time
+         */
+        void advanceTo(long time) {
+            while (!taskTimes.isEmpty() && taskTimes.peek()[0] <= time) {
+                long[] taskTime = taskTimes.poll();
+                now = taskTime[0];
+                wakeups++;
+                tasks.get((int) taskTime[1]).run();
+            }
+            now = Math.max(now, time);
+        }
+    }
+
+    /**
+     * Records the events of the timer with their virtual time
+     */
+    private static class RecordingListener implements QuestionTimerHelper.Listener {
+        private final VirtualLooper looper;
+        final List<Long> updates = new ArrayList<>();
+        long warningTime = -1;
+        long expiryTime = -1;
+        int warnings;
+        int expiries;
+
+        RecordingListener(VirtualLooper looper) {
+            this.looper = looper;
+        }
+
+        @Override
+        public void onTimeUpdate(long remainingTime) {
+            updates.add(remainingTime);
+        }
+
+        @Override
+        public void onWarning() {
+            warnings++;
+            warningTime = looper.currentTimeMillis();
+        }
+
+        @Override
+        public void onExpired() {
+            expiries++;
+            expiryTime = looper.currentTimeMillis();
+        }
+    }
+
+    private static QuestionTimerHelper createTimer(VirtualLooper looper, RecordingListener listener) {
+        return new QuestionTimerHelper(looper, looper, looper, listener, WARNING_TIME);
+    }
+
+    @Test
+    public void deadlines_fireAtTheirExactTime() {
+        VirtualLooper looper = new VirtualLooper();
+        RecordingListener listener = new RecordingListener(looper);
+        looper.advanceTo(5);
+        createTimer(looper, listener).start(QUESTION_DURATION);
+        looper.advanceTo(Long.MAX_VALUE / 2);
+
+        assertEquals(1, listener.warnings);
+        assertEquals(5 + QUESTION_DURATION - WARNING_TIME, listener.warningTime);
+        assertEquals(1, listener.expiries);
+        assertEquals(5 + QUESTION_DURATION, listener.expiryTime);
+        assertEquals(0, (long) listener.updates.get(listener.updates.size() - 1));
+    }
+
+    @Test
+    public void timeUpdates_areAtMostOncePerFrame() {
+        VirtualLooper looper = new VirtualLooper();
+        RecordingListener listener = new RecordingListener(looper);
+        QuestionTimerHelper questionTimer = createTimer(looper, listener);
+        questionTimer.start(QUESTION_DURATION);
+        looper.advanceTo(QUESTION_DURATION);
+
+        long frames = QUESTION_DURATION / FRAME_INTERVAL;
+        assertTrue(questionTimer.getFrameCount() <= frames + 1);
+        assertTrue(listener.updates.size() <= frames + 2);
+        for (int i = 1; i < listener.updates.size(); i++) {
+            assertTrue(listener.updates.get(i) <= listener.updates.get(i - 1));
+        }
+    }
+
+    @Test
+    public void shortQuestion_warnsRightAway() {
+        VirtualLooper looper = new VirtualLooper();
+        RecordingListener listener = new RecordingListener(looper);
+        createTimer(looper, listener).start(WARNING_TIME / 2);
+        looper.advanceTo(0);
+
+        assertEquals(1, listener.warnings);
+        assertEquals(0, listener.warningTime);
+    }
+
+    @Test
+    public void pausedTimer_keepsItsTimeLeft() {
+        VirtualLooper looper = new VirtualLooper();
+        RecordingListener listener = new RecordingListener(looper);
+        QuestionTimerHelper questionTimer = createTimer(looper, listener);
+        questionTimer.start(QUESTION_DURATION);
+
+        looper.advanceTo(4000);
+        questionTimer.pause();
+        assertTrue(questionTimer.isPaused());
+        int updates = listener.updates.size();
+
+        // nothing happens while the activity is in the background
+        looper.advanceTo(60000);
+        assertEquals(QUESTION_DURATION - 4000, questionTimer.getRemainingTime());
+        assertEquals(updates, listener.updates.size());
+        assertEquals(0, listener.warnings);
+        assertEquals(0, listener.expiries);
+
+        questionTimer.resume();
+        assertFalse(questionTimer.isPaused());
+        looper.advanceTo(Long.MAX_VALUE / 2);
+        assertEquals(60000 + QUESTION_DURATION - 4000 - WARNING_TIME, listener.warningTime);
+        assertEquals(60000 + QUESTION_DURATION - 4000, listener.expiryTime);
+        assertEquals(1, listener.warnings);
+        assertEquals(1, listener.expiries);
+    }
+
+    @Test
+    public void cancelledTimer_ignoresItsDeadlines() {
+        VirtualLooper looper = new VirtualLooper();
+        RecordingListener listener = new RecordingListener(looper);
+        QuestionTimerHelper questionTimer = createTimer(looper, listener);
+        questionTimer.start(QUESTION_DURATION);
+        looper.advanceTo(1000);
+        questionTimer.cancel();
+        int updates = listener.updates.size();
+        looper.advanceTo(Long.MAX_VALUE / 2);
+
+        assertEquals(0, listener.warnings);
+        assertEquals(0, listener.expiries);
+        assertEquals(updates, listener.updates.size());
+        assertEquals(0, questionTimer.getRemainingTime());
+    }
+
+    @Test
+    public void mainThread_wakesUpOncePerFrame() {
+        VirtualLooper looper = new VirtualLooper();
+        createTimer(looper, new RecordingListener(looper)).start(QUESTION_DURATION);
+        looper.advanceTo(QUESTION_DURATION);
+
+        // one frame every 16 ms, the warning and the expiry, where a 1 ms countdown would wake up 10000 times
+        assertEquals(QUESTION_DURATION / FRAME_INTERVAL + 2, looper.wakeups);
+    }
+}
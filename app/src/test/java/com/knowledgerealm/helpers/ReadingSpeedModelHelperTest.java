@@ -0,0 +1,61 @@
+package com.knowledgerealm.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Local unit tests for the ReadingSpeedModelHelper.
+ */
+public class ReadingSpeedModelHelperTest {
+    private static final int WORD_COUNT = 20;
+
+    @Test
+    public void unknownPlayer_getsTheAverageReadingSpeed() {
+        ReadingSpeedModelHelper readingSpeedModel = new ReadingSpeedModelHelper();
+        for (int i = 0; i < ReadingSpeedModelHelper.MIN_SAMPLES - 1; i++) {
+            readingSpeedModel.recordAnswer(WORD_COUNT, 1000);
+        }
+
+        assertEquals(TextReadTimeEstimatorHelper.estimateReadTime(WORD_COUNT), readingSpeedModel.getTimeBudget(WORD_COUNT));
+    }
+
+    @Test
+    public void fastPlayer_getsLessTime_slowPlayer_getsMoreTime() {
+        ReadingSpeedModelHelper fastPlayer = new ReadingSpeedModelHelper();
+        ReadingSpeedModelHelper slowPlayer = new ReadingSpeedModelHelper();
+        for (int i = 0; i < 20; i++) {
+            fastPlayer.recordAnswer(WORD_COUNT, WORD_COUNT * 250);
+            slowPlayer.recordAnswer(WORD_COUNT, WORD_COUNT * 700);
+        }
+
+        long averageBudget = TextReadTimeEstimatorHelper.estimateReadTime(WORD_COUNT);
+        assertTrue(fastPlayer.getTimeBudget(WORD_COUNT) < averageBudget);
+        assertTrue(slowPlayer.getTimeBudget(WORD_COUNT) > averageBudget);
+        assertEquals(250, fastPlayer.getMillisPerWord(), 1e-6);
+    }
+
+    @Test
+    public void timeBudget_staysWithinTheSpeedLimits() {
+        ReadingSpeedModelHelper instantPlayer = new ReadingSpeedModelHelper();
+        ReadingSpeedModelHelper idlePlayer = new ReadingSpeedModelHelper();
+        for (int i = 0; i < 20; i++) {
+            instantPlayer.recordAnswer(WORD_COUNT, 0);
+            idlePlayer.recordAnswer(WORD_COUNT, 600000);
+        }
+
+        // 200 and 50 words per minute
+        assertEquals(TextReadTimeEstimatorHelper.estimateReadTime(WORD_COUNT, 300), instantPlayer.getTimeBudget(WORD_COUNT));
+        assertEquals(TextReadTimeEstimatorHelper.estimateReadTime(WORD_COUNT, 1200), idlePlayer.getTimeBudget(WORD_COUNT));
+    }
+
+    @Test
+    public void restoredModel_keepsItsParameters() {
+        ReadingSpeedModelHelper readingSpeedModel = new ReadingSpeedModelHelper();
+        readingSpeedModel.restore(400, 12);
+
+        assertEquals(12, readingSpeedModel.getSampleCount());
+        assertEquals(TextReadTimeEstimatorHelper.estimateReadTime(WORD_COUNT, 600), readingSpeedModel.getTimeBudget(WORD_COUNT));
+    }
+}
@@ -0,0 +1,206 @@
+package com.knowledgerealm.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Local unit tests for the RequestSchedulerHelper, driven by a virtual clock so the rate limit is checked to the millisecond.
+ */
+public class RequestSchedulerHelperTest {
+    private static final String HOST = "opentdb.com";
+    private static final long REFILL_INTERVAL = 5000;
+
+    /**
+     * A clock and a timer that only move when the test advances them
+     */
+    private static class VirtualTimer implements ClockHelper.Clock, ClockHelper.Timer {
+        private final PriorityQueue<ScheduledTask> tasks = new PriorityQueue<>();
+        private long now;
+        private long sequence;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+
+        @Override
+        public void schedule(Runnable task, long delayMillis) {
+            tasks.add(new ScheduledTask(now + delayMillis, sequence++, task));
+        }
+
+        void advanceTo(long time) {
+            while (!tasks.isEmpty() && tasks.peek().time <= time) {
+                ScheduledTask task = tasks.poll();
+                now = task.time;
+                task.task.run();
+            }
+            now = time;
+        }
+    }
+
+    private static class ScheduledTask implements Comparable<ScheduledTask> {
+        final long time;
+        final long sequence;
+        final Runnable task;
+
+        ScheduledTask(long time, long sequence, Runnable task) {
+            this.time = time;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(ScheduledTask other) {
+            return time != other.time ? Long.compare(time, other.time) : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * Records when every network call starts, and lets the test answer them
+     */
+    private static class FakeNetwork {
+        final List<Long> startTimes = new ArrayList<>();
+        final List<CompletableFuture<String>> calls = new ArrayList<>();
+        private final VirtualTimer timer;
+
+        FakeNetwork(VirtualTimer timer) {
+            this.timer = timer;
+        }
+
+        CompletableFuture<String> call() {
+            CompletableFuture<String> call = new CompletableFuture<>();
+            startTimes.add(timer.currentTimeMillis());
+            calls.add(call);
+            return call;
+        }
+    }
+
+    private static RequestSchedulerHelper createScheduler(VirtualTimer timer) {
+        RequestSchedulerHelper requestScheduler = new RequestSchedulerHelper(timer, timer);
+        requestScheduler.setRateLimit(HOST, 1, REFILL_INTERVAL);
+        return requestScheduler;
+    }
+
+    @Test
+    public void limitedHost_spacesTheRequestsByTheRefillInterval() {
+        VirtualTimer timer = new VirtualTimer();
+        FakeNetwork network = new FakeNetwork(timer);
+        RequestSchedulerHelper requestScheduler = createScheduler(timer);
+
+        for (int i = 0; i < 3; i++) {
+            requestScheduler.schedule("https://opentdb.com/api_count.php?category=" + i, network::call);
+        }
+        assertEquals(1, network.startTimes.size());
+        assertEquals(2, requestScheduler.getQueueDepth(HOST));
+
+        timer.advanceTo(4999);
+        assertEquals(1, network.startTimes.size());
+        timer.advanceTo(3 * REFILL_INTERVAL);
+
+        assertEquals(0L, (long) network.startTimes.get(0));
+        assertEquals(REFILL_INTERVAL, (long) network.startTimes.get(1));
+        assertEquals(2 * REFILL_INTERVAL, (long) network.startTimes.get(2));
+        assertEquals(0, requestScheduler.getQueueDepth(HOST));
+        assertEquals(2 * REFILL_INTERVAL, requestScheduler.getLastWaitTime(HOST));
+        assertEquals(3 * REFILL_INTERVAL, requestScheduler.getTotalWaitTime(HOST));
+    }
+
+    @Test
+    public void hostWithoutLimit_isNotQueued() {
+        VirtualTimer timer = new VirtualTimer();
+        FakeNetwork network = new FakeNetwork(timer);
+        RequestSchedulerHelper requestScheduler = createScheduler(timer);
+
+        for (int i = 0; i < 3; i++) {
+            requestScheduler.schedule("https://example.com/" + i, network::call);
+        }
+
+        assertEquals(3, network.startTimes.size());
+        assertEquals(0, requestScheduler.getQueueDepth("example.com"));
+    }
+
+    @Test
+    public void identicalIdempotentRequests_shareOneCall() {
+        VirtualTimer timer = new VirtualTimer();
+        FakeNetwork network = new FakeNetwork(timer);
+        RequestSchedulerHelper requestScheduler = createScheduler(timer);
+        Object decoder = new Object();
+        String url = "https://opentdb.com/api_category.php";
+
+        CompletableFuture<String> first = requestScheduler.schedule(url, decoder, network::call);
+        CompletableFuture<String> second = requestScheduler.schedule(url, decoder, network::call);
+        assertEquals(1, requestScheduler.getInFlightCount());
+        network.calls.get(0).complete("categories");
+
+        assertEquals(1, network.calls.size());
+        assertEquals("categories", first.join());
+        assertEquals("categories", second.join());
+        assertEquals(0, requestScheduler.getInFlightCount());
+
+        // a request after the first one completed is sent again
+        requestScheduler.schedule(url, decoder, network::call);
+        timer.advanceTo(REFILL_INTERVAL);
+        assertEquals(2, network.calls.size());
+    }
+
+    @Test
+    public void identicalQuestionRequests_areNotShared() {
+        VirtualTimer timer = new VirtualTimer();
+        FakeNetwork network = new FakeNetwork(timer);
+        RequestSchedulerHelper requestScheduler = createScheduler(timer);
+        String url = "https://opentdb.com/api.php?amount=10&encode=base64&token=abc";
+
+        CompletableFuture<String> first = requestScheduler.schedule(url, network::call);
+        CompletableFuture<String> second = requestScheduler.schedule(url, network::call);
+        timer.advanceTo(REFILL_INTERVAL);
+        network.calls.get(0).complete("questions 1-10");
+        network.calls.get(1).complete("questions 11-20");
+
+        assertEquals(2, network.calls.size());
+        assertEquals(0, requestScheduler.getInFlightCount());
+        assertEquals("questions 1-10", first.join());
+        assertEquals("questions 11-20", second.join());
+    }
+
+    @Test
+    public void sharedCall_isCancelledOnlyOnceEveryCallerCancelled() {
+        VirtualTimer timer = new VirtualTimer();
+        FakeNetwork network = new FakeNetwork(timer);
+        RequestSchedulerHelper requestScheduler = createScheduler(timer);
+        Object decoder = new Object();
+        String url = "https://opentdb.com/api_category.php";
+
+        CompletableFuture<String> first = requestScheduler.schedule(url, decoder, network::call);
+        CompletableFuture<String> second = requestScheduler.schedule(url, decoder, network::call);
+
+        first.cancel(true);
+        assertFalse(network.calls.get(0).isCancelled());
+        second.cancel(true);
+        assertTrue(network.calls.get(0).isCancelled());
+        assertEquals(0, requestScheduler.getInFlightCount());
+    }
+
+    @Test
+    public void requestCancelledWhileQueued_doesNotUseAToken() {
+        VirtualTimer timer = new VirtualTimer();
+        FakeNetwork network = new FakeNetwork(timer);
+        RequestSchedulerHelper requestScheduler = createScheduler(timer);
+
+        requestScheduler.schedule("https://opentdb.com/api.php?amount=1", network::call);
+        CompletableFuture<String> cancelled = requestScheduler.schedule("https://opentdb.com/api.php?amount=2", network::call);
+        requestScheduler.schedule("https://opentdb.com/api.php?amount=3", network::call);
+        cancelled.cancel(true);
+        timer.advanceTo(2 * REFILL_INTERVAL);
+
+        assertEquals(2, network.startTimes.size());
+        assertEquals(REFILL_INTERVAL, (long) network.startTimes.get(1));
+    }
+}
@@ -0,0 +1,36 @@
+package com.knowledgerealm.helpers;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Local unit tests for the TextReadTimeEstimatorHelper.
+ */
+public class TextReadTimeEstimatorHelperTest {
+    private static final String TEXT = "Which of these planets is the largest in the Solar System? Jupiter Saturn Neptune Earth";
+
+    @Test
+    public void countWords_matchesTheWhitespaceSplit() {
+        String[] texts = {"One", "Two words", "  leading and trailing  ", "tabs\tand\nnew lines", TEXT};
+        for (String text : texts) {
+            assertEquals(text.trim().split("\\s+").length, TextReadTimeEstimatorHelper.countWords(text));
+        }
+    }
+
+    @Test
+    public void countWords_ofBlankText_isZero() {
+        assertEquals(0, TextReadTimeEstimatorHelper.countWords(null));
+        assertEquals(0, TextReadTimeEstimatorHelper.countWords(""));
+        assertEquals(0, TextReadTimeEstimatorHelper.countWords(" \t "));
+    }
+
+    @Test
+    public void estimateReadTime_roundsUpToWholeSeconds() {
+        // 100 words per minute, 0.6 seconds per word
+        assertEquals(1000, TextReadTimeEstimatorHelper.estimateReadTime(1));
+        assertEquals(6000, TextReadTimeEstimatorHelper.estimateReadTime(10));
+        assertEquals(7000, TextReadTimeEstimatorHelper.estimateReadTime(11));
+        assertEquals(TextReadTimeEstimatorHelper.estimateReadTime(15), TextReadTimeEstimatorHelper.estimateReadTime(TEXT));
+    }
+}
@@ -0,0 +1,107 @@
+package com.knowledgerealm.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
+import com.knowledgerealm.enums.TriviaApiEncodingEnum;
+import com.knowledgerealm.models.TriviaQuestion;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Local unit tests for the TriviaResponseDecoderHelper, with api.php responses holding one question of every category
+ * in each of the three encodings. The fixtures encode the same questions, with quotes, ampersands and non-ASCII text.
+ */
+public class TriviaResponseDecoderHelperTest {
+    private static final int FIXTURE_QUESTION_COUNT = TriviaApiCategoriesEnum.values().length - 1;
+
+    @Test
+    public void everyCategory_isDecodedInEveryEncoding() throws IOException {
+        for (TriviaApiEncodingEnum encoding : TriviaApiEncodingEnum.values()) {
+            TriviaResponseHelper triviaResponse = decodeFixture(encoding);
+            assertTrue(triviaResponse.isSuccess());
+            assertEquals(FIXTURE_QUESTION_COUNT, triviaResponse.getTriviaQuestions().size());
+
+            Set<TriviaApiCategoriesEnum> categories = EnumSet.noneOf(TriviaApiCategoriesEnum.class);
+            for (TriviaQuestion triviaQuestion : triviaResponse.getTriviaQuestions()) {
+                assertNotNull(encoding + ": " + triviaQuestion.getQuestion(), triviaQuestion.getCategory());
+                assertNotNull(triviaQuestion.getDifficulty());
+                assertEquals(3, triviaQuestion.getIncorrectAnswers().size());
+                categories.add(triviaQuestion.getCategory());
+            }
+            assertEquals(EnumSet.complementOf(EnumSet.of(TriviaApiCategoriesEnum.NO_CATEGORY)), categories);
+        }
+    }
+
+    @Test
+    public void encodings_decodeToTheSameQuestions() throws IOException {
+        List<TriviaQuestion> defaultQuestions = decodeFixture(TriviaApiEncodingEnum.DEFAULT).getTriviaQuestions();
+        List<TriviaQuestion> base64Questions = decodeFixture(TriviaApiEncodingEnum.BASE64).getTriviaQuestions();
+        List<TriviaQuestion> url3986Questions = decodeFixture(TriviaApiEncodingEnum.URL3986).getTriviaQuestions();
+
+        for (int i = 0; i < FIXTURE_QUESTION_COUNT; i++) {
+            assertSameQuestion(defaultQuestions.get(i), base64Questions.get(i));
+            assertSameQuestion(defaultQuestions.get(i), url3986Questions.get(i));
+        }
+        assertEquals("Who wrote \"Les Misérables\"?", base64Questions.get(1).getQuestion());
+        assertEquals("Which company makes the \"Škoda Octavia\"?", url3986Questions.get(19).getQuestion());
+    }
+
+    @Test
+    public void errorResponse_hasNoQuestions() throws IOException {
+        TriviaResponseHelper triviaResponse = decode("{\"response_code\":1,\"results\":[]}", TriviaApiEncodingEnum.BASE64);
+
+        assertFalse(triviaResponse.isSuccess());
+        assertEquals(1, triviaResponse.getResponseCode());
+        assertTrue(triviaResponse.getTriviaQuestions().isEmpty());
+    }
+
+    @Test
+    public void invalidlyEncodedText_failsTheResponse() {
+        assertInvalid("{\"response_code\":0,\"results\":[{\"question\":\"QUJDR\"}]}", TriviaApiEncodingEnum.BASE64);
+        assertInvalid("{\"response_code\":0,\"results\":[{\"question\":\"QU*D\"}]}", TriviaApiEncodingEnum.BASE64);
+        assertInvalid("{\"response_code\":0,\"results\":[{\"question\":\"100%\"}]}", TriviaApiEncodingEnum.URL3986);
+        assertInvalid("{\"response_code\":0,\"results\":[{\"question\":\"%G1\"}]}", TriviaApiEncodingEnum.URL3986);
+    }
+
+    private static void assertSameQuestion(TriviaQuestion expected, TriviaQuestion actual) {
+        assertEquals(expected.getQuestion(), actual.getQuestion());
+        assertEquals(expected.getCorrectAnswer(), actual.getCorrectAnswer());
+        assertEquals(expected.getIncorrectAnswers(), actual.getIncorrectAnswers());
+        assertEquals(expected.getCategory(), actual.getCategory());
+        assertEquals(expected.getDifficulty(), actual.getDifficulty());
+    }
+
+    private static void assertInvalid(String body, TriviaApiEncodingEnum encoding) {
+        try {
+            decode(body, encoding);
+            fail("Expected an IOException for " + body);
+        } catch (IOException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    private static TriviaResponseHelper decode(String body, TriviaApiEncodingEnum encoding) throws IOException {
+        return TriviaResponseDecoderHelper.decodeQuestions(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), encoding);
+    }
+
+    private TriviaResponseHelper decodeFixture(TriviaApiEncodingEnum encoding) throws IOException {
+        String name = "/fixtures/questions_" + encoding.name().toLowerCase() + ".json";
+        try (InputStream body = getClass().getResourceAsStream(name)) {
+            assertNotNull(name, body);
+            return TriviaResponseDecoderHelper.decodeQuestions(body, encoding);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.knowledgerealm.models;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.knowledgerealm.enums.QuestionPointsEnum;
+import com.knowledgerealm.enums.TriviaApiCategoriesEnum;
+import com.knowledgerealm.enums.TriviaApiDifficultyEnum;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Local unit tests for the immutable TriviaQuestion.
+ */
+public class TriviaQuestionTest {
+    private static TriviaQuestion createQuestion(String question) {
+        return new TriviaQuestion(question, "Correct", Arrays.asList("Wrong 1", "Wrong 2", "Wrong 3"),
+                TriviaApiCategoriesEnum.getEnum(9), TriviaApiDifficultyEnum.MEDIUM);
+    }
+
+    @Test
+    public void getAllAnswersRandomized_isIdempotent() {
+        TriviaQuestion question = createQuestion("Which answer is correct?");
+        List<String> firstAnswers = question.getAllAnswersRandomized();
+
+        for (int i = 0; i < 10; i++) {
+            assertSame(firstAnswers, question.getAllAnswersRandomized());
+        }
+        assertEquals(4, firstAnswers.size());
+        assertEquals(3, question.getIncorrectAnswers().size());
+        assertEquals(new HashSet<>(Arrays.asList("Correct", "Wrong 1", "Wrong 2", "Wrong 3")), new HashSet<>(firstAnswers));
+    }
+
+    @Test
+    public void correctAnswerIndex_pointsToTheCorrectAnswer() {
+        for (int i = 0; i < 100; i++) {
+            TriviaQuestion question = createQuestion("Question " + i);
+            int correctIndex = question.getCorrectAnswerIndex();
+
+            assertEquals("Correct", question.getAnswer(correctIndex));
+            assertEquals("Correct", question.getAllAnswersRandomized().get(correctIndex));
+            for (int answer = 0; answer < question.getAnswerCount(); answer++) {
+                assertEquals(answer == correctIndex, question.isCorrectAnswer(answer));
+            }
+        }
+    }
+
+    @Test
+    public void answerOrder_isDeterministic() {
+        TriviaQuestion question = createQuestion("Same question");
+        TriviaQuestion decodedAgain = createQuestion("Same question");
+
+        assertEquals(question.getAllAnswersRandomized(), decodedAgain.getAllAnswersRandomized());
+        assertEquals(question.getCorrectAnswerIndex(), decodedAgain.getCorrectAnswerIndex());
+    }
+
+    @Test
+    public void answerOrder_isShuffled() {
+        boolean[] correctPositions = new boolean[4];
+        for (int i = 0; i < 100; i++) {
+            correctPositions[createQuestion("Question " + i).getCorrectAnswerIndex()] = true;
+        }
+
+        for (boolean isUsed : correctPositions) {
+            assertTrue(isUsed);
+        }
+    }
+
+    @Test
+    public void question_isNotChangedByItsInput() {
+        List<String> incorrectAnswers = new ArrayList<>(Arrays.asList("Wrong 1", "Wrong 2", "Wrong 3"));
+        TriviaQuestion question = new TriviaQuestion("Question", "Correct", incorrectAnswers);
+        incorrectAnswers.add("Wrong 4");
+
+        assertEquals(3, question.getIncorrectAnswers().size());
+        assertEquals(4, question.getAnswerCount());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void getAllAnswersRandomized_isUnmodifiable() {
+        createQuestion("Question").getAllAnswersRandomized().set(0, "Changed");
+    }
+
+    @Test
+    public void points_areCachedFromTheDifficulty() {
+        assertEquals(QuestionPointsEnum.MEDIUM.getPoints(), createQuestion("Question").getPoints());
+        assertEquals(0, new TriviaQuestion("Question", "Correct").getPoints());
+    }
+
+    @Test
+    public void storedQuestion_keepsTheAnswerOrder() {
+        TriviaQuestion question = createQuestion("Stored question");
+        TriviaQuestion restoredQuestion = StoredQuestion.fromTriviaQuestion(question).toTriviaQuestion();
+
+        assertEquals(question.getAllAnswersRandomized(), restoredQuestion.getAllAnswersRandomized());
+        assertEquals(question.getCorrectAnswerIndex(), restoredQuestion.getCorrectAnswerIndex());
+    }
+}